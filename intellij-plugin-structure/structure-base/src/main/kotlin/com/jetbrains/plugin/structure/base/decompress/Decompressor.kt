@@ -1,5 +1,5 @@
 /*
- * Copyright 2000-2020 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.base.decompress
@@ -11,6 +11,8 @@ import org.apache.commons.compress.compressors.CompressorStreamFactory
 import org.apache.commons.io.input.BoundedInputStream
 import java.io.IOException
 import java.io.InputStream
+import java.io.OutputStream
+import java.nio.file.FileSystem
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.zip.ZipInputStream
@@ -22,18 +24,52 @@ internal sealed class Decompressor(private val outputSizeLimit: Long?) {
   }
 
   @Throws(DecompressorException::class)
-  fun extract(outputDir: Path) {
+  fun extract(outputDir: Path) = decompress(
+    resolve = { entry -> getEntryFile(outputDir, entry) },
+    onDirectory = { outputFile -> outputFile.createDir() },
+    onFile = { entry, outputFile, entryStream ->
+      outputFile.createParentDirs()
+      try {
+        Files.copy(entryStream, outputFile)
+      } catch (_: java.nio.file.FileAlreadyExistsException) {
+        throw DuplicateZipEntryException.ofEntry(entry.name)
+      }
+    }
+  )
+
+  /**
+   * Reads all entries the way [extract] does, but does not write them anywhere.
+   * The archive is rejected for the same reasons: invalid entry names, duplicate files and the exceeded size limit.
+   */
+  @Throws(DecompressorException::class)
+  fun verify() {
+    val fileNames = hashSetOf<String>()
+    decompress(
+      resolve = { entry -> getEntryName(entry) },
+      onDirectory = { },
+      onFile = { entry, fileName, entryStream ->
+        if (!fileNames.add(fileName)) {
+          throw DuplicateZipEntryException.ofEntry(entry.name)
+        }
+        entryStream.transferTo(OutputStream.nullOutputStream())
+      }
+    )
+  }
+
+  /**
+   * Iterates the entries, [resolving][resolve] each of them to a target,
+   * and counts bytes of the file entries consumed by [onFile] against the size limit.
+   */
+  private inline fun <T> decompress(resolve: (Entry) -> T, onDirectory: (T) -> Unit, onFile: (Entry, T, InputStream) -> Unit) {
     openStream()
     try {
       val actualSizeLimit = outputSizeLimit ?: Long.MAX_VALUE
       var remainingSize = actualSizeLimit
       loop@ while (true) {
         val entry = nextEntry() ?: break
-        val outputFile = getEntryFile(outputDir, entry)
+        val target = resolve(entry)
         when (entry.type) {
-          Type.DIR -> {
-            outputFile.createDir()
-          }
+          Type.DIR -> onDirectory(target)
           Type.FILE -> {
             val entryStream = nextEntryStream() ?: continue@loop
             try {
@@ -43,12 +79,7 @@ internal sealed class Decompressor(private val outputSizeLimit: Long?) {
                 .setPropagateClose(false)
                 .get()
 
-              outputFile.createParentDirs()
-              try {
-                Files.copy(countingStream, outputFile)
-              } catch (_: java.nio.file.FileAlreadyExistsException) {
-                throw DuplicateZipEntryException.ofEntry(entry.name)
-              }
+              onFile(entry, target, countingStream)
               remainingSize -= countingStream.count
               if (remainingSize < 0) {
                 throw DecompressorSizeLimitExceededException(actualSizeLimit)
@@ -83,17 +114,25 @@ internal sealed class Decompressor(private val outputSizeLimit: Long?) {
 
 @Throws(DecompressorException::class)
 private fun getEntryFile(outputDir: Path, entry: Decompressor.Entry): Path {
+  val resolvedFile = outputDir.resolve(getEntryName(entry))
+  if (!resolvedFile.normalize().startsWith(outputDir.normalize())) {
+    throw InvalidRelativeEntryNameException.ofEntry(entry.name)
+  }
+  return resolvedFile
+}
+
+/**
+ * Returns the normalized relative path of the [entry] in the archive.
+ */
+@Throws(DecompressorException::class)
+private fun getEntryName(entry: Decompressor.Entry): String {
   val independentEntryName = entry.name.toSystemIndependentName()
   val pathElements = independentEntryName.split("/").filter { it.isNotEmpty() }
   val normalizedEntryName = normalizePathTraversal(entry, pathElements)
   if (pathElements.any { it.length > Decompressor.FILE_NAME_LENGTH_LIMIT }) {
     throw EntryNameTooLongException.ofEntry(entry.name)
   }
-  val resolvedFile = outputDir.resolve(normalizedEntryName)
-  if (!resolvedFile.normalize().startsWith(outputDir.normalize())) {
-    throw InvalidRelativeEntryNameException.ofEntry(entry.name)
-  }
-  return resolvedFile
+  return normalizedEntryName
 }
 
 @Throws(DecompressorException::class)
@@ -145,6 +184,38 @@ internal class ZipDecompressor(private val zipFile: Path, sizeLimit: Long?) : De
   }
 }
 
+/**
+ * Reads the entries of a ZIP archive opened as a [fileSystem], so that the archive can be [verified][verify]
+ * and then read in place instead of being extracted.
+ * The [entryNames] are listed in the central directory of the archive, which is where the file system takes entries from,
+ * so the verified content is exactly the content the file system reads.
+ */
+internal class ZipFileSystemDecompressor(
+  private val fileSystem: FileSystem,
+  private val entryNames: List<String>,
+  sizeLimit: Long?
+) : Decompressor(sizeLimit) {
+  private var entryIndex = 0
+
+  override fun openStream() {
+    entryIndex = 0
+  }
+
+  override fun nextEntry(): Entry? {
+    if (entryIndex == entryNames.size) {
+      return null
+    }
+    val name = entryNames[entryIndex++]
+    return Entry(name, if (name.endsWith('/')) Type.DIR else Type.FILE)
+  }
+
+  override fun nextEntryStream(): InputStream? = Files.newInputStream(fileSystem.getPath(entryNames[entryIndex - 1]))
+
+  override fun closeNextEntryStream(entryStream: InputStream) = entryStream.close()
+
+  override fun closeStream() = Unit
+}
+
 internal class TarDecompressor(private val tarFile: Path, sizeLimit: Long?) : Decompressor(sizeLimit) {
   private var stream: TarArchiveInputStream? = null
 
@@ -12,6 +12,11 @@ import java.nio.file.Paths
 enum class Settings(private val key: String, private val defaultValue: () -> String) {
   EXTRACT_DIRECTORY("intellij.structure.temp.dir", { Paths.get(FileUtils.getTempDirectory().absolutePath).resolve("extracted-plugins").toString() }),
   INTELLIJ_PLUGIN_SIZE_LIMIT("intellij.structure.intellij.plugin.size.limit", { FIVE_GB.toString() }),
+  /**
+   * IntelliJ plugin ZIPs whose entries take at most that many bytes are read in place instead of being extracted.
+   * Jars nested in such a ZIP are held in memory while they are read. `0` disables reading in place.
+   */
+  INTELLIJ_PLUGIN_IN_PLACE_SIZE_LIMIT("intellij.structure.intellij.plugin.in.place.size.limit", { "0" }),
   FLEET_PLUGIN_SIZE_LIMIT("intellij.structure.fleet.plugin.size.limit", { FileUtils.ONE_GB.toString() }),
   TOOLBOX_PLUGIN_SIZE_LIMIT("intellij.structure.toolbox.plugin.size.limit", { FileUtils.ONE_GB.toString() }),
   TEAM_CITY_PLUGIN_SIZE_LIMIT("intellij.structure.team.city.plugin.size.limit", { FileUtils.ONE_GB.toString() }),
@@ -21,7 +26,14 @@ enum class Settings(private val key: String, private val defaultValue: () -> Str
   HUB_PLUGIN_MAX_FILES_NUMBER("intellij.structure.hub.plugin.max.files.number", { 1000.toString() }),
   EDU_PLUGIN_SIZE_LIMIT("intellij.structure.edu.plugin.size.limit", { FileUtils.ONE_GB.toString() }),
   YOUTRACK_PLUGIN_SIZE_LIMIT("intellij.structure.youtrack.plugin.size.limit", { (100 * FileUtils.ONE_MB).toString() }),
-  KTOR_FEATURE_SIZE_LIMIT("intellij.structure.edu.plugin.size.limit", { FileUtils.ONE_GB.toString() });
+  KTOR_FEATURE_SIZE_LIMIT("intellij.structure.edu.plugin.size.limit", { FileUtils.ONE_GB.toString() }),
+  /**
+   * Maximum number of threads that create bundled plugins and modules of an IDE and the resolvers of their classes.
+   * `1` creates them sequentially.
+   */
+  IDE_PLUGIN_LOADING_PARALLELISM("intellij.structure.ide.plugin.loading.parallelism", {
+    Runtime.getRuntime().availableProcessors().coerceAtMost(8).toString()
+  });
 
   fun get(): String = System.getProperty(key) ?: defaultValue()
 
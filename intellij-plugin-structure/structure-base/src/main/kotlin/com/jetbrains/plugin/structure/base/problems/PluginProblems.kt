@@ -24,17 +24,22 @@ val PluginProblem.unwrapped: PluginProblem
  * If this is a reclassified problem, the original problem will be unwrapped and checked.
  */
 val PluginProblem.isInvalidDescriptorProblem: Boolean
-  get() = if (isReclassified()) {
-    unwrapped is InvalidDescriptorProblem
-  } else {
-    this is InvalidDescriptorProblem
-  }
+  get() = unwrapped.isOfClass(InvalidDescriptorProblem::class.java)
 
 val PluginProblem.isError: Boolean
   get() = level == PluginProblem.Level.ERROR
 
 fun PluginProblem.isInstance(pluginProblemClass: KClass<*>): Boolean =
-  pluginProblemClass.isInstance(unwrapped)
+  unwrapped.isOfClass(pluginProblemClass.java)
+
+/**
+ * Class of this problem. For a [restored problem][RestoredPluginProblem], this is the class of the original problem.
+ */
+val PluginProblem.problemClass: Class<out PluginProblem>
+  get() = (this as? RestoredPluginProblem)?.problemClass ?: javaClass
+
+private fun PluginProblem.isOfClass(problemClass: Class<*>): Boolean =
+  problemClass.isAssignableFrom(this.problemClass)
 
 
 private const val PLUGIN_PROBLEM_PACKAGE_DEFAULT_PREFIX = "com.jetbrains.plugin.structure."
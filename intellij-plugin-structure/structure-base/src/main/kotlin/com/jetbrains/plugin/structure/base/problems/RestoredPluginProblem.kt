@@ -0,0 +1,19 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.problems
+
+/**
+ * Plugin problem that stands for a problem of another class, such as a problem restored from a cache,
+ * which keeps the level and the message of the original problem, but not its class.
+ *
+ * The type checks of plugin problems, such as [isInstance] and [isInvalidDescriptorProblem],
+ * treat it as an instance of the [problemClass].
+ */
+interface RestoredPluginProblem {
+  /**
+   * Class of the original problem, or `null` if the class is not available anymore.
+   */
+  val problemClass: Class<out PluginProblem>?
+}
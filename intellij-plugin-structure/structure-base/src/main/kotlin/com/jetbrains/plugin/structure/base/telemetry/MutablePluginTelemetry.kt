@@ -10,8 +10,10 @@ const val PLUGIN_ID = "plugin.id"
 const val PLUGIN_VERSION = "plugin.version"
 const val ARCHIVE_FILE_SIZE = "plugin.archive.file.size"
 const val PARSING_DURATION = "plugin.parsing.duration"
+const val PLUGIN_RESTORED_FROM_CACHE = "plugin.parsing.restored.from.cache"
 const val PLUGIN_VERIFICATION_TIME = "plugin.verification.duration"
 const val PLUGIN_VERIFIED_CLASSES_COUNT = "plugin.verification.verified.classes.count"
+const val PLUGIN_REPLAYED_CLASSES_COUNT = "plugin.verification.replayed.classes.count"
 const val UNKNOWN_SIZE: Bytes = -1
 
 class MutablePluginTelemetry : PluginTelemetry() {
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.utils
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.base.utils.charseq.SpecialCharSequence
+
+private const val EMPTY_SLOT = 0
+
+private const val MAX_LATIN1 = 0xFF
+
+/**
+ * Set of class names packed into a single array.
+ *
+ * A name is stored as a range of the [bytes] array, or of the [chars] array once a name contains a character
+ * that does not fit into a byte, like [String] does with compact strings. A name is found by an open-addressing hash table of name indices,
+ * so that the set holds a handful of arrays regardless of the number of names,
+ * instead of a map entry, a string and a char sequence wrapper per name.
+ * Names are compared by content with any [CharSequence], including [String] queries.
+ *
+ * Elements of the set are [views][ArenaCharSequence] of the packed names, which are created on access.
+ *
+ * The arena is not thread safe while names are [added][add], and may be read concurrently afterwards.
+ */
+class BinaryClassNameArena(expectedSize: Int = 16) : AbstractSet<BinaryClassName>() {
+  /**
+   * Latin-1 characters of the names, or `null` after the names are inflated into [chars].
+   */
+  private var bytes: ByteArray? = ByteArray(expectedSize.coerceAtLeast(1) * 32)
+
+  private var chars: CharArray? = null
+
+  private var charCount = 0
+
+  /**
+   * Name `i` occupies characters `offsets[i] until offsets[i + 1]`.
+   */
+  private var offsets = IntArray(expectedSize.coerceAtLeast(1) + 1)
+
+  private var hashes = IntArray(expectedSize.coerceAtLeast(1))
+
+  private var count = 0
+
+  /**
+   * Slots contain the name index plus one, or [EMPTY_SLOT].
+   */
+  private var table = IntArray(tableSizeFor(expectedSize))
+
+  override val size: Int
+    get() = count
+
+  /**
+   * Adds the [name] to the set. Returns `false` if the set already contains it.
+   */
+  fun add(name: CharSequence): Boolean {
+    val hash = SpecialCharSequence.stringHashCode(name, 0, name.length)
+    val mask = table.size - 1
+    var slot = mix(hash) and mask
+    while (table[slot] != EMPTY_SLOT) {
+      if (matches(table[slot] - 1, name, hash)) {
+        return false
+      }
+      slot = (slot + 1) and mask
+    }
+    val index = append(name, hash)
+    table[slot] = index + 1
+    if (count * 2 > table.size) {
+      rehash(table.size * 2)
+    }
+    return true
+  }
+
+  fun indexOf(name: CharSequence): Int {
+    val hash = SpecialCharSequence.stringHashCode(name, 0, name.length)
+    val mask = table.size - 1
+    var slot = mix(hash) and mask
+    while (table[slot] != EMPTY_SLOT) {
+      val index = table[slot] - 1
+      if (matches(index, name, hash)) {
+        return index
+      }
+      slot = (slot + 1) and mask
+    }
+    return -1
+  }
+
+  override fun contains(element: BinaryClassName): Boolean = indexOf(element) >= 0
+
+  operator fun get(index: Int): BinaryClassName {
+    if (index !in 0 until count) {
+      throw IndexOutOfBoundsException("Index out of bounds: $index")
+    }
+    return ArenaCharSequence(index, offsets[index], offsets[index + 1])
+  }
+
+  override fun iterator(): Iterator<BinaryClassName> = object : Iterator<BinaryClassName> {
+    private var index = 0
+
+    override fun hasNext() = index < count
+
+    override fun next(): BinaryClassName {
+      if (!hasNext()) throw NoSuchElementException()
+      return get(index++)
+    }
+  }
+
+  /**
+   * Releases the spare capacity of the arrays once all names are added.
+   */
+  fun trimToSize() {
+    bytes = bytes?.copyOf(charCount)
+    chars = chars?.copyOf(charCount)
+    offsets = offsets.copyOf(count + 1)
+    hashes = hashes.copyOf(count)
+  }
+
+  private fun append(name: CharSequence, hash: Int): Int {
+    val index = count
+    if (index + 1 >= offsets.size) {
+      offsets = offsets.copyOf(offsets.size * 2)
+    }
+    if (index >= hashes.size) {
+      hashes = hashes.copyOf(maxOf(1, hashes.size * 2))
+    }
+    val bytes = bytes
+    if (bytes != null && name.all { it.code <= MAX_LATIN1 }) {
+      val array = ensureCapacity(bytes, name.length)
+      for (i in name.indices) {
+        array[charCount + i] = name[i].code.toByte()
+      }
+    } else {
+      val array = ensureCapacity(chars ?: inflate(), name.length)
+      for (i in name.indices) {
+        array[charCount + i] = name[i]
+      }
+    }
+    charCount += name.length
+    hashes[index] = hash
+    offsets[index + 1] = charCount
+    count++
+    return index
+  }
+
+  private fun matches(index: Int, name: CharSequence, hash: Int): Boolean {
+    if (hashes[index] != hash) {
+      return false
+    }
+    val start = offsets[index]
+    if (offsets[index + 1] - start != name.length) {
+      return false
+    }
+    for (i in name.indices) {
+      if (charAt(start + i) != name[i]) {
+        return false
+      }
+    }
+    return true
+  }
+
+  private fun charAt(position: Int): Char {
+    val bytes = bytes
+    return if (bytes != null) (bytes[position].toInt() and 0xFF).toChar() else chars!![position]
+  }
+
+  private fun ensureCapacity(array: ByteArray, length: Int): ByteArray {
+    if (charCount + length <= array.size) {
+      return array
+    }
+    return array.copyOf(maxOf(array.size * 2, charCount + length)).also { bytes = it }
+  }
+
+  private fun ensureCapacity(array: CharArray, length: Int): CharArray {
+    if (charCount + length <= array.size) {
+      return array
+    }
+    return array.copyOf(maxOf(array.size * 2, charCount + length)).also { chars = it }
+  }
+
+  private fun inflate(): CharArray {
+    val bytes = bytes!!
+    val inflated = CharArray(bytes.size)
+    for (i in 0 until charCount) {
+      inflated[i] = (bytes[i].toInt() and 0xFF).toChar()
+    }
+    this.bytes = null
+    chars = inflated
+    return inflated
+  }
+
+  private fun rehash(newSize: Int) {
+    val newTable = IntArray(newSize)
+    val mask = newSize - 1
+    for (index in 0 until count) {
+      var slot = mix(hashes[index]) and mask
+      while (newTable[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) and mask
+      }
+      newTable[slot] = index + 1
+    }
+    table = newTable
+  }
+
+  /**
+   * View of a name packed into the arena.
+   * The view reads the current arrays, which may be reallocated or inflated while names are added.
+   */
+  private inner class ArenaCharSequence(
+    private val index: Int,
+    private val startIndex: Int,
+    private val endIndex: Int
+  ) : SpecialCharSequence() {
+    override val length: Int
+      get() = endIndex - startIndex
+
+    override fun get(index: Int): Char {
+      if (index !in indices) {
+        throw IndexOutOfBoundsException("Index out of bounds: $index")
+      }
+      return charAt(startIndex + index)
+    }
+
+    override fun subSequence(startIndex: Int, endIndex: Int): CharSequence {
+      if (startIndex < 0 || endIndex > length || startIndex > endIndex) {
+        throw IndexOutOfBoundsException("Invalid subSequence range: $startIndex, $endIndex")
+      }
+      return ArenaCharSequence(-1, this.startIndex + startIndex, this.startIndex + endIndex)
+    }
+
+    override fun computeHashCode(): Int = if (index >= 0) hashes[index] else super.computeHashCode()
+
+    override fun toString(): String {
+      val bytes = bytes
+      return if (bytes != null) String(bytes, startIndex, length, Charsets.ISO_8859_1) else String(chars!!, startIndex, length)
+    }
+  }
+
+  private companion object {
+    fun tableSizeFor(expectedSize: Int): Int = Integer.highestOneBit(expectedSize.coerceAtLeast(4) * 4 - 1)
+
+    /**
+     * Spreads the bits of string hash codes, whose low bits are similar for names with a common prefix.
+     */
+    fun mix(hash: Int): Int {
+      val h = hash * -0x61c88647
+      return h xor (h ushr 16)
+    }
+  }
+}
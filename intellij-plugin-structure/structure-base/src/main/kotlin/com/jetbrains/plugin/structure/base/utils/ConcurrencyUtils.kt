@@ -139,4 +139,62 @@ class ExecutorWithProgress<T>(
     }
   }
 
-}
\ No newline at end of file
+}
+
+/**
+ * Creates a pool of daemon threads named after the [executorName], which creates threads on demand
+ * and releases them once they stay idle, so that it may be shared by infrequent [mapConcurrently] calls.
+ */
+fun newDaemonThreadPool(executorName: String): ExecutorService {
+  val nameCounter = AtomicInteger()
+  return Executors.newCachedThreadPool { r ->
+    Thread(r).apply {
+      isDaemon = true
+      name = executorName + "_" + nameCounter.incrementAndGet().toString()
+    }
+  }
+}
+
+/**
+ * Applies the [transform] to the elements on at most [parallelism] threads of the shared [executor].
+ *
+ * The results are in the order of the elements, regardless of the order in which the tasks complete.
+ * If the [transform] fails, no further elements are mapped and the exception of the first failed element
+ * in that order is rethrown once the elements being mapped are done.
+ */
+@Throws(InterruptedException::class)
+fun <T, R> List<T>.mapConcurrently(executor: ExecutorService, parallelism: Int, transform: (T) -> R): List<R> {
+  val workersNumber = minOf(parallelism, size)
+  if (workersNumber <= 1) {
+    return map(transform)
+  }
+  val results = arrayOfNulls<Any?>(size)
+  val exceptions = arrayOfNulls<Throwable>(size)
+  val nextIndex = AtomicInteger()
+  val failedIndex = AtomicInteger(size)
+  val worker = Runnable {
+    while (true) {
+      // elements are taken in order, so the elements preceding a failed one are all taken
+      val index = nextIndex.getAndIncrement()
+      if (index >= failedIndex.get()) {
+        break
+      }
+      try {
+        results[index] = transform(this[index])
+      } catch (e: Throwable) {
+        exceptions[index] = e
+        failedIndex.accumulateAndGet(index, ::minOf)
+      }
+    }
+  }
+  val futures = (1..workersNumber).map { executor.submit(worker) }
+  try {
+    futures.forEach { it.get() }
+  } catch (e: InterruptedException) {
+    futures.forEach { it.cancel(true) }
+    throw e
+  }
+  exceptions.firstOrNull { it != null }?.let { throw it }
+  @Suppress("UNCHECKED_CAST")
+  return results.asList() as List<R>
+}
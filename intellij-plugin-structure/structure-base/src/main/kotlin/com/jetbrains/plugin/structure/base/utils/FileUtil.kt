@@ -20,6 +20,7 @@ import java.nio.file.FileVisitResult
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.SimpleFileVisitor
+import java.nio.file.StandardCopyOption
 import java.nio.file.attribute.BasicFileAttributes
 import java.util.stream.Collectors
 
@@ -81,6 +82,30 @@ fun Path.writeBytes(bytes: ByteArray) {
   Files.write(this, bytes)
 }
 
+/**
+ * Replaces this file with the content written by [write] to a temporary file in the same directory.
+ * The temporary file is moved atomically where the file system supports it,
+ * so concurrent readers see either the previous content or the new one, never a partially written file.
+ */
+@Throws(IOException::class)
+fun Path.writeAtomically(write: (OutputStream) -> Unit) {
+  createParentDirs()
+  val tempFile = Files.createTempFile(toAbsolutePath().parent, fileName.toString(), ".tmp")
+  try {
+    Files.newOutputStream(tempFile).use(write)
+    try {
+      Files.move(tempFile, this, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    } catch (e: IOException) {
+      Files.move(tempFile, this, StandardCopyOption.REPLACE_EXISTING)
+    }
+  } finally {
+    tempFile.deleteQuietly()
+  }
+}
+
+@Throws(IOException::class)
+fun Path.writeBytesAtomically(bytes: ByteArray) = writeAtomically { it.write(bytes) }
+
 fun Path.createDir(): Path {
   Files.createDirectories(this)
   return this
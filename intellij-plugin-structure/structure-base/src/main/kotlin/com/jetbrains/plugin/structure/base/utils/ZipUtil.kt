@@ -1,12 +1,18 @@
 /*
- * Copyright 2000-2020 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.base.utils
 
+import com.jetbrains.plugin.structure.base.decompress.DecompressorException
 import com.jetbrains.plugin.structure.base.decompress.TarDecompressor
 import com.jetbrains.plugin.structure.base.decompress.ZipCompressor
 import com.jetbrains.plugin.structure.base.decompress.ZipDecompressor
+import com.jetbrains.plugin.structure.base.decompress.ZipFileSystemDecompressor
+import com.jetbrains.plugin.structure.base.zip.ZipCentralDirectory
+import java.io.IOException
+import java.nio.file.FileSystem
+import java.nio.file.FileSystems
 import java.nio.file.Path
 
 fun extractZip(pluginFile: Path, destination: Path, outputSizeLimit: Long? = null): Path {
@@ -15,6 +21,23 @@ fun extractZip(pluginFile: Path, destination: Path, outputSizeLimit: Long? = nul
   return destination
 }
 
+/**
+ * Opens the [zipFile] as a file system, so that it is read in place instead of being [extracted][extractZip].
+ *
+ * All entries are read once the way [extractZip] reads them, without writing them anywhere,
+ * so the archive is rejected with the same [DecompressorException]s, including the protection against ZIP bombs
+ * by the [outputSizeLimit] of the total size of the entries.
+ * The caller must close the file system and must not modify it, as modifications are written to the [zipFile] on close.
+ */
+@Throws(IOException::class)
+fun openZip(zipFile: Path, outputSizeLimit: Long? = null): FileSystem {
+  val entryNames = ZipCentralDirectory.read(zipFile).entries.map { it.name.toString() }
+  return FileSystems.newFileSystem(zipFile, null as ClassLoader?).closeOnException { fileSystem ->
+    ZipFileSystemDecompressor(fileSystem, entryNames, outputSizeLimit).verify()
+    fileSystem
+  }
+}
+
 fun Path.extractTo(destination: Path, outputSizeLimit: Long? = null): Path {
   val decompressor = when {
     simpleName.endsWith(".zip") || simpleName.endsWith(".sit") -> ZipDecompressor(this, outputSizeLimit)
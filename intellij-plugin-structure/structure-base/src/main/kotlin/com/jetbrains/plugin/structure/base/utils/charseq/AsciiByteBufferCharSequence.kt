@@ -0,0 +1,47 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.utils.charseq
+
+import java.nio.ByteBuffer
+
+/**
+ * View of ASCII bytes of a [buffer] as characters, without decoding them into a string.
+ *
+ * The buffer is accessed by absolute indices only, so views of the same buffer may be read concurrently.
+ */
+class AsciiByteBufferCharSequence(private val buffer: ByteBuffer, private val startIndex: Int, private val endIndex: Int) :
+  SpecialCharSequence() {
+
+  init {
+    if (startIndex < 0 || endIndex > buffer.limit() || startIndex > endIndex) {
+      throw IndexOutOfBoundsException("Invalid start or end index: $startIndex, $endIndex")
+    }
+  }
+
+  override val length: Int
+    get() = endIndex - startIndex
+
+  override fun get(index: Int): Char {
+    if (index !in indices) {
+      throw IndexOutOfBoundsException("Index out of bounds: $index")
+    }
+    return (buffer.get(startIndex + index).toInt() and 0xFF).toChar()
+  }
+
+  override fun subSequence(startIndex: Int, endIndex: Int): CharSequence {
+    if (startIndex < 0 || endIndex > length || startIndex > endIndex) {
+      throw IndexOutOfBoundsException("Invalid subSequence range: $startIndex, $endIndex")
+    }
+    return AsciiByteBufferCharSequence(buffer, this.startIndex + startIndex, this.startIndex + endIndex)
+  }
+
+  override fun toString(): String {
+    val bytes = ByteArray(length)
+    for (i in bytes.indices) {
+      bytes[i] = buffer.get(startIndex + i)
+    }
+    return String(bytes, Charsets.US_ASCII)
+  }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.zip
+
+import com.jetbrains.plugin.structure.base.utils.charseq.AsciiByteBufferCharSequence
+import com.jetbrains.plugin.structure.base.utils.charseq.CharBufferCharSequence
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.channels.SeekableByteChannel
+import java.nio.charset.CharacterCodingException
+import java.nio.charset.CodingErrorAction
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+private const val END_SIGNATURE = 0x06054b50
+private const val END_HEADER_SIZE = 22
+private const val MAX_COMMENT_SIZE = 0xFFFF
+
+private const val ZIP64_END_LOCATOR_SIGNATURE = 0x07064b50
+private const val ZIP64_END_LOCATOR_SIZE = 20
+private const val ZIP64_END_SIGNATURE = 0x06064b50
+private const val ZIP64_END_HEADER_SIZE = 56
+private const val ZIP64_EXTRA_ID = 0x0001
+
+private const val CENTRAL_SIGNATURE = 0x02014b50
+private const val CENTRAL_HEADER_SIZE = 46
+
+private const val FLAG_ENCRYPTED = 0x1
+private const val FLAG_DATA_DESCRIPTOR = 0x8
+
+private const val UINT16_MAX = 0xFFFF
+private const val UINT32_MAX = 0xFFFFFFFFL
+
+/**
+ * Entries of a ZIP archive read from its central directory.
+ *
+ * The central directory is memory-mapped (read to the heap on Windows, where a mapped file cannot be deleted
+ * until the mapping is garbage collected), and the ASCII entry names are [views][AsciiByteBufferCharSequence]
+ * of the mapping, so that listing a jar allocates neither `ZipEntry` objects nor strings for names.
+ * Only the central directory is mapped, so archives larger than 2 GB are supported.
+ * An archive on another file system, such as a jar nested in a plugin ZIP opened as a file system,
+ * is read by a byte channel, because a `FileChannel` of such a file is usually backed by a temporary copy.
+ *
+ * Sizes and offsets of the entries are taken from the central directory, including its ZIP64 extensions,
+ * so entries written with data descriptors are read correctly.
+ *
+ * The reader is stricter than [java.util.zip.ZipFile]: an archive it rejects with a [ZipException]
+ * may still be readable by the `ZipFile`, which should be used as a fallback.
+ */
+class ZipCentralDirectory private constructor(val entries: List<Entry>) {
+
+  /**
+   * Entry of the central directory.
+   *
+   * @param name the name of the entry, decoded as UTF-8
+   * @param localHeaderOffset the offset of the local file header of the entry in the archive file
+   */
+  class Entry(
+    val name: CharSequence,
+    val method: Int,
+    val flags: Int,
+    val crc: Long,
+    val compressedSize: Long,
+    val size: Long,
+    val localHeaderOffset: Long
+  ) {
+    val isDirectory: Boolean
+      get() = name.endsWith('/')
+
+    /**
+     * Sizes and CRC of the entry are written after its data and are not present in its local file header.
+     */
+    val hasDataDescriptor: Boolean
+      get() = flags and FLAG_DATA_DESCRIPTOR != 0
+
+    fun toZipEntry(): ZipEntry = ZipEntry(name.toString()).also {
+      it.method = method
+      it.crc = crc
+      it.compressedSize = compressedSize
+      it.size = size
+    }
+
+    override fun toString() = name.toString()
+  }
+
+  companion object {
+    private val isWindows = System.getProperty("os.name", "").startsWith("Windows", ignoreCase = true)
+
+    @Throws(IOException::class)
+    fun read(zipPath: Path): ZipCentralDirectory {
+      if (zipPath.fileSystem != FileSystems.getDefault()) {
+        return Files.newByteChannel(zipPath, StandardOpenOption.READ).use { read(ChannelSource(it)) }
+      }
+      return FileChannel.open(zipPath, StandardOpenOption.READ).use { read(ChannelSource(it)) }
+    }
+
+    /**
+     * Reads the central directory of the archive whose content is the [content] from its position to its limit.
+     * Offsets of the entries are relative to the position.
+     */
+    @Throws(ZipException::class)
+    fun read(content: ByteBuffer): ZipCentralDirectory = read(BufferSource(content.slice().order(ByteOrder.LITTLE_ENDIAN)))
+
+    private fun read(source: Source): ZipCentralDirectory {
+      val end = findEnd(source)
+      val centralDirectory = source.readRegion(end.centralDirectoryPosition, end.centralDirectorySize)
+      return ZipCentralDirectory(readEntries(centralDirectory, end))
+    }
+
+    /**
+     * Bytes of an archive, which are read either from a channel or from a buffer.
+     */
+    private interface Source {
+      val size: Long
+
+      fun readFully(position: Long, size: Int): ByteBuffer
+
+      /**
+       * Returns a region of the archive, which may be mapped rather than read.
+       */
+      fun readRegion(position: Long, size: Long): ByteBuffer = readFully(position, size.toInt())
+    }
+
+    private class ChannelSource(private val channel: SeekableByteChannel) : Source {
+      override val size: Long = channel.size()
+
+      override fun readFully(position: Long, size: Int): ByteBuffer {
+        val buffer = ByteBuffer.allocate(size)
+        while (buffer.hasRemaining()) {
+          val count = if (channel is FileChannel) {
+            channel.read(buffer, position + buffer.position())
+          } else {
+            channel.position(position + buffer.position()).read(buffer)
+          }
+          if (count < 0) {
+            throw ZipException("unexpected end of zip file")
+          }
+        }
+        buffer.flip()
+        return buffer.order(ByteOrder.LITTLE_ENDIAN)
+      }
+
+      override fun readRegion(position: Long, size: Long): ByteBuffer {
+        if (channel !is FileChannel || isWindows) {
+          return readFully(position, size.toInt())
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN)
+      }
+    }
+
+    private class BufferSource(private val content: ByteBuffer) : Source {
+      override val size: Long
+        get() = content.limit().toLong()
+
+      override fun readFully(position: Long, size: Int): ByteBuffer {
+        if (position < 0 || position + size > content.limit()) {
+          throw ZipException("unexpected end of zip file")
+        }
+        val region = content.duplicate()
+        region.position(position.toInt()).limit(position.toInt() + size)
+        return region.slice().order(ByteOrder.LITTLE_ENDIAN)
+      }
+    }
+
+    private class End(
+      val entryCount: Long,
+      val centralDirectoryPosition: Long,
+      val centralDirectorySize: Long,
+      /**
+       * Number of bytes prepended to the archive, such as a launcher of a self-extracting archive.
+       * Offsets recorded in the archive are relative to the end of them.
+       */
+      val prefixSize: Long
+    )
+
+    private fun findEnd(source: Source): End {
+      val fileSize = source.size
+      if (fileSize < END_HEADER_SIZE) {
+        throw ZipException("zip file is too short: $fileSize bytes")
+      }
+      val tailSize = minOf(fileSize, (END_HEADER_SIZE + MAX_COMMENT_SIZE + ZIP64_END_LOCATOR_SIZE).toLong()).toInt()
+      val tailPosition = fileSize - tailSize
+      val tail = source.readFully(tailPosition, tailSize)
+      for (endOffset in tailSize - END_HEADER_SIZE downTo 0) {
+        if (tail.getInt(endOffset) != END_SIGNATURE) {
+          continue
+        }
+        val commentSize = tail.getUInt16(endOffset + 20)
+        if (endOffset + END_HEADER_SIZE + commentSize > tailSize) {
+          continue
+        }
+        if (tail.getUInt16(endOffset + 4) != 0 || tail.getUInt16(endOffset + 6) != 0) {
+          throw ZipException("split archives are not supported")
+        }
+        val endPosition = tailPosition + endOffset
+        val entryCount = tail.getUInt16(endOffset + 10).toLong()
+        val centralDirectorySize = tail.getUInt32(endOffset + 12)
+        val centralDirectoryOffset = tail.getUInt32(endOffset + 16)
+        if (endOffset >= ZIP64_END_LOCATOR_SIZE && tail.getInt(endOffset - ZIP64_END_LOCATOR_SIZE) == ZIP64_END_LOCATOR_SIGNATURE) {
+          val zip64EndPosition = tail.getLong(endOffset - ZIP64_END_LOCATOR_SIZE + 8)
+          readZip64End(source, zip64EndPosition, endPosition, entryCount, centralDirectorySize, centralDirectoryOffset)?.let {
+            return it
+          }
+        }
+        return createEnd(entryCount, endPosition, centralDirectorySize, centralDirectoryOffset)
+      }
+      throw ZipException("zip END header not found")
+    }
+
+    /**
+     * Reads the ZIP64 END record at [zip64EndPosition] the same way [java.util.zip.ZipFile] does:
+     * the record is used only if its values agree with the values of the END record that are not overflowed.
+     */
+    private fun readZip64End(
+      source: Source,
+      zip64EndPosition: Long,
+      endPosition: Long,
+      entryCount: Long,
+      centralDirectorySize: Long,
+      centralDirectoryOffset: Long
+    ): End? {
+      if (zip64EndPosition < 0 || zip64EndPosition + ZIP64_END_HEADER_SIZE > endPosition) {
+        return null
+      }
+      val zip64End = source.readFully(zip64EndPosition, ZIP64_END_HEADER_SIZE)
+      if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+        return null
+      }
+      val zip64EntryCount = zip64End.getLong(32)
+      val zip64CentralDirectorySize = zip64End.getLong(40)
+      val zip64CentralDirectoryOffset = zip64End.getLong(48)
+      if (zip64CentralDirectorySize != centralDirectorySize && centralDirectorySize != UINT32_MAX
+        || zip64CentralDirectoryOffset != centralDirectoryOffset && centralDirectoryOffset != UINT32_MAX
+        || zip64EntryCount != entryCount && entryCount != UINT16_MAX.toLong()
+      ) {
+        return null
+      }
+      return createEnd(zip64EntryCount, zip64EndPosition, zip64CentralDirectorySize, zip64CentralDirectoryOffset)
+    }
+
+    private fun createEnd(entryCount: Long, endPosition: Long, centralDirectorySize: Long, centralDirectoryOffset: Long): End {
+      val centralDirectoryPosition = endPosition - centralDirectorySize
+      val prefixSize = centralDirectoryPosition - centralDirectoryOffset
+      if (centralDirectoryPosition < 0 || prefixSize < 0) {
+        throw ZipException("invalid END header (bad central directory offset)")
+      }
+      if (centralDirectorySize > Int.MAX_VALUE) {
+        throw ZipException("central directory is too large: $centralDirectorySize bytes")
+      }
+      return End(entryCount, centralDirectoryPosition, centralDirectorySize, prefixSize)
+    }
+
+    private fun readEntries(centralDirectory: ByteBuffer, end: End): List<Entry> {
+      val limit = centralDirectory.limit()
+      val entries = ArrayList<Entry>(minOf(end.entryCount, (limit / CENTRAL_HEADER_SIZE).toLong()).toInt())
+      var position = 0
+      while (position + CENTRAL_HEADER_SIZE <= limit) {
+        if (centralDirectory.getInt(position) != CENTRAL_SIGNATURE) {
+          throw ZipException("invalid CEN header (bad signature)")
+        }
+        val flags = centralDirectory.getUInt16(position + 8)
+        val method = centralDirectory.getUInt16(position + 10)
+        val nameLength = centralDirectory.getUInt16(position + 28)
+        val extraLength = centralDirectory.getUInt16(position + 30)
+        val commentLength = centralDirectory.getUInt16(position + 32)
+        val namePosition = position + CENTRAL_HEADER_SIZE
+        val nextPosition = namePosition + nameLength + extraLength + commentLength
+        if (nextPosition > limit) {
+          throw ZipException("invalid CEN header (bad header size)")
+        }
+        if (flags and FLAG_ENCRYPTED != 0) {
+          throw ZipException("invalid CEN header (encrypted entry)")
+        }
+        if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+          throw ZipException("invalid CEN header (bad compression method: $method)")
+        }
+        var compressedSize = centralDirectory.getUInt32(position + 20)
+        var size = centralDirectory.getUInt32(position + 24)
+        var localHeaderOffset = centralDirectory.getUInt32(position + 42)
+        if (compressedSize == UINT32_MAX || size == UINT32_MAX || localHeaderOffset == UINT32_MAX) {
+          val zip64Extra = findZip64Extra(centralDirectory, namePosition + nameLength, extraLength)
+          var extraPosition = zip64Extra.first
+          val extraEnd = extraPosition + zip64Extra.second
+          fun nextZip64Value(): Long {
+            if (extraPosition + 8 > extraEnd) {
+              throw ZipException("invalid CEN header (bad zip64 extra)")
+            }
+            return centralDirectory.getLong(extraPosition).also { extraPosition += 8 }
+          }
+          if (size == UINT32_MAX) size = nextZip64Value()
+          if (compressedSize == UINT32_MAX) compressedSize = nextZip64Value()
+          if (localHeaderOffset == UINT32_MAX) localHeaderOffset = nextZip64Value()
+        }
+        val absoluteLocalHeaderOffset = localHeaderOffset + end.prefixSize
+        if (size < 0 || compressedSize < 0 || localHeaderOffset < 0 || absoluteLocalHeaderOffset >= end.centralDirectoryPosition) {
+          throw ZipException("invalid CEN header (bad entry size or offset)")
+        }
+        val name = decodeName(centralDirectory, namePosition, nameLength)
+        val crc = centralDirectory.getUInt32(position + 16)
+        entries += Entry(name, method, flags, crc, compressedSize, size, absoluteLocalHeaderOffset)
+        position = nextPosition
+      }
+      if (position != limit) {
+        throw ZipException("invalid CEN header (bad header size)")
+      }
+      return entries
+    }
+
+    /**
+     * Returns the position and the size of the data of the ZIP64 extended information extra field.
+     */
+    private fun findZip64Extra(centralDirectory: ByteBuffer, extraPosition: Int, extraLength: Int): Pair<Int, Int> {
+      var position = extraPosition
+      val extraEnd = extraPosition + extraLength
+      while (position + 4 <= extraEnd) {
+        val id = centralDirectory.getUInt16(position)
+        val dataSize = centralDirectory.getUInt16(position + 2)
+        if (position + 4 + dataSize > extraEnd) {
+          break
+        }
+        if (id == ZIP64_EXTRA_ID) {
+          return position + 4 to dataSize
+        }
+        position += 4 + dataSize
+      }
+      throw ZipException("invalid CEN header (missing zip64 extra)")
+    }
+
+    private fun decodeName(centralDirectory: ByteBuffer, namePosition: Int, nameLength: Int): CharSequence {
+      val nameEnd = namePosition + nameLength
+      for (i in namePosition until nameEnd) {
+        if (centralDirectory.get(i) < 0) {
+          val name = try {
+            Charsets.UTF_8.newDecoder()
+              .onMalformedInput(CodingErrorAction.REPORT)
+              .onUnmappableCharacter(CodingErrorAction.REPORT)
+              .decode(centralDirectory.duplicate().position(namePosition).limit(nameEnd) as ByteBuffer)
+          } catch (e: CharacterCodingException) {
+            throw ZipException("invalid CEN header (bad entry name)")
+          }
+          return CharBufferCharSequence(name, 0, name.length)
+        }
+      }
+      return AsciiByteBufferCharSequence(centralDirectory, namePosition, nameEnd)
+    }
+
+    private fun ByteBuffer.getUInt16(index: Int): Int = getShort(index).toInt() and UINT16_MAX
+
+    private fun ByteBuffer.getUInt32(index: Int): Long = getInt(index).toLong() and UINT32_MAX
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.zip
+
+import com.jetbrains.plugin.structure.base.utils.BinaryClassNameArena
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.zip.DataFormatException
+import java.util.zip.Inflater
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+private const val LOCAL_SIGNATURE = 0x04034b50
+private const val LOCAL_HEADER_SIZE = 30
+
+/**
+ * Entries larger than that are left to [java.util.zip.ZipFile].
+ */
+private const val MAX_ENTRY_SIZE = Int.MAX_VALUE - 8
+
+/**
+ * Reads whole entries of a ZIP archive into arrays of their exact uncompressed size.
+ *
+ * The content of the archive is either memory-mapped or, for an archive nested in another one, held in memory.
+ * Entries are located by the [central directory][ZipCentralDirectory], so a read allocates nothing
+ * but the resulting array: a deflated entry is inflated straight from the content
+ * by an [Inflater] reused by the calling thread, and a stored entry is copied from the content.
+ * Reads of a mapping, unlike reads of a [FileChannel], do not close the file when the reading thread is interrupted.
+ *
+ * The reader covers archives that [ZipCentralDirectory] accepts and that fit into a single buffer.
+ * [read] returns `null` for absent entries and for entries whose local header does not match their central directory record,
+ * including the name of the entry, which should be read by [java.util.zip.ZipFile] instead.
+ *
+ * The reader is safe to use from multiple threads.
+ */
+internal class ZipEntryReader private constructor(content: ByteBuffer, private val index: Index) {
+  private val content: ByteBuffer = content.order(ByteOrder.LITTLE_ENDIAN)
+
+  /**
+   * Locations of the entries of an archive built from its [central directory][ZipCentralDirectory].
+   *
+   * The index does not depend on the content of the archive, so it may outlive a mapping of the archive
+   * and be [shared][create] by its subsequent mappings.
+   */
+  class Index(entries: List<ZipCentralDirectory.Entry>) {
+    internal val names = BinaryClassNameArena(entries.size)
+
+    internal val localHeaderOffsets = IntArray(entries.size)
+
+    internal val compressedSizes = IntArray(entries.size)
+
+    /**
+     * Uncompressed sizes of entries, or `-1` for entries that are not read by the reader.
+     */
+    internal val sizes = IntArray(entries.size)
+
+    internal val methods = ByteArray(entries.size)
+
+    init {
+      for (entry in entries) {
+        // The last of duplicate entries wins, as in ZipFile.
+        val index = if (names.add(entry.name)) names.size - 1 else names.indexOf(entry.name)
+        val isReadable = !entry.isDirectory
+          && entry.size <= MAX_ENTRY_SIZE
+          && entry.compressedSize <= MAX_ENTRY_SIZE
+          && entry.localHeaderOffset <= Int.MAX_VALUE
+        localHeaderOffsets[index] = if (isReadable) entry.localHeaderOffset.toInt() else 0
+        compressedSizes[index] = if (isReadable) entry.compressedSize.toInt() else 0
+        sizes[index] = if (isReadable) entry.size.toInt() else -1
+        methods[index] = entry.method.toByte()
+      }
+      names.trimToSize()
+    }
+
+    companion object {
+      /**
+       * Reads the index of the archive at [zipPath], or returns `null` if the archive is not supported by the reader.
+       */
+      fun read(zipPath: Path): Index? {
+        return try {
+          Index(ZipCentralDirectory.read(zipPath).entries)
+        } catch (e: IOException) {
+          null
+        }
+      }
+    }
+  }
+
+  operator fun contains(entryName: CharSequence): Boolean = index.names.indexOf(entryName) >= 0
+
+  /**
+   * Returns the content of the entry or `null` if it is absent or should be read by [java.util.zip.ZipFile].
+   */
+  fun read(entryName: CharSequence): ByteArray? {
+    val entryIndex = index.names.indexOf(entryName)
+    if (entryIndex < 0 || index.sizes[entryIndex] < 0) {
+      return null
+    }
+    val headerOffset = index.localHeaderOffsets[entryIndex]
+    if (headerOffset.toLong() + LOCAL_HEADER_SIZE > content.limit() || content.getInt(headerOffset) != LOCAL_SIGNATURE) {
+      return null
+    }
+    val nameLength = content.getShort(headerOffset + 26).toInt() and 0xFFFF
+    val extraLength = content.getShort(headerOffset + 28).toInt() and 0xFFFF
+    if (!hasLocalName(headerOffset + LOCAL_HEADER_SIZE, nameLength, entryName)) {
+      return null
+    }
+    val dataOffset = headerOffset.toLong() + LOCAL_HEADER_SIZE + nameLength + extraLength
+    val compressedSize = index.compressedSizes[entryIndex]
+    if (dataOffset + compressedSize > content.limit()) {
+      return null
+    }
+    val data = content.duplicate().position(dataOffset.toInt()).limit(dataOffset.toInt() + compressedSize) as ByteBuffer
+    val entryContent = ByteArray(index.sizes[entryIndex])
+    return when (index.methods[entryIndex].toInt()) {
+      ZipEntry.STORED -> if (compressedSize == entryContent.size) entryContent.also { data.get(it) } else null
+      ZipEntry.DEFLATED -> if (inflate(data, entryContent)) entryContent else null
+      else -> null
+    }
+  }
+
+  /**
+   * Checks that the local header, whose name of [nameLength] bytes starts at [nameOffset], is the header of the [entryName].
+   * ASCII names are compared byte by byte, other names are decoded as UTF-8 like in the central directory.
+   */
+  private fun hasLocalName(nameOffset: Int, nameLength: Int, entryName: CharSequence): Boolean {
+    if (nameOffset.toLong() + nameLength > content.limit()) {
+      return false
+    }
+    if (nameLength == entryName.length) {
+      var isAscii = true
+      for (i in 0 until nameLength) {
+        val byte = content.get(nameOffset + i).toInt()
+        if (byte < 0 || entryName[i].code >= 0x80) {
+          isAscii = false
+          break
+        }
+        if (byte != entryName[i].code) {
+          return false
+        }
+      }
+      if (isAscii) {
+        return true
+      }
+    }
+    val localName = content.duplicate().position(nameOffset).limit(nameOffset + nameLength) as ByteBuffer
+    return Charsets.UTF_8.decode(localName).contentEquals(entryName)
+  }
+
+  /**
+   * Inflates the [data] into the [content] and returns `true` if it is inflated to exactly [content] size.
+   */
+  private fun inflate(data: ByteBuffer, content: ByteArray): Boolean {
+    val inflater = INFLATER.get()
+    try {
+      inflater.setInput(data)
+      var inflated = 0
+      while (inflated < content.size) {
+        val count = inflater.inflate(content, inflated, content.size - inflated)
+        if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          return false
+        }
+        inflated += count
+      }
+      // The end of the deflated stream may remain unprocessed once the content is full.
+      return inflater.finished() || inflater.inflate(EXCESS_CONTENT) == 0 && inflater.finished()
+    } catch (e: DataFormatException) {
+      return false
+    } finally {
+      // Also releases the input, so that the inflater does not keep the archive content reachable.
+      inflater.reset()
+    }
+  }
+
+  companion object {
+    private val INFLATER: ThreadLocal<Inflater> = ThreadLocal.withInitial { Inflater(true) }
+
+    /**
+     * Receives content beyond the size of an entry, which is never read, so it is shared by all threads.
+     */
+    private val EXCESS_CONTENT = ByteArray(1)
+
+    /**
+     * Creates a reader of the archive at [zipPath], or returns `null` if the archive is not supported by the reader.
+     */
+    fun create(zipPath: Path): ZipEntryReader? = Index.read(zipPath)?.let { create(zipPath, it) }
+
+    /**
+     * Creates a reader of the archive at [zipPath] whose entries are located by the [index] built before,
+     * or returns `null` if the archive is not supported by the reader.
+     */
+    fun create(zipPath: Path, index: Index): ZipEntryReader? {
+      return try {
+        val mapping = FileChannel.open(zipPath, StandardOpenOption.READ).use { channel ->
+          if (channel.size() > Int.MAX_VALUE) {
+            return null
+          }
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+        }
+        ZipEntryReader(mapping, index)
+      } catch (e: IOException) {
+        null
+      }
+    }
+
+    /**
+     * Creates a reader of the archive whose content is the [archiveContent],
+     * or returns `null` if the archive is not supported by the reader.
+     */
+    fun of(archiveContent: ByteArray): ZipEntryReader? {
+      return try {
+        val centralDirectory = ZipCentralDirectory.read(ByteBuffer.wrap(archiveContent))
+        ZipEntryReader(ByteBuffer.wrap(archiveContent), Index(centralDirectory.entries))
+      } catch (e: ZipException) {
+        null
+      }
+    }
+  }
+}
@@ -15,8 +15,19 @@ import java.util.zip.ZipEntry
 import java.util.zip.ZipException
 import java.util.zip.ZipFile
 
-class ZipFileHandler(private val zipFile: File) : ZipHandler<ZipResource.ZipFileResource> {
-  constructor(zipPath: Path) : this(zipPath.toFile())
+class ZipFileHandler private constructor(
+  private val zipFile: File,
+  centralDirectory: ZipCentralDirectory?
+) : ZipHandler<ZipResource.ZipFileResource> {
+  constructor(zipFile: File) : this(zipFile, null)
+
+  constructor(zipPath: Path) : this(zipPath.toFile(), null)
+
+  /**
+   * Creates a handler that builds its [ZipEntryReader] from the [centralDirectory] read from the archive before,
+   * instead of reading the central directory again.
+   */
+  constructor(zipPath: Path, centralDirectory: ZipCentralDirectory) : this(zipPath.toFile(), centralDirectory)
 
   @Throws(ZipArchiveException::class)
   override fun <T> iterate(handler: (ZipEntry, ZipResource.ZipFileResource) -> T?): List<T> {
@@ -42,12 +53,72 @@ class ZipFileHandler(private val zipFile: File) : ZipHandler<ZipResource.ZipFile
     }
   }
 
+  /**
+   * Reads the entry by the [ZipEntryReader] of the archive, falling back to the `ZipFile`
+   * on Windows, where the archive is not kept open, and for entries the reader does not cover.
+   */
+  @Throws(ZipArchiveException::class)
+  override fun readEntry(entryName: CharSequence): ByteArray? = withZipHolder { zip, holder ->
+    holder?.entryReader?.read(entryName)
+      ?: zip.getEntry(entryName.toString())?.let { entry ->
+        zip.getInputStream(entry).use { it.readEntryContent(entry) }
+      }
+  }
+
   override fun containsEntry(entryName: CharSequence): Boolean = withZip { zip ->
     zip.getEntry(entryName.toString()) != null
   }
 
   private var zipFileHolderRef: Reference<ZipFileHolder>? = null
 
+  /**
+   * Central directory passed by the creator of the handler, which is released once the [entry index][getEntryIndex] is built.
+   */
+  private var centralDirectory: ZipCentralDirectory? = centralDirectory
+
+  /**
+   * Index of the [ZipEntryReader], which is shared by the subsequent holders of the `ZipFile`,
+   * so that reopening the archive once a holder is collected maps the archive again but does not parse its central directory.
+   * The index is held by a soft reference and is built again once it has been collected
+   * or once the size or the modification time of the archive differs from its [stamp][StampedEntryIndex.stamp].
+   */
+  private var entryIndexRef: SoftReference<StampedEntryIndex>? = null
+
+  /**
+   * Stamp of the archive when it was found not supported by the [ZipEntryReader].
+   */
+  private var unsupportedEntryIndexStamp: FileStamp? = null
+
+  @Synchronized
+  private fun getEntryIndex(): ZipEntryReader.Index? {
+    val stamp = FileStamp(zipFile)
+    if (stamp == unsupportedEntryIndexStamp) {
+      return null
+    }
+    entryIndexRef?.get()?.takeIf { it.stamp == stamp }?.let { return it.index }
+    val centralDirectory = centralDirectory
+    this.centralDirectory = null
+    val entryIndex = if (centralDirectory != null) {
+      ZipEntryReader.Index(centralDirectory.entries)
+    } else {
+      ZipEntryReader.Index.read(zipFile.toPath())
+    }
+    if (entryIndex == null) {
+      entryIndexRef = null
+      unsupportedEntryIndexStamp = stamp
+      return null
+    }
+    entryIndexRef = SoftReference(StampedEntryIndex(entryIndex, stamp))
+    unsupportedEntryIndexStamp = null
+    return entryIndex
+  }
+
+  private class StampedEntryIndex(val index: ZipEntryReader.Index, val stamp: FileStamp)
+
+  private data class FileStamp(val size: Long, val lastModified: Long) {
+    constructor(file: File) : this(file.length(), file.lastModified())
+  }
+
   /**
    * Either opens new `ZipFile` or reuses existing one stored under [reference][zipFileHolderRef] (WeakReference or SoftReference).
    * `ZipFileHolder` used to perform `ZipFile` closing once it's no longer reachable from GC roots.
@@ -77,22 +148,27 @@ class ZipFileHandler(private val zipFile: File) : ZipHandler<ZipResource.ZipFile
       if (holder != null) {
         return holder to ref!!
       }
-      holder = ZipFileHolder(ZipFile(zipFile))
+      holder = ZipFileHolder(ZipFile(zipFile), zipFile.toPath(), ::getEntryIndex)
       ref = createReference(holder)
       zipFileHolderRef = ref
       return holder to ref
     }
   }
 
-  private inline fun <R> withZip(block: (ZipFile) -> R): R {
+  private inline fun <R> withZip(block: (ZipFile) -> R): R = withZipHolder { zip, _ -> block(zip) }
+
+  /**
+   * Invokes the [block] with the `ZipFile` and its [ZipFileHolder], which is `null` on Windows.
+   */
+  private inline fun <R> withZipHolder(block: (ZipFile, ZipFileHolder?) -> R): R {
     return try {
       if (isWindows) {
         ZipFile(zipFile).use { zip ->
-          block.invoke(zip)
+          block.invoke(zip, null)
         }
       } else {
         val (holder, ref) = getActiveHolder()
-        val result = block.invoke(holder.zipFile)
+        val result = block.invoke(holder.zipFile, holder)
 
         //region Tricks to keep both ZipFileHolder and reference alive, so it won't be garbage collected
         // It's OK to access zipFileHolderRef without synchronization here.
@@ -131,8 +207,15 @@ class ZipFileHandler(private val zipFile: File) : ZipHandler<ZipResource.ZipFile
 /**
  * Holder for ZipFile. Although it implements AutoCloseable, we don't use that.
  * Once there are no more references to ZipFileHolder, ZipFile will be closed by Cleaner
+ *
+ * The holder also keeps the [ZipEntryReader] of the archive, which is created on the first read of an entry
+ * from the index provided by the [ZipFileHandler] and is `null` if the archive is not supported by the reader.
  */
-private class ZipFileHolder(zipFile: ZipFile) : AutoCloseable {
+private class ZipFileHolder(
+  zipFile: ZipFile,
+  zipPath: Path,
+  entryIndexProvider: () -> ZipEntryReader.Index?
+) : AutoCloseable {
   private val state: State = State(zipFile)
   private val cleanable: Cleaner.Cleanable = CLEANER.register(this, state)
 
@@ -151,4 +234,6 @@ private class ZipFileHolder(zipFile: ZipFile) : AutoCloseable {
   }
 
   val zipFile get() = state.zipFile
+
+  val entryReader: ZipEntryReader? by lazy { entryIndexProvider()?.let { ZipEntryReader.create(zipPath, it) } }
 }
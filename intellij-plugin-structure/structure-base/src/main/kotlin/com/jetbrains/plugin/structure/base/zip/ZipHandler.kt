@@ -1,9 +1,10 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.base.zip
 
+import java.io.InputStream
 import java.nio.file.FileSystems
 import java.nio.file.Path
 import java.util.zip.ZipEntry
@@ -30,6 +31,18 @@ interface ZipHandler<Z: ZipResource> {
   @Throws(ZipArchiveException::class)
   fun <T> handleEntry(entryName: CharSequence, handler: (ZipEntry, Z) -> T?): T?
 
+  /**
+   * Reads the whole content of the entry with the corresponding filename.
+   *
+   * @param entryName the name of the ZIP entry, usually a filename, to find in the ZIP
+   * @return the content of the entry, or `null` if the ZIP does not contain such an entry
+   * @throws ZipArchiveException when a ZIP archive is malformed or an I/O error occurred while reading it
+   */
+  @Throws(ZipArchiveException::class)
+  fun readEntry(entryName: CharSequence): ByteArray? = handleEntry(entryName) { entry, resource ->
+    resource.getInputStream(entry).readEntryContent(entry)
+  }
+
   /**
    * Indicates if the ZIP file contains an entry with the corresponding filename.
    *
@@ -61,6 +74,12 @@ interface ZipHandler<Z: ZipResource> {
   }
 }
 
+/**
+ * Reads the content of the [entry] into an array of its exact size when the size is known.
+ */
+internal fun InputStream.readEntryContent(entry: ZipEntry): ByteArray =
+  if (entry.size in 0..Int.MAX_VALUE - 8) readNBytes(entry.size.toInt()) else readBytes()
+
 fun Path.newZipHandler(): ZipHandler<out ZipResource> {
   return if (supportsFile()) {
     ZipFileHandler(this)
@@ -69,4 +88,15 @@ fun Path.newZipHandler(): ZipHandler<out ZipResource> {
   }
 }
 
+/**
+ * Creates a handler of the archive that reuses the [centralDirectory] read from the archive before, if the handler reads it.
+ */
+fun Path.newZipHandler(centralDirectory: ZipCentralDirectory?): ZipHandler<out ZipResource> {
+  return if (centralDirectory != null && supportsFile()) {
+    ZipFileHandler(this, centralDirectory)
+  } else {
+    newZipHandler()
+  }
+}
+
 private fun Path.supportsFile() = fileSystem == FileSystems.getDefault()
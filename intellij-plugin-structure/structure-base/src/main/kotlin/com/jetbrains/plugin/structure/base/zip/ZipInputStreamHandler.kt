@@ -1,14 +1,17 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.base.zip
 
+import java.lang.ref.SoftReference
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.zip.ZipEntry
 import java.util.zip.ZipInputStream
 
+private const val MAX_IN_MEMORY_ARCHIVE_SIZE = Int.MAX_VALUE - 8L
+
 class ZipInputStreamHandler(private val zipPath: Path) : ZipHandler<ZipResource.ZipStreamResource> {
   override fun <T> iterate(handler: (ZipEntry, ZipResource.ZipStreamResource) -> T?): List<T> {
     return zipPath.useZipInputStream { zipInputStream ->
@@ -35,6 +38,33 @@ class ZipInputStreamHandler(private val zipPath: Path) : ZipHandler<ZipResource.
     }
   }
 
+  /**
+   * Reads the entry from the content of the archive held in memory,
+   * so that reading many entries does not scan the archive from its start for each of them.
+   * The content is held by a soft reference and is read again once it has been collected.
+   *
+   * The archive is usually a jar nested in another archive opened as a file system,
+   * which inflates the whole jar to open a stream of it anyway.
+   */
+  override fun readEntry(entryName: CharSequence): ByteArray? {
+    val entryReader = getEntryReader() ?: return super.readEntry(entryName)
+    if (entryName !in entryReader) {
+      return null
+    }
+    return entryReader.read(entryName) ?: super.readEntry(entryName)
+  }
+
+  private var entryReaderRef: SoftReference<ZipEntryReader>? = null
+
+  @Synchronized
+  private fun getEntryReader(): ZipEntryReader? {
+    entryReaderRef?.get()?.let { return it }
+    if (Files.size(zipPath) > MAX_IN_MEMORY_ARCHIVE_SIZE) {
+      return null
+    }
+    return ZipEntryReader.of(Files.readAllBytes(zipPath))?.also { entryReaderRef = SoftReference(it) }
+  }
+
   override fun containsEntry(entryName: CharSequence): Boolean {
     return zipPath.useZipInputStream { zipInputStream ->
       zipInputStream
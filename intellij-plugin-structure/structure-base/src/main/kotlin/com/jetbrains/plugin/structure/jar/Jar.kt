@@ -4,6 +4,7 @@
 
 package com.jetbrains.plugin.structure.jar
 
+import com.jetbrains.plugin.structure.base.utils.BinaryClassNameArena
 import com.jetbrains.plugin.structure.base.utils.charseq.CharBufferCharSequence
 import com.jetbrains.plugin.structure.base.utils.charseq.CharReplacingCharSequence
 import com.jetbrains.plugin.structure.base.utils.getBundleBaseName
@@ -11,16 +12,19 @@ import com.jetbrains.plugin.structure.base.utils.isFile
 import com.jetbrains.plugin.structure.base.utils.occurrences
 import com.jetbrains.plugin.structure.base.zip.MalformedZipArchiveException
 import com.jetbrains.plugin.structure.base.zip.ZipArchiveIOException
+import com.jetbrains.plugin.structure.base.zip.ZipCentralDirectory
+import com.jetbrains.plugin.structure.base.zip.ZipHandler
+import com.jetbrains.plugin.structure.base.zip.ZipResource
 import com.jetbrains.plugin.structure.base.zip.newZipHandler
 import com.jetbrains.plugin.structure.jar.Jar.DescriptorType.*
 import com.jetbrains.plugin.structure.jar.JarEntryResolver.Key
 import com.jetbrains.plugin.structure.jar.descriptors.Descriptor
 import com.jetbrains.plugin.structure.jar.descriptors.ModuleDescriptorReference
 import com.jetbrains.plugin.structure.jar.descriptors.PluginDescriptorReference
-import gnu.trove.THashMap
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import java.io.IOException
+import java.lang.ref.WeakReference
 import java.nio.CharBuffer
 import java.nio.file.FileSystem
 import java.nio.file.Files
@@ -53,14 +57,12 @@ class Jar(
 ) : AutoCloseable {
 
   /**
-   * Regular HashMap cannot be used there since it uses `given != null && given.equals(stored)` in `getNode` and we mostly pass `String` as `given`
-   * while `stored` is a CharSequence, so it cannot find anything.
-   *
-   * THashMap uses `stored != null && stored.equals(given)`, so with custom `equals` of all our `SpecialCharSequence`'s, it works fine.
+   * Names of classes packed into an arena, which compares them by content with both strings and char sequences.
+   * The path of a class in the jar is its name with the [CLASS_SUFFIX].
    */
-  private val classesInJar: MutableMap<CharSequence, PathInJar> = THashMap()
+  private val classesInJar = BinaryClassNameArena()
 
-  val classes: Set<CharSequence> get() = classesInJar.keys
+  val classes: Set<CharSequence> get() = classesInJar
 
   val packages: Packages by lazy {
     Packages().apply {
@@ -93,16 +95,27 @@ class Jar(
 
   val entryResolverResults: MutableMap<Key<*>, MutableList<Any?>> = mutableMapOf()
 
+  /**
+   * Central directory read by [init], which is handed over to the [handler][newZipHandler] of the jar if it is still reachable.
+   * It is held weakly, so that jars whose entries are never read do not retain it.
+   */
+  private var centralDirectoryRef: WeakReference<ZipCentralDirectory>? = null
+
   @Throws(JarArchiveException::class)
   fun init(): Jar = apply {
+    if (scanCentralDirectory()) {
+      classesInJar.trimToSize()
+      return@apply
+    }
     try {
       jarPath
         .newZipHandler()
         .iterate { zipEntry, zipResource ->
           if (!zipEntry.isDirectory) {
-            scan(zipEntry)
+            scan(PathWithinJar.of(zipEntry)) { zipEntry }
           }
         }
+      classesInJar.trimToSize()
     } catch (e: MalformedZipArchiveException) {
       throw JarArchiveException("JAR archive malformed at [$jarPath]: ${e.message} ", e)
     } catch (e: ZipArchiveIOException) {
@@ -114,11 +127,41 @@ class Jar(
     }
   }
 
+  /**
+   * Scans the entries listed in the central directory of the jar, which is much cheaper than iterating a `ZipFile`.
+   * Returns `false` if the central directory cannot be read, and the jar must be scanned by the `ZipFile`,
+   * which either accepts the archive or reports the error.
+   */
+  private fun scanCentralDirectory(): Boolean {
+    val centralDirectory = try {
+      ZipCentralDirectory.read(jarPath)
+    } catch (e: IOException) {
+      LOG.debug("Central directory of [{}] cannot be read: {}", jarPath, e.message)
+      return false
+    }
+    for (entry in centralDirectory.entries) {
+      if (!entry.isDirectory) {
+        scan(PathWithinJar(entry.name)) { entry.toZipEntry() }
+      }
+    }
+    centralDirectoryRef = WeakReference(centralDirectory)
+    return true
+  }
+
+  /**
+   * Creates a handler reading the entries of the jar, which reuses the central directory read by [init], if any.
+   */
+  fun newZipHandler(): ZipHandler<out ZipResource> {
+    val centralDirectory = centralDirectoryRef?.get()
+    centralDirectoryRef = null
+    return jarPath.newZipHandler(centralDirectory)
+  }
+
   fun processAllClasses(processor: (String, Path) -> Boolean): Boolean {
     return getFileSystem().use { _ ->
-      classesInJar.all { (className, classFilePath) ->
+      classesInJar.all { className ->
         getFileSystem().use { classFs ->
-          val nested = classFs.getPath(classFilePath.toString())
+          val nested = classFs.getPath(className.toString() + CLASS_SUFFIX)
           if (nested.isFile) {
             processor(className.toString(), nested)
           } else {
@@ -133,7 +176,8 @@ class Jar(
 
   fun containsClass(className: String) = className in classes
 
-  private fun getPath(className: String): PathInJar? = classesInJar[className]
+  private fun getPath(className: String): PathInJar? =
+    if (className in classesInJar) className + CLASS_SUFFIX else null
 
   private fun getFileSystem(): FileSystem {
     return fileSystemProvider.getFileSystem(jarPath)
@@ -149,10 +193,9 @@ class Jar(
     // NO-OP
   }
 
-  private fun scan(zipEntry: ZipEntry) {
-    val path = PathWithinJar.of(zipEntry)
+  private fun scan(path: PathWithinJar, zipEntry: () -> ZipEntry) {
     if (path.isClass()) {
-      handleClass(resolveClass(path), path.path)
+      handleClass(resolveClass(path))
     } else if (path.isResourceBundle()) {
       handleResourceBundle(resolveBundleName(path))
     } else if (path.hasServiceProviders()) {
@@ -160,10 +203,11 @@ class Jar(
     } else {
       val descriptorType = path.matchesDescriptor()
       if (descriptorType != NO_MATCH) {
-        handleDescriptorCandidate(zipEntry, path, descriptorType)
-      } else {
+        handleDescriptorCandidate(path, descriptorType)
+      } else if (entryResolvers.isNotEmpty()) {
+        val resolvedZipEntry = zipEntry()
         entryResolvers.forEach { resolver ->
-          resolver.resolve(path.path, zipEntry)?.let {
+          resolver.resolve(path.path, resolvedZipEntry)?.let {
             entryResolverResults.getOrPut(resolver.key) { mutableListOf() } += it
           }
         }
@@ -171,8 +215,8 @@ class Jar(
     }
   }
 
-  private fun handleClass(className: CharSequence, classPath: PathInJar) {
-    classesInJar[className] = classPath
+  private fun handleClass(className: CharSequence) {
+    classesInJar.add(className)
   }
 
   private fun handleResourceBundle(resourceBundleName: CharSequence) {
@@ -205,16 +249,11 @@ class Jar(
   }
 
   private fun resolveBundleName(path: PathWithinJar): CharSequence {
-    val pathBuf = path.path
-    val neitherPrefixNoSuffix = if (pathBuf.endsWith(RESOURCE_BUNDLE_SUFFIX)) {
-      CharBufferCharSequence(pathBuf, 0, pathBuf.length - RESOURCE_BUNDLE_SUFFIX.length)
-    } else {
-      pathBuf
-    }
+    val neitherPrefixNoSuffix = path.removeSuffix(RESOURCE_BUNDLE_SUFFIX)
     return CharReplacingCharSequence(neitherPrefixNoSuffix, JAR_PATH_SEPARATOR_CHAR, RESOURCE_BUNDLE_SEPARATOR)
   }
 
-  private fun handleDescriptorCandidate(zipEntry: ZipEntry, path: PathWithinJar, descriptorType: DescriptorType) {
+  private fun handleDescriptorCandidate(path: PathWithinJar, descriptorType: DescriptorType) {
     when (descriptorType) {
       PLUGIN -> descriptorCandidates += PluginDescriptorReference(jarPath, path.path)
       MODULE -> descriptorCandidates += ModuleDescriptorReference(jarPath, path.path)
@@ -248,10 +287,16 @@ class Jar(
   /**
    * Paths in ZipEntry are always using forward slash aka [JAR_PATH_SEPARATOR_CHAR]
    * and never start with it.
+   *
+   * The [path] is a [SpecialCharSequence][com.jetbrains.plugin.structure.base.utils.charseq.SpecialCharSequence],
+   * so that its subsequences are views that can be compared with strings.
    */
-  private data class PathWithinJar(val path: CharBuffer) {
+  private data class PathWithinJar(val path: CharSequence) {
     companion object {
-      fun of(zipEntry: ZipEntry) = PathWithinJar(CharBuffer.wrap(zipEntry.name))
+      fun of(zipEntry: ZipEntry): PathWithinJar {
+        val name = CharBuffer.wrap(zipEntry.name)
+        return PathWithinJar(CharBufferCharSequence(name, 0, name.length))
+      }
     }
 
     fun isClass(): Boolean = path.endsWith(CLASS_SUFFIX)
@@ -260,12 +305,12 @@ class Jar(
 
     fun removePrefix(prefix: String): CharSequence {
       if (!path.startsWith(prefix)) return path
-      return CharBufferCharSequence(path, prefix.length, path.length)
+      return path.subSequence(prefix.length, path.length)
     }
 
     fun removeSuffix(suffix: CharSequence): CharSequence {
       if (!path.endsWith(suffix)) return path
-      return CharBufferCharSequence(path, 0, path.length - suffix.length)
+      return path.subSequence(0, path.length - suffix.length)
     }
 
     override fun toString(): String = path.toString()
@@ -4,14 +4,31 @@
 
 package com.jetbrains.plugin.structure.jar
 
-import com.jetbrains.plugin.structure.base.utils.trie.Trie
-import com.jetbrains.plugin.structure.base.utils.trie.TrieTraversals.getInsertions
-import com.jetbrains.plugin.structure.base.utils.trie.TrieTraversals.getAllNodes
+import java.util.BitSet
+import java.util.TreeMap
 
 typealias BinaryPackageName = String
 
+private const val PACKAGE_SEPARATOR = '/'
+
+/**
+ * Set of binary package names that also contains all their parent packages.
+ *
+ * Packages are kept in a [flattened trie][FlatPackageTrie] of a few arrays. Packages added since the last query
+ * are buffered and merged into the trie by the next query, so that adding all packages of a jar and then
+ * querying them rebuilds the trie once. Queries may be performed concurrently.
+ */
 class Packages {
-  private val trie = Trie<Boolean>()
+  @Volatile
+  private var trie = FlatPackageTrie.EMPTY
+
+  /**
+   * Packages added since the trie was built. Guarded by `this`.
+   */
+  private var pendingPackages: MutableSet<String>? = null
+
+  @Volatile
+  private var hasPendingPackages = false
 
   fun addClass(binaryClassName: CharSequence) {
     val pkg = binaryClassName.lastIndexOf('/')
@@ -23,14 +40,185 @@ class Packages {
   }
 
   fun addPackage(binaryPackageName: CharSequence) {
-    trie.insert(binaryPackageName)
+    synchronized(this) {
+      val pending = pendingPackages ?: hashSetOf<String>().also { pendingPackages = it }
+      pending += binaryPackageName.toString()
+      hasPendingPackages = true
+    }
   }
 
-  operator fun contains(packageName: BinaryPackageName): Boolean = trie.contains(packageName)
+  operator fun contains(packageName: BinaryPackageName): Boolean = getTrie().contains(packageName)
 
   val entries: Set<BinaryPackageName>
-    get() = trie.getInsertions()
+    get() = getTrie().getPackages(onlyAdded = true)
 
   val all: Set<BinaryPackageName>
-    get() = trie.getAllNodes()
-}
\ No newline at end of file
+    get() = getTrie().getPackages(onlyAdded = false)
+
+  private fun getTrie(): FlatPackageTrie {
+    if (!hasPendingPackages) {
+      return trie
+    }
+    synchronized(this) {
+      val pending = pendingPackages
+      if (pending != null) {
+        trie = trie.withPackages(pending)
+        pendingPackages = null
+        hasPendingPackages = false
+      }
+      return trie
+    }
+  }
+}
+
+/**
+ * Immutable trie of package name components stored in arrays.
+ *
+ * Nodes are numbered in breadth-first order, starting with the root, which stands for the default package.
+ * Children of a node are consecutive and sorted by their [component][components] names,
+ * so a child is found by a binary search.
+ */
+private class FlatPackageTrie(
+  private val components: Array<String>,
+  private val parents: IntArray,
+  private val firstChildren: IntArray,
+  private val childCounts: IntArray,
+  /**
+   * Nodes of packages that have been added, rather than being only parents of added packages.
+   */
+  private val added: BitSet
+) {
+  private val nodeCount: Int
+    get() = components.size
+
+  /**
+   * Returns `true` if the package or any of its subpackages has been added.
+   * The default package is always contained.
+   */
+  fun contains(packageName: CharSequence): Boolean {
+    var node = 0
+    var start = 0
+    while (start < packageName.length) {
+      var end = packageName.indexOf(PACKAGE_SEPARATOR, start)
+      if (end == -1) {
+        end = packageName.length
+      }
+      if (end > start) {
+        node = findChild(node, packageName, start, end)
+        if (node == -1) {
+          return false
+        }
+      }
+      start = end + 1
+    }
+    return true
+  }
+
+  fun getPackages(onlyAdded: Boolean): Set<BinaryPackageName> {
+    val packages = HashSet<BinaryPackageName>()
+    if (added[0]) {
+      packages += ""
+    }
+    for (node in 1 until nodeCount) {
+      if (!onlyAdded || added[node]) {
+        packages += getPackageName(node)
+      }
+    }
+    return packages
+  }
+
+  fun withPackages(packages: Set<String>): FlatPackageTrie {
+    val root = Node()
+    for (node in 0 until nodeCount) {
+      if (added[node]) {
+        root.insert(getPackageName(node))
+      }
+    }
+    packages.forEach { root.insert(it) }
+    return build(root)
+  }
+
+  private fun findChild(node: Int, packageName: CharSequence, start: Int, end: Int): Int {
+    var low = firstChildren[node]
+    var high = low + childCounts[node] - 1
+    while (low <= high) {
+      val middle = (low + high) ushr 1
+      val comparison = compare(components[middle], packageName, start, end)
+      when {
+        comparison < 0 -> low = middle + 1
+        comparison > 0 -> high = middle - 1
+        else -> return middle
+      }
+    }
+    return -1
+  }
+
+  private fun compare(component: String, packageName: CharSequence, start: Int, end: Int): Int {
+    val length = end - start
+    for (i in 0 until minOf(component.length, length)) {
+      val comparison = component[i].compareTo(packageName[start + i])
+      if (comparison != 0) {
+        return comparison
+      }
+    }
+    return component.length - length
+  }
+
+  private fun getPackageName(node: Int): String {
+    if (parents[node] == 0) {
+      return components[node]
+    }
+    return getPackageName(parents[node]) + PACKAGE_SEPARATOR + components[node]
+  }
+
+  /**
+   * Mutable node used only while the trie is built.
+   */
+  private class Node {
+    val children = TreeMap<String, Node>()
+    var isAdded = false
+
+    fun insert(packageName: String) {
+      var node = this
+      for (component in packageName.split(PACKAGE_SEPARATOR)) {
+        if (component.isNotEmpty()) {
+          node = node.children.getOrPut(component.intern()) { Node() }
+        }
+      }
+      node.isAdded = true
+    }
+  }
+
+  companion object {
+    val EMPTY = build(Node())
+
+    private fun build(root: Node): FlatPackageTrie {
+      val nodes = arrayListOf(root)
+      val nodeComponents = arrayListOf("")
+      val nodeParents = arrayListOf(-1)
+      var index = 0
+      while (index < nodes.size) {
+        for ((component, child) in nodes[index].children) {
+          nodes += child
+          nodeComponents += component
+          nodeParents += index
+        }
+        index++
+      }
+
+      val firstChildren = IntArray(nodes.size)
+      val childCounts = IntArray(nodes.size)
+      val added = BitSet(nodes.size)
+      var nextChild = 1
+      for ((node, trieNode) in nodes.withIndex()) {
+        firstChildren[node] = nextChild
+        childCounts[node] = trieNode.children.size
+        nextChild += trieNode.children.size
+        if (trieNode.isAdded) {
+          added.set(node)
+        }
+      }
+      return FlatPackageTrie(nodeComponents.toTypedArray(), nodeParents.toIntArray(), firstChildren, childCounts, added)
+    }
+  }
+}
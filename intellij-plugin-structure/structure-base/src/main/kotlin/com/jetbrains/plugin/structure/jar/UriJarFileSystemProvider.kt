@@ -20,6 +20,12 @@ class UriJarFileSystemProvider(private val pathToUri: (Path) -> URI = { it.toUri
       if (!jarPath.isZipOrJar()) {
         throw JarArchiveCannotBeOpenException(jarPath, "must end with '.zip' or '.jar'")
       }
+      if (jarPath.isNestedInJar()) {
+        // URIs of nested jars cannot be resolved by the JDK zip file system provider.
+        return FileSystems.newFileSystem(jarPath, PluginJar::class.java.classLoader).also {
+          log.debug("Creating a new JAR filesystem for the nested <{}>", jarUri)
+        }
+      }
       try {
         FileSystems.getFileSystem(jarUri).also {
           log.debug("Reusing JAR filesystem from JVM cache <{}>", jarUri)
@@ -43,4 +49,6 @@ class UriJarFileSystemProvider(private val pathToUri: (Path) -> URI = { it.toUri
   }
 
   private fun Path.isZipOrJar() = extension in listOf("zip", "jar")
+
+  private fun Path.isNestedInJar() = fileSystem.provider().scheme == JAR_SCHEME
 }
\ No newline at end of file
@@ -56,6 +56,11 @@ class CacheResolver(
   override val readMode
     get() = delegate.readMode
 
+  override val classNameFilter: ClassNameFilter?
+    get() = delegate.classNameFilter
+
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) = delegate.collectClassNameFilters(filters)
+
   @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
   override fun resolveClass(className: String): ResolutionResult<ClassNode> = resolveClass(className as BinaryClassName)
 
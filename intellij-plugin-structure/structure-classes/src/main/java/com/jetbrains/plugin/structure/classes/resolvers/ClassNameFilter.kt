@@ -0,0 +1,186 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.classes.resolvers
+
+import com.jetbrains.plugin.structure.base.utils.charseq.SpecialCharSequence
+import java.io.DataOutput
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.LongAdder
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.pow
+import kotlin.math.roundToInt
+
+private const val DEFAULT_BITS_PER_CLASS = 10
+
+private const val MAX_HASH_COUNT = 16
+
+/**
+ * Bloom filter of the binary names of classes contained in a [Resolver].
+ *
+ * The filter answers whether a class [might be contained][mightContain] in the resolver:
+ * `false` means that the class is definitely absent, so the resolver need not be asked,
+ * while `true` means that the class is present or, with a [small probability][expectedFalsePositiveRate], absent.
+ *
+ * Composite resolvers skip delegates whose filter rejects the class,
+ * and record [false positives][recordFalsePositive] found by asking the delegates into the filter [statistics].
+ */
+class ClassNameFilter private constructor(
+  private val bits: LongArray,
+  private val hashCount: Int,
+  /**
+   * Number of class names the filter is built of.
+   */
+  val classCount: Int
+) {
+  private val queries = LongAdder()
+
+  private val rejections = LongAdder()
+
+  private val falsePositives = LongAdder()
+
+  private val bitCount: Long
+    get() = bits.size.toLong() * Long.SIZE_BITS
+
+  /**
+   * Probability that the filter accepts an absent class, estimated from the filter size.
+   */
+  val expectedFalsePositiveRate: Double
+    get() = (1 - exp(-hashCount.toDouble() * classCount / bitCount)).pow(hashCount)
+
+  val statistics: ClassNameFilterStatistics
+    get() = ClassNameFilterStatistics(queries.sum(), rejections.sum(), falsePositives.sum())
+
+  /**
+   * Returns `false` if the class is definitely absent.
+   */
+  fun mightContain(className: CharSequence): Boolean {
+    queries.increment()
+    val hash = hash(className)
+    val firstHash = hash.toInt().toLong()
+    val secondHash = (hash ushr 32).toInt().toLong()
+    for (i in 0 until hashCount) {
+      val bit = Math.floorMod(firstHash + i * secondHash, bitCount)
+      if (bits[(bit ushr 6).toInt()] and (1L shl bit.toInt()) == 0L) {
+        rejections.increment()
+        return false
+      }
+    }
+    return true
+  }
+
+  /**
+   * Records that a class [accepted][mightContain] by the filter turned out to be absent.
+   */
+  fun recordFalsePositive() {
+    falsePositives.increment()
+  }
+
+  @Throws(IOException::class)
+  fun writeTo(output: DataOutput) {
+    output.writeInt(hashCount)
+    output.writeInt(classCount)
+    output.writeInt(bits.size)
+    bits.forEach { output.writeLong(it) }
+  }
+
+  private fun put(className: CharSequence) {
+    val hash = hash(className)
+    val firstHash = hash.toInt().toLong()
+    val secondHash = (hash ushr 32).toInt().toLong()
+    for (i in 0 until hashCount) {
+      val bit = Math.floorMod(firstHash + i * secondHash, bitCount)
+      bits[(bit ushr 6).toInt()] = bits[(bit ushr 6).toInt()] or (1L shl bit.toInt())
+    }
+  }
+
+  override fun toString() = "Filter of $classCount classes (${bits.size * Long.SIZE_BYTES} bytes)"
+
+  companion object {
+    /**
+     * Builds the filter of [classNames] using about [bitsPerClass] bits per class,
+     * which gives the false positive rate of about 1% for the default 10 bits.
+     */
+    fun of(classNames: Collection<CharSequence>, bitsPerClass: Int = DEFAULT_BITS_PER_CLASS): ClassNameFilter {
+      val bitCount = classNames.size.toLong() * bitsPerClass
+      val longCount = ((bitCount + Long.SIZE_BITS - 1) / Long.SIZE_BITS).toInt().coerceAtLeast(1)
+      val hashCount = (bitsPerClass * ln(2.0)).roundToInt().coerceIn(1, MAX_HASH_COUNT)
+      return ClassNameFilter(LongArray(longCount), hashCount, classNames.size).apply {
+        classNames.forEach { put(it) }
+      }
+    }
+
+    /**
+     * Reads the filter [written][writeTo] to the [buffer] at its position and advances the position past the filter.
+     */
+    fun read(buffer: ByteBuffer): ClassNameFilter {
+      val hashCount = buffer.int
+      val classCount = buffer.int
+      val longCount = buffer.int
+      if (hashCount !in 1..MAX_HASH_COUNT || classCount < 0 || longCount < 1 || longCount > buffer.remaining() / Long.SIZE_BYTES) {
+        throw BufferUnderflowException()
+      }
+      val bits = LongArray(longCount) { buffer.long }
+      return ClassNameFilter(bits, hashCount, classCount)
+    }
+
+    /**
+     * Two independent 32-bit hashes of the class name: the [String.hashCode],
+     * which strings and [SpecialCharSequence]s cache, and an FNV-1a hash.
+     * They are mixed, because string hashes of names with a common prefix differ only in the low bits.
+     */
+    private fun hash(className: CharSequence): Long {
+      val stringHash = if (className is String || className is SpecialCharSequence) {
+        className.hashCode()
+      } else {
+        SpecialCharSequence.stringHashCode(className, 0, className.length)
+      }
+      var fnvHash = -0x7ee3623b
+      for (i in className.indices) {
+        fnvHash = (fnvHash xor className[i].code) * 0x01000193
+      }
+      return mix((stringHash.toLong() shl 32) or (fnvHash.toLong() and 0xFFFFFFFFL))
+    }
+
+    private fun mix(value: Long): Long {
+      var h = value
+      h = (h xor (h ushr 33)) * -0xae502812aa7333L
+      h = (h xor (h ushr 33)) * -0x3b314601e57a13adL
+      return h xor (h ushr 33)
+    }
+  }
+}
+
+/**
+ * Statistics of [class name filters][ClassNameFilter] of a resolver and its delegates.
+ *
+ * A query is a check of a class name against a filter. A rejection is a query answered with "definitely absent".
+ * A false positive is a query of an absent class that the filter accepted.
+ */
+data class ClassNameFilterStatistics(val queries: Long, val rejections: Long, val falsePositives: Long) {
+
+  /**
+   * Observed fraction of queries of absent classes that were accepted by the filters,
+   * or `0.0` if no absent class has been queried.
+   */
+  val falsePositiveRate: Double
+    get() {
+      val absentQueries = rejections + falsePositives
+      return if (absentQueries == 0L) 0.0 else falsePositives.toDouble() / absentQueries
+    }
+
+  operator fun plus(other: ClassNameFilterStatistics) =
+    ClassNameFilterStatistics(queries + other.queries, rejections + other.rejections, falsePositives + other.falsePositives)
+
+  val presentableSummary: String
+    get() = "queries=$queries, rejections=$rejections, false-positives=$falsePositives, " +
+      "false-positive-rate=" + "%.2f%%".format(falsePositiveRate * 100.0)
+
+  companion object {
+    val EMPTY = ClassNameFilterStatistics(0, 0, 0)
+  }
+}
@@ -27,6 +27,11 @@ open class DelegatingNamedResolver(name: String, private val delegateProvider: (
     get() = delegateResolver.packages
   override val allBundleNameSet: ResourceBundleNameSet
     get() = delegateResolver.allBundleNameSet
+  override val classNameFilter: ClassNameFilter?
+    get() = delegateResolver.classNameFilter
+
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) =
+    delegateResolver.collectClassNameFilters(filters)
 
   @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
   override fun resolveClass(className: String) = delegateResolver.resolveClass(className)
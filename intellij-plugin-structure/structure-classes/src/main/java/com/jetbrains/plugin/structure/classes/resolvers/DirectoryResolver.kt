@@ -119,6 +119,17 @@ class DirectoryResolver(
   override val allClassNames: Set<BinaryClassName>
     get() = allClasses
 
+  private val lazyClassNameFilter = lazy { ClassNameFilter.of(classNameToFile.keys) }
+
+  override val classNameFilter: ClassNameFilter
+    get() = lazyClassNameFilter.value
+
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) {
+    if (lazyClassNameFilter.isInitialized()) {
+      filters += lazyClassNameFilter.value
+    }
+  }
+
   @Deprecated("Use 'containsClass(BinaryClassName)' instead")
   override fun containsClass(className: String) = className in classNameToFile
 
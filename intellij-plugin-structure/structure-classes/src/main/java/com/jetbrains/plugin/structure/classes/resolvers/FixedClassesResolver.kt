@@ -70,6 +70,17 @@ class FixedClassesResolver private constructor(
   override val allClassNames: Set<BinaryClassName>
     get() = allClasses
 
+  private val lazyClassNameFilter = lazy { ClassNameFilter.of(classes.keys) }
+
+  override val classNameFilter: ClassNameFilter
+    get() = lazyClassNameFilter.value
+
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) {
+    if (lazyClassNameFilter.isInitialized()) {
+      filters += lazyClassNameFilter.value
+    }
+  }
+
   override val allBundleNameSet: ResourceBundleNameSet
     get() = ResourceBundleNameSet(
       resourceBundles.keys
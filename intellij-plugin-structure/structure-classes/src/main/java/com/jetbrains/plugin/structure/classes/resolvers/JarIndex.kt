@@ -0,0 +1,44 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.classes.resolvers
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.jar.Packages
+
+/**
+ * Content of a jar that is known without opening it:
+ * names of classes, packages and resource bundles.
+ *
+ * A [LazyJarResolver] created with an index answers queries on the jar content from the index
+ * and reads the jar only when a class or a resource bundle is resolved.
+ */
+interface JarIndex {
+  val classNames: Set<BinaryClassName>
+
+  val packages: Packages
+
+  /**
+   * Base names of resource bundles mapped to the full names of their locale-specific bundles.
+   */
+  val bundleNames: Map<String, Set<String>>
+
+  /**
+   * Filter of [classNames], built once per index.
+   */
+  val classNameFilter: ClassNameFilter
+
+  companion object {
+    fun of(classNames: Set<BinaryClassName>, packages: Packages, bundleNames: Map<String, Set<String>>): JarIndex =
+      SimpleJarIndex(classNames, packages, bundleNames)
+  }
+}
+
+private class SimpleJarIndex(
+  override val classNames: Set<BinaryClassName>,
+  override val packages: Packages,
+  override val bundleNames: Map<String, Set<String>>
+) : JarIndex {
+  override val classNameFilter: ClassNameFilter by lazy { ClassNameFilter.of(classNames) }
+}
@@ -4,16 +4,20 @@ import com.jetbrains.plugin.structure.base.BinaryClassName
 import org.objectweb.asm.tree.ClassNode
 import java.util.*
 
+/**
+ * [Resolver] that combines several resolvers into a [SimpleCompositeResolver] on first access.
+ */
 class LazyCompositeResolver private constructor(
   resolvers: List<Resolver>,
   override val readMode: ReadMode,
-  name: String
+  name: String,
+  packageIndexThreshold: Int
 ) : NamedResolver(name) {
 
   private val resolverCount = resolvers.size
 
   private val delegateResolver by lazy {
-    CompositeResolver.create(resolvers, name)
+    SimpleCompositeResolver(resolvers, readMode, name, packageIndexThreshold)
   }
 
   @Deprecated("Use 'allClassNames' property instead which is more efficient")
@@ -33,6 +37,9 @@ class LazyCompositeResolver private constructor(
   override val allBundleNameSet: ResourceBundleNameSet
     get() = delegateResolver.allBundleNameSet
 
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) =
+    delegateResolver.collectClassNameFilters(filters)
+
   @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
   override fun resolveClass(className: String): ResolutionResult<ClassNode> = delegateResolver.resolveClass(className)
 
@@ -59,7 +66,11 @@ class LazyCompositeResolver private constructor(
 
   companion object {
     @JvmStatic
-    fun create(resolvers: Iterable<Resolver>, resolverName: String): Resolver {
+    fun create(
+      resolvers: Iterable<Resolver>,
+      resolverName: String,
+      packageIndexThreshold: Int = DEFAULT_PACKAGE_INDEX_THRESHOLD
+    ): Resolver {
       val list = resolvers.toList()
       return when(list.size) {
         0 -> EmptyResolver(resolverName)
@@ -70,13 +81,17 @@ class LazyCompositeResolver private constructor(
           } else {
             ReadMode.SIGNATURES
           }
-          LazyCompositeResolver(list, readMode, resolverName)
+          LazyCompositeResolver(list, readMode, resolverName, packageIndexThreshold)
         }
       }
     }
 
     @JvmStatic
-    fun create(resolvers: Iterable<NamedResolver>, resolverName: String): NamedResolver {
+    fun create(
+      resolvers: Iterable<NamedResolver>,
+      resolverName: String,
+      packageIndexThreshold: Int = DEFAULT_PACKAGE_INDEX_THRESHOLD
+    ): NamedResolver {
       val list = resolvers.toList()
       return when(list.size) {
         0 -> EmptyResolver(resolverName)
@@ -87,7 +102,7 @@ class LazyCompositeResolver private constructor(
           } else {
             ReadMode.SIGNATURES
           }
-          LazyCompositeResolver(list, readMode, resolverName)
+          LazyCompositeResolver(list, readMode, resolverName, packageIndexThreshold)
         }
       }
     }
@@ -20,40 +20,75 @@ import java.util.*
 
 private val LOG: Logger = LoggerFactory.getLogger(LazyJarResolver::class.java)
 
+private const val CLASS_SUFFIX = ".class"
+
+/**
+ * Resolver of classes of a jar that scans the jar on the first access to its content.
+ *
+ * If the [index] of the jar content is provided, the names of classes, packages and resource bundles
+ * are taken from it, and the jar is read only when a class or a resource bundle is resolved.
+ */
 class LazyJarResolver(
   jarPath: Path,
   readMode: ReadMode,
   fileOrigin: FileOrigin,
   name: String = jarPath.fileName.toString(),
-  private val fileSystemProvider: JarFileSystemProvider = SingletonCachingJarFileSystemProvider
+  private val fileSystemProvider: JarFileSystemProvider = SingletonCachingJarFileSystemProvider,
+  private val index: JarIndex? = null
 ) : AbstractJarResolver(jarPath, readMode, fileOrigin, name), AutoCloseable {
   // override to make public
   public override val jarPath: Path
     get() = super.jarPath
 
-  private val jar: Jar by lazy {
+  private val lazyJar = lazy {
     Jar(jarPath, fileSystemProvider).init()
   }
 
-  private val zipHandler = jarPath.newZipHandler()
+  private val jar: Jar by lazyJar
+
+  /**
+   * Handler reading the content of the jar, which reuses the central directory read while scanning the jar, if it is scanned.
+   */
+  private val zipHandler by lazy {
+    if (lazyJar.isInitialized()) jar.newZipHandler() else jarPath.newZipHandler()
+  }
+
+  val isIndexed: Boolean
+    get() = index != null
+
+  /**
+   * Index of the jar content: either the one this resolver is created with, or the one of the scanned jar.
+   */
+  val contentIndex: JarIndex by lazy { index ?: JarIndex.of(jar.classes, jar.packages, jar.bundleNames) }
 
   override val bundleNames: MutableMap<String, MutableSet<String>>
-    get() = jar.bundleNames.mapValues { it.value.toMutableSet() }.toMutableMap()
+    get() = (index?.bundleNames ?: jar.bundleNames).mapValues { it.value.toMutableSet() }.toMutableMap()
 
   @Deprecated("Use 'allClassNames' property instead which is more efficient")
   override val allClasses: Set<String>
     get() = allClassNames.mapTo(hashSetOf()) { it.toString() }
 
   override val allClassNames: Set<BinaryClassName>
-    get() = jar.classes
+    get() = index?.classNames ?: jar.classes
 
   @Deprecated("Use 'packages' property instead. This property may be slow on some file systems.")
-  override val allPackages: Set<String> by lazy { jar.packages.all }
+  override val allPackages: Set<String> by lazy { (index?.packages ?: jar.packages).all }
+
+  override val packages: Set<String> by lazy { (index?.packages ?: jar.packages).entries }
 
-  override val packages: Set<String> by lazy { jar.packages.entries }
+  private val lazyClassNameFilter = lazy { contentIndex.classNameFilter }
+
+  override val classNameFilter: ClassNameFilter
+    get() = lazyClassNameFilter.value
+
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) {
+    if (lazyClassNameFilter.isInitialized()) {
+      filters += lazyClassNameFilter.value
+    }
+  }
 
   override val allBundleNameSet: ResourceBundleNameSet by lazy {
-    ResourceBundleNameSet(jar.bundleNames)
+    ResourceBundleNameSet(index?.bundleNames ?: jar.bundleNames)
   }
 
   override val implementedServiceProviders: Map<String, Set<String>>
@@ -61,6 +96,9 @@ class LazyJarResolver(
 
   @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
   override fun resolveClass(className: String): ResolutionResult<ClassNode> {
+    if (index != null) {
+      return if (className in index.classNames) readClass(className, className + CLASS_SUFFIX) else ResolutionResult.NotFound
+    }
     return jar.processClassPathInJar(className) { className, classFilePath ->
       readClass(className, classFilePath)
     } ?: ResolutionResult.NotFound
@@ -71,27 +109,28 @@ class LazyJarResolver(
   }
 
   override fun processAllClasses(processor: (ResolutionResult<ClassNode>) -> Boolean): Boolean {
+    if (index != null) {
+      return index.classNames.all { processor(readClass(it, it.toString() + CLASS_SUFFIX)) }
+    }
     return jar.processAllClasses { className, classFilePath ->
       processor(readClass(className, classFilePath))
     }
   }
 
   @Deprecated("Use 'containsClass(BinaryClassName)' instead")
-  override fun containsClass(className: String): Boolean = jar.containsClass(className)
+  override fun containsClass(className: String): Boolean = index?.let { className in it.classNames } ?: jar.containsClass(className)
 
   override fun containsClass(className: BinaryClassName) = containsClass(className.toString())
 
-  override fun containsPackage(packageName: String): Boolean = jar.containsPackage(packageName)
+  override fun containsPackage(packageName: String): Boolean = index?.let { packageName in it.packages } ?: jar.containsPackage(packageName)
 
   override fun close() = Unit
 
   fun readClass(className: CharSequence, classPath: PathInJar): ResolutionResult<ClassNode> {
     return try {
-      zipHandler.handleEntry(classPath) { entry, entryResource ->
-        val inputStream = entryResource.getInputStream(entry)
-        val classNode = AsmUtil.readClassNode(className, inputStream, readMode == ReadMode.FULL)
-        ResolutionResult.Found(classNode, fileOrigin)
-      } ?: ResolutionResult.NotFound
+      val classBytes = zipHandler.readEntry(classPath) ?: return ResolutionResult.NotFound
+      val classNode = AsmUtil.readClassNode(className, classBytes, readMode == ReadMode.FULL)
+      ResolutionResult.Found(classNode, fileOrigin)
     } catch (e: InvalidClassFileException) {
       ResolutionResult.Invalid(e.message)
     } catch (e: Exception) {
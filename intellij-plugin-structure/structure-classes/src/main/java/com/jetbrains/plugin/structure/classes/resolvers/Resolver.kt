@@ -106,4 +106,28 @@ abstract class Resolver : Closeable {
   @Throws(IOException::class)
   abstract fun processAllClasses(processor: (ResolutionResult<ClassNode>) -> Boolean): Boolean
 
+  /**
+   * Filter of the contained class names that tells that a class is definitely absent without looking it up,
+   * or `null` if this Resolver has no such filter.
+   */
+  open val classNameFilter: ClassNameFilter?
+    get() = null
+
+  /**
+   * Adds the [class name filters][classNameFilter] of `this` Resolver and of its delegates to [filters].
+   * Filters that are built lazily and have not been used yet are skipped rather than built.
+   */
+  open fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) {
+    classNameFilter?.let { filters += it }
+  }
+
+  /**
+   * Statistics of the [class name filters][classNameFilter] of `this` Resolver and of its delegates
+   * that have been [collected][collectClassNameFilters].
+   */
+  val classNameFilterStatistics: ClassNameFilterStatistics
+    get() = hashSetOf<ClassNameFilter>()
+      .also { collectClassNameFilters(it) }
+      .fold(ClassNameFilterStatistics.EMPTY) { statistics, filter -> statistics + filter.statistics }
+
 }
\ No newline at end of file
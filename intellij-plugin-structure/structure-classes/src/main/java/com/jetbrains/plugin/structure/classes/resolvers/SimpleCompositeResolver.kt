@@ -9,13 +9,41 @@ import com.jetbrains.plugin.structure.base.utils.binaryClassNames
 import com.jetbrains.plugin.structure.base.utils.closeAll
 import org.objectweb.asm.tree.ClassNode
 import java.util.*
+import java.util.concurrent.atomic.AtomicInteger
 
+/**
+ * Number of class lookups after which [SimpleCompositeResolver] indexes its delegates by package.
+ */
+const val DEFAULT_PACKAGE_INDEX_THRESHOLD = 32
+
+/**
+ * [Resolver] that asks its [resolvers] in order and returns the first answer.
+ * Delegates whose [class name filter][Resolver.classNameFilter] rejects a class are not asked about it.
+ *
+ * Once [packageIndexThreshold] class lookups have been made by probing every delegate,
+ * the delegates are indexed by their [packages][Resolver.packages], and a class is looked up
+ * only in the delegates that contain its package, still in the order of [resolvers].
+ * A threshold of `0` indexes the delegates on the first lookup, and [Int.MAX_VALUE] never indexes them.
+ */
 open class SimpleCompositeResolver<R : Resolver>(
   open val resolvers: List<R>,
   override val readMode: ReadMode,
-  override val name: String
+  override val name: String,
+  private val packageIndexThreshold: Int = DEFAULT_PACKAGE_INDEX_THRESHOLD
 ) : NamedResolver(name) {
 
+  private val lookupCount = AtomicInteger()
+
+  private val packageToResolvers: Map<String, List<R>> by lazy {
+    val index = hashMapOf<String, MutableList<R>>()
+    for (resolver in resolvers) {
+      for (packageName in resolver.packages) {
+        index.getOrPut(packageName) { arrayListOf() } += resolver
+      }
+    }
+    index
+  }
+
   @Deprecated("Use 'allClassNames' property instead which is more efficient")
   override val allClasses: Set<String>
     get() = resolvers.flatMapTo(hashSetOf()) { it.allClasses }
@@ -27,8 +55,9 @@ open class SimpleCompositeResolver<R : Resolver>(
   override val allPackages: Set<String>
     get() = resolvers.flatMapTo(hashSetOf()) { it.allPackages }
 
-  override val packages: Set<String>
-    get() = resolvers.flatMapTo(hashSetOf()) { it.packages }
+  override val packages: Set<String> by lazy {
+    resolvers.flatMapTo(hashSetOf()) { it.packages }
+  }
 
   override val allBundleNameSet: ResourceBundleNameSet
     get() {
@@ -42,21 +71,29 @@ open class SimpleCompositeResolver<R : Resolver>(
 
   @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
   override fun resolveClass(className: String): ResolutionResult<ClassNode> {
-    for (resolver in resolvers) {
+    for (resolver in getResolvers(className)) {
+      if (!resolver.mightContainClass(className)) {
+        continue
+      }
       val resolutionResult = resolver.resolveClass(className)
       if (resolutionResult !is ResolutionResult.NotFound) {
         return resolutionResult
       }
+      resolver.classNameFilter?.recordFalsePositive()
     }
     return ResolutionResult.NotFound
   }
 
   override fun resolveClass(className: BinaryClassName): ResolutionResult<ClassNode> {
-    for (resolver in resolvers) {
+    for (resolver in getResolvers(className)) {
+      if (!resolver.mightContainClass(className)) {
+        continue
+      }
       val resolutionResult = resolver.resolveClass(className)
       if (resolutionResult !is ResolutionResult.NotFound) {
         return resolutionResult
       }
+      resolver.classNameFilter?.recordFalsePositive()
     }
     return ResolutionResult.NotFound
   }
@@ -76,11 +113,11 @@ open class SimpleCompositeResolver<R : Resolver>(
 
   @Deprecated("Use 'containsClass(BinaryClassName)' instead")
   override fun containsClass(className: String): Boolean {
-    return resolvers.any { it.containsClass(className) }
+    return getResolvers(className).any { it.mightContainClass(className) && it.containsFilteredClass(className) }
   }
 
   override fun containsClass(className: BinaryClassName): Boolean {
-    return resolvers.any { it.containsClass(className) }
+    return getResolvers(className).any { it.mightContainClass(className) && it.containsFilteredClass(className) }
   }
 
   override fun containsPackage(packageName: String): Boolean {
@@ -91,14 +128,45 @@ open class SimpleCompositeResolver<R : Resolver>(
     return resolvers.all { it.processAllClasses(processor) }
   }
 
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) {
+    resolvers.forEach { it.collectClassNameFilters(filters) }
+  }
+
   override fun close() {
     resolvers.closeAll()
   }
 
+  /**
+   * Returns the delegates that may contain the class, in the order of [resolvers].
+   */
+  private fun getResolvers(className: BinaryClassName): List<R> {
+    if (lookupCount.get() < packageIndexThreshold) {
+      lookupCount.incrementAndGet()
+      return resolvers
+    }
+    val packageName = className.lastIndexOf('/').let { if (it == -1) "" else className.substring(0, it) }
+    return packageToResolvers[packageName] ?: emptyList()
+  }
+
   override fun toString(): String {
     return "$name is a composite of ${resolvers.size} resolver" + (if (resolvers.size != 1) "s" else "")
   }
 
+  private fun Resolver.mightContainClass(className: BinaryClassName): Boolean =
+    classNameFilter?.mightContain(className) ?: true
+
+  /**
+   * Checks a class accepted by the [class name filter][classNameFilter], recording a false positive if it is absent.
+   */
+  @Suppress("DEPRECATION")
+  private fun Resolver.containsFilteredClass(className: BinaryClassName): Boolean {
+    val contains = if (className is String) containsClass(className) else containsClass(className)
+    if (!contains) {
+      classNameFilter?.recordFalsePositive()
+    }
+    return contains
+  }
+
   private fun ResourceBundleNameSet.merge(resourceBundleNameSet: ResourceBundleNameSet): ResourceBundleNameSet {
     val mergedBundles = HashMap<String, Set<String>>(bundleNames)
     resourceBundleNameSet.bundleNames.forEach { (baseName, localeSpecificNames) ->
@@ -37,6 +37,24 @@ public class AsmUtil {
     }
   }
 
+  /**
+   * Reads the class from its complete bytecode, such as an entry read at once from a jar.
+   * Unlike reading from a stream, it does not copy the bytecode to a growing buffer.
+   */
+  @NotNull
+  public static ClassNode readClassNode(@NotNull CharSequence className,
+                                        @NotNull byte[] classBytes,
+                                        boolean fully) throws InvalidClassFileException {
+    try {
+      ClassNode node = new ClassNode();
+      int parsingOptions = fully ? 0 : (ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+      new ClassReader(classBytes).accept(node, parsingOptions);
+      return node;
+    } catch (RuntimeException e) {
+      throw new InvalidClassFileException(className, getAsmErrorMessage(e));
+    }
+  }
+
   @NotNull
   public static ClassNode readClassNode(@NotNull String className, @NotNull InputStream inputStream) throws InvalidClassFileException, IOException {
     return readClassNode(className, inputStream, true);
@@ -2,6 +2,7 @@ package com.jetbrains.plugin.structure.ide.classes
 
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver
 import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode
+import java.nio.file.Path
 
 data class IdeResolverConfiguration(
   val readMode: Resolver.ReadMode,
@@ -15,6 +16,13 @@ data class IdeResolverConfiguration(
    *
    * Forcing the `product-info.json` validation will reparse the layout components.
    */
-  val forceProductInfoValidation: Boolean = false
+  val forceProductInfoValidation: Boolean = false,
+  /**
+   * File of the persistent [class index][com.jetbrains.plugin.structure.ide.classes.resolver.IdeClassIndex] of the IDE.
+   *
+   * If set, the names of classes, packages and resource bundles of IDE jars are taken from the index,
+   * and the index is rebuilt when it is missing or stale.
+   */
+  val classIndexPath: Path? = null
 )
 
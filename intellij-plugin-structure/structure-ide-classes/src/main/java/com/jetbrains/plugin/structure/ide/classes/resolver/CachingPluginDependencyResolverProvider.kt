@@ -202,7 +202,11 @@ class CachingPluginDependencyResolverProvider(
   class DependencyTreeAwareResolver private constructor(
     name: String,
     private val resolverNames: Set<String>,
-    internal val components: Collection<Resolver>,
+    /**
+     * Resolvers of the transitive dependencies, in the resolution order.
+     * They are shared between all the plugins depending on the same dependencies.
+     */
+    val components: Collection<Resolver>,
     val dependencyTreeResolution: DependencyTreeResolution,
     delegateProvider: () -> Resolver
   ) : DelegatingNamedResolver(name, delegateProvider) {
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.ide.classes.resolver
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.base.utils.BinaryClassNameArena
+import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.writeAtomically
+import com.jetbrains.plugin.structure.classes.resolvers.ClassNameFilter
+import com.jetbrains.plugin.structure.classes.resolvers.JarIndex
+import com.jetbrains.plugin.structure.jar.Packages
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.zip.CRC32
+
+private val LOG: Logger = LoggerFactory.getLogger(IdeClassIndex::class.java)
+
+private const val MAGIC = 0x49434958 // "ICIX"
+private const val FORMAT_VERSION = 4
+
+/**
+ * Persistent index of the content of IDE jars: names of classes, packages and resource bundles of each jar.
+ *
+ * The index is written once per IDE build and memory-mapped on later runs,
+ * so that [ProductInfoClassResolver] learns which classes and packages exist without opening the jars.
+ * The content of a jar is decoded from the mapped file on the first access to it,
+ * but its checksum is verified when the index is read, so that a corrupted index is rebuilt rather than used.
+ *
+ * Each jar entry is stamped with the size and the modification time of the jar.
+ * An entry of a jar that has changed since the index was written is [stale][getJarIndex] and must be rebuilt.
+ * Jars that cannot be read are recorded with their stamp and no content, so that they are not [indexed][isUnindexable] again until they change.
+ *
+ * The index file consists of a header (magic, format version, number of jars) followed by jar entries:
+ * the path of the jar relative to the IDE, its size, modification time, the length of the content,
+ * which is `-1` for a jar that cannot be read, the CRC-32 checksum of the content, and the content itself: the [class name filter][ClassNameFilter] prefixed with its length,
+ * class names, package names and resource bundle names.
+ * The filter is decoded separately, so that absent classes are rejected without decoding the class names.
+ */
+class IdeClassIndex private constructor(
+  private val idePath: Path,
+  private val buffer: ByteBuffer,
+  private val entries: Map<String, Entry>
+) {
+
+  /**
+   * Returns the index of the [jarPath] content, or `null` if the jar is not indexed or changed since it was indexed.
+   */
+  fun getJarIndex(jarPath: Path): JarIndex? {
+    val entry = getFreshEntry(jarPath) ?: return null
+    return if (entry.isIndexable) MappedJarIndex(buffer, entry.contentOffset) else null
+  }
+
+  /**
+   * Returns `true` if the [jarPath] is recorded as a jar that cannot be read and has not changed since.
+   */
+  fun isUnindexable(jarPath: Path): Boolean = getFreshEntry(jarPath)?.isIndexable == false
+
+  /**
+   * Number of jars recorded in the index, including the [unindexable][isUnindexable] ones.
+   */
+  val indexedJarCount: Int
+    get() = entries.size
+
+  private fun getFreshEntry(jarPath: Path): Entry? {
+    val entry = entries[idePath.relativeKey(jarPath)] ?: return null
+    val stamp = JarStamp.of(jarPath) ?: return null
+    if (stamp != entry.stamp) {
+      LOG.debug("Class index of '{}' is stale", jarPath)
+      return null
+    }
+    return entry
+  }
+
+  /**
+   * Jar recorded in the index, whose [contentOffset] is `-1` if the jar cannot be read.
+   */
+  private class Entry(val stamp: JarStamp, val contentOffset: Int) {
+    val isIndexable: Boolean
+      get() = contentOffset >= 0
+  }
+
+  private data class JarStamp(val size: Long, val lastModified: Long) {
+    companion object {
+      fun of(jarPath: Path): JarStamp? = try {
+        JarStamp(Files.size(jarPath), Files.getLastModifiedTime(jarPath).toMillis())
+      } catch (e: IOException) {
+        null
+      }
+    }
+  }
+
+  /**
+   * Content of a jar decoded lazily from the mapped index file.
+   * Each decoding reads from its own view of the buffer, so it is safe to access from multiple threads.
+   */
+  private class MappedJarIndex(private val buffer: ByteBuffer, private val offset: Int) : JarIndex {
+    private val filter by lazy {
+      val view = buffer.duplicate()
+      view.position(offset + Int.SIZE_BYTES)
+      ClassNameFilter.read(view)
+    }
+
+    private val content by lazy {
+      val view = buffer.duplicate()
+      view.position(offset)
+      val filterLength = view.int
+      view.position(view.position() + filterLength)
+      val classCount = view.int
+      val classNames = BinaryClassNameArena(classCount)
+      repeat(classCount) { classNames.add(view.readString()) }
+      classNames.trimToSize()
+      val packages = Packages().apply {
+        repeat(view.int) { addPackage(view.readString()) }
+      }
+      val bundleNames = HashMap<String, Set<String>>()
+      repeat(view.int) {
+        val baseName = view.readString()
+        bundleNames[baseName] = (0 until view.int).mapTo(hashSetOf()) { view.readString() }
+      }
+      Content(classNames, packages, bundleNames)
+    }
+
+    override val classNames: Set<BinaryClassName>
+      get() = content.classNames
+
+    override val packages: Packages
+      get() = content.packages
+
+    override val bundleNames: Map<String, Set<String>>
+      get() = content.bundleNames
+
+    override val classNameFilter: ClassNameFilter
+      get() = filter
+
+    private class Content(
+      val classNames: Set<BinaryClassName>,
+      val packages: Packages,
+      val bundleNames: Map<String, Set<String>>
+    )
+  }
+
+  companion object {
+    /**
+     * Maps the [indexFile] of the IDE at [idePath].
+     * Returns `null` if the file does not exist, has another format version or is corrupted,
+     * including the case when the content of a jar does not match its checksum.
+     */
+    fun read(indexFile: Path, idePath: Path): IdeClassIndex? {
+      if (!indexFile.exists()) {
+        return null
+      }
+      return try {
+        val buffer = FileChannel.open(indexFile, StandardOpenOption.READ).use { channel ->
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+        }
+        if (buffer.int != MAGIC || buffer.int != FORMAT_VERSION) {
+          LOG.info("Class index '{}' has an unsupported format and will be rebuilt", indexFile)
+          return null
+        }
+        val entries = HashMap<String, Entry>()
+        repeat(buffer.int) {
+          val jarKey = buffer.readString()
+          val stamp = JarStamp(buffer.long, buffer.long)
+          val contentLength = buffer.int
+          if (contentLength < 0) {
+            entries[jarKey] = Entry(stamp, -1)
+          } else {
+            val checksum = buffer.int
+            val contentOffset = buffer.position()
+            buffer.position(contentOffset + contentLength)
+            if (checksum != buffer.checksum(contentOffset, contentLength)) {
+              LOG.warn("Class index '{}' has a corrupted entry of '{}' and will be rebuilt", indexFile, jarKey)
+              return null
+            }
+            entries[jarKey] = Entry(stamp, contentOffset)
+          }
+        }
+        IdeClassIndex(idePath, buffer, entries)
+      } catch (e: IOException) {
+        LOG.warn("Class index '{}' cannot be read and will be rebuilt: {}", indexFile, e.message)
+        null
+      } catch (e: RuntimeException) {
+        // Truncated or otherwise corrupted file: BufferUnderflowException, IllegalArgumentException.
+        LOG.warn("Class index '{}' is corrupted and will be rebuilt: {}", indexFile, e.message)
+        null
+      }
+    }
+
+    /**
+     * Writes the index of the [jars] content of the IDE at [idePath] to the [indexFile],
+     * recording the [unindexableJars] that cannot be read with no content.
+     *
+     * The file is replaced atomically, so concurrent readers see either the previous index or the new one.
+     */
+    @Throws(IOException::class)
+    fun write(indexFile: Path, idePath: Path, jars: Map<Path, JarIndex>, unindexableJars: Set<Path> = emptySet()) {
+      indexFile.writeAtomically { stream ->
+        DataOutputStream(BufferedOutputStream(stream)).use { out ->
+          out.writeInt(MAGIC)
+          out.writeInt(FORMAT_VERSION)
+          val stampedJars = jars.mapNotNull { (jarPath, jarIndex) ->
+            JarStamp.of(jarPath)?.let { Triple(jarPath, it, jarIndex) }
+          }
+          val stampedUnindexableJars = unindexableJars.mapNotNull { jarPath ->
+            JarStamp.of(jarPath)?.let { jarPath to it }
+          }
+          out.writeInt(stampedJars.size + stampedUnindexableJars.size)
+          for ((jarPath, stamp, jarIndex) in stampedJars) {
+            out.writeString(idePath.relativeKey(jarPath))
+            out.writeLong(stamp.size)
+            out.writeLong(stamp.lastModified)
+            val content = encodeContent(jarIndex)
+            out.writeInt(content.size)
+            out.writeInt(CRC32().apply { update(content) }.value.toInt())
+            out.write(content)
+          }
+          for ((jarPath, stamp) in stampedUnindexableJars) {
+            out.writeString(idePath.relativeKey(jarPath))
+            out.writeLong(stamp.size)
+            out.writeLong(stamp.lastModified)
+            out.writeInt(-1)
+          }
+        }
+      }
+    }
+
+    private fun encodeContent(jarIndex: JarIndex): ByteArray {
+      val bytes = ByteArrayOutputStream()
+      DataOutputStream(bytes).use { out ->
+        val filter = ByteArrayOutputStream()
+        DataOutputStream(filter).use { jarIndex.classNameFilter.writeTo(it) }
+        out.writeInt(filter.size())
+        filter.writeTo(out)
+        out.writeInt(jarIndex.classNames.size)
+        jarIndex.classNames.forEach { out.writeString(it.toString()) }
+        val packages = jarIndex.packages.entries
+        out.writeInt(packages.size)
+        packages.forEach { out.writeString(it) }
+        out.writeInt(jarIndex.bundleNames.size)
+        jarIndex.bundleNames.forEach { (baseName, bundleNames) ->
+          out.writeString(baseName)
+          out.writeInt(bundleNames.size)
+          bundleNames.forEach { out.writeString(it) }
+        }
+      }
+      return bytes.toByteArray()
+    }
+
+    private fun ByteBuffer.checksum(offset: Int, length: Int): Int {
+      val view = duplicate()
+      view.position(offset)
+      view.limit(offset + length)
+      return CRC32().apply { update(view) }.value.toInt()
+    }
+
+    private fun Path.relativeKey(jarPath: Path): String =
+      relativize(jarPath).joinToString("/")
+
+    private fun DataOutputStream.writeString(value: String) {
+      val bytes = value.toByteArray(Charsets.UTF_8)
+      writeInt(bytes.size)
+      write(bytes)
+    }
+
+    private fun ByteBuffer.readString(): String {
+      val length = int
+      if (length < 0 || length > remaining()) {
+        throw BufferUnderflowException()
+      }
+      val bytes = ByteArray(length)
+      get(bytes)
+      return String(bytes, Charsets.UTF_8)
+    }
+  }
+}
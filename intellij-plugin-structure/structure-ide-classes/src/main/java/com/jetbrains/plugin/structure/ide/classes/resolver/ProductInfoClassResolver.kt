@@ -5,7 +5,10 @@
 package com.jetbrains.plugin.structure.ide.classes.resolver
 
 import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.base.plugin.Settings
 import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.mapConcurrently
+import com.jetbrains.plugin.structure.base.utils.newDaemonThreadPool
 import com.jetbrains.plugin.structure.classes.resolvers.*
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver.ReadMode.FULL
 import com.jetbrains.plugin.structure.ide.*
@@ -21,9 +24,11 @@ import com.jetbrains.plugin.structure.intellij.platform.ProductInfoParser
 import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
 import com.jetbrains.plugin.structure.intellij.plugin.dependencies.PluginId
 import com.jetbrains.plugin.structure.intellij.version.IdeVersion
+import com.jetbrains.plugin.structure.jar.JarArchiveException
 import org.objectweb.asm.tree.ClassNode
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.io.IOException
 import java.nio.file.Path
 import java.util.*
 
@@ -33,6 +38,9 @@ private const val PRODUCT_INFO_JSON = "product-info.json"
 private const val CORE_IDE_PLUGIN_ID = "com.intellij"
 private const val PRODUCT_MODULE_V2 = "productModuleV2"
 private const val BOOTCLASSPATH_JAR_NAMES = "bootClassPathJarNames"
+private const val LAYOUT_RESOLVER_EXECUTOR_NAME = "layout-component-resolver"
+
+private val layoutResolverExecutor by lazy { newDaemonThreadPool(LAYOUT_RESOLVER_EXECUTOR_NAME) }
 
 class ProductInfoClassResolver private constructor(
   private val productInfo: ProductInfo,
@@ -44,6 +52,10 @@ class ProductInfoClassResolver private constructor(
 
   private val corePluginClasspathCache: MutableMap<Path, NamedResolver> = HashMap()
 
+  private val classIndex: IdeClassIndex? = resolverConfiguration.classIndexPath?.let { IdeClassIndex.read(it, ide.idePath) }
+
+  private val jarResolvers: MutableMap<Path, LazyJarResolver> = LinkedHashMap()
+
   private val _stats: MutableList<String>? = if (resolverConfiguration.isCollectingStats) {
     mutableListOf()
   } else {
@@ -91,15 +103,22 @@ class ProductInfoClassResolver private constructor(
 
   private val delegateResolver = getDelegateResolver()
 
+  init {
+    updateClassIndex()
+  }
+
   private fun getDelegateResolver(): Resolver = mutableListOf<NamedResolver>().apply {
     add(bootClasspathResolver)
     addAll(resolvers.values)
   }.asResolver("$name delegate")
 
+  /**
+   * Creates resolvers of the layout components concurrently, as creating a resolver checks the jars of the component.
+   */
   private fun resolveLayout(): List<LayoutComponentResolver> =
     getLayoutComponents()
       .map { it.layoutComponent }
-      .map { layoutComponent ->
+      .mapConcurrently(layoutResolverExecutor, Settings.IDE_PLUGIN_LOADING_PARALLELISM.getAsInt()) { layoutComponent ->
         if (layoutComponent is LayoutComponent.Classpathable) {
           layoutComponent.toResolver()
         } else {
@@ -107,6 +126,9 @@ class ProductInfoClassResolver private constructor(
           layoutComponent.toEmptyResolver()
         }
       }
+      .onEach { layoutComponentResolver ->
+        layoutComponentResolver.resolvers.forEach { jarResolvers[it.jarPath] = it }
+      }
 
   private fun getLayoutComponents(): LayoutComponents {
     if (resolverConfiguration.forceProductInfoValidation) {
@@ -169,6 +191,9 @@ class ProductInfoClassResolver private constructor(
   override fun processAllClasses(processor: (ResolutionResult<ClassNode>) -> Boolean) =
     delegateResolver.processAllClasses(processor)
 
+  override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) =
+    delegateResolver.collectClassNameFilters(filters)
+
   override fun close() = delegateResolver.close()
 
   val bootClasspathResolver: NamedResolver
@@ -187,12 +212,7 @@ class ProductInfoClassResolver private constructor(
     where C : LayoutComponent.Classpathable, C : LayoutComponent {
     return getClasspath().map { jarPath: Path ->
       val fullyQualifiedJarFile = this@ProductInfoClassResolver.ide.idePath.resolve(jarPath)
-      LazyJarResolver(
-        fullyQualifiedJarFile,
-        this@ProductInfoClassResolver.readMode,
-        IdeLibDirectory(this@ProductInfoClassResolver.ide),
-        name = name
-      )
+      createJarResolver(fullyQualifiedJarFile, name)
     }
   }
 
@@ -200,7 +220,46 @@ class ProductInfoClassResolver private constructor(
     val fullyQualifiedJarFile = ide.idePath.resolve("lib/$relativeJarPath")
     return corePluginClasspathCache[fullyQualifiedJarFile]?.also {
       recordResolverReuse(fullyQualifiedJarFile)
-    } ?: LazyJarResolver(fullyQualifiedJarFile, readMode, IdeLibDirectory(ide), name = relativeJarPath)
+    } ?: createJarResolver(fullyQualifiedJarFile, relativeJarPath).also {
+      jarResolvers[fullyQualifiedJarFile] = it
+    }
+  }
+
+  private fun createJarResolver(jarPath: Path, name: String): LazyJarResolver {
+    val jarIndex = classIndex?.getJarIndex(jarPath)
+    return LazyJarResolver(jarPath, readMode, IdeLibDirectory(ide), name, index = jarIndex)
+  }
+
+  /**
+   * Writes the class index of IDE jars if it is missing or some of the existing jars are not indexed or changed.
+   * Indexing reads each not yet indexed jar once.
+   * Jars that cannot be read are recorded in the index as well, so that they do not make the index rewritten on every run.
+   */
+  private fun updateClassIndex() {
+    val classIndexPath = resolverConfiguration.classIndexPath ?: return
+    val existingJars = jarResolvers.filterKeys { it.exists() }
+    if (classIndex != null
+      && existingJars.size == classIndex.indexedJarCount
+      && existingJars.all { (jarPath, resolver) -> resolver.isIndexed || classIndex.isUnindexable(jarPath) }
+    ) {
+      return
+    }
+    val jarIndexes = mutableMapOf<Path, JarIndex>()
+    val unindexableJars = mutableSetOf<Path>()
+    for ((jarPath, resolver) in existingJars) {
+      try {
+        jarIndexes[jarPath] = resolver.contentIndex
+      } catch (e: JarArchiveException) {
+        LOG.debug("Jar '{}' is not indexed: {}", jarPath, e.message)
+        unindexableJars.add(jarPath)
+      }
+    }
+    try {
+      IdeClassIndex.write(classIndexPath, ide.idePath, jarIndexes, unindexableJars)
+      LOG.debug("Class index of {} jars is written to '{}'", jarIndexes.size, classIndexPath)
+    } catch (e: IOException) {
+      LOG.warn("Class index cannot be written to '{}': {}", classIndexPath, e.message)
+    }
   }
 
   private fun cacheClasspaths(resolver: LayoutComponentResolver) {
@@ -135,11 +135,13 @@ class IdeManagerImpl : AbstractIdeManager() {
     val seenPluginIds = hashSetOf<String?>()
 
     fun loadPlatformPluginsFrom(descriptorPaths: List<String>) {
-      for (jarFile in jarFiles) {
+      val plugins = jarFiles.loadConcurrently { jarFile ->
         val descriptorPath = jarFileSystemProvider.getFileSystem(jarFile).use { jarFs ->
           descriptorPaths.find { jarFs.getPath(IdePluginManager.META_INF).resolve(it).exists() }
-        } ?: continue
-        val plugin = createBundledPluginExceptionally(idePath, jarFile, platformResourceResolver, descriptorPath, ideVersion)
+        } ?: return@loadConcurrently null
+        createBundledPluginExceptionally(idePath, jarFile, platformResourceResolver, descriptorPath, ideVersion)
+      }
+      for (plugin in plugins.filterNotNull()) {
         if (seenPluginIds.add(plugin.pluginId)) {
           platformPlugins += plugin
         }
@@ -171,7 +173,8 @@ class IdeManagerImpl : AbstractIdeManager() {
       .resolve("plugins")
       .listFiles()
       .filter { it.isDirectory }
-      .mapNotNull { readBundledPlugin(idePath, it, platformResourceResolver, ideVersion) }
+      .loadConcurrently { readBundledPlugin(idePath, it, platformResourceResolver, ideVersion) }
+      .filterNotNull()
   }
 
   private fun readBundledPlugin(
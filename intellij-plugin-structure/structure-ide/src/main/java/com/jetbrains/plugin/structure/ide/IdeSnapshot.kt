@@ -0,0 +1,296 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.ide
+
+import com.jetbrains.plugin.structure.base.utils.deleteQuietly
+import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.plugin.structure.base.utils.writeBytesAtomically
+import com.jetbrains.plugin.structure.ide.layout.IdeRelativePath
+import com.jetbrains.plugin.structure.ide.layout.LayoutComponents
+import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode
+import com.jetbrains.plugin.structure.ide.layout.ResolvedLayoutComponent
+import com.jetbrains.plugin.structure.ide.problem.IdeProblem
+import com.jetbrains.plugin.structure.ide.problem.LayoutComponentHasNonExistentClasspath
+import com.jetbrains.plugin.structure.intellij.platform.LayoutComponent
+import com.jetbrains.plugin.structure.intellij.platform.ProductInfoParser
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.cache.PluginCreationResultCodec
+import com.jetbrains.plugin.structure.intellij.version.IdeVersion
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+
+private val LOG: Logger = LoggerFactory.getLogger(IdeSnapshot::class.java)
+
+private const val MAGIC = 0x49444553 // "IDES"
+
+/**
+ * Version of the layout of the snapshot file. It must be increased whenever the encoding of the IDE model changes.
+ * The encoding of bundled plugins is versioned by the [codec version][PluginCreationResultCodec.version],
+ * which is a part of the header as well.
+ */
+private const val FORMAT_VERSION = 2
+
+/**
+ * Files of the IDE that are not referenced by the model but affect it: directories whose listing determines
+ * bundled plugins that are not declared in the layout, and the descriptors of modules.
+ */
+private val FINGERPRINTED_IDE_FILES = listOf("lib", "plugins", "modules/module-descriptors.jar")
+
+private const val PLUGINS_DIRECTORY = "plugins"
+
+/**
+ * Persistent snapshot of the model of a [ProductInfoBasedIde]: its version, validated layout components
+ * and bundled plugins, everything that is derived from the IDE directory by parsing descriptors and enumerating jars.
+ *
+ * An IDE restored from a valid snapshot is created without opening any jar,
+ * only the `product-info.json` is parsed again to provide the [ProductInfo][ProductInfoAware.productInfo].
+ * Classes are still read from the original jars on demand.
+ *
+ * The snapshot file consists of a header (magic, [format version][FORMAT_VERSION]
+ * and [codec version][PluginCreationResultCodec.version]), the validity section and the model.
+ * The validity section holds the [MissingLayoutFileMode] the IDE was created with,
+ * the SHA-256 digest of `product-info.json` and the size and the modification time of each file the model was read from:
+ * jars of the layout components and the directories they are in, the `lib` and `plugins` directories,
+ * and every file and directory of the bundled plugins, so that a changed plugin or module descriptor is noticed.
+ * A snapshot of another version, a snapshot that does not match the IDE directory anymore
+ * or a corrupted one is ignored, so the IDE is created from its directory and the snapshot is rewritten.
+ */
+object IdeSnapshot {
+
+  /**
+   * Restores the IDE at [idePath] from the [snapshotFile].
+   * Returns `null` if the file does not exist, has another format version, is stale or corrupted.
+   */
+  fun read(snapshotFile: Path, idePath: Path, missingLayoutFileMode: MissingLayoutFileMode): Ide? {
+    if (!snapshotFile.exists()) {
+      return null
+    }
+    val productInfoFile = idePath.productInfoJson ?: return null
+    return try {
+      val input = DataInputStream(ByteArrayInputStream(Files.readAllBytes(snapshotFile)))
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || input.readUTF() != PluginCreationResultCodec.version) {
+        LOG.info("IDE snapshot '{}' has an unsupported format and will be rewritten", snapshotFile)
+        snapshotFile.deleteQuietly()
+        return null
+      }
+      val productInfoContent = Files.readAllBytes(productInfoFile)
+      if (!input.readValidity(idePath, missingLayoutFileMode, productInfoContent)) {
+        LOG.debug("IDE snapshot '{}' is stale and will be rewritten", snapshotFile)
+        return null
+      }
+      val productInfo = ProductInfoParser().parse(ByteArrayInputStream(productInfoContent), productInfoFile.toString())
+      val ideVersion = IdeVersion.createIdeVersion(input.readUTF())
+      val layoutComponents = input.readLayoutComponents(idePath)
+      val bundledPlugins = PluginCreationResultCodec.decodePlugins(input, idePath)
+
+      val layoutComponentsSource = ProductInfoLayoutComponentsPluginCollectionSource(idePath, ideVersion, layoutComponents)
+      ProductInfoBasedIde.of(idePath, ideVersion, productInfo, mapOf(layoutComponentsSource to RestoredPluginCollectionProvider(bundledPlugins)))
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      LOG.warn("IDE snapshot '{}' is corrupted and will be rewritten: {}", snapshotFile, e.message)
+      snapshotFile.deleteQuietly()
+      null
+    }
+  }
+
+  /**
+   * Writes the snapshot of the [ide] created with the [missingLayoutFileMode] to the [snapshotFile].
+   * Bundled plugins of the [ide] are loaded if they are not loaded yet.
+   * Nothing is written for an IDE that is not based on `product-info.json` or cannot be encoded.
+   *
+   * The file is replaced atomically, so concurrent readers see either the previous snapshot or the new one.
+   */
+  @Throws(IOException::class)
+  fun write(snapshotFile: Path, ide: Ide, missingLayoutFileMode: MissingLayoutFileMode) {
+    if (ide !is ProductInfoBasedIde) {
+      LOG.debug("IDE {} is not based on '{}' and will not be snapshotted", ide, PRODUCT_INFO_JSON)
+      return
+    }
+    val idePath = ide.idePath
+    val productInfoFile = idePath.productInfoJson ?: return
+    val unsupportedProblem = ide.layoutComponents.problems.find { it !is LayoutComponentHasNonExistentClasspath }
+    if (unsupportedProblem != null) {
+      LOG.debug("IDE {} will not be snapshotted: IDE problem {} cannot be snapshotted", ide, unsupportedProblem.javaClass.name)
+      return
+    }
+    val codecVersion = PluginCreationResultCodec.version
+    if (codecVersion == null) {
+      LOG.debug("IDE {} will not be snapshotted: bundled plugins cannot be versioned", ide)
+      return
+    }
+    val content = ByteArrayOutputStream()
+    val encodingResult = DataOutputStream(content).use { out ->
+      out.writeInt(MAGIC)
+      out.writeInt(FORMAT_VERSION)
+      out.writeUTF(codecVersion)
+      out.writeUTF(missingLayoutFileMode.name)
+      out.writeByteArray(Files.readAllBytes(productInfoFile).sha256())
+      val stamps = ide.getFingerprintedFiles().map { FileStamp.of(idePath, it) }
+      out.writeInt(stamps.size)
+      stamps.forEach {
+        out.writeUTF(it.relativePath)
+        out.writeLong(it.size)
+        out.writeLong(it.lastModified)
+      }
+      out.writeUTF(ide.version.asString(true, true))
+      out.writeLayoutComponents(ide.layoutComponents)
+      PluginCreationResultCodec.encodePlugins(ide.bundledPlugins, idePath, out)
+    }
+    if (encodingResult is PluginCreationResultCodec.EncodingResult.NotEncodable) {
+      LOG.debug("IDE {} will not be snapshotted: {}", ide, encodingResult.reason)
+      return
+    }
+
+    snapshotFile.writeBytesAtomically(content.toByteArray())
+  }
+
+  /**
+   * Returns paths relative to the IDE of files the model of this IDE is read from, except for `product-info.json`.
+   * Directories of bundled plugins are listed completely, as descriptors are read from files
+   * that are not on the classpath, such as `META-INF/plugin.xml` of a plugin directory.
+   */
+  @Throws(IOException::class)
+  private fun ProductInfoBasedIde.getFingerprintedFiles(): Set<String> {
+    val files = sortedSetOf<String>()
+    files += FINGERPRINTED_IDE_FILES
+    productInfo.layout.forEach { component ->
+      if (component is LayoutComponent.Classpathable) {
+        component.getClasspath().forEach {
+          files += it.toRelativeKey()
+          it.parent?.let { directory -> files += directory.toRelativeKey() }
+        }
+      }
+    }
+    val pluginDirectories = sortedSetOf<String>()
+    bundledPlugins.forEach { plugin ->
+      (plugin.classpath.paths + listOfNotNull(plugin.originalFile)).forEach {
+        if (it.fileSystem == idePath.fileSystem && it.startsWith(idePath)) {
+          val relativePath = idePath.relativize(it)
+          files += relativePath.toRelativeKey()
+          if (relativePath.nameCount > 1 && relativePath.getName(0).toString() == PLUGINS_DIRECTORY) {
+            pluginDirectories += relativePath.subpath(0, 2).toRelativeKey()
+          }
+        }
+      }
+    }
+    pluginDirectories.map { idePath.resolve(it) }.filter { it.exists() }.forEach { pluginDirectory ->
+      Files.walk(pluginDirectory).use { paths ->
+        paths.forEach { files += idePath.relativize(it).toRelativeKey() }
+      }
+    }
+    return files
+  }
+
+  private fun DataInputStream.readValidity(
+    idePath: Path,
+    missingLayoutFileMode: MissingLayoutFileMode,
+    productInfoContent: ByteArray
+  ): Boolean {
+    if (readUTF() != missingLayoutFileMode.name || !readByteArray().contentEquals(productInfoContent.sha256())) {
+      return false
+    }
+    val stamps = List(readInt()) { FileStamp(readUTF(), readLong(), readLong()) }
+    return stamps.all { FileStamp.of(idePath, it.relativePath) == it }
+  }
+
+  private fun DataOutputStream.writeLayoutComponents(layoutComponents: LayoutComponents) {
+    writeInt(layoutComponents.layoutComponents.size)
+    layoutComponents.forEach { resolved ->
+      val component = resolved.layoutComponent
+      writeUTF(component.kind)
+      writeUTF(component.name)
+      writeStrings(component.classPathValues)
+    }
+    writeInt(layoutComponents.problems.size)
+    layoutComponents.problems.filterIsInstance<LayoutComponentHasNonExistentClasspath>().forEach { problem ->
+      writeUTF(problem.layoutComponentName)
+      writeStrings(problem.offendingClasspathElements.map { it.relativePath.toString() })
+    }
+  }
+
+  private fun DataInputStream.readLayoutComponents(idePath: Path): LayoutComponents {
+    val components = List(readInt()) {
+      val kind = readUTF()
+      val name = readUTF()
+      val classPaths = readStrings()
+      val component = when (kind) {
+        "plugin" -> LayoutComponent.Plugin(name, classPaths)
+        "pluginAlias" -> LayoutComponent.PluginAlias(name)
+        "moduleV2" -> LayoutComponent.ModuleV2(name, classPaths)
+        "productModuleV2" -> LayoutComponent.ProductModuleV2(name, classPaths)
+        else -> throw IllegalArgumentException("Unknown kind of layout component: $kind")
+      }
+      ResolvedLayoutComponent(idePath, component)
+    }
+    val problems = List<IdeProblem>(readInt()) {
+      val componentName = readUTF()
+      LayoutComponentHasNonExistentClasspath(componentName, readStrings().map { IdeRelativePath(idePath, Path.of(it)) })
+    }
+    return LayoutComponents(components, problems)
+  }
+
+  private val LayoutComponent.classPathValues: List<String>
+    get() = when (this) {
+      is LayoutComponent.Plugin -> classPaths
+      is LayoutComponent.PluginAlias -> emptyList()
+      is LayoutComponent.ModuleV2 -> classPaths
+      is LayoutComponent.ProductModuleV2 -> classPaths
+    }
+
+  private fun DataOutputStream.writeStrings(values: List<String>) {
+    writeInt(values.size)
+    values.forEach { writeUTF(it) }
+  }
+
+  private fun DataInputStream.readStrings(): List<String> = List(readSize()) { readUTF() }
+
+  private fun DataOutputStream.writeByteArray(bytes: ByteArray) {
+    writeInt(bytes.size)
+    write(bytes)
+  }
+
+  private fun DataInputStream.readByteArray(): ByteArray = ByteArray(readSize()).also { readFully(it) }
+
+  private fun DataInputStream.readSize(): Int {
+    val size = readInt()
+    if (size < 0 || size > available()) {
+      throw EOFException("Invalid size: $size")
+    }
+    return size
+  }
+
+  private fun ByteArray.sha256(): ByteArray = MessageDigest.getInstance("SHA-256").digest(this)
+
+  private fun Path.toRelativeKey(): String = normalize().joinToString("/")
+
+  /**
+   * Size and modification time of a file relative to the IDE, or `-1` for both if the file does not exist.
+   */
+  private data class FileStamp(val relativePath: String, val size: Long, val lastModified: Long) {
+    companion object {
+      fun of(idePath: Path, relativePath: String): FileStamp = try {
+        val attributes = Files.readAttributes(idePath.resolve(relativePath), BasicFileAttributes::class.java)
+        FileStamp(relativePath, attributes.size(), attributes.lastModifiedTime().toMillis())
+      } catch (e: IOException) {
+        FileStamp(relativePath, -1, -1)
+      }
+    }
+  }
+
+  private class RestoredPluginCollectionProvider(private val plugins: List<IdePlugin>) : PluginCollectionProvider<Path> {
+    override fun getPlugins(source: PluginCollectionSource<Path, *>): Collection<IdePlugin> = plugins
+  }
+}
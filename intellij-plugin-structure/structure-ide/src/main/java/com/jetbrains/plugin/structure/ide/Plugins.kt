@@ -4,9 +4,25 @@
 
 package com.jetbrains.plugin.structure.ide
 
+import com.jetbrains.plugin.structure.base.plugin.Settings
+import com.jetbrains.plugin.structure.base.utils.mapConcurrently
+import com.jetbrains.plugin.structure.base.utils.newDaemonThreadPool
+
 /**
  * Indicates the `lib` directory of the IntelliJ Platform plugin.
  *
  * See [Plugin Content](https://plugins.jetbrains.com/docs/intellij/plugin-content.html#plugin-with-dependencies).
  */
-const val LIB_DIRECTORY = "lib"
\ No newline at end of file
+const val LIB_DIRECTORY = "lib"
+
+private const val PLUGIN_LOADING_EXECUTOR_NAME = "bundled-plugin-loader"
+
+private val pluginLoadingExecutor by lazy { newDaemonThreadPool(PLUGIN_LOADING_EXECUTOR_NAME) }
+
+/**
+ * Loads bundled plugins or modules of an IDE from the elements
+ * on at most [IDE_PLUGIN_LOADING_PARALLELISM][Settings.IDE_PLUGIN_LOADING_PARALLELISM] threads.
+ * The results are in the order of the elements, so the bundled plugins of an IDE are listed deterministically.
+ */
+internal fun <T, R> List<T>.loadConcurrently(load: (T) -> R): List<R> =
+  mapConcurrently(pluginLoadingExecutor, Settings.IDE_PLUGIN_LOADING_PARALLELISM.getAsInt(), load)
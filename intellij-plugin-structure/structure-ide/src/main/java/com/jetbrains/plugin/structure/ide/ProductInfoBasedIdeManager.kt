@@ -24,6 +24,15 @@ internal const val PRODUCT_INFO_JSON = "product-info.json"
 internal const val MACOS_RESOURCES_DIRECTORY = "Resources"
 internal val VERSION_FROM_PRODUCT_INFO: IdeVersion? = null
 
+internal val Path.productInfoJson: Path?
+  get() {
+    val locations = listOf<Path>(
+      resolve(PRODUCT_INFO_JSON),
+      resolve(MACOS_RESOURCES_DIRECTORY).resolve(PRODUCT_INFO_JSON)
+    )
+    return locations.firstOrNull { it.exists() }
+  }
+
 class ProductInfoBasedIdeManager(
   missingLayoutFileMode: MissingLayoutFileMode = SKIP_AND_WARN,
   private val additionalProductInfoPluginReader: PluginReader<ProductInfo> = NoOpProductInfoPluginReader,
@@ -92,15 +101,6 @@ class ProductInfoBasedIdeManager(
   private fun LayoutComponents.asSource(idePath: Path, ideVersion: IdeVersion) =
     ProductInfoLayoutComponentsPluginCollectionSource(idePath, ideVersion, this)
 
-  private val Path.productInfoJson: Path?
-    get() {
-      val locations = listOf<Path>(
-        resolve(PRODUCT_INFO_JSON),
-        resolve(MACOS_RESOURCES_DIRECTORY).resolve(PRODUCT_INFO_JSON)
-      )
-      return locations.firstOrNull { it.exists() }
-    }
-
   @Throws(InvalidIdeException::class)
   private fun assertProductInfoPresent(idePath: Path): Path {
     return idePath.productInfoJson ?: throw InvalidIdeException(idePath, "The '$PRODUCT_INFO_JSON' file is not available.")
@@ -68,7 +68,7 @@ class ProductInfoLayoutBasedPluginCollectionProvider(
     val moduleV2Factory = ModuleFactory(::createModule, LayoutComponentsClasspathProvider(layoutComponents))
     val pluginFactory = PluginFactory(::createPlugin)
 
-    val moduleLoadingResults = layoutComponents.content.mapNotNull { layoutComponent ->
+    val moduleLoadingResults = layoutComponents.content.loadConcurrently { layoutComponent ->
       when (layoutComponent) {
         is LayoutComponent.ModuleV2,
         is LayoutComponent.ProductModuleV2 -> {
@@ -84,7 +84,7 @@ class ProductInfoLayoutBasedPluginCollectionProvider(
           null
         }
       }
-    }.fold(LoadingResults(), LoadingResults::add)
+    }.filterNotNull().fold(LoadingResults(), LoadingResults::add)
 
     logFailures(LOG, moduleLoadingResults.failures, idePath)
     return moduleLoadingResults.successfulPlugins
@@ -4,6 +4,7 @@ import com.jetbrains.plugin.structure.base.utils.listJars
 import com.jetbrains.plugin.structure.base.utils.simpleName
 import com.jetbrains.plugin.structure.ide.IntelliJPlatformProduct
 import com.jetbrains.plugin.structure.ide.InvalidIdeException
+import com.jetbrains.plugin.structure.ide.loadConcurrently
 import com.jetbrains.plugin.structure.ide.layout.PluginWithArtifactPathResult.Companion.logFailures
 import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
 import com.jetbrains.plugin.structure.intellij.resources.JarsResourceResolver
@@ -43,7 +44,7 @@ internal class CorePluginManager(private val pluginLoader: LayoutComponentLoader
     val corePluginJarsResolver = JarsResourceResolver(corePluginJarPaths, jarFileSystemProvider)
 
     val loadPlugin = { jarPath: Path -> loadPlugin(jarPath, ideVersion, corePluginJarsResolver) }
-    val loadedPlugins = corePluginJarPaths.mapNotNull(loadPlugin)
+    val loadedPlugins = corePluginJarPaths.loadConcurrently(loadPlugin).filterNotNull()
     val loadingResults = LoadingResults(loadedPlugins)
     logFailures(LOG, loadingResults.failures, idePath)
     assertCorePluginsPresent(idePath, ideVersion, loadingResults)
@@ -1,9 +1,10 @@
 /*
- * Copyright 2000-2020 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.intellij.extractor
 
+import com.jetbrains.plugin.structure.base.decompress.DecompressorException
 import com.jetbrains.plugin.structure.base.decompress.DecompressorSizeLimitExceededException
 import com.jetbrains.plugin.structure.base.plugin.Settings
 import com.jetbrains.plugin.structure.base.problems.PluginFileSizeIsTooLarge
@@ -14,13 +15,17 @@ import com.jetbrains.plugin.structure.base.utils.isDirectory
 import com.jetbrains.plugin.structure.base.utils.isJar
 import com.jetbrains.plugin.structure.base.utils.listAllFiles
 import com.jetbrains.plugin.structure.base.utils.listFiles
+import com.jetbrains.plugin.structure.base.utils.openZip
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
 import com.jetbrains.plugin.structure.base.utils.simpleName
+import com.jetbrains.plugin.structure.base.zip.ZipCentralDirectory
 import com.jetbrains.plugin.structure.intellij.problems.PluginZipContainsMultipleFiles
 import com.jetbrains.plugin.structure.intellij.problems.PluginZipContainsSingleJarInRoot
 import com.jetbrains.plugin.structure.intellij.problems.PluginZipContainsUnknownFile
 import com.jetbrains.plugin.structure.intellij.problems.PluginZipIsEmpty
 import com.jetbrains.plugin.structure.intellij.problems.UnexpectedPluginZipStructure
 import org.slf4j.LoggerFactory
+import java.nio.file.FileSystem
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.PathMatcher
@@ -47,37 +52,70 @@ class DefaultPluginExtractor : PluginExtractor {
     return getExtractorResult(extractedPlugin)
   }
 
-  private fun success(actualFile: Path, fileToDelete: Path): ExtractorResult =
-    ExtractorResult.Success(ExtractedPlugin(actualFile, fileToDelete))
+  /**
+   * Reads the [pluginFile] in place, as a ZIP file system, instead of extracting it.
+   *
+   * The plugin is read in place only if its entries take at most [inPlaceSizeLimit] bytes,
+   * as recorded in the central directory of the ZIP. Otherwise, or if the ZIP cannot be opened as a file system,
+   * `null` is returned and the plugin should be [extracted][extractPlugin].
+   * The ZIP is checked the same way extraction checks it, including the plugin size limit.
+   */
+  fun openPlugin(pluginFile: Path, inPlaceSizeLimit: Long): ExtractorResult? {
+    if (inPlaceSizeLimit <= 0) {
+      return null
+    }
+    val fileSystem = try {
+      if (ZipCentralDirectory.read(pluginFile).entries.sumOf { it.size } > inPlaceSizeLimit) {
+        return null
+      }
+      openZip(pluginFile, Settings.INTELLIJ_PLUGIN_SIZE_LIMIT.getAsLong())
+    } catch (e: DecompressorSizeLimitExceededException) {
+      return ExtractorResult.Fail(PluginFileSizeIsTooLarge(e.sizeLimit))
+    } catch (e: DecompressorException) {
+      throw e
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      LOG.debug("Plugin '{}' cannot be read in place and will be extracted: {}", pluginFile, e.message)
+      return null
+    }
+    return getExtractorResult(fileSystem.rootDirectories.first(), fileSystem)
+  }
 
-  private fun fail(problem: PluginProblem, extractedPlugin: Path): ExtractorResult {
+  private fun success(actualFile: Path, fileToDelete: Path, fileSystem: FileSystem?): ExtractorResult =
+    ExtractorResult.Success(ExtractedPlugin(actualFile, fileToDelete, fileSystem))
+
+  private fun fail(problem: PluginProblem, extractedPlugin: Path, fileSystem: FileSystem? = null): ExtractorResult {
     try {
       return ExtractorResult.Fail(problem)
     } finally {
-      extractedPlugin.deleteQuietly()
+      ExtractedPlugin(extractedPlugin, extractedPlugin, fileSystem).close()
     }
   }
 
-  private fun getExtractorResult(extractedPlugin: Path): ExtractorResult {
+  /**
+   * Checks the structure of the plugin ZIP decompressed to the [extractedPlugin] directory
+   * or opened as the [fileSystem] whose root is the [extractedPlugin].
+   */
+  private fun getExtractorResult(extractedPlugin: Path, fileSystem: FileSystem? = null): ExtractorResult {
     val rootFiles = extractedPlugin.listFiles()
     when (rootFiles.size) {
-      0 -> return fail(PluginZipIsEmpty(), extractedPlugin)
+      0 -> return fail(PluginZipIsEmpty(), extractedPlugin, fileSystem)
       1 -> {
         val singleFile = rootFiles[0]
         return if (singleFile.isJar()) {
-          fail(PluginZipContainsSingleJarInRoot(singleFile.simpleName), extractedPlugin)
+          fail(PluginZipContainsSingleJarInRoot(singleFile.simpleName), extractedPlugin, fileSystem)
         } else if (singleFile.isDirectory) {
           val allFiles = extractedPlugin.listAllFiles()
           if (allFiles.any { isJarInZip(it) }) {
-            success(singleFile, extractedPlugin)
+            success(singleFile, extractedPlugin, fileSystem)
           } else {
-            fail(UnexpectedPluginZipStructure(), extractedPlugin)
+            fail(UnexpectedPluginZipStructure(), extractedPlugin, fileSystem)
           }
         } else {
-          fail(PluginZipContainsUnknownFile(singleFile.simpleName), extractedPlugin)
+          fail(PluginZipContainsUnknownFile(singleFile.simpleName), extractedPlugin, fileSystem)
         }
       }
-      else -> return fail(PluginZipContainsMultipleFiles(rootFiles.map { it.simpleName }.sorted()), extractedPlugin)
+      else -> return fail(PluginZipContainsMultipleFiles(rootFiles.map { it.simpleName }.sorted()), extractedPlugin, fileSystem)
     }
   }
 
@@ -1,23 +1,32 @@
 /*
- * Copyright 2000-2020 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.intellij.extractor
 
+import com.jetbrains.plugin.structure.base.utils.closeLogged
 import com.jetbrains.plugin.structure.base.utils.deleteQuietly
 import java.io.Closeable
+import java.nio.file.FileSystem
 import java.nio.file.Path
 
 /**
  * Descriptor of a plugin that has been extracted from a compressed file, usually ZIP.
  * @param pluginFile a path to the top-level directory of the plugin in the filesystem, after decompression
  * @param fileToDelete a path to the directory that contains decompressed contents of the plugin file.
+ * @param fileSystem a file system of the plugin file that is read in place rather than decompressed.
+ * It is closed instead of deleting the [fileToDelete].
  */
-data class ExtractedPlugin(
+data class ExtractedPlugin @JvmOverloads constructor(
   val pluginFile: Path,
-  private val fileToDelete: Path
+  private val fileToDelete: Path,
+  private val fileSystem: FileSystem? = null
 ) : Closeable {
   override fun close() {
-    fileToDelete.deleteQuietly()
+    if (fileSystem != null) {
+      fileSystem.closeLogged()
+    } else {
+      fileToDelete.deleteQuietly()
+    }
   }
 }
\ No newline at end of file
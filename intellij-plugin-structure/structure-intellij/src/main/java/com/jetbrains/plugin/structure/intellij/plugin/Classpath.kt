@@ -12,6 +12,8 @@ class Classpath private constructor(val entries: List<ClasspathEntry> = emptyLis
       val entries = paths.map { ClasspathEntry(it, origin) }
       return Classpath(entries)
     }
+
+    internal fun of(entries: List<ClasspathEntry>): Classpath = if (entries.isEmpty()) EMPTY else Classpath(entries)
   }
 
   val size: Int = entries.size
@@ -5,6 +5,7 @@
 package com.jetbrains.plugin.structure.intellij.plugin
 
 import com.jetbrains.plugin.structure.base.plugin.PluginCreationResult
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
 import com.jetbrains.plugin.structure.base.plugin.PluginManager
 import com.jetbrains.plugin.structure.base.plugin.Settings
 import com.jetbrains.plugin.structure.base.problems.IncorrectZipOrJarFile
@@ -12,6 +13,7 @@ import com.jetbrains.plugin.structure.base.utils.*
 import com.jetbrains.plugin.structure.intellij.plugin.PluginArchiveManager.Result.Extracted
 import com.jetbrains.plugin.structure.intellij.plugin.PluginArchiveManager.Result.Failed
 import com.jetbrains.plugin.structure.intellij.plugin.PluginCreator.Companion.createInvalidPlugin
+import com.jetbrains.plugin.structure.intellij.plugin.cache.PluginCreationResultCache
 import com.jetbrains.plugin.structure.intellij.plugin.loaders.*
 import com.jetbrains.plugin.structure.intellij.problems.IntelliJPluginCreationResultResolver
 import com.jetbrains.plugin.structure.intellij.problems.PluginCreationResultResolver
@@ -30,12 +32,14 @@ import kotlin.system.measureTimeMillis
  * Factory for plugin of the IntelliJ Platform.
  *
  * Handles the plugin provided in JAR, ZIP or directory.
+ * Results of [createPlugin] are looked up in the optional [PluginCreationResultCache] before the plugin is parsed.
  */
 @Suppress("UNCHECKED_CAST")
 class IdePluginManager private constructor(
   private val myResourceResolver: ResourceResolver,
   private val pluginArchiveManager: PluginArchiveManager,
-  private val fileSystemProvider: JarFileSystemProvider = SingletonCachingJarFileSystemProvider
+  private val fileSystemProvider: JarFileSystemProvider = SingletonCachingJarFileSystemProvider,
+  private val pluginCache: PluginCreationResultCache? = null
 ) : PluginManager<IdePlugin> {
 
   private val pluginLoaderRegistry = PluginLoaderProvider().apply {
@@ -142,13 +146,37 @@ class IdePluginManager private constructor(
     descriptorPath: String = PLUGIN_XML,
     problemResolver: PluginCreationResultResolver = IntelliJPluginCreationResultResolver(),
   ): PluginCreationResult<IdePlugin> {
+    val cacheKey = pluginCache?.getKey(pluginFile, descriptorPath, validateDescriptor, problemResolver)
+    if (cacheKey != null) {
+      pluginCache?.readCachedPlugin(cacheKey)?.let { return it }
+    }
     val pluginCreator = getPluginCreatorWithResult(
       pluginFile,
       validateDescriptor,
       descriptorPath,
       problemResolver
     )
-    return pluginCreator.pluginCreationResult
+    return pluginCreator.pluginCreationResult.also { result ->
+      if (cacheKey != null) {
+        pluginCache?.write(cacheKey, result)
+      }
+    }
+  }
+
+  /**
+   * Reads the cached result of the plugin. A ZIP plugin is extracted as it is for parsing,
+   * so that the restored plugin refers to the extracted content and the result holds the extracted resource.
+   */
+  private fun PluginCreationResultCache.readCachedPlugin(key: PluginCreationResultCache.Key): PluginCreationResult<IdePlugin>? {
+    val pluginFile = key.pluginFile
+    if (!pluginFile.isZip()) {
+      return read(key)
+    }
+    val archive = pluginArchiveManager.extractArchive(pluginFile) as? Extracted ?: return null
+    return when (val result = read(key, archive.extractedPath)) {
+      is PluginCreationSuccess -> result.copy(resources = listOf(PluginArchiveResource.of(pluginFile, archive.extractedPath, result.plugin)))
+      else -> result
+    }
   }
 
   @Throws(PluginFileNotFoundException::class)
@@ -260,6 +288,15 @@ class IdePluginManager private constructor(
     ): IdePluginManager =
       IdePluginManager(resourceResolver, pluginArchiveManager, fileSystemProvider)
 
+    @JvmStatic
+    fun createManager(
+      resourceResolver: ResourceResolver,
+      pluginArchiveManager: PluginArchiveManager,
+      fileSystemProvider: JarFileSystemProvider,
+      pluginCache: PluginCreationResultCache?
+    ): IdePluginManager =
+      IdePluginManager(resourceResolver, pluginArchiveManager, fileSystemProvider, pluginCache)
+
     @Deprecated(
       message = "Use factory method with java.nio.Path",
       replaceWith = ReplaceWith("createManager(extractDirectory.toPath())")
@@ -4,6 +4,7 @@
 
 package com.jetbrains.plugin.structure.intellij.plugin
 
+import com.jetbrains.plugin.structure.intellij.plugin.cache.PluginCreationResultCache
 import com.jetbrains.plugin.structure.intellij.resources.DefaultResourceResolver
 import com.jetbrains.plugin.structure.intellij.resources.ResourceResolver
 import com.jetbrains.plugin.structure.jar.JarFileSystemProvider
@@ -19,14 +20,15 @@ fun createIdePluginManager(builder: IdePluginManagerConfiguration.Builder.() ->
     .apply(builder)
     .build()
     .run {
-      IdePluginManager.createManager(resourceResolver, pluginArchiveManager, fileSystemProvider)
+      IdePluginManager.createManager(resourceResolver, pluginArchiveManager, fileSystemProvider, pluginCache)
     }
 }
 
 class IdePluginManagerConfiguration(
   val pluginArchiveManager: PluginArchiveManager,
   val resourceResolver: ResourceResolver,
-  val fileSystemProvider: JarFileSystemProvider
+  val fileSystemProvider: JarFileSystemProvider,
+  val pluginCache: PluginCreationResultCache? = null
 ) {
 
   class Builder {
@@ -34,6 +36,7 @@ class IdePluginManagerConfiguration(
     var extractDirectory: Path? = null
     var resourceResolver: ResourceResolver? = null
     var fileSystemProvider: JarFileSystemProvider? = null
+    var pluginCacheDirectory: Path? = null
 
     fun build(): IdePluginManagerConfiguration {
       if (extractDirectory == null && pluginArchiveManager == null) {
@@ -42,7 +45,8 @@ class IdePluginManagerConfiguration(
       val pluginArchiveManager = pluginArchiveManager ?: PluginArchiveManager(extractDirectory!!)
       val resourceResolver = resourceResolver ?: DefaultResourceResolver
       val fileSystemProvider = fileSystemProvider ?: SingletonCachingJarFileSystemProvider
-      return IdePluginManagerConfiguration(pluginArchiveManager, resourceResolver, fileSystemProvider)
+      val pluginCache = pluginCacheDirectory?.let { PluginCreationResultCache(it) }
+      return IdePluginManagerConfiguration(pluginArchiveManager, resourceResolver, fileSystemProvider, pluginCache)
     }
   }
 }
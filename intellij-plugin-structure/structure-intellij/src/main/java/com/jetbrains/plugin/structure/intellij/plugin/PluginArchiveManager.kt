@@ -5,6 +5,7 @@
 package com.jetbrains.plugin.structure.intellij.plugin
 
 import com.jetbrains.plugin.structure.base.decompress.DecompressorException
+import com.jetbrains.plugin.structure.base.plugin.Settings
 import com.jetbrains.plugin.structure.base.problems.PluginProblem
 import com.jetbrains.plugin.structure.base.problems.UnableToExtractZip
 import com.jetbrains.plugin.structure.base.utils.Deletable
@@ -26,7 +27,17 @@ import kotlin.system.measureTimeMillis
 
 private val LOG: Logger = LoggerFactory.getLogger(PluginArchiveManager::class.java)
 
-class PluginArchiveManager(private val extractDirectory: Path, private val isCollectingStats: Boolean = true) : Deletable, Closeable  {
+/**
+ * Extracts plugin archives into the [extractDirectory] and caches the extracted plugins.
+ *
+ * Archives whose entries take at most [inPlaceSizeLimit] bytes are not extracted but read in place,
+ * as a ZIP file system, see [DefaultPluginExtractor.openPlugin].
+ */
+class PluginArchiveManager(
+  private val extractDirectory: Path,
+  private val isCollectingStats: Boolean = true,
+  private val inPlaceSizeLimit: Long = Settings.INTELLIJ_PLUGIN_IN_PLACE_SIZE_LIMIT.getAsLong()
+) : Deletable, Closeable  {
 
   private val cache = ConcurrentHashMap<Path, Result>()
 
@@ -57,7 +68,8 @@ class PluginArchiveManager(private val extractDirectory: Path, private val isCol
     lateinit var extractorResult: ExtractorResult
     val extractionDuration = measureTimeMillis {
       extractorResult = runCatching {
-        pluginExtractor.extractPlugin(pluginFile, extractDirectory)
+        pluginExtractor.openPlugin(pluginFile, inPlaceSizeLimit)
+          ?: pluginExtractor.extractPlugin(pluginFile, extractDirectory)
       }.getOrElse {
         LOG.info("Unable to extract plugin zip ${pluginFile.simpleName}", it)
         if (it is DecompressorException) {
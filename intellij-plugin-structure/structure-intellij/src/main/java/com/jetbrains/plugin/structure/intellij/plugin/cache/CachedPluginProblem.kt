@@ -0,0 +1,34 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.intellij.plugin.cache
+
+import com.jetbrains.plugin.structure.base.problems.PluginProblem
+import com.jetbrains.plugin.structure.base.problems.ProblemSolutionHint
+import com.jetbrains.plugin.structure.base.problems.RestoredPluginProblem
+
+/**
+ * Plugin problem restored by the [PluginCreationResultCodec], such as a problem of a bundled plugin of an IDE snapshot.
+ *
+ * The problem has the level, the message and the hint of the original problem, so it is equal to the original problem.
+ * The original problem is not instantiated again, but its class is resolved by the name [problemType],
+ * so the type checks of plugin problems give the same answers for both.
+ */
+class CachedPluginProblem(
+  val problemType: String,
+  override val level: Level,
+  override val message: String,
+  override val hint: ProblemSolutionHint?
+) : PluginProblem(), RestoredPluginProblem {
+
+  override val problemClass: Class<out PluginProblem>? by lazy {
+    try {
+      Class.forName(problemType, false, CachedPluginProblem::class.java.classLoader)
+        .takeIf { PluginProblem::class.java.isAssignableFrom(it) }
+        ?.asSubclass(PluginProblem::class.java)
+    } catch (e: ClassNotFoundException) {
+      null
+    }
+  }
+}
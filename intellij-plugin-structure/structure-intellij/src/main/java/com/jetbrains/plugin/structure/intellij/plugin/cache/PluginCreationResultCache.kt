@@ -0,0 +1,177 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.intellij.plugin.cache
+
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationResult
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.base.telemetry.MutablePluginTelemetry
+import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_RESTORED_FROM_CACHE
+import com.jetbrains.plugin.structure.base.utils.deleteQuietly
+import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.isJar
+import com.jetbrains.plugin.structure.base.utils.isZip
+import com.jetbrains.plugin.structure.base.utils.pluginSize
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.plugin.structure.base.utils.writeBytesAtomically
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager
+import com.jetbrains.plugin.structure.intellij.problems.PluginCreationResultResolver
+import com.jetbrains.plugin.structure.intellij.resources.PluginArchiveResource
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.time.Duration
+
+private val LOG: Logger = LoggerFactory.getLogger(PluginCreationResultCache::class.java)
+
+private const val MAGIC = 0x49504343 // "IPCC"
+
+private const val ENTRY_EXTENSION = ".plugin"
+
+private const val DIGEST_BUFFER_SIZE = 64 * 1024
+
+/**
+ * Persistent cache of results of [IdePluginManager.createPlugin] for plugin artifacts.
+ *
+ * An entry is keyed by the SHA-256 digest of the content of the artifact, ZIP or JAR, together with the parameters
+ * of the plugin creation and the [version of the codec][PluginCreationResultCodec.version], which includes the fingerprint
+ * of the library, so an artifact with the same content is not parsed again wherever it is located,
+ * while results of another build of the parser are never replayed.
+ * Plugins in directories are not cached, as digesting a directory costs as much as parsing it.
+ * Nothing is cached if the library cannot be fingerprinted.
+ *
+ * Each entry file consists of a header (magic and the codec version) followed by the encoded result.
+ * An entry of another version, a truncated or otherwise corrupted entry is ignored and deleted,
+ * so that the plugin is parsed again and the entry is rewritten.
+ *
+ * Only successful results without problems are cached, because problems are reported by their classes,
+ * and the original problems cannot be restored.
+ * Paths of the content of a plugin from a ZIP archive are resolved against the archive extracted
+ * by the caller, so the restored plugin refers to the same content as the parsed one.
+ *
+ * Results depend on the [problem resolver][PluginCreationResultResolver] that classified the problems,
+ * so the [configuration of the resolver][PluginCreationResultResolver.cacheKey] is a part of the key.
+ * Results of resolvers that cannot describe their configuration are not cached.
+ *
+ * Entries are written atomically, so the cache is safe to share between threads and processes.
+ */
+class PluginCreationResultCache(private val cacheDirectory: Path) {
+
+  /**
+   * Returns the key of the plugin creation result, or `null` if results for the [pluginFile]
+   * or of the [problemResolver] are not cached.
+   */
+  fun getKey(
+    pluginFile: Path,
+    descriptorPath: String,
+    validateDescriptor: Boolean,
+    problemResolver: PluginCreationResultResolver
+  ): Key? {
+    val resolverKey = problemResolver.cacheKey
+    val codecVersion = PluginCreationResultCodec.version
+    if (resolverKey == null || codecVersion == null || !(pluginFile.isZip() || pluginFile.isJar()) || !Files.isRegularFile(pluginFile)) {
+      return null
+    }
+    return try {
+      val digest = MessageDigest.getInstance("SHA-256")
+      Files.newInputStream(pluginFile).use { input ->
+        val buffer = ByteArray(DIGEST_BUFFER_SIZE)
+        while (true) {
+          val count = input.read(buffer)
+          if (count < 0) break
+          digest.update(buffer, 0, count)
+        }
+      }
+      digest.update(descriptorPath.toByteArray(Charsets.UTF_8))
+      digest.update(if (validateDescriptor) 1 else 0)
+      digest.update(resolverKey.toByteArray(Charsets.UTF_8))
+      digest.update(codecVersion.toByteArray(Charsets.UTF_8))
+      Key(pluginFile, digest.digest().joinToString("") { "%02x".format(it) })
+    } catch (e: IOException) {
+      LOG.debug("Plugin '{}' cannot be digested and will not be cached: {}", pluginFile, e.message)
+      null
+    }
+  }
+
+  /**
+   * Returns the cached result for the [key], or `null` if there is no valid entry for it.
+   * Paths of the plugin content are resolved against the [contentRoot],
+   * which is the extracted directory of a ZIP plugin and the plugin file of a JAR plugin.
+   */
+  fun read(key: Key, contentRoot: Path = key.pluginFile): PluginCreationResult<IdePlugin>? {
+    val entryFile = key.entryFile
+    if (!entryFile.exists()) {
+      return null
+    }
+    val startTime = System.nanoTime()
+    return try {
+      val input = DataInputStream(ByteArrayInputStream(Files.readAllBytes(entryFile)))
+      if (input.readInt() != MAGIC || input.readUTF() != PluginCreationResultCodec.version) {
+        LOG.debug("Cached plugin '{}' has an unsupported format and will be parsed again", entryFile)
+        entryFile.deleteQuietly()
+        return null
+      }
+      val telemetry = MutablePluginTelemetry().apply {
+        archiveFileSize = key.pluginFile.pluginSize
+        this[PLUGIN_RESTORED_FROM_CACHE] = true
+      }
+      PluginCreationResultCodec.decode(input, key.pluginFile, contentRoot, telemetry).also {
+        telemetry.parsingDuration = Duration.ofNanos(System.nanoTime() - startTime)
+      }
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      LOG.warn("Cached plugin '{}' is corrupted and will be parsed again: {}", entryFile, e.message)
+      entryFile.deleteQuietly()
+      null
+    }
+  }
+
+  /**
+   * Writes the [result] for the [key], unless the result cannot be encoded.
+   *
+   * The entry file is replaced atomically, so concurrent readers see either the previous entry or the new one.
+   */
+  fun write(key: Key, result: PluginCreationResult<IdePlugin>) {
+    val codecVersion = PluginCreationResultCodec.version ?: return
+    val contentRoot = (result as? PluginCreationSuccess)?.resources
+      ?.filterIsInstance<PluginArchiveResource>()
+      ?.firstOrNull()?.extractedPath
+      ?: key.pluginFile
+    val content = ByteArrayOutputStream()
+    val encodingResult = DataOutputStream(content).use { out ->
+      out.writeInt(MAGIC)
+      out.writeUTF(codecVersion)
+      PluginCreationResultCodec.encode(result, key.pluginFile, contentRoot, out)
+    }
+    if (encodingResult is PluginCreationResultCodec.EncodingResult.NotEncodable) {
+      LOG.debug("Plugin '{}' will not be cached: {}", key.pluginFile, encodingResult.reason)
+      return
+    }
+
+    val entryFile = key.entryFile
+    try {
+      entryFile.writeBytesAtomically(content.toByteArray())
+    } catch (e: IOException) {
+      LOG.warn("Plugin '{}' cannot be cached to '{}': {}", key.pluginFile, entryFile, e.message)
+    }
+  }
+
+  private val Key.entryFile: Path
+    get() = cacheDirectory.resolve(digest + ENTRY_EXTENSION)
+
+  /**
+   * Key of a cached plugin creation result: the [digest] of the [pluginFile] and of the creation parameters.
+   */
+  class Key internal constructor(val pluginFile: Path, val digest: String) {
+    override fun toString(): String = "$pluginFile ($digest)"
+  }
+}
@@ -0,0 +1,849 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.intellij.plugin.cache
+
+import com.jetbrains.plugin.structure.base.plugin.IconTheme
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationFail
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationResult
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.base.plugin.PluginIcon
+import com.jetbrains.plugin.structure.base.plugin.ThirdPartyDependency
+import com.jetbrains.plugin.structure.base.problems.PluginProblem
+import com.jetbrains.plugin.structure.base.problems.ProblemSolutionHint
+import com.jetbrains.plugin.structure.base.problems.ReclassifiedPluginProblem
+import com.jetbrains.plugin.structure.base.telemetry.PluginTelemetry
+import com.jetbrains.plugin.structure.intellij.beans.ModuleBean
+import com.jetbrains.plugin.structure.intellij.plugin.Classpath
+import com.jetbrains.plugin.structure.intellij.plugin.ClasspathEntry
+import com.jetbrains.plugin.structure.intellij.plugin.ClasspathOrigin
+import com.jetbrains.plugin.structure.intellij.plugin.ContentModuleDependency
+import com.jetbrains.plugin.structure.intellij.plugin.DependsPluginDependency
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ClientKind
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ComponentConfig
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ExtensionPoint
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ListenerDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ListenerType
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.Os
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.PreloadMode
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ServiceDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginContentDescriptor.ServiceType
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginImpl
+import com.jetbrains.plugin.structure.intellij.plugin.IdeTheme
+import com.jetbrains.plugin.structure.intellij.plugin.InlineDeclaredModuleV2Dependency
+import com.jetbrains.plugin.structure.intellij.plugin.KotlinPluginMode
+import com.jetbrains.plugin.structure.intellij.plugin.Module
+import com.jetbrains.plugin.structure.intellij.plugin.ModuleDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.ModuleLoadingRule
+import com.jetbrains.plugin.structure.intellij.plugin.ModuleV2Dependency
+import com.jetbrains.plugin.structure.intellij.plugin.ModuleVisibility
+import com.jetbrains.plugin.structure.intellij.plugin.MutableIdePluginContentDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.OptionalPluginDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.PluginDependency
+import com.jetbrains.plugin.structure.intellij.plugin.PluginDependencyImpl
+import com.jetbrains.plugin.structure.intellij.plugin.PluginMainModuleDependency
+import com.jetbrains.plugin.structure.intellij.plugin.PluginV1Dependency
+import com.jetbrains.plugin.structure.intellij.plugin.PluginV2Dependency
+import com.jetbrains.plugin.structure.intellij.plugin.ProductDescriptor
+import com.jetbrains.plugin.structure.intellij.plugin.module.IdeModule
+import com.jetbrains.plugin.structure.intellij.utils.JDOMUtil
+import com.jetbrains.plugin.structure.intellij.version.IdeVersion
+import com.jetbrains.plugin.structure.intellij.version.ProductReleaseVersion
+import org.jetbrains.annotations.ApiStatus
+import org.jdom2.Document
+import org.jdom2.Element
+import org.jdom2.output.Format
+import org.jdom2.output.XMLOutputter
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.StringReader
+import java.net.URISyntaxException
+import java.nio.file.FileSystemNotFoundException
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.security.MessageDigest
+import java.time.LocalDate
+import kotlin.streams.asSequence
+
+/**
+ * Version of the encoding. It must be increased whenever the encoding of the results changes.
+ * Changes of the parser are tracked by the [fingerprint of the library][PluginCreationResultCodec.version].
+ */
+private const val FORMAT_VERSION = 3
+
+private const val FAIL = 0
+private const val SUCCESS = 1
+
+private const val NO_PATH = 0
+private const val ARTIFACT_PATH = 1
+private const val CONTENT_PATH = 2
+private const val ABSOLUTE_PATH = 3
+
+private const val ATTACHED_ELEMENT = 0
+private const val DETACHED_ELEMENT = 1
+
+private const val IDE_PLUGIN = 0
+private const val IDE_MODULE = 1
+
+private const val ORIGINAL_PROBLEM = 0
+private const val RECLASSIFIED_PROBLEM = 1
+
+private const val DIGEST_BUFFER_SIZE = 64 * 1024
+
+/**
+ * Encodes plugin creation results for the [PluginCreationResultCache] and decodes them back.
+ * Also encodes bundled plugins of an IDE, which are either [IdePluginImpl]s or [IdeModule]s, for IDE snapshots.
+ *
+ * Only the model of [IdePluginImpl], [IdeModule] and the types they consist of are supported.
+ * [encode] and [encodePlugins] return [EncodingResult.NotEncodable] for plugins of other implementations,
+ * such plugins are not cached.
+ *
+ * Problems are decoded as [CachedPluginProblem]s, which are matched by the type checks of plugin problems
+ * as the original problems, and reclassified problems are decoded as reclassified ones.
+ * Problems are still reported by their classes in places, so [encode] does not encode results with problems,
+ * while [encodePlugins] encodes problems of the plugins.
+ *
+ * Paths are encoded relative to the plugin artifact or to the root of its content,
+ * which is the extracted directory of a ZIP plugin, and are decoded against the artifact and the root of its content,
+ * so that an artifact with the same content is decoded to the same plugin wherever it is.
+ * The kind of the content root is encoded, so a result of a ZIP plugin is never decoded without its extracted content.
+ *
+ * Elements of [IdePlugin.extensions] and actions are encoded by their positions in the [IdePlugin.underlyingDocument],
+ * so that the decoded elements belong to the decoded document as the original elements do.
+ */
+@ApiStatus.Internal
+object PluginCreationResultCodec {
+
+  /**
+   * Result of encoding. The content written to the output is incomplete if the encoding is [not possible][NotEncodable].
+   */
+  sealed class EncodingResult {
+    object Encoded : EncodingResult()
+
+    class NotEncodable(val reason: String) : EncodingResult()
+  }
+
+  /**
+   * Version of the encoded content: the version of the encoding together with the fingerprint of the classes
+   * of the plugin structure library, which parses and validates the plugins, or `null` if the classes cannot be located.
+   * Content of another version must not be decoded, as the same artifact is parsed to another result.
+   */
+  val version: String? by lazy {
+    getLibraryFingerprint()?.let { "$FORMAT_VERSION:$it" }
+  }
+
+  fun encode(result: PluginCreationResult<IdePlugin>, artifact: Path, contentRoot: Path, out: DataOutputStream): EncodingResult {
+    val writer = Writer(out, artifact, contentRoot, encodesProblems = false)
+    out.writeBoolean(contentRoot != artifact)
+    when (result) {
+      is PluginCreationFail -> {
+        out.writeByte(FAIL)
+        writer.writeProblems(result.errorsAndWarnings)
+      }
+      is PluginCreationSuccess -> {
+        out.writeByte(SUCCESS)
+        writer.writePlugin(result.plugin)
+        writer.writeProblems(result.warnings)
+        writer.writeProblems(result.unacceptableWarnings)
+      }
+    }
+    return writer.encodingResult
+  }
+
+  /**
+   * Decodes the result encoded by [encode] with its paths resolved against the [artifact] and the [contentRoot],
+   * which is the extracted directory of a ZIP plugin and the [artifact] itself otherwise.
+   */
+  fun decode(input: DataInputStream, artifact: Path, contentRoot: Path, telemetry: PluginTelemetry): PluginCreationResult<IdePlugin> {
+    require(input.readBoolean() == (contentRoot != artifact)) {
+      "Result of $artifact is encoded with another kind of content root than $contentRoot"
+    }
+    val reader = Reader(input, artifact, contentRoot)
+    return when (val kind = input.readByte().toInt()) {
+      FAIL -> PluginCreationFail(reader.readProblems())
+      SUCCESS -> PluginCreationSuccess(
+        plugin = reader.readPlugin(),
+        warnings = reader.readProblems(),
+        unacceptableWarnings = reader.readProblems(),
+        telemetry = telemetry
+      )
+      else -> throw IllegalArgumentException("Unknown kind of plugin creation result: $kind")
+    }
+  }
+
+  /**
+   * Encodes the [plugins] with their paths relative to the [root], which is usually the IDE directory.
+   */
+  fun encodePlugins(plugins: List<IdePlugin>, root: Path, out: DataOutputStream): EncodingResult {
+    val writer = Writer(out, root, root, encodesProblems = true)
+    writer.writePlugins(plugins)
+    return writer.encodingResult
+  }
+
+  /**
+   * Decodes plugins encoded by [encodePlugins] with their paths resolved against the [root].
+   */
+  fun decodePlugins(input: DataInputStream, root: Path): List<IdePlugin> = Reader(input, root, root).readPlugins()
+
+  /**
+   * Returns the digest of the classes of structure-base and structure-intellij, either jars or class directories.
+   */
+  private fun getLibraryFingerprint(): String? {
+    val digest = MessageDigest.getInstance("SHA-256")
+    val locations = listOf(PluginProblem::class.java, PluginCreationResultCodec::class.java)
+      .map { it.protectionDomain?.codeSource?.location }
+      .distinct()
+    for (location in locations) {
+      try {
+        val path = location?.let { Paths.get(it.toURI()) } ?: return null
+        if (Files.isDirectory(path)) {
+          Files.walk(path).use { files ->
+            files.asSequence().filter { Files.isRegularFile(it) }.sorted().forEach {
+              digest.update(path.relativize(it).joinToString("/").toByteArray(Charsets.UTF_8))
+              digest.update(it)
+            }
+          }
+        } else {
+          digest.update(path)
+        }
+      } catch (e: IOException) {
+        return null
+      } catch (e: URISyntaxException) {
+        return null
+      } catch (e: FileSystemNotFoundException) {
+        return null
+      }
+    }
+    return digest.digest().joinToString("") { "%02x".format(it) }
+  }
+
+  private fun MessageDigest.update(file: Path) {
+    Files.newInputStream(file).use { input ->
+      val buffer = ByteArray(DIGEST_BUFFER_SIZE)
+      while (true) {
+        val count = input.read(buffer)
+        if (count < 0) break
+        update(buffer, 0, count)
+      }
+    }
+  }
+
+  private class Writer(
+    private val out: DataOutputStream,
+    private val artifact: Path,
+    private val contentRoot: Path,
+    private val encodesProblems: Boolean
+  ) {
+
+    var encodingResult: EncodingResult = EncodingResult.Encoded
+      private set
+
+    private fun notEncodable(reason: String) {
+      if (encodingResult is EncodingResult.Encoded) {
+        encodingResult = EncodingResult.NotEncodable(reason)
+      }
+    }
+
+    fun writePlugins(plugins: List<IdePlugin>) {
+      writeList(plugins) { plugin ->
+        when (plugin) {
+          is IdeModule -> {
+            out.writeByte(IDE_MODULE)
+            writeIdeModule(plugin)
+          }
+          else -> {
+            out.writeByte(IDE_PLUGIN)
+            writePlugin(plugin)
+          }
+        }
+      }
+    }
+
+    fun writePlugin(plugin: IdePlugin) {
+      if (plugin !is IdePluginImpl) {
+        notEncodable("Plugin model ${plugin.javaClass.name} cannot be cached")
+        return
+      }
+      with(plugin) {
+        writeNullableString(pluginId)
+        writeNullableString(pluginName)
+        writeNullableString(pluginVersion)
+        writeIdeVersion(sinceBuild)
+        writeIdeVersion(untilBuild)
+        writePath(originalFile)
+        writeProductDescriptor(productDescriptor)
+        writeNullableString(vendor)
+        writeNullableString(vendorEmail)
+        writeNullableString(vendorUrl)
+        writeNullableString(description)
+        writeNullableString(changeNotes)
+        writeNullableString(url)
+        out.writeBoolean(useIdeClassLoader)
+        out.writeBoolean(isImplementationDetail)
+        out.writeBoolean(hasPackagePrefix)
+        out.writeBoolean(hasDotNetPart)
+        writeString(moduleVisibility.name)
+        writeKotlinPluginMode(kotlinPluginMode)
+        writeClasspath(classpath)
+        writeString(XMLOutputter(Format.getRawFormat()).outputString(underlyingDocument))
+        writeList(declaredThemes) {
+          writeString(it.name)
+          out.writeBoolean(it.dark)
+        }
+        writeList(pluginAliases.toList()) { writeString(it) }
+        writeList(dependsList) {
+          writeString(it.pluginId)
+          out.writeBoolean(it.isOptional)
+          writeNullableString(it.configFile)
+        }
+        writeList(contentModuleDependencies) {
+          writeString(it.moduleName)
+          writeString(it.namespace)
+        }
+        writeList(pluginMainModuleDependencies) { writeString(it.pluginId) }
+        writeList(dependencies) { writeDependency(it) }
+        writeList(incompatibleWith) { writeString(it) }
+        writeList(extensions.entries.toList()) { (extensionPointName, elements) ->
+          writeString(extensionPointName)
+          writeList(elements) { writeElement(it, underlyingDocument) }
+        }
+        writeList(actions) { writeElement(it, underlyingDocument) }
+        writeContentDescriptor(appContainerDescriptor)
+        writeContentDescriptor(projectContainerDescriptor)
+        writeContentDescriptor(moduleContainerDescriptor)
+        writeList(icons) {
+          writeString(it.theme.name)
+          out.writeInt(it.content.size)
+          out.write(it.content)
+          writeString(it.fileName)
+        }
+        writeList(optionalDescriptors) {
+          writeDependency(it.dependency)
+          writePlugin(it.optionalPlugin)
+          writeString(it.configurationFilePath)
+        }
+        writeList(modulesDescriptors) {
+          writePlugin(it.module)
+          writeModule(it.moduleDefinition)
+        }
+        writeList(contentModules) { writeModule(it) }
+        writeList(thirdPartyDependencies) {
+          writeNullableString(it.licenseUrl)
+          writeNullableString(it.license)
+          writeNullableString(it.url)
+          writeString(it.name)
+          writeString(it.version)
+        }
+        writeProblems(problems)
+      }
+    }
+
+    /**
+     * Writes the [module] without its descriptor-independent parts, which are the same for all IDE modules.
+     * Elements of extensions of a module do not belong to its cloned [IdeModule.underlyingDocument],
+     * so they are written as detached elements.
+     */
+    private fun writeIdeModule(module: IdeModule) {
+      with(module) {
+        writeString(pluginId)
+        writeNullableString(pluginVersion)
+        writeClasspath(classpath)
+        out.writeBoolean(hasPackagePrefix)
+        writeList(moduleDependencies) { writeString(it.name) }
+        writeList(resources) { writeString(it.path.toString()) }
+        writeString(XMLOutputter(Format.getRawFormat()).outputString(underlyingDocument))
+        writeList(extensions.entries.toList()) { (extensionPointName, elements) ->
+          writeString(extensionPointName)
+          writeList(elements) { writeElement(it, underlyingDocument) }
+        }
+        writeList(dependsList) {
+          writeString(it.pluginId)
+          out.writeBoolean(it.isOptional)
+          writeNullableString(it.configFile)
+        }
+        writeList(contentModuleDependencies) {
+          writeString(it.moduleName)
+          writeString(it.namespace)
+        }
+        writeList(pluginMainModuleDependencies) { writeString(it.pluginId) }
+        writeList(dependencies) { writeDependency(it) }
+        writeList(pluginAliases.toList()) { writeString(it) }
+        @Suppress("DEPRECATION")
+        writeList(definedModules.toList()) { writeString(it) }
+        writeString(moduleVisibility.name)
+        writeContentDescriptor(appContainerDescriptor)
+        writeContentDescriptor(projectContainerDescriptor)
+        writeContentDescriptor(moduleContainerDescriptor)
+      }
+    }
+
+    private fun writeClasspath(classpath: Classpath) {
+      writeList(classpath.entries) {
+        writePath(it.path)
+        writeString(it.origin.name)
+      }
+    }
+
+    fun writeProblems(problems: List<PluginProblem>) {
+      if (!encodesProblems && problems.isNotEmpty()) {
+        notEncodable("Problem ${problems.first().javaClass.name} cannot be restored")
+        return
+      }
+      writeList(problems) { writeProblem(it) }
+    }
+
+    private fun writeProblem(problem: PluginProblem) {
+      if (problem is ReclassifiedPluginProblem) {
+        out.writeByte(RECLASSIFIED_PROBLEM)
+        writeString(problem.level.name)
+        writeProblem(problem.unwrapped)
+        return
+      }
+      out.writeByte(ORIGINAL_PROBLEM)
+      writeString(if (problem is CachedPluginProblem) problem.problemType else problem.javaClass.name)
+      writeString(problem.level.name)
+      writeString(problem.message)
+      val hint = problem.hint
+      out.writeBoolean(hint != null)
+      if (hint != null) {
+        writeNullableString(hint.example)
+        writeNullableString(hint.documentationUrl)
+      }
+    }
+
+    private fun writeIdeVersion(version: IdeVersion?) {
+      writeNullableString(version?.asString(true, true))
+    }
+
+    private fun writeProductDescriptor(productDescriptor: ProductDescriptor?) {
+      out.writeBoolean(productDescriptor != null)
+      if (productDescriptor != null) {
+        writeString(productDescriptor.code)
+        out.writeLong(productDescriptor.releaseDate.toEpochDay())
+        out.writeInt(productDescriptor.version.value)
+        out.writeBoolean(productDescriptor.eap)
+        out.writeBoolean(productDescriptor.optional)
+      }
+    }
+
+    private fun writeKotlinPluginMode(mode: KotlinPluginMode) {
+      out.writeByte(
+        when (mode) {
+          KotlinPluginMode.Implicit -> 0
+          KotlinPluginMode.K1AndK2Compatible -> 1
+          KotlinPluginMode.K1OnlyCompatible -> 2
+          KotlinPluginMode.K2OnlyCompatible -> 3
+          KotlinPluginMode.Invalid -> 4
+        }
+      )
+    }
+
+    private fun writeDependency(dependency: PluginDependency) {
+      when {
+        dependency.javaClass == PluginDependencyImpl::class.java -> {
+          out.writeByte(0)
+          writeString(dependency.id)
+          out.writeBoolean(dependency.isOptional)
+          out.writeBoolean(dependency.isModule)
+        }
+        dependency is PluginV1Dependency.Mandatory -> {
+          out.writeByte(1)
+          writeString(dependency.id)
+        }
+        dependency is PluginV1Dependency.Optional -> {
+          out.writeByte(2)
+          writeString(dependency.id)
+        }
+        dependency is PluginV2Dependency -> {
+          out.writeByte(3)
+          writeString(dependency.id)
+          out.writeBoolean(dependency.isOptional)
+        }
+        dependency is ModuleV2Dependency -> {
+          out.writeByte(4)
+          writeString(dependency.id)
+          out.writeBoolean(dependency.isOptional)
+        }
+        dependency is InlineDeclaredModuleV2Dependency -> {
+          out.writeByte(if (dependency is InlineDeclaredModuleV2Dependency.Plugin) 5 else 6)
+          writeString(dependency.id)
+          out.writeBoolean(dependency.isOptional)
+          writeString(dependency.contentModuleOwnerId)
+          writeString(dependency.dependerContentModuleId)
+        }
+        else -> notEncodable("Dependency ${dependency.javaClass.name} cannot be cached")
+      }
+    }
+
+    private fun writeModule(module: Module) {
+      when (module) {
+        is Module.InlineModule -> {
+          out.writeByte(0)
+          writeModuleHeader(module)
+          writeString(module.textContent)
+        }
+        is Module.FileBasedModule -> {
+          out.writeByte(1)
+          writeModuleHeader(module)
+          writeString(module.configFile)
+        }
+      }
+    }
+
+    private fun writeModuleHeader(module: Module) {
+      writeString(module.name)
+      writeNullableString(module.namespace)
+      writeString(module.actualNamespace)
+      writeString(module.loadingRule.id)
+    }
+
+    private fun writeContentDescriptor(descriptor: IdePluginContentDescriptor) {
+      writeList(descriptor.services) {
+        writeNullableString(it.serviceInterface)
+        writeNullableString(it.serviceImplementation)
+        writeString(it.type.name)
+        writeNullableString(it.testServiceImplementation)
+        writeNullableString(it.headlessImplementation)
+        out.writeByte(
+          when (it.overrides) {
+            null -> -1
+            false -> 0
+            true -> 1
+          }
+        )
+        writeNullableString(it.configurationSchemaKey)
+        writeString(it.preload.name)
+        writeNullableString(it.client?.name)
+        writeNullableString(it.os?.name)
+      }
+      writeList(descriptor.components) {
+        writeNullableString(it.interfaceClass)
+        writeString(it.implementationClass)
+      }
+      writeList(descriptor.listeners) {
+        writeString(it.topicName)
+        writeString(it.className)
+        writeString(it.type.name)
+        out.writeBoolean(it.activeInTestMode)
+        out.writeBoolean(it.activeInHeadlessMode)
+        writeNullableString(it.os?.name)
+      }
+      writeList(descriptor.extensionPoints) {
+        writeString(it.extensionPointName)
+        out.writeBoolean(it.isDynamic)
+      }
+    }
+
+    private fun writeElement(element: Element, document: Document) {
+      val position = element.positionIn(document)
+      if (position != null) {
+        out.writeByte(ATTACHED_ELEMENT)
+        out.writeInt(position.size)
+        position.forEach { out.writeInt(it) }
+      } else {
+        out.writeByte(DETACHED_ELEMENT)
+        writeString(XMLOutputter(Format.getRawFormat()).outputString(element))
+      }
+    }
+
+    /**
+     * Returns indices of the content of each ancestor leading from the root of the [document] to this element,
+     * or `null` if the element does not belong to the [document].
+     */
+    private fun Element.positionIn(document: Document): List<Int>? {
+      if (!document.hasRootElement()) {
+        return null
+      }
+      val position = ArrayList<Int>()
+      var element = this
+      while (true) {
+        val parent = element.parentElement ?: break
+        position += parent.indexOf(element)
+        element = parent
+      }
+      return if (element === document.rootElement) position.asReversed() else null
+    }
+
+    private fun writePath(path: Path?) {
+      when {
+        path == null -> out.writeByte(NO_PATH)
+        path == artifact -> out.writeByte(ARTIFACT_PATH)
+        path.fileSystem == contentRoot.fileSystem && path.startsWith(contentRoot) -> {
+          out.writeByte(CONTENT_PATH)
+          writeString(contentRoot.relativize(path).joinToString("/"))
+        }
+        path.fileSystem == FileSystems.getDefault() -> {
+          out.writeByte(ABSOLUTE_PATH)
+          writeString(path.toString())
+        }
+        else -> notEncodable("Path $path cannot be cached")
+      }
+    }
+
+    private inline fun <T> writeList(list: Collection<T>, writeItem: (T) -> Unit) {
+      out.writeInt(list.size)
+      list.forEach(writeItem)
+    }
+
+    private fun writeString(value: String) {
+      val bytes = value.toByteArray(Charsets.UTF_8)
+      out.writeInt(bytes.size)
+      out.write(bytes)
+    }
+
+    private fun writeNullableString(value: String?) {
+      if (value == null) {
+        out.writeInt(-1)
+      } else {
+        writeString(value)
+      }
+    }
+  }
+
+  private class Reader(private val input: DataInputStream, private val artifact: Path, private val contentRoot: Path) {
+
+    fun readPlugins(): List<IdePlugin> = readList {
+      when (val kind = input.readByte().toInt()) {
+        IDE_PLUGIN -> readPlugin()
+        IDE_MODULE -> readIdeModule()
+        else -> throw IllegalArgumentException("Unknown kind of plugin: $kind")
+      }
+    }
+
+    fun readPlugin(): IdePluginImpl = IdePluginImpl().apply {
+      pluginId = readNullableString()
+      pluginName = readNullableString()
+      pluginVersion = readNullableString()
+      sinceBuild = readIdeVersion()
+      untilBuild = readIdeVersion()
+      originalFile = readPath()
+      productDescriptor = readProductDescriptor()
+      vendor = readNullableString()
+      vendorEmail = readNullableString()
+      vendorUrl = readNullableString()
+      description = readNullableString()
+      changeNotes = readNullableString()
+      url = readNullableString()
+      useIdeClassLoader = input.readBoolean()
+      isImplementationDetail = input.readBoolean()
+      hasPackagePrefix = input.readBoolean()
+      hasDotNetPart = input.readBoolean()
+      moduleVisibility = ModuleVisibility.valueOf(readString())
+      kotlinPluginMode = readKotlinPluginMode()
+      classpath = readClasspath()
+      underlyingDocument = parseXml(readString())
+      declaredThemes += readList { IdeTheme(readString(), input.readBoolean()) }
+      readList { readString() }.forEach { addPluginAlias(it) }
+      readList { DependsPluginDependency(readString(), input.readBoolean(), readNullableString()) }.forEach { addDepends(it) }
+      readList { ContentModuleDependency(readString(), readString()) }.forEach { addContentModuleDependency(it) }
+      readList { PluginMainModuleDependency(readString()) }.forEach { addPluginMainModuleDependency(it) }
+      dependencies += readList { readDependency() }
+      incompatibleWith += readList { readString() }
+      repeat(readSize()) {
+        val extensionPointName = readString()
+        extensions[extensionPointName] = readList { readElement(underlyingDocument) }
+      }
+      actions += readList { readElement(underlyingDocument) }
+      readContentDescriptor(appContainerDescriptor)
+      readContentDescriptor(projectContainerDescriptor)
+      readContentDescriptor(moduleContainerDescriptor)
+      icons = readList { PluginIcon(IconTheme.valueOf(readString()), readBytes(), readString()) }
+      optionalDescriptors += readList { OptionalPluginDescriptor(readDependency(), readPlugin(), readString()) }
+      modulesDescriptors += readList { ModuleDescriptor.of(readPlugin(), readModule()) }
+      contentModules += readList { readModule() }
+      thirdPartyDependencies = readList {
+        ThirdPartyDependency(
+          licenseUrl = readNullableString(),
+          license = readNullableString(),
+          url = readNullableString(),
+          name = readString(),
+          version = readString()
+        )
+      }
+      problems += readProblems()
+    }
+
+    private fun readIdeModule(): IdeModule = IdeModule(
+      pluginId = readString(),
+      pluginVersion = readNullableString(),
+      classpath = readClasspath(),
+      hasPackagePrefix = input.readBoolean()
+    ).apply {
+      moduleDependencies += readList { ModuleBean.ModuleDependency(readString()) }
+      resources += readList { ModuleBean.ResourceRoot(readString()) }
+      underlyingDocument = parseXml(readString())
+      repeat(readSize()) {
+        val extensionPointName = readString()
+        extensions[extensionPointName] = readList { readElement(underlyingDocument) }
+      }
+      readList { DependsPluginDependency(readString(), input.readBoolean(), readNullableString()) }.forEach { addDepends(it) }
+      readList { ContentModuleDependency(readString(), readString()) }.forEach { addContentModuleDependency(it) }
+      readList { PluginMainModuleDependency(readString()) }.forEach { addPluginMainModuleDependency(it) }
+      dependencies += readList { readDependency() }
+      readList { readString() }.forEach { addPluginAlias(it) }
+      readList { readString() }.forEach { addDefinedModule(it) }
+      moduleVisibility = ModuleVisibility.valueOf(readString())
+      readContentDescriptor(appContainerDescriptor)
+      readContentDescriptor(projectContainerDescriptor)
+      readContentDescriptor(moduleContainerDescriptor)
+    }
+
+    private fun readClasspath(): Classpath =
+      Classpath.of(readList { ClasspathEntry(readPath()!!, ClasspathOrigin.valueOf(readString())) })
+
+    fun readProblems(): List<PluginProblem> = readList { readProblem() }
+
+    private fun readProblem(): PluginProblem = when (val kind = input.readByte().toInt()) {
+      ORIGINAL_PROBLEM -> {
+        val problemType = readString()
+        val level = PluginProblem.Level.valueOf(readString())
+        val message = readString()
+        val hint = if (input.readBoolean()) ProblemSolutionHint(readNullableString(), readNullableString()) else null
+        CachedPluginProblem(problemType, level, message, hint)
+      }
+      RECLASSIFIED_PROBLEM -> ReclassifiedPluginProblem(PluginProblem.Level.valueOf(readString()), readProblem())
+      else -> throw IllegalArgumentException("Unknown kind of problem: $kind")
+    }
+
+    private fun readIdeVersion(): IdeVersion? = readNullableString()?.let { IdeVersion.createIdeVersion(it) }
+
+    private fun readProductDescriptor(): ProductDescriptor? {
+      if (!input.readBoolean()) {
+        return null
+      }
+      return ProductDescriptor(
+        code = readString(),
+        releaseDate = LocalDate.ofEpochDay(input.readLong()),
+        version = ProductReleaseVersion(input.readInt()),
+        eap = input.readBoolean(),
+        optional = input.readBoolean()
+      )
+    }
+
+    private fun readKotlinPluginMode(): KotlinPluginMode = when (val mode = input.readByte().toInt()) {
+      0 -> KotlinPluginMode.Implicit
+      1 -> KotlinPluginMode.K1AndK2Compatible
+      2 -> KotlinPluginMode.K1OnlyCompatible
+      3 -> KotlinPluginMode.K2OnlyCompatible
+      4 -> KotlinPluginMode.Invalid
+      else -> throw IllegalArgumentException("Unknown Kotlin plugin mode: $mode")
+    }
+
+    private fun readDependency(): PluginDependency = when (val kind = input.readByte().toInt()) {
+      0 -> PluginDependencyImpl(readString(), input.readBoolean(), input.readBoolean())
+      1 -> PluginV1Dependency.Mandatory(readString())
+      2 -> PluginV1Dependency.Optional(readString())
+      3 -> PluginV2Dependency(readString(), input.readBoolean())
+      4 -> ModuleV2Dependency(readString(), input.readBoolean())
+      5 -> InlineDeclaredModuleV2Dependency.Plugin(readString(), input.readBoolean(), readString(), readString())
+      6 -> InlineDeclaredModuleV2Dependency.Module(readString(), input.readBoolean(), readString(), readString())
+      else -> throw IllegalArgumentException("Unknown kind of dependency: $kind")
+    }
+
+    private fun readModule(): Module {
+      val kind = input.readByte().toInt()
+      val name = readString()
+      val namespace = readNullableString()
+      val actualNamespace = readString()
+      val loadingRule = ModuleLoadingRule.create(readString())
+      return when (kind) {
+        0 -> Module.InlineModule(name, namespace, actualNamespace, loadingRule, readString())
+        1 -> Module.FileBasedModule(name, namespace, actualNamespace, loadingRule, readString())
+        else -> throw IllegalArgumentException("Unknown kind of module: $kind")
+      }
+    }
+
+    private fun readContentDescriptor(descriptor: MutableIdePluginContentDescriptor) {
+      descriptor.services += readList {
+        ServiceDescriptor(
+          serviceInterface = readNullableString(),
+          serviceImplementation = readNullableString(),
+          type = ServiceType.valueOf(readString()),
+          testServiceImplementation = readNullableString(),
+          headlessImplementation = readNullableString(),
+          overrides = when (input.readByte().toInt()) {
+            -1 -> null
+            0 -> false
+            else -> true
+          },
+          configurationSchemaKey = readNullableString(),
+          preload = PreloadMode.valueOf(readString()),
+          client = readNullableString()?.let { ClientKind.valueOf(it) },
+          os = readNullableString()?.let { Os.valueOf(it) }
+        )
+      }
+      descriptor.components += readList { ComponentConfig(readNullableString(), readString()) }
+      descriptor.listeners += readList {
+        ListenerDescriptor(
+          topicName = readString(),
+          className = readString(),
+          type = ListenerType.valueOf(readString()),
+          activeInTestMode = input.readBoolean(),
+          activeInHeadlessMode = input.readBoolean(),
+          os = readNullableString()?.let { Os.valueOf(it) }
+        )
+      }
+      descriptor.extensionPoints += readList { ExtensionPoint(readString(), input.readBoolean()) }
+    }
+
+    private fun readElement(document: Document): Element = when (val kind = input.readByte().toInt()) {
+      ATTACHED_ELEMENT -> {
+        var element = document.rootElement
+        repeat(readSize()) {
+          element = element.getContent(input.readInt()) as Element
+        }
+        element
+      }
+      DETACHED_ELEMENT -> parseXml(readString()).detachRootElement()
+      else -> throw IllegalArgumentException("Unknown kind of element: $kind")
+    }
+
+    private fun parseXml(xml: String): Document = JDOMUtil.loadDocument(StringReader(xml))
+
+    private fun readPath(): Path? = when (val kind = input.readByte().toInt()) {
+      NO_PATH -> null
+      ARTIFACT_PATH -> artifact
+      CONTENT_PATH -> readString().let { if (it.isEmpty()) contentRoot else contentRoot.resolve(it) }
+      ABSOLUTE_PATH -> Paths.get(readString())
+      else -> throw IllegalArgumentException("Unknown kind of path: $kind")
+    }
+
+    private inline fun <T> readList(readItem: () -> T): MutableList<T> {
+      val size = readSize()
+      val list = ArrayList<T>(size)
+      repeat(size) { list += readItem() }
+      return list
+    }
+
+    private fun readSize(): Int {
+      val size = input.readInt()
+      if (size < 0 || size > input.available()) {
+        throw EOFException("Invalid size: $size")
+      }
+      return size
+    }
+
+    private fun readBytes(): ByteArray = readBytes(input.readInt())
+
+    private fun readBytes(size: Int): ByteArray {
+      if (size < 0 || size > input.available()) {
+        throw EOFException("Invalid size: $size")
+      }
+      return ByteArray(size).also { input.readFully(it) }
+    }
+
+    private fun readString(): String = String(readBytes(), Charsets.UTF_8)
+
+    private fun readNullableString(): String? {
+      val length = input.readInt()
+      return if (length == -1) null else String(readBytes(length), Charsets.UTF_8)
+    }
+  }
+}
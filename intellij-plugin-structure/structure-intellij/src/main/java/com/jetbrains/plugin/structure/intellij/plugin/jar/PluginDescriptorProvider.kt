@@ -1,12 +1,12 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.intellij.plugin.jar
 
 import com.jetbrains.plugin.structure.base.utils.getShortExceptionMessage
 import com.jetbrains.plugin.structure.base.zip.ZipArchiveException
-import com.jetbrains.plugin.structure.base.zip.ZipFileHandler
+import com.jetbrains.plugin.structure.base.zip.newZipHandler
 import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager.Companion.META_INF
 import com.jetbrains.plugin.structure.jar.*
 import com.jetbrains.plugin.structure.jar.PluginDescriptorResult.Found
@@ -20,7 +20,7 @@ private const val DEFAULT_DESCRIPTOR_PATH = "$META_INF/$PLUGIN_XML"
 class PluginDescriptorProvider(private val fileSystemProvider: JarFileSystemProvider = SingletonCachingJarFileSystemProvider) {
   fun <T> resolveFromJar(jarFile: Path, onSuccess: (Found) -> T): T? {
     try {
-      val duplicates = ZipFileHandler(jarFile).findDuplicateEntries()
+      val duplicates = jarFile.newZipHandler().findDuplicateEntries()
       if (duplicates.isNotEmpty()) {
         LOG.warn("Duplicate ZIP entry '{}' found in [{}], skipping", duplicates.first(), jarFile)
         return null
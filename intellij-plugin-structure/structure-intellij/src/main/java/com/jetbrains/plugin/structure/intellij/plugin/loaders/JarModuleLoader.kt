@@ -1,5 +1,5 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.intellij.plugin.loaders
@@ -10,7 +10,7 @@ import com.jetbrains.plugin.structure.base.problems.UnableToReadDescriptor
 import com.jetbrains.plugin.structure.base.utils.getShortExceptionMessage
 import com.jetbrains.plugin.structure.base.utils.simpleName
 import com.jetbrains.plugin.structure.base.zip.ZipArchiveException
-import com.jetbrains.plugin.structure.base.zip.ZipFileHandler
+import com.jetbrains.plugin.structure.base.zip.newZipHandler
 import com.jetbrains.plugin.structure.intellij.plugin.PluginCreator
 import com.jetbrains.plugin.structure.intellij.plugin.PluginCreator.Companion.createInvalidPlugin
 import com.jetbrains.plugin.structure.intellij.plugin.PluginCreator.Companion.createPlugin
@@ -30,7 +30,7 @@ private val LOG: Logger = LoggerFactory.getLogger(JarModuleLoader::class.java)
 internal class JarModuleLoader(private val fileSystemProvider: JarFileSystemProvider) : PluginLoader<JarModuleLoader.Context> {
   override fun loadPlugin(pluginLoadingContext: Context): PluginCreator = with(pluginLoadingContext) {
     try {
-      val duplicates = ZipFileHandler(jarPath).findDuplicateEntries()
+      val duplicates = jarPath.newZipHandler().findDuplicateEntries()
       if (duplicates.isNotEmpty()) {
         val firstDuplicate = duplicates.first()
         LOG.warn("Duplicate ZIP entry '{}' found in [{}]", firstDuplicate, jarPath)
@@ -50,7 +50,12 @@ class IdeModule(override val pluginId: String,
   private val _pluginAliases: MutableSet<String> = mutableSetOf()
   override val pluginAliases: Set<String> get() = _pluginAliases
 
+  internal fun addPluginAlias(alias: String) = _pluginAliases.add(alias)
+
   private val _definedModules = mutableSetOf<String>()
+
+  internal fun addDefinedModule(moduleId: String) = _definedModules.add(moduleId)
+
   override var moduleVisibility: ModuleVisibility = ModuleVisibility.PRIVATE
 
   @Deprecated("use either pluginAliases or contentModules")
@@ -25,6 +25,9 @@ class JetBrainsPluginCreationResultResolver(private val delegatedResolver: Plugi
     return getCreationResultResolver(plugin).classify(plugin, problems)
   }
 
+  override val cacheKey: String?
+    get() = jetBrainsResolver.cacheKey?.let { "${javaClass.name}($it)" }
+
   private fun getCreationResultResolver(plugin: IdePlugin): PluginCreationResultResolver {
     return if (PluginVendors.isDevelopedByJetBrains(plugin)) {
       jetBrainsResolver
@@ -7,6 +7,7 @@ import com.jetbrains.plugin.structure.base.problems.PluginProblem
 import com.jetbrains.plugin.structure.base.problems.PluginProblem.Level.UNACCEPTABLE_WARNING
 import com.jetbrains.plugin.structure.base.problems.PluginProblem.Level.WARNING
 import com.jetbrains.plugin.structure.base.problems.ReclassifiedPluginProblem
+import com.jetbrains.plugin.structure.base.problems.problemClass
 import com.jetbrains.plugin.structure.base.problems.unwrapped
 import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
 import kotlin.reflect.KClass
@@ -73,13 +74,28 @@ class LevelRemappingPluginCreationResultResolver(private val delegatedResolver:
     } else {
       pluginProblem
     }
-    return when (val remappedLevel = remappedLevel[problem::class]) {
+    return when (val remappedLevel = remappedLevel[problem.problemClass.kotlin]) {
       is StandardLevel -> ReclassifiedPluginProblem(remappedLevel.originalLevel, problem)
       is IgnoredLevel -> null
       null -> pluginProblem
     }
   }
 
+  override val cacheKey: String? by lazy {
+    delegatedResolver.cacheKey?.let { delegatedKey ->
+      val remapping = remappedLevel.entries
+        .map { (problemClass, level) ->
+          val levelKey = when (level) {
+            is StandardLevel -> level.originalLevel.name
+            is IgnoredLevel -> "IGNORED"
+          }
+          "${problemClass.java.name}=$levelKey"
+        }
+        .sorted()
+      "${javaClass.name}($delegatedKey, unwrap=$unwrapRemappedProblems, $remapping)"
+    }
+  }
+
   private fun List<PluginProblem>.hasNoErrors(): Boolean = none {
     it.level == PluginProblem.Level.ERROR
   }
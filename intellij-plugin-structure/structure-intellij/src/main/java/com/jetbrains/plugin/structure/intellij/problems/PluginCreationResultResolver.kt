@@ -26,6 +26,14 @@ interface PluginCreationResultResolver {
    * Note that the result collection might be smaller than the original collection due to ignored problems.
    */
   fun classify(plugin: IdePlugin, problems: List<PluginProblem>): List<PluginProblem> = problems
+
+  /**
+   * Describes the configuration of this resolver, so that results of resolvers configured alike can be shared
+   * by the [plugin creation result cache][com.jetbrains.plugin.structure.intellij.plugin.cache.PluginCreationResultCache].
+   * Results of a resolver that returns `null` are not cached.
+   */
+  val cacheKey: String?
+    get() = null
 }
 
 /**
@@ -52,6 +60,9 @@ class IntelliJPluginCreationResultResolver : PluginCreationResultResolver {
 
   override fun isError(problem: PluginProblem): Boolean = intellijPluginErrorProblems.contains(problem::class)
 
+  override val cacheKey: String
+    get() = javaClass.name
+
   /**
    * Explicit list of all IntelliJ [PluginProblem][plugin problems] with level set to [ERROR].
    */
@@ -127,6 +138,9 @@ object AnyProblemToWarningPluginCreationResultResolver : PluginCreationResultRes
   override fun classify(plugin: IdePlugin, problems: List<PluginProblem>): List<PluginProblem> =
     problems.map(::remapToWarning)
 
+  override val cacheKey: String
+    get() = javaClass.name
+
   private fun remapToWarning(problem: PluginProblem) = when (problem.level) {
     ERROR, UNACCEPTABLE_WARNING -> ReclassifiedPluginProblem(PluginProblem.Level.WARNING, problem)
     else -> problem
@@ -8,6 +8,7 @@ import com.jetbrains.plugin.structure.intellij.plugin.dependencies.id
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import java.io.Closeable
+import java.nio.file.FileSystems
 import java.nio.file.Path
 
 private val LOG: Logger = LoggerFactory.getLogger(PluginArchiveResource::class.java)
@@ -24,12 +25,16 @@ private val LOG: Logger = LoggerFactory.getLogger(PluginArchiveResource::class.j
  * @param version plugin version, taken from the plugin descriptor
  * can read the plugin from this path. The last path component will contain the plugin name, for example `plugins/SomePlugin`.
  * This last path component is usually a parent of `lib` folder.
+ * For a plugin read in place, the path belongs to the file system of the archive.
  */
 data class PluginArchiveResource(val artifactPath: Path, val extractedPath: Path, val id: PluginId, val version: String) : Closeable, Deletable {
   override fun close() = Unit
 
   override fun delete() {
-    extractedPath.parent.deleteLogged()
+    // A plugin read in place lives in the file system of its archive, which is closed by the archive manager.
+    if (extractedPath.fileSystem == FileSystems.getDefault()) {
+      extractedPath.parent.deleteLogged()
+    }
   }
 
   companion object {
@@ -0,0 +1,60 @@
+package com.jetbrains.plugin.structure.base.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class BinaryClassNameArenaTest {
+  @Test
+  fun `names are added once and found by content`() {
+    val arena = BinaryClassNameArena(expectedSize = 2)
+    val names = (0 until 1000).map { "com/example/package${it % 10}/Class$it" }
+    names.forEach { assertTrue(arena.add(it)) }
+    names.forEach { assertFalse(arena.add(StringBuilder(it))) }
+
+    assertEquals(names.size, arena.size)
+    names.forEach { assertTrue(it, it in arena) }
+    assertFalse("com/example/package0/Class1" in arena)
+    assertFalse("" in arena)
+    assertEquals(names, arena.map { it.toString() })
+  }
+
+  @Test
+  fun `names are equal to strings with the same content`() {
+    val arena = BinaryClassNameArena()
+    arena.add("com/example/Foo")
+    arena.add("com/example/Foo\$Bar")
+
+    val name = arena[1]
+    assertEquals("com/example/Foo\$Bar", name.toString())
+    assertEquals("com/example/Foo\$Bar".hashCode(), name.hashCode())
+    assertEquals(arena[0], name.subSequence(0, "com/example/Foo".length))
+    assertEquals(1, arena.indexOf("com/example/Foo\$Bar"))
+    assertEquals(-1, arena.indexOf("com/example/Bar"))
+  }
+
+  @Test
+  fun `non-Latin-1 names are added after Latin-1 names`() {
+    val arena = BinaryClassNameArena()
+    arena.add("com/example/Plain")
+    arena.add("com/example/Ünïcödé")
+    arena.add("日本語/クラス")
+    arena.trimToSize()
+
+    assertEquals(listOf("com/example/Plain", "com/example/Ünïcödé", "日本語/クラス"), arena.map { it.toString() })
+    assertTrue("com/example/Plain" in arena)
+    assertTrue("日本語/クラス" in arena)
+    assertFalse("日本語/クラ" in arena)
+  }
+
+  @Test
+  fun `names are added after trimming an empty arena`() {
+    val arena = BinaryClassNameArena()
+    arena.trimToSize()
+
+    assertTrue(arena.add("com/example/Foo"))
+    assertTrue(arena.add("com/example/Bar"))
+    assertEquals(listOf("com/example/Foo", "com/example/Bar"), arena.map { it.toString() })
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.base.utils
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+class ConcurrencyUtilsTest {
+  private val executor = newDaemonThreadPool("test")
+
+  @After
+  fun tearDown() {
+    executor.shutdownAndAwaitTermination(1, TimeUnit.MINUTES)
+  }
+
+  @Test
+  fun `results are in the order of elements`() {
+    val elements = (1..100).toList()
+    val results = elements.mapConcurrently(executor, parallelism = 8) {
+      // later elements complete earlier
+      Thread.sleep((100 - it).toLong() / 10)
+      it * 2
+    }
+    assertEquals(elements.map { it * 2 }, results)
+  }
+
+  @Test
+  fun `elements are mapped on at most the given number of threads`() {
+    val threadNames = ConcurrentHashMap.newKeySet<String>()
+    (1..50).toList().mapConcurrently(executor, parallelism = 3) {
+      threadNames += Thread.currentThread().name
+      Thread.sleep(1)
+    }
+    assertTrue(threadNames.isNotEmpty())
+    assertTrue(threadNames.size <= 3)
+    assertTrue(threadNames.all { it.startsWith("test_") })
+  }
+
+  @Test
+  fun `single thread maps elements in the calling thread`() {
+    val callingThread = Thread.currentThread()
+    val threads = listOf(1, 2, 3).mapConcurrently(executor, parallelism = 1) { Thread.currentThread() }
+    assertEquals(listOf(callingThread, callingThread, callingThread), threads)
+  }
+
+  @Test
+  fun `exception of the first failed element is rethrown`() {
+    try {
+      (1..20).toList().mapConcurrently(executor, parallelism = 4) {
+        if (it % 5 == 0) {
+          Thread.sleep((20 - it).toLong())
+          throw IllegalStateException("Element $it")
+        }
+        it
+      }
+      fail("Exception is expected")
+    } catch (e: IllegalStateException) {
+      assertEquals("Element 5", e.message)
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.jetbrains.plugin.structure.base.zip
+
+import com.jetbrains.plugin.structure.jar.Jar
+import com.jetbrains.plugin.structure.jar.JarArchiveException
+import com.jetbrains.plugin.structure.jar.SingletonCachingJarFileSystemProvider
+import org.apache.commons.compress.archivers.zip.Zip64Mode
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
+
+class ZipCentralDirectoryTest {
+  @Rule
+  @JvmField
+  val temporaryFolder = TemporaryFolder()
+
+  private val random = Random(42)
+
+  @Test
+  fun `deflated entries with data descriptors are read as by ZipFile`() {
+    val zipPath = createZip("deflated.jar") { zip ->
+      zip.setComment("archive comment")
+      repeat(50) { index ->
+        zip.putNextEntry(ZipEntry("com/example/Class$index.class"))
+        zip.write(random.nextBytes(index * 10))
+        zip.closeEntry()
+      }
+      zip.putNextEntry(ZipEntry("com/example/"))
+      zip.closeEntry()
+      zip.putNextEntry(ZipEntry("messages/Bundle.properties"))
+      zip.write("key=value".toByteArray())
+      zip.closeEntry()
+    }
+    assertSameEntries(zipPath)
+    assertTrue(ZipCentralDirectory.read(zipPath).entries.first().hasDataDescriptor)
+  }
+
+  @Test
+  fun `stored entries and non-ASCII names are read as by ZipFile`() {
+    val zipPath = createZip("stored.jar") { zip ->
+      for (name in listOf("com/example/Plain.class", "com/example/Ünïcödé.class", "META-INF/plugin.xml", "日本語/テキスト.txt")) {
+        val content = random.nextBytes(100)
+        zip.putNextEntry(ZipEntry(name).apply {
+          method = ZipEntry.STORED
+          size = content.size.toLong()
+          crc = CRC32().apply { update(content) }.value
+        })
+        zip.write(content)
+        zip.closeEntry()
+      }
+    }
+    assertSameEntries(zipPath)
+  }
+
+  @Test
+  fun `archive with prepended data is read as by ZipFile`() {
+    val zipPath = createZip("original.jar") { zip ->
+      zip.putNextEntry(ZipEntry("com/example/MyClass.class"))
+      zip.write(random.nextBytes(1000))
+      zip.closeEntry()
+    }
+    val prefixedPath = temporaryFolder.root.toPath().resolve("prefixed.jar")
+    Files.write(prefixedPath, "#!/bin/sh\nexec java -jar \"$0\"\n".toByteArray() + Files.readAllBytes(zipPath))
+
+    assertSameEntries(prefixedPath)
+    assertEquals(
+      ZipCentralDirectory.read(zipPath).entries.single().localHeaderOffset + Files.size(prefixedPath) - Files.size(zipPath),
+      ZipCentralDirectory.read(prefixedPath).entries.single().localHeaderOffset
+    )
+  }
+
+  @Test
+  fun `archive with more entries than fit in the END header is read as by ZipFile`() {
+    val zipPath = createZip("many-entries.jar") { zip ->
+      repeat(70_000) { index ->
+        zip.putNextEntry(ZipEntry("com/example/package${index % 100}/Class$index.class"))
+        zip.closeEntry()
+      }
+    }
+    assertSameEntries(zipPath)
+  }
+
+  @Test
+  fun `ZIP64 extended information is read as by ZipFile`() {
+    val zipPath = temporaryFolder.root.toPath().resolve("zip64.jar")
+    ZipArchiveOutputStream(zipPath.toFile()).use { zip ->
+      zip.setUseZip64(Zip64Mode.Always)
+      repeat(20) { index ->
+        zip.putArchiveEntry(ZipArchiveEntry("com/example/Class$index.class"))
+        zip.write(random.nextBytes(index * 100))
+        zip.closeArchiveEntry()
+      }
+    }
+    assertSameEntries(zipPath)
+  }
+
+  @Test
+  fun `empty archive has no entries`() {
+    val zipPath = createZip("empty.jar") { }
+    assertSameEntries(zipPath)
+    assertTrue(ZipCentralDirectory.read(zipPath).entries.isEmpty())
+  }
+
+  @Test
+  fun `malformed archives are rejected as by ZipFile`() {
+    val validPath = createZip("valid.jar") { zip ->
+      repeat(10) { index ->
+        zip.putNextEntry(ZipEntry("com/example/Class$index.class"))
+        zip.write(random.nextBytes(100))
+        zip.closeEntry()
+      }
+    }
+    val valid = Files.readAllBytes(validPath)
+    val centralDirectoryOffset = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN).getInt(valid.size - 6)
+
+    val malformedArchives = mapOf(
+      "empty" to ByteArray(0),
+      "single-byte" to ByteArray(1),
+      "garbage" to random.nextBytes(4096),
+      "truncated" to valid.copyOf(valid.size / 2),
+      "truncated-end" to valid.copyOf(valid.size - 10),
+      "bad-central-signature" to valid.copyOf().also { it[centralDirectoryOffset] = 0 },
+      "bad-central-offset" to valid.copyOf().also { it.writeInt(valid.size - 6, valid.size) },
+      "bad-name-length" to valid.copyOf().also { it.writeShort(centralDirectoryOffset + 28, 0xFFFF) }
+    )
+    for ((name, content) in malformedArchives) {
+      val zipPath = temporaryFolder.root.toPath().resolve("$name.jar")
+      Files.write(zipPath, content)
+
+      assertThrows(name, IOException::class.java) { ZipFile(zipPath.toFile()).close() }
+      assertThrows(name, IOException::class.java) { ZipCentralDirectory.read(zipPath) }
+      assertThrows(name, JarArchiveException::class.java) { Jar(zipPath, SingletonCachingJarFileSystemProvider).init() }
+    }
+  }
+
+  private fun assertSameEntries(zipPath: Path) {
+    val expectedEntries = ZipFile(zipPath.toFile()).use { zipFile ->
+      zipFile.entries().toList().map { it.describe() }
+    }
+    val entries = ZipCentralDirectory.read(zipPath).entries.map { it.toZipEntry().describe() }
+    assertEquals(expectedEntries, entries)
+
+    val expectedClasses = expectedEntries.map { it.substringBefore(' ') }
+      .filter { it.endsWith(".class") }
+      .mapTo(hashSetOf()) { it.removeSuffix(".class") }
+    val jar = Jar(zipPath, SingletonCachingJarFileSystemProvider).init()
+    assertEquals(expectedClasses, jar.classes.mapTo(hashSetOf()) { it.toString() })
+    expectedClasses.forEach { assertTrue(it, jar.containsClass(it)) }
+  }
+
+  private fun ZipEntry.describe() = "$name $method $crc $compressedSize $size $isDirectory"
+
+  private fun createZip(fileName: String, content: (ZipOutputStream) -> Unit): Path {
+    val zipPath = temporaryFolder.root.toPath().resolve(fileName)
+    ZipOutputStream(Files.newOutputStream(zipPath)).use(content)
+    return zipPath
+  }
+
+  private fun ByteArray.writeShort(offset: Int, value: Int) {
+    ByteBuffer.wrap(this).order(ByteOrder.LITTLE_ENDIAN).putShort(offset, value.toShort())
+  }
+
+  private fun ByteArray.writeInt(offset: Int, value: Int) {
+    ByteBuffer.wrap(this).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value)
+  }
+}
@@ -1,11 +1,13 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.base.zip
 
 import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildZipFile
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Rule
 import org.junit.Test
@@ -14,17 +16,27 @@ import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
 import java.nio.file.Path
 import java.nio.file.Files
+import java.util.concurrent.Executors
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import kotlin.random.Random
 
 @RunWith(Parameterized::class)
 class ZipHandlerTest<T : ZipResource>(private val type: ZipHandlerType) {
   companion object {
     @JvmStatic
     @Parameterized.Parameters(name = "zip-handler={0}")
-    fun zipHandler() = listOf(arrayOf(ZipHandlerType.FILE), arrayOf(ZipHandlerType.STREAM))
+    fun zipHandler() = listOf(
+      arrayOf(ZipHandlerType.FILE),
+      arrayOf(ZipHandlerType.FILE_WITH_CENTRAL_DIRECTORY),
+      arrayOf(ZipHandlerType.STREAM)
+    )
   }
 
   enum class ZipHandlerType {
     FILE,
+    FILE_WITH_CENTRAL_DIRECTORY,
     STREAM
   }
   @Rule
@@ -65,8 +77,60 @@ class ZipHandlerTest<T : ZipResource>(private val type: ZipHandlerType) {
     Files.delete(jarPath)
   }
 
+  @Test
+  fun `entries are read with their content`() {
+    val random = Random(42)
+    val deflated = ByteArray(100_000) { (random.nextInt(16) + 'a'.code).toByte() }
+    val stored = random.nextBytes(5_000)
+    val jarPath = createJar()
+    ZipOutputStream(Files.newOutputStream(jarPath)).use { zipOut ->
+      zipOut.putNextEntry(ZipEntry("com/example/Deflated.class"))
+      zipOut.write(deflated)
+      zipOut.closeEntry()
+      zipOut.putNextEntry(ZipEntry("com/example/Stored.class").apply {
+        method = ZipEntry.STORED
+        size = stored.size.toLong()
+        crc = CRC32().apply { update(stored) }.value
+      })
+      zipOut.write(stored)
+      zipOut.closeEntry()
+      zipOut.putNextEntry(ZipEntry("com/example/Empty.class"))
+      zipOut.closeEntry()
+    }
+
+    val zipHandler = newZipHandler(jarPath)
+    assertArrayEquals(deflated, zipHandler.readEntry("com/example/Deflated.class"))
+    assertArrayEquals(stored, zipHandler.readEntry("com/example/Stored.class"))
+    assertArrayEquals(ByteArray(0), zipHandler.readEntry("com/example/Empty.class"))
+    assertNull(zipHandler.readEntry("com/example/Absent.class"))
+  }
+
+  @Test
+  fun `entries are read concurrently`() {
+    val contents = (0 until 50).associate { "com/example/Class$it.class" to "class $it ".repeat(100 + it).toByteArray() }
+    val jarPath = buildZipFile(createJar()) {
+      dir("com") {
+        dir("example") {
+          contents.forEach { (name, content) -> file(name.substringAfterLast('/'), content) }
+        }
+      }
+    }
+
+    val zipHandler = newZipHandler(jarPath)
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val readings = (0 until 8).map {
+        executor.submit<Boolean> { contents.all { (name, content) -> zipHandler.readEntry(name).contentEquals(content) } }
+      }
+      assertTrue(readings.all { it.get() })
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
   private fun newZipHandler(zipPath: Path) = when (type) {
     ZipHandlerType.FILE -> ZipFileHandler(zipPath)
+    ZipHandlerType.FILE_WITH_CENTRAL_DIRECTORY -> ZipFileHandler(zipPath, ZipCentralDirectory.read(zipPath))
     ZipHandlerType.STREAM -> ZipInputStreamHandler(zipPath)
   }
 
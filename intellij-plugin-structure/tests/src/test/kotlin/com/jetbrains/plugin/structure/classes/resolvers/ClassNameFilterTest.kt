@@ -0,0 +1,65 @@
+package com.jetbrains.plugin.structure.classes.resolvers
+
+import com.jetbrains.plugin.structure.jar.Packages
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+
+class ClassNameFilterTest {
+  private val classNames = (0 until 20_000).map { "com/example/package${it % 50}/Class$it" }
+
+  private val absentClassNames = (0 until 100_000).map { "com/example/package${it % 50}/AbsentClass$it" }
+
+  @Test
+  fun `contained classes are never rejected`() {
+    val filter = ClassNameFilter.of(classNames)
+    classNames.forEach { assertTrue(it, filter.mightContain(it)) }
+    classNames.forEach { assertTrue(it, filter.mightContain(StringBuilder(it))) }
+  }
+
+  @Test
+  fun `absent classes are accepted at about the expected rate`() {
+    val filter = ClassNameFilter.of(classNames)
+    val falsePositives = absentClassNames.count { filter.mightContain(it) }
+    val falsePositiveRate = falsePositives.toDouble() / absentClassNames.size
+
+    assertTrue("$falsePositiveRate", falsePositiveRate < 2 * filter.expectedFalsePositiveRate)
+    assertTrue("${filter.expectedFalsePositiveRate}", filter.expectedFalsePositiveRate < 0.02)
+    assertEquals(absentClassNames.size.toLong(), filter.statistics.queries)
+    assertEquals(absentClassNames.size.toLong() - falsePositives, filter.statistics.rejections)
+  }
+
+  @Test
+  fun `filter of no classes rejects every class`() {
+    val filter = ClassNameFilter.of(emptyList())
+    assertFalse(filter.mightContain("com/example/Class"))
+    assertFalse(filter.mightContain(""))
+  }
+
+  @Test
+  fun `written filter is read back`() {
+    val filter = ClassNameFilter.of(classNames)
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use { filter.writeTo(it) }
+    val buffer = ByteBuffer.wrap(bytes.toByteArray() + byteArrayOf(42))
+    val readFilter = ClassNameFilter.read(buffer)
+
+    assertEquals(1, buffer.remaining())
+    assertEquals(filter.classCount, readFilter.classCount)
+    classNames.forEach { assertTrue(it, readFilter.mightContain(it)) }
+    assertEquals(absentClassNames.count { filter.mightContain(it) }, absentClassNames.count { readFilter.mightContain(it) })
+  }
+
+  @Test
+  fun `filter of a jar index is built once`() {
+    val index = JarIndex.of(classNames.toSet(), Packages(), emptyMap())
+    val filter = index.classNameFilter
+    assertSame(filter, index.classNameFilter)
+    classNames.forEach { assertTrue(it, filter.mightContain(it)) }
+  }
+}
@@ -115,5 +115,16 @@ class PackagesTest {
     assertEquals(setOf(""), packages.all)
   }
 
+  @Test
+  fun `packages added after a query are found`() {
+    val packages = Packages()
+    packages.addClass("com/example/foo/FooService")
+    assertFalse(packages.contains("org/example"))
+
+    packages.addClass("org/example/BarService")
 
-}
\ No newline at end of file
+    assertTrue(packages.contains("org/example"))
+    assertTrue(packages.contains("com/example/foo"))
+    assertEquals(setOf("com/example/foo", "org/example"), packages.entries)
+  }
+}
@@ -0,0 +1,118 @@
+package com.jetbrains.plugin.structure.classes.resolvers
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.tree.ClassNode
+
+class SimpleCompositeResolverTest {
+  private val first = CountingResolver("first", "com/example/Duplicate", "com/example/First")
+  private val second = CountingResolver("second", "com/example/Duplicate", "com/example/Second", "org/example/Other")
+  private val third = CountingResolver("third", "Unpackaged", "net/example/Third")
+
+  @Test
+  fun `first delegate containing the class answers with and without the package index`() {
+    for (threshold in listOf(0, 3, Int.MAX_VALUE)) {
+      val resolver = SimpleCompositeResolver(listOf(first, second, third), Resolver.ReadMode.FULL, "simple", threshold)
+      repeat(5) {
+        assertSame(first.classes.getValue("com/example/Duplicate"), resolver.resolveClass("com/example/Duplicate").value)
+        assertSame(second.classes.getValue("com/example/Second"), resolver.resolveClass(StringBuilder("com/example/Second")).value)
+        assertSame(third.classes.getValue("Unpackaged"), resolver.resolveClass("Unpackaged").value)
+        assertTrue(resolver.containsClass("org/example/Other"))
+        assertFalse(resolver.containsClass("org/example/Absent"))
+        assertFalse(resolver.containsClass("com/absent/Absent"))
+        assertEquals(ResolutionResult.NotFound, resolver.resolveClass("Absent"))
+      }
+    }
+  }
+
+  @Test
+  fun `delegates are indexed only after the threshold of lookups`() {
+    val resolver = SimpleCompositeResolver(listOf(first, second, third), Resolver.ReadMode.FULL, "simple", 2)
+    repeat(2) { assertFalse(resolver.containsClass("com/absent/Absent")) }
+    assertEquals(listOf(0, 0, 0), listOf(first, second, third).map { it.packagesRequests })
+    assertEquals(listOf(2, 2, 2), listOf(first, second, third).map { it.classRequests })
+
+    assertFalse(resolver.containsClass("com/absent/Absent"))
+    assertTrue(resolver.containsClass("org/example/Other"))
+    assertEquals(listOf(1, 1, 1), listOf(first, second, third).map { it.packagesRequests })
+    assertEquals(listOf(2, 3, 2), listOf(first, second, third).map { it.classRequests })
+  }
+
+  @Test
+  fun `lazy composite resolver passes the threshold to its delegate`() {
+    val resolver = LazyCompositeResolver.create(listOf(first, second, third), "lazy", packageIndexThreshold = 0)
+    assertFalse(resolver.containsClass("com/absent/Absent"))
+    assertTrue(resolver.containsClass("net/example/Third"))
+    assertEquals(listOf(0, 0, 1), listOf(first, second, third).map { it.classRequests })
+  }
+
+  private val ResolutionResult<ClassNode>.value: ClassNode
+    get() = (this as ResolutionResult.Found).value
+
+  @Test
+  fun `delegates whose filter rejects the class are skipped`() {
+    val filteredFirst = CountingResolver("first", "com/example/Duplicate", "com/example/First", isFiltered = true)
+    val filteredSecond = CountingResolver("second", "com/example/Duplicate", "com/example/Second", isFiltered = true)
+    val resolver = SimpleCompositeResolver(listOf(filteredFirst, filteredSecond), Resolver.ReadMode.FULL, "simple", Int.MAX_VALUE)
+
+    val absentClasses = (0 until 1000).map { "com/example/Absent$it" }
+    absentClasses.forEach { assertFalse(resolver.containsClass(it)) }
+    assertTrue(resolver.containsClass("com/example/Second"))
+    assertSame(filteredFirst.classes.getValue("com/example/Duplicate"), resolver.resolveClass("com/example/Duplicate").value)
+
+    val statistics = resolver.classNameFilterStatistics
+    assertEquals(2 * absentClasses.size + 3L, statistics.queries)
+    assertEquals(filteredFirst.classRequests + filteredSecond.classRequests - 1L, statistics.falsePositives)
+    assertEquals(statistics.queries - statistics.falsePositives - 2, statistics.rejections)
+    assertTrue(statistics.presentableSummary, statistics.falsePositiveRate < 0.05)
+  }
+
+  @Test
+  fun `statistics do not build class name filters that have not been used`() {
+    val filteredFirst = CountingResolver("first", "com/example/First", isFiltered = true)
+    val filteredSecond = CountingResolver("second", "com/example/Second", isFiltered = true)
+    val resolver = SimpleCompositeResolver(listOf(filteredFirst, filteredSecond), Resolver.ReadMode.FULL, "simple", Int.MAX_VALUE)
+    assertEquals(0, resolver.collectedClassNameFilters().size)
+    assertEquals(0L, resolver.classNameFilterStatistics.queries)
+
+    assertTrue(resolver.containsClass("com/example/Second"))
+    assertEquals(2, resolver.collectedClassNameFilters().size)
+    assertEquals(2L, resolver.classNameFilterStatistics.queries)
+  }
+
+  private fun Resolver.collectedClassNameFilters(): Set<ClassNameFilter> =
+    hashSetOf<ClassNameFilter>().also { collectClassNameFilters(it) }
+
+  /**
+   * Resolver of fixed classes that counts the requests. Unless it [is filtered][isFiltered], it has no class name filter,
+   * so that composite resolvers ask it about every class.
+   */
+  private class CountingResolver(name: String, vararg classNames: String, private val isFiltered: Boolean = false) : DelegatingNamedResolver(name, {
+    FixedClassesResolver.create(classNames.map { className -> ClassNode().also { it.name = className } }, emptyOrigin())
+  }) {
+    val classes: Map<String, ClassNode> = classNames.associateWith { (resolveClass(it) as ResolutionResult.Found).value }
+
+    var packagesRequests = 0
+
+    var classRequests = 0
+
+    override val packages: Set<String>
+      get() = super.packages.also { packagesRequests++ }
+
+    override val classNameFilter: ClassNameFilter?
+      get() = if (isFiltered) super.classNameFilter else null
+
+    override fun containsClass(className: BinaryClassName): Boolean = super.containsClass(className).also { classRequests++ }
+
+    @Deprecated("Use 'containsClass(BinaryClassName)' instead")
+    override fun containsClass(className: String): Boolean = super.containsClass(className).also { classRequests++ }
+  }
+}
+
+private fun emptyOrigin() = object : FileOrigin {
+  override val parent: FileOrigin? = null
+}
@@ -0,0 +1,144 @@
+package com.jetbrains.plugin.structure.ide
+
+import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.writeBytes
+import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode.SKIP_AND_WARN
+import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode.SKIP_CLASSPATH
+import com.jetbrains.plugin.structure.ide.problem.LayoutComponentHasNonExistentClasspath
+import com.jetbrains.plugin.structure.mocks.describeModel
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+class IdeSnapshotTest {
+
+  @Rule
+  @JvmField
+  val temporaryFolder = TemporaryFolder()
+
+  private lateinit var ideRoot: Path
+
+  private lateinit var snapshotFile: Path
+
+  @Before
+  fun setUp() {
+    ideRoot = MockIdeBuilder(temporaryFolder).buildIdeaDirectory()
+    snapshotFile = temporaryFolder.newFolder("snapshots").toPath().resolve("ide.ide-snapshot")
+  }
+
+  @Test
+  fun `IDE is restored from the snapshot as it was created`() {
+    val ide = ProductInfoBasedIdeManager().createIde(ideRoot) as ProductInfoBasedIde
+    IdeSnapshot.write(snapshotFile, ide, SKIP_AND_WARN)
+
+    val restored = IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN)
+    assertNotNull(restored)
+    restored as ProductInfoBasedIde
+    assertEquals(ide.version, restored.version)
+    assertEquals(ideRoot, restored.idePath)
+    assertEquals(ide.productInfo, restored.productInfo)
+    assertEquals(ide.layoutComponents.layoutComponents, restored.layoutComponents.layoutComponents)
+    assertEquals(ide.bundledPlugins.map { it.describeModel(ideRoot) }, restored.bundledPlugins.map { it.describeModel(ideRoot) })
+  }
+
+  @Test
+  fun `problems of layout components are restored from the snapshot`() {
+    val ideRoot = MockIdeBuilder(temporaryFolder, "-missing-layout-component").buildIdeaDirectory {
+      layout = """
+        {
+          "name": "org.jetbrains.plugins.emojipicker",
+          "kind": "plugin",
+          "classPath": [
+            "plugins/emojipicker/lib/emojipicker.jar"
+          ]
+        }
+      """.trimIndent()
+    }
+    val ide = ProductInfoBasedIdeManager(SKIP_AND_WARN).createIde(ideRoot) as ProductInfoBasedIde
+    IdeSnapshot.write(snapshotFile, ide, SKIP_AND_WARN)
+
+    val restored = IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN) as ProductInfoBasedIde
+    val problem = restored.layoutComponents.problems.single() as LayoutComponentHasNonExistentClasspath
+    assertEquals(ide.layoutComponents.problems.single().message, problem.message)
+    assertEquals(ide.bundledPlugins.size, restored.bundledPlugins.size)
+  }
+
+  @Test
+  fun `snapshot is stale when product info changes`() {
+    writeSnapshot()
+
+    val productInfoFile = ideRoot.resolve("product-info.json")
+    productInfoFile.writeBytes(Files.readAllBytes(productInfoFile) + "\n".toByteArray())
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+  }
+
+  @Test
+  fun `snapshot is stale when a jar of the IDE changes`() {
+    writeSnapshot()
+
+    val jar = ideRoot.resolve("lib/modules/intellij.notebooks.ui.jar")
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000))
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+  }
+
+  @Test
+  fun `snapshot is stale when a file of a bundled plugin changes`() {
+    val pluginFile = ideRoot.resolve("plugins/cwm-plugin/lib/cwm-plugin.xml")
+    pluginFile.writeBytes("<idea-plugin/>".toByteArray())
+    writeSnapshot()
+
+    Files.setLastModifiedTime(pluginFile, FileTime.fromMillis(Files.getLastModifiedTime(pluginFile).toMillis() + 10_000))
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+  }
+
+  @Test
+  fun `snapshot is stale when a plugin is added to the IDE`() {
+    writeSnapshot()
+
+    val pluginsDirectory = ideRoot.resolve("plugins")
+    Files.createDirectory(pluginsDirectory.resolve("new-plugin"))
+    Files.setLastModifiedTime(pluginsDirectory, FileTime.fromMillis(Files.getLastModifiedTime(pluginsDirectory).toMillis() + 10_000))
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+  }
+
+  @Test
+  fun `snapshot is not used for another missing layout file mode`() {
+    writeSnapshot()
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_CLASSPATH))
+    assertTrue(snapshotFile.exists())
+  }
+
+  @Test
+  fun `corrupted snapshot is ignored and deleted`() {
+    writeSnapshot()
+    snapshotFile.writeBytes(Files.readAllBytes(snapshotFile).copyOf(Files.size(snapshotFile).toInt() / 2))
+
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+    assertFalse(snapshotFile.exists())
+  }
+
+  @Test
+  fun `IDE without a snapshot is not restored`() {
+    assertNull(IdeSnapshot.read(snapshotFile, ideRoot, SKIP_AND_WARN))
+  }
+
+  private fun writeSnapshot() {
+    val ide = ProductInfoBasedIdeManager().createIde(ideRoot)
+    IdeSnapshot.write(snapshotFile, ide, SKIP_AND_WARN)
+    assertTrue(snapshotFile.exists())
+  }
+}
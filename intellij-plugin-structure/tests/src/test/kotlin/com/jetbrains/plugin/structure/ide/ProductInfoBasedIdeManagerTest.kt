@@ -3,6 +3,7 @@ package com.jetbrains.plugin.structure.ide
 import ch.qos.logback.classic.spi.ILoggingEvent
 import ch.qos.logback.core.read.ListAppender
 import ch.qos.logback.core.spi.AppenderAttachable
+import com.jetbrains.plugin.structure.base.plugin.Settings
 import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildDirectory
 import com.jetbrains.plugin.structure.ide.layout.LayoutComponents
 import com.jetbrains.plugin.structure.intellij.platform.ProductInfo
@@ -304,6 +305,37 @@ class ProductInfoBasedIdeManagerTest {
     assertNotNull(layoutComponentsSource)
   }
 
+  @Test
+  fun `bundled plugins are listed in the layout order regardless of loading parallelism`() {
+    val sequentialPluginIds = withPluginLoadingParallelism(1) {
+      ProductInfoBasedIdeManager().createIde(ideRoot).bundledPlugins.map { it.pluginId }
+    }
+    val concurrentPluginIds = withPluginLoadingParallelism(4) {
+      ProductInfoBasedIdeManager().createIde(ideRoot).bundledPlugins.map { it.pluginId }
+    }
+    assertEquals(
+      listOf(
+        "com.intellij",
+        "intellij.notebooks.ui",
+        "intellij.notebooks.visualization",
+        "intellij.java.featuresTrainer",
+        "com.jetbrains.codeWithMe"
+      ),
+      sequentialPluginIds
+    )
+    assertEquals(sequentialPluginIds, concurrentPluginIds)
+  }
+
+  private fun <T> withPluginLoadingParallelism(parallelism: Int, action: () -> T): T {
+    val property = "intellij.structure.ide.plugin.loading.parallelism"
+    val previousValue = System.getProperty(property)
+    Settings.IDE_PLUGIN_LOADING_PARALLELISM.set(parallelism.toString())
+    try {
+      return action()
+    } finally {
+      if (previousValue == null) System.clearProperty(property) else System.setProperty(property, previousValue)
+    }
+  }
 
   private fun assertIdeAndPluginsIsCreated(ide: Ide) {
     assertEquals(5, ide.bundledPlugins.size)
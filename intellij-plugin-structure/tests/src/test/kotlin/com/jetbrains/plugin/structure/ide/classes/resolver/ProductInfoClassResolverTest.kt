@@ -4,8 +4,10 @@ import com.jetbrains.plugin.structure.base.utils.createEmptyClass
 import com.jetbrains.plugin.structure.base.utils.createParentDirs
 import com.jetbrains.plugin.structure.base.utils.writeText
 import com.jetbrains.plugin.structure.classes.resolvers.LazyCompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
 import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver.ReadMode.FULL
+import com.jetbrains.plugin.structure.classes.resolvers.SimpleCompositeResolver
 import com.jetbrains.plugin.structure.ide.classes.IdeResolverConfiguration
 import com.jetbrains.plugin.structure.intellij.platform.ProductInfoParser
 import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
@@ -23,6 +25,7 @@ import java.io.ByteArrayInputStream
 import java.net.URL
 import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.attribute.FileTime
 import java.util.*
 import java.util.jar.JarEntry
 import java.util.jar.JarOutputStream
@@ -171,6 +174,108 @@ class ProductInfoClassResolverTest {
     assertEquals(expectedCacheHits, resolver.stats.size)
   }
 
+  @Test
+  fun `class index is written and used on later runs`() {
+    val ide = MockIde(IdeVersion.createIdeVersion(IDEA_ULTIMATE_2024_2), ideRoot, bundledPlugins = listOf(corePlugin()))
+    val classIndexPath = temporaryFolder.root.toPath().resolve("idea.class-index")
+    val resolverConfiguration = IdeResolverConfiguration(FULL, classIndexPath = classIndexPath)
+
+    val resolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(Files.exists(classIndexPath))
+    assertFalse(resolver.isIndexed("intellij.execution.process.elevation"))
+
+    val indexedResolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(indexedResolver.isIndexed("intellij.execution.process.elevation"))
+    assertEquals(resolver.packages, indexedResolver.packages)
+    assertEquals(resolver.allPackages, indexedResolver.allPackages)
+    assertEquals(resolver.allClassNames.map { it.toString() }.toSet(), indexedResolver.allClassNames.map { it.toString() }.toSet())
+    assertTrue(indexedResolver.containsClass("com/intellij/execution/process/elevation/ElevationLogger"))
+    assertTrue(indexedResolver.containsPackage("com/intellij/execution"))
+
+    val elevationLogger = indexedResolver.resolveClass("com/intellij/execution/process/elevation/ElevationLogger")
+    assertTrue(elevationLogger is ResolutionResult.Found)
+    assertEquals(ResolutionResult.NotFound, indexedResolver.resolveClass("com/intellij/execution/process/elevation/Missing"))
+    val filterStatistics = indexedResolver.classNameFilterStatistics
+    assertTrue(filterStatistics.presentableSummary, filterStatistics.rejections > 0)
+  }
+
+  @Test
+  fun `stale class index is rebuilt`() {
+    val ide = MockIde(IdeVersion.createIdeVersion(IDEA_ULTIMATE_2024_2), ideRoot, bundledPlugins = listOf(corePlugin()))
+    val classIndexPath = temporaryFolder.root.toPath().resolve("idea.class-index")
+    val resolverConfiguration = IdeResolverConfiguration(FULL, classIndexPath = classIndexPath)
+    ProductInfoClassResolver.of(ide, resolverConfiguration)
+
+    val elevationJar = ideRoot.resolve("lib/modules/intellij.execution.process.elevation.jar")
+    val elevationClasses = listOf(
+      "com/intellij/execution/process/elevation/ElevationLogger.class",
+      "com/intellij/execution/process/elevation/ElevationService.class"
+    )
+    createJar(elevationJar, elevationClasses)
+
+    val resolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertFalse(resolver.isIndexed("intellij.execution.process.elevation"))
+    assertTrue(resolver.containsClass("com/intellij/execution/process/elevation/ElevationService"))
+
+    val indexedResolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(indexedResolver.isIndexed("intellij.execution.process.elevation"))
+    assertTrue(indexedResolver.containsClass("com/intellij/execution/process/elevation/ElevationService"))
+  }
+
+  @Test
+  fun `corrupted class index is rebuilt`() {
+    val ide = MockIde(IdeVersion.createIdeVersion(IDEA_ULTIMATE_2024_2), ideRoot, bundledPlugins = listOf(corePlugin()))
+    val classIndexPath = temporaryFolder.root.toPath().resolve("idea.class-index")
+    val resolverConfiguration = IdeResolverConfiguration(FULL, classIndexPath = classIndexPath)
+    ProductInfoClassResolver.of(ide, resolverConfiguration)
+    Files.write(classIndexPath, Files.readAllBytes(classIndexPath).copyOf(32))
+
+    val resolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertFalse(resolver.isIndexed("intellij.execution.process.elevation"))
+    assertTrue(resolver.containsClass("com/intellij/execution/process/elevation/ElevationLogger"))
+
+    val indexedResolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(indexedResolver.isIndexed("intellij.execution.process.elevation"))
+  }
+
+  @Test
+  fun `class index with corrupted content is rebuilt`() {
+    val ide = MockIde(IdeVersion.createIdeVersion(IDEA_ULTIMATE_2024_2), ideRoot, bundledPlugins = listOf(corePlugin()))
+    val classIndexPath = temporaryFolder.root.toPath().resolve("idea.class-index")
+    val resolverConfiguration = IdeResolverConfiguration(FULL, classIndexPath = classIndexPath)
+    ProductInfoClassResolver.of(ide, resolverConfiguration)
+    val indexBytes = Files.readAllBytes(classIndexPath)
+    indexBytes[indexBytes.size - 2] = (indexBytes[indexBytes.size - 2] + 1).toByte()
+    Files.write(classIndexPath, indexBytes)
+
+    val resolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertFalse(resolver.isIndexed("intellij.execution.process.elevation"))
+
+    val indexedResolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(indexedResolver.isIndexed("intellij.execution.process.elevation"))
+  }
+
+  @Test
+  fun `class index is not rewritten because of malformed jars`() {
+    val ide = MockIde(IdeVersion.createIdeVersion(IDEA_ULTIMATE_2024_2), ideRoot, bundledPlugins = listOf(corePlugin()))
+    val classIndexPath = temporaryFolder.root.toPath().resolve("idea.class-index")
+    val resolverConfiguration = IdeResolverConfiguration(FULL, classIndexPath = classIndexPath)
+    ideRoot.resolve("lib/util.jar").writeText("not a jar")
+
+    ProductInfoClassResolver.of(ide, resolverConfiguration)
+    val writtenIndexTime = FileTime.fromMillis(0)
+    Files.setLastModifiedTime(classIndexPath, writtenIndexTime)
+
+    val indexedResolver = ProductInfoClassResolver.of(ide, resolverConfiguration)
+    assertTrue(indexedResolver.isIndexed("intellij.execution.process.elevation"))
+    assertEquals(writtenIndexTime, Files.getLastModifiedTime(classIndexPath))
+  }
+
+  private fun ProductInfoClassResolver.isIndexed(layoutComponentName: String): Boolean {
+    val layoutComponentResolver = getLayoutComponentResolver(layoutComponentName) as SimpleCompositeResolver<*>
+    return layoutComponentResolver.resolvers.all { (it as LazyJarResolver).isIndexed }
+  }
+
   private fun copyResource(resource: String, targetFile: Path) {
     val url: URL = this::class.java.getResource(resource) ?: throw AssertionError("Resource '$resource' not found")
     url.openStream().use {
@@ -191,15 +296,18 @@ class ProductInfoClassResolverTest {
 
   private fun createEmptyJarClassFiles() {
     ideClasses.forEach { (jarFile, classFileNames) ->
-      val jarPath: Path = ideRoot.resolve(jarFile)
-      JarOutputStream(Files.newOutputStream(jarPath)).use { jarOut ->
-        classFileNames.forEach { classFileName ->
-          val jarEntry = JarEntry(classFileName)
-
-          jarOut.putNextEntry(jarEntry)
-          jarOut.write(createEmptyClass(classFileName.removeSuffix(".class")))
-          jarOut.closeEntry()
-        }
+      createJar(ideRoot.resolve(jarFile), classFileNames)
+    }
+  }
+
+  private fun createJar(jarPath: Path, classFileNames: List<String>) {
+    JarOutputStream(Files.newOutputStream(jarPath)).use { jarOut ->
+      classFileNames.forEach { classFileName ->
+        val jarEntry = JarEntry(classFileName)
+
+        jarOut.putNextEntry(jarEntry)
+        jarOut.write(createEmptyClass(classFileName.removeSuffix(".class")))
+        jarOut.closeEntry()
       }
     }
   }
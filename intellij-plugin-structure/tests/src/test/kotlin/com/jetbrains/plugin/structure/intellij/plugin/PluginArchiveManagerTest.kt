@@ -1,18 +1,26 @@
 /*
- * Copyright 2000-2025 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
  */
 
 package com.jetbrains.plugin.structure.intellij.plugin
 
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
 import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildZipFile
+import com.jetbrains.plugin.structure.base.utils.createEmptyClass
+import com.jetbrains.plugin.structure.base.utils.exists
 import com.jetbrains.plugin.structure.base.utils.listFiles
 import com.jetbrains.plugin.structure.base.utils.writeBytes
+import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
+import com.jetbrains.plugin.structure.intellij.classes.plugin.ClassSearchContext
+import com.jetbrains.plugin.structure.intellij.classes.plugin.IdePluginClassesFinder
 import com.jetbrains.plugin.structure.mocks.BaseFileSystemAwareTest
 import com.jetbrains.plugin.structure.mocks.modify
 import com.jetbrains.plugin.structure.mocks.perfectXmlBuilder
 import com.jetbrains.plugin.structure.rules.FileSystemType
 import org.junit.After
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
@@ -118,6 +126,66 @@ class PluginArchiveManagerTest(fileSystemType: FileSystemType) : BaseFileSystemA
     secondArchive.resourceToClose.close()
   }
 
+  @Test
+  fun `archive is read in place without extraction`() {
+    val pluginArtifactPath = buildZipFile(temporaryFolder.newFile("plugin.zip")) {
+      dir("plugin") {
+        dir("lib") {
+          zip("plugin.jar") {
+            dir("META-INF") {
+              file("plugin.xml") { perfectXmlBuilder.modify { } }
+            }
+          }
+        }
+      }
+    }
+
+    PluginArchiveManager(extractedPluginsPath, inPlaceSizeLimit = Long.MAX_VALUE).use { inPlaceArchiveManager ->
+      val archiveResult = inPlaceArchiveManager.extractArchive(pluginArtifactPath)
+      assertTrue(archiveResult is PluginArchiveManager.Result.Extracted)
+      archiveResult as PluginArchiveManager.Result.Extracted
+      assertEquals(0, extractedPluginsPath.listFiles().size)
+      assertNotEquals(pluginArtifactPath.fileSystem, archiveResult.extractedPath.fileSystem)
+      assertTrue(archiveResult.extractedPath.resolve("lib").resolve("plugin.jar").exists())
+    }
+  }
+
+  @Test
+  fun `plugin read in place is created and its classes are found in the nested jar`() {
+    val pluginArtifactPath = buildZipFile(temporaryFolder.newFile("plugin.zip")) {
+      dir("plugin") {
+        dir("lib") {
+          zip("plugin.jar") {
+            dir("META-INF") {
+              file("plugin.xml") { perfectXmlBuilder.modify { } }
+            }
+            dir("com") {
+              dir("example") {
+                file("Service.class", createEmptyClass("com/example/Service"))
+              }
+            }
+          }
+        }
+      }
+    }
+
+    PluginArchiveManager(extractedPluginsPath, inPlaceSizeLimit = Long.MAX_VALUE).use { inPlaceArchiveManager ->
+      val pluginCreationResult = createIdePluginManager(inPlaceArchiveManager).createPlugin(pluginArtifactPath)
+      assertTrue(pluginCreationResult is PluginCreationSuccess)
+      val plugin = (pluginCreationResult as PluginCreationSuccess).plugin
+
+      val searchContext = ClassSearchContext(inPlaceArchiveManager)
+      IdePluginClassesFinder.findPluginClasses(plugin, additionalKeys = emptyList(), searchContext).use { classesLocations ->
+        val mainResolver = CompositeResolver.create(
+          IdePluginClassesFinder.MAIN_CLASSES_KEYS.flatMap { classesLocations.getResolvers(it) }
+        )
+        assertTrue(mainResolver.containsClass("com/example/Service"))
+        assertTrue(mainResolver.resolveClass("com/example/Service") is ResolutionResult.Found)
+      }
+      assertEquals(0, extractedPluginsPath.listFiles().size)
+    }
+  }
+
   private fun Path.contains(result: PluginArchiveManager.Result.Extracted): Boolean {
     return Files.walk(this).use { stream: Stream<Path> ->
       stream.anyMatch { it == result.extractedPath }
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.intellij.plugin.cache
+
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationFail
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationResult
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.base.problems.DescriptionNotStartingWithLatinCharacters
+import com.jetbrains.plugin.structure.base.problems.isReclassified
+import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_RESTORED_FROM_CACHE
+import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildZipFile
+import com.jetbrains.plugin.structure.base.utils.listFiles
+import com.jetbrains.plugin.structure.base.utils.writeBytes
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager
+import com.jetbrains.plugin.structure.intellij.plugin.PluginArchiveManager
+import com.jetbrains.plugin.structure.intellij.plugin.StructurallyValidated
+import com.jetbrains.plugin.structure.intellij.plugin.createIdePluginManager
+import com.jetbrains.plugin.structure.intellij.problems.IgnoredLevel
+import com.jetbrains.plugin.structure.intellij.problems.IntelliJPluginCreationResultResolver
+import com.jetbrains.plugin.structure.intellij.problems.LevelRemappingPluginCreationResultResolver
+import com.jetbrains.plugin.structure.intellij.problems.unacceptableWarning
+import com.jetbrains.plugin.structure.intellij.resources.PluginArchiveResource
+import com.jetbrains.plugin.structure.mocks.BaseFileSystemAwareTest
+import com.jetbrains.plugin.structure.mocks.PluginXmlBuilder
+import com.jetbrains.plugin.structure.mocks.SimplePluginCreatorResultResolver
+import com.jetbrains.plugin.structure.mocks.describeModel
+import com.jetbrains.plugin.structure.mocks.describeProblem
+import com.jetbrains.plugin.structure.mocks.modify
+import com.jetbrains.plugin.structure.mocks.perfectXmlBuilder
+import com.jetbrains.plugin.structure.rules.FileSystemType
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+
+class PluginCreationResultCacheTest(fileSystemType: FileSystemType) : BaseFileSystemAwareTest(fileSystemType) {
+
+  private lateinit var cacheDirectory: Path
+
+  private val archiveManagers = mutableListOf<PluginArchiveManager>()
+
+  @Before
+  fun setUp() {
+    cacheDirectory = temporaryFolder.newFolder("plugin-cache")
+  }
+
+  @After
+  fun tearDown() {
+    archiveManagers.forEach { it.close() }
+  }
+
+  @Test
+  fun `plugin is restored from the cache as it was parsed`() {
+    val pluginFile = buildPlugin("plugin.zip")
+
+    val parsed = createCachingManager().createPlugin(pluginFile).success
+    assertEquals(1, cacheDirectory.listFiles().size)
+    val cached = createCachingManager().createPlugin(pluginFile).success
+
+    assertFalse(parsed.isRestored)
+    assertTrue(cached.isRestored)
+    assertTrue(cached.warnings.isEmpty())
+    assertTrue(cached.unacceptableWarnings.isEmpty())
+    assertEquals(parsed.describeModel(), cached.describeModel())
+    assertEquals(pluginFile, cached.plugin.originalFile)
+    assertTrue(cached.plugin.classpath.paths.isNotEmpty())
+    cached.plugin.classpath.paths.forEach { assertTrue("$it does not exist", Files.exists(it)) }
+  }
+
+  @Test
+  fun `jar plugin is restored from the cache as it was parsed`() {
+    val pluginFile = buildPlugin("plugin.jar")
+
+    val parsed = createCachingManager().createPlugin(pluginFile).success
+    val cached = createCachingManager().createPlugin(pluginFile).success
+
+    assertTrue(cached.isRestored)
+    assertEquals(parsed.describeModel(), cached.describeModel())
+  }
+
+  @Test
+  fun `problems of the restored plugin have the types of the parsed problems`() {
+    val pluginFile = buildPlugin("warned.jar") { description = "<description>Short</description>" }
+    val remappingResolver = LevelRemappingPluginCreationResultResolver(
+      IntelliJPluginCreationResultResolver(),
+      unacceptableWarning<DescriptionNotStartingWithLatinCharacters>()
+    )
+    val plugin = createCachingManager().createPlugin(pluginFile, true, problemResolver = remappingResolver).success.plugin
+    val problems = (plugin as StructurallyValidated).problems
+    assertTrue(problems.any { it.isReclassified() })
+
+    val encoded = ByteArrayOutputStream()
+    val root = plugin.originalFile!!.parent
+    DataOutputStream(encoded).use {
+      assertEquals(PluginCreationResultCodec.EncodingResult.Encoded, PluginCreationResultCodec.encodePlugins(listOf(plugin), root, it))
+    }
+    val restored = DataInputStream(ByteArrayInputStream(encoded.toByteArray())).use {
+      PluginCreationResultCodec.decodePlugins(it, root)
+    }.single()
+
+    val restoredProblems = (restored as StructurallyValidated).problems
+    assertEquals(problems.map(::describeProblem), restoredProblems.map(::describeProblem))
+    assertEquals(
+      remappingResolver.classify(plugin, problems).map(::describeProblem),
+      remappingResolver.classify(restored, restoredProblems).map(::describeProblem)
+    )
+  }
+
+  @Test
+  fun `extensions of the restored plugin belong to its descriptor`() {
+    val pluginFile = buildPlugin("plugin.jar")
+
+    createCachingManager().createPlugin(pluginFile)
+    val plugin = createCachingManager().createPlugin(pluginFile).success.plugin
+
+    val extensions = plugin.extensions.values.flatten()
+    assertEquals(2, extensions.size)
+    extensions.forEach { assertSame(plugin.underlyingDocument, it.document) }
+  }
+
+  @Test
+  fun `artifact with the same content is restored from the cache wherever it is`() {
+    val pluginFile = buildPlugin("plugin.zip")
+    val copiedPluginFile = Files.copy(pluginFile, temporaryFolder.newFolder("copy").resolve("plugin.zip"))
+
+    createCachingManager().createPlugin(pluginFile)
+    val cached = createCachingManager().createPlugin(copiedPluginFile).success
+
+    assertTrue(cached.isRestored)
+    assertEquals(copiedPluginFile, cached.plugin.originalFile)
+  }
+
+  @Test
+  fun `results with problems are not cached`() {
+    val failedPluginFile = buildPlugin("failed.zip") { name = "" }
+    val parsed = createCachingManager().createPlugin(failedPluginFile) as PluginCreationFail
+    assertTrue(parsed.errorsAndWarnings.isNotEmpty())
+
+    val warnedPluginFile = buildPlugin("warned.zip") { description = "<description>Short</description>" }
+    assertTrue(createCachingManager().createPlugin(warnedPluginFile).success.warnings.isNotEmpty())
+
+    assertTrue(cacheDirectory.listFiles().isEmpty())
+    assertTrue(createCachingManager().createPlugin(failedPluginFile) is PluginCreationFail)
+    assertFalse(createCachingManager().createPlugin(warnedPluginFile).success.isRestored)
+  }
+
+  @Test
+  fun `results of resolvers configured differently are cached separately`() {
+    val pluginFile = buildPlugin("plugin.zip")
+    val remappingResolver = LevelRemappingPluginCreationResultResolver(
+      IntelliJPluginCreationResultResolver(),
+      mapOf(DescriptionNotStartingWithLatinCharacters::class to IgnoredLevel)
+    )
+
+    createCachingManager().createPlugin(pluginFile, true)
+    val remapped = createCachingManager().createPlugin(pluginFile, true, problemResolver = remappingResolver).success
+
+    assertFalse(remapped.isRestored)
+    assertEquals(2, cacheDirectory.listFiles().size)
+  }
+
+  @Test
+  fun `results of resolvers without a cache key are not cached`() {
+    val pluginFile = buildPlugin("plugin.zip")
+
+    createCachingManager().createPlugin(pluginFile, true, problemResolver = SimplePluginCreatorResultResolver())
+
+    assertTrue(cacheDirectory.listFiles().isEmpty())
+  }
+
+  @Test
+  fun `corrupted cache entry is replaced by a parsed plugin`() {
+    val pluginFile = buildPlugin("plugin.zip")
+    val parsed = createCachingManager().createPlugin(pluginFile).success
+    val entryFile = cacheDirectory.listFiles().single()
+    val entryContent = Files.readAllBytes(entryFile)
+    entryFile.writeBytes(entryContent.copyOf(entryContent.size / 2))
+
+    val reparsed = createCachingManager().createPlugin(pluginFile).success
+    assertFalse(reparsed.isRestored)
+    assertEquals(parsed.describeModel(), reparsed.describeModel())
+    assertArrayEquals(entryContent, Files.readAllBytes(entryFile))
+
+    val cached = createCachingManager().createPlugin(pluginFile).success
+    assertTrue(cached.isRestored)
+  }
+
+  @Test
+  fun `cache entry is keyed by the content of the artifact`() {
+    val pluginFile = buildPlugin("plugin.zip")
+    createCachingManager().createPlugin(pluginFile)
+
+    buildZipFile(pluginFile) {
+      dir("plugin") {
+        dir("lib") {
+          zip("plugin.jar") {
+            dir("META-INF") {
+              file("plugin.xml") { perfectXmlBuilder.modify { version = "<version>2</version>" } }
+            }
+          }
+        }
+      }
+    }
+    val plugin = createCachingManager().createPlugin(pluginFile).success.plugin
+
+    assertEquals("2", plugin.pluginVersion)
+    assertEquals(2, cacheDirectory.listFiles().size)
+  }
+
+  private fun createCachingManager(): IdePluginManager {
+    val archiveManager = PluginArchiveManager(temporaryFolder.newFolder())
+    archiveManagers += archiveManager
+    return createIdePluginManager {
+      pluginArchiveManager = archiveManager
+      pluginCacheDirectory = cacheDirectory
+    }
+  }
+
+  private fun buildPlugin(fileName: String, modifier: PluginXmlBuilder.() -> Unit = {}): Path {
+    val descriptor = perfectXmlBuilder.modify {
+      depends += "<depends>com.intellij.modules.lang</depends>"
+      additionalContent = """
+        <extensions defaultExtensionNs="com.intellij">
+          <applicationService serviceImplementation="com.example.Service"/>
+          <!-- Comment -->
+          <projectConfigurable instance="com.example.ProjectConfigurable"/>
+          <applicationConfigurable instance="com.example.ApplicationConfigurable"/>
+        </extensions>
+      """.trimIndent()
+      modifier()
+    }
+    return if (fileName.endsWith(".jar")) {
+      buildZipFile(temporaryFolder.newFile(fileName)) {
+        dir("META-INF") {
+          file("plugin.xml", descriptor)
+        }
+      }
+    } else {
+      buildZipFile(temporaryFolder.newFile(fileName)) {
+        dir("plugin") {
+          dir("lib") {
+            zip("plugin.jar") {
+              dir("META-INF") {
+                file("plugin.xml", descriptor)
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private val PluginCreationSuccess<IdePlugin>.isRestored: Boolean
+    get() = telemetry[PLUGIN_RESTORED_FROM_CACHE] == true
+
+  private val PluginCreationResult<IdePlugin>.success: PluginCreationSuccess<IdePlugin>
+    get() = this as? PluginCreationSuccess ?: throw AssertionError("Plugin is not created: $this")
+
+  /**
+   * Describes the model of the plugin relative to its extracted content, if any.
+   */
+  private fun PluginCreationSuccess<IdePlugin>.describeModel(): String =
+    plugin.describeModel(resources.filterIsInstance<PluginArchiveResource>().firstOrNull()?.extractedPath)
+}
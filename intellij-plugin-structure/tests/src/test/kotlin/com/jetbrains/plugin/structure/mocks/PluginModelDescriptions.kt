@@ -0,0 +1,97 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.plugin.structure.mocks
+
+import com.jetbrains.plugin.structure.base.problems.PluginProblem
+import com.jetbrains.plugin.structure.base.problems.isInvalidDescriptorProblem
+import com.jetbrains.plugin.structure.base.problems.isReclassified
+import com.jetbrains.plugin.structure.base.problems.problemClass
+import com.jetbrains.plugin.structure.base.problems.unwrapped
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.StructurallyValidated
+import org.jdom2.Document
+import org.jdom2.Element
+import org.jdom2.output.Format
+import org.jdom2.output.XMLOutputter
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.nio.file.Path
+
+private const val MAX_DEPTH = 10
+
+/**
+ * Describes the complete model of the plugin: every property of [IdePlugin] and the problems of the plugin, recursively.
+ * Paths under the [contentRoot] are described relative to it, problems are described with their classes
+ * as the type checks of plugin problems see them.
+ *
+ * Two plugins with the same description have the same model, such as a plugin parsed and restored from a cache.
+ */
+fun IdePlugin.describeModel(contentRoot: Path? = null): String = PluginModelDescriber(contentRoot).describe(this, 0)
+
+/**
+ * Describes the [problem] with its level, message and class as the type checks of plugin problems see them.
+ */
+fun describeProblem(problem: PluginProblem): String =
+  "${problem.problemClass.name}(${problem.level}, ${problem.message}, hint=${problem.hint}, " +
+    "reclassified=${problem.isReclassified()}, unwrapped=${problem.unwrapped.problemClass.name}, " +
+    "invalidDescriptor=${problem.isInvalidDescriptorProblem})"
+
+private class PluginModelDescriber(private val contentRoot: Path?) {
+  private val xmlOutputter = XMLOutputter(Format.getRawFormat())
+
+  fun describe(value: Any?, depth: Int): String {
+    if (depth > MAX_DEPTH) {
+      return value.toString()
+    }
+    return when (value) {
+      null -> "null"
+      is String, is Number, is Boolean, is Char, is Enum<*> -> value.toString()
+      is Path -> describePath(value)
+      is Document -> if (value.hasRootElement()) xmlOutputter.outputString(value.rootElement) else "<empty document>"
+      is Element -> xmlOutputter.outputString(value)
+      is ByteArray -> value.contentToString()
+      is IntArray -> value.contentToString()
+      is Array<*> -> value.joinToString(", ", "[", "]") { describe(it, depth + 1) }
+      is PluginProblem -> describeProblem(value)
+      is IdePlugin -> {
+        val properties = describeProperties(value, IdePlugin::class.java, depth)
+        val problems = (value as? StructurallyValidated)?.problems.orEmpty().map { describeProblem(it) }
+        "${value.javaClass.simpleName}$properties problems=$problems"
+      }
+      is List<*> -> value.joinToString(", ", "[", "]") { describe(it, depth + 1) }
+      is Iterable<*> -> value.map { describe(it, depth + 1) }.sorted().joinToString(", ", "[", "]")
+      is Map<*, *> -> value.entries.map { (key, item) -> "${describe(key, depth + 1)}=${describe(item, depth + 1)}" }
+        .sorted()
+        .joinToString(", ", "{", "}")
+      else -> if (value.javaClass.name.startsWith("com.jetbrains.")) {
+        value.javaClass.simpleName + describeProperties(value, value.javaClass, depth)
+      } else {
+        value.toString()
+      }
+    }
+  }
+
+  private fun describeProperties(value: Any, type: Class<*>, depth: Int): String =
+    type.methods
+      .filter { it.isPropertyGetter() }
+      .sortedBy { it.name }
+      .joinToString(", ", "{", "}") {
+        it.isAccessible = true
+        "${it.name}=${describe(it.invoke(value), depth + 1)}"
+      }
+
+  private fun Method.isPropertyGetter(): Boolean =
+    parameterCount == 0
+      && !Modifier.isStatic(modifiers)
+      && declaringClass != Any::class.java
+      && (name.startsWith("get") || name.startsWith("is") || name.startsWith("has"))
+
+  private fun describePath(path: Path): String =
+    if (contentRoot != null && path.fileSystem == contentRoot.fileSystem && path.startsWith(contentRoot)) {
+      "<content>/" + contentRoot.relativize(path).joinToString("/")
+    } else {
+      path.toString()
+    }
+}
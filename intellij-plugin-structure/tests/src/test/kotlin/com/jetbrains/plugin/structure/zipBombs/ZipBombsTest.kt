@@ -66,6 +66,9 @@ class ZipBombsTest(fileSystemType: FileSystemType) : BaseFileSystemAwareTest(fil
     PluginArchiveManager(temporaryFolder.newFolder()).use {
       checkTooLargeProblem(createIdePluginManager(it), zipBomb)
     }
+    PluginArchiveManager(temporaryFolder.newFolder(), inPlaceSizeLimit = Long.MAX_VALUE).use {
+      checkTooLargeProblem(createIdePluginManager(it), zipBomb)
+    }
     checkTooLargeProblem(TeamcityPluginManager.createManager(), zipBomb)
     checkTooLargeProblem(TeamcityPluginManager.createManager(temporaryFolder.newFolder()), zipBomb)
     checkTooLargeProblem(HubPluginManager.createManager(), zipBomb)
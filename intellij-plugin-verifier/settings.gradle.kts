@@ -3,6 +3,7 @@ include("verifier-cli")
 include("verifier-core")
 include("verifier-intellij")
 include("verifier-repository")
+include("verifier-benchmarks")
 
 include("verifier-test")
 include("verifier-test:after-idea")
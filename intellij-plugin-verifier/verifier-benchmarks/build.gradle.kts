@@ -0,0 +1,30 @@
+plugins {
+  alias(libs.plugins.jmh)
+}
+
+val intellijStructureVersion: String by rootProject.extra
+
+dependencies {
+  jmh(project(":verifier-intellij"))
+  jmh("org.jetbrains.intellij.plugins:structure-ide-classes:$intellijStructureVersion")
+  jmh(sharedLibs.asm.root)
+  jmh(sharedLibs.asm.tree)
+  jmh(libs.jmh.core)
+  jmhRuntimeOnly(sharedLibs.logback.classic)
+}
+
+/**
+ * Results are written in the JMH JSON format, so that they can be compared between commits,
+ * for example with `jmh-result-diff` or https://jmh.morethan.io.
+ * Profilers are enabled with `-PjmhProfilers`, for example `-PjmhProfilers=gc` reports allocation rates.
+ */
+jmh {
+  jmhVersion = libs.versions.jmh
+  resultFormat = "JSON"
+  resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+  includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList())
+  profilers = providers.gradleProperty("jmhProfilers").map { it.split(',') }.orElse(emptyList())
+  fork = 1
+  warmupIterations = 3
+  iterations = 5
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Origin of the classes generated for benchmarks.
+ */
+object SyntheticFileOrigin : FileOrigin {
+  override val parent: FileOrigin? = null
+}
+
+fun createBenchmarkDirectory(name: String): Path = Files.createTempDirectory("verifier-benchmark-$name")
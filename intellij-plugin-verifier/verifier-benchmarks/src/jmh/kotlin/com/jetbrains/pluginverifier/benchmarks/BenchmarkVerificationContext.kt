@@ -0,0 +1,44 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.results.problems.CompatibilityProblem
+import com.jetbrains.pluginverifier.usages.ApiUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.ProblemRegistrar
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.packages.DefaultPackageFilter
+import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import com.jetbrains.pluginverifier.warnings.CompatibilityWarning
+import com.jetbrains.pluginverifier.warnings.WarningRegistrar
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * [VerificationContext] that only counts the registered problems and warnings.
+ */
+class BenchmarkVerificationContext(override val classResolver: Resolver) : VerificationContext, ProblemRegistrar, WarningRegistrar {
+
+  val problemsNumber = AtomicInteger()
+
+  val warningsNumber = AtomicInteger()
+
+  override val externalClassesPackageFilter: PackageFilter = DefaultPackageFilter(emptyList())
+
+  override val problemRegistrar: ProblemRegistrar
+    get() = this
+
+  override val warningRegistrar: WarningRegistrar
+    get() = this
+
+  override val apiUsageProcessors: List<ApiUsageProcessor> = emptyList()
+
+  override fun registerProblem(problem: CompatibilityProblem) {
+    problemsNumber.incrementAndGet()
+  }
+
+  override fun registerCompatibilityWarning(warning: CompatibilityWarning) {
+    warningsNumber.incrementAndGet()
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.verifiers.BytecodeVerifier
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.instruction.InstructionVerifier
+import com.jetbrains.pluginverifier.verifiers.resolution.Method
+import com.jetbrains.pluginverifier.verifiers.resolution.caching
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.AbstractInsnNode
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.file.Path
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+
+/**
+ * [BytecodeVerifier.verifyClasses] over a synthetic plugin referencing classes of synthetic IDE jars.
+ *
+ * `additionalVerifiers` registers extra instruction verifiers interested only in `monitorenter`:
+ * with `interestedOpcodes` declared they are skipped by the opcode dispatch table,
+ * without it they are invoked for every instruction, as all instruction verifiers used to be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class BytecodeVerifierBenchmark {
+
+  @Param("2000")
+  @JvmField
+  var pluginClassesNumber: Int = 0
+
+  @Param("0", "8")
+  @JvmField
+  var additionalVerifiers: Int = 0
+
+  @Param("true", "false")
+  @JvmField
+  var declareInterestedOpcodes: Boolean = false
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var resolver: Resolver
+
+  private lateinit var pluginClasses: Set<BinaryClassName>
+
+  private lateinit var bytecodeVerifier: BytecodeVerifier
+
+  private lateinit var pool: ForkJoinPool
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("bytecode-verifier")
+    val ideJar = workDirectory.resolve("ide.jar")
+    SyntheticJars.writeIdeJar(ideJar, 0, 20, 50)
+    val pluginJar = workDirectory.resolve("plugin.jar")
+    val classes = SyntheticJars.generatePluginClasses(pluginClassesNumber, SyntheticJars.ideClassNames(0, 20, 50), 50)
+    SyntheticJars.writePluginJar(pluginJar, classes)
+    pluginClasses = classes.keys
+
+    resolver = CompositeResolver.create(
+      LazyJarResolver(pluginJar, Resolver.ReadMode.FULL, SyntheticFileOrigin),
+      LazyJarResolver(ideJar, Resolver.ReadMode.FULL, SyntheticFileOrigin)
+    ).caching()
+
+    val instructionVerifiers = (0 until additionalVerifiers).map {
+      MonitorInstructionVerifier(if (declareInterestedOpcodes) setOf(Opcodes.MONITORENTER) else null)
+    }
+    bytecodeVerifier = BytecodeVerifier(additionalInstructionVerifiers = instructionVerifiers)
+    pool = ForkJoinPool(Runtime.getRuntime().availableProcessors())
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    pool.shutdown()
+    resolver.close()
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun sequential(): Int {
+    val context = BenchmarkVerificationContext(resolver)
+    bytecodeVerifier.verifyClasses(pluginClasses, context) {}
+    return context.problemsNumber.get()
+  }
+
+  @Benchmark
+  fun parallel(): Int {
+    val context = BenchmarkVerificationContext(resolver)
+    bytecodeVerifier.verifyClasses(pluginClasses, context, pool) {}
+    return context.problemsNumber.get()
+  }
+
+  private class MonitorInstructionVerifier(override val interestedOpcodes: Set<Int>?) : InstructionVerifier {
+    override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
+      if (instructionNode.opcode == Opcodes.MONITORENTER) {
+        throw IllegalStateException("Synthetic classes do not contain monitors")
+      }
+    }
+  }
+}
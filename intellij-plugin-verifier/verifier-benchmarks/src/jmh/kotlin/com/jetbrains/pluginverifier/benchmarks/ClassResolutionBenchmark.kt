@@ -0,0 +1,99 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.jar.DefaultJarFileSystemProvider
+import com.jetbrains.pluginverifier.verifiers.resolution.caching
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.infra.Blackhole
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Resolution of classes by [LazyJarResolver].
+ *
+ * - `cold` opens a new resolver for every invocation, so it includes indexing of the jar and opening of its file system.
+ * - `warm` resolves classes with an already indexed resolver.
+ * - `cached` resolves classes through a [com.jetbrains.plugin.structure.classes.resolvers.CacheResolver].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class ClassResolutionBenchmark {
+
+  @Param("5000")
+  @JvmField
+  var classesNumber: Int = 0
+
+  @Param("100")
+  @JvmField
+  var resolvedClassesNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var jarPath: Path
+
+  private lateinit var resolvedClasses: List<String>
+
+  private lateinit var warmResolver: Resolver
+
+  private lateinit var cachingResolver: Resolver
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("class-resolution")
+    jarPath = workDirectory.resolve("ide.jar")
+    val packagesNumber = 50
+    SyntheticJars.writeIdeJar(jarPath, 0, packagesNumber, classesNumber / packagesNumber)
+    val allClasses = SyntheticJars.ideClassNames(0, packagesNumber, classesNumber / packagesNumber)
+    resolvedClasses = allClasses.shuffled(kotlin.random.Random(42)).take(resolvedClassesNumber)
+    warmResolver = LazyJarResolver(jarPath, Resolver.ReadMode.FULL, SyntheticFileOrigin)
+    warmResolver.containsClass(resolvedClasses.first())
+    cachingResolver = LazyJarResolver(jarPath, Resolver.ReadMode.FULL, SyntheticFileOrigin).caching()
+    resolvedClasses.forEach { cachingResolver.resolveClass(it) }
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    warmResolver.close()
+    cachingResolver.close()
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun cold(blackhole: Blackhole) {
+    LazyJarResolver(jarPath, Resolver.ReadMode.FULL, SyntheticFileOrigin, fileSystemProvider = DefaultJarFileSystemProvider()).use { resolver ->
+      resolveAll(resolver, blackhole)
+    }
+  }
+
+  @Benchmark
+  fun warm(blackhole: Blackhole) {
+    resolveAll(warmResolver, blackhole)
+  }
+
+  @Benchmark
+  fun cached(blackhole: Blackhole) {
+    resolveAll(cachingResolver, blackhole)
+  }
+
+  private fun resolveAll(resolver: Resolver, blackhole: Blackhole) {
+    for (className in resolvedClasses) {
+      blackhole.consume(resolver.resolveClass(className))
+    }
+  }
+}
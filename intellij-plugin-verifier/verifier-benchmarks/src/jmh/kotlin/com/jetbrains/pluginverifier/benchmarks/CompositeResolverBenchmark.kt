@@ -0,0 +1,91 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.classes.resolvers.SimpleCompositeResolver
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.infra.Blackhole
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Lookups of present and absent classes in composite resolvers made of many jars,
+ * similar to the IDE layout: [CompositeResolver] with its package index
+ * and [SimpleCompositeResolver] that never builds the index and probes every delegate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class CompositeResolverBenchmark {
+
+  @Param("200")
+  @JvmField
+  var jarsNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var jarResolvers: List<Resolver>
+
+  private lateinit var compositeResolver: Resolver
+
+  private lateinit var simpleCompositeResolver: Resolver
+
+  private lateinit var presentClasses: List<String>
+
+  private lateinit var absentClasses: List<String>
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("composite-resolver")
+    jarResolvers = (0 until jarsNumber).map { jarIndex ->
+      val jarPath = workDirectory.resolve("ide-$jarIndex.jar")
+      SyntheticJars.writeIdeJar(jarPath, jarIndex, 5, 20)
+      LazyJarResolver(jarPath, Resolver.ReadMode.FULL, SyntheticFileOrigin)
+    }
+    compositeResolver = CompositeResolver.create(jarResolvers)
+    simpleCompositeResolver = SimpleCompositeResolver(jarResolvers, Resolver.ReadMode.FULL, "simple", packageIndexThreshold = Int.MAX_VALUE)
+
+    val random = kotlin.random.Random(42)
+    presentClasses = (0 until 100).map { SyntheticJars.ideClassNames(random.nextInt(jarsNumber), 5, 20).random(random) }
+    absentClasses = (0 until 100).map { "com/intellij/synthetic/absent/p${it % 10}/AbsentClass$it" }
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    jarResolvers.forEach { it.close() }
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun compositeHit(blackhole: Blackhole) = lookup(compositeResolver, presentClasses, blackhole)
+
+  @Benchmark
+  fun compositeMiss(blackhole: Blackhole) = lookup(compositeResolver, absentClasses, blackhole)
+
+  @Benchmark
+  fun simpleCompositeHit(blackhole: Blackhole) = lookup(simpleCompositeResolver, presentClasses, blackhole)
+
+  @Benchmark
+  fun simpleCompositeMiss(blackhole: Blackhole) = lookup(simpleCompositeResolver, absentClasses, blackhole)
+
+  private fun lookup(resolver: Resolver, classNames: List<String>, blackhole: Blackhole) {
+    for (className in classNames) {
+      blackhole.consume(resolver.containsClass(className))
+    }
+  }
+}
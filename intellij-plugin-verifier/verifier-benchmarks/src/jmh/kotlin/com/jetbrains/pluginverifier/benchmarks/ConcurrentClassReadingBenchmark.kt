@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.base.zip.ZipFileHandler
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.classes.utils.AsmUtil
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Threads
+import org.openjdk.jmh.infra.Blackhole
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Reading of class files from a jar by many threads at once, as during verification with high concurrency.
+ *
+ * - `entryBytes` reads classes by [LazyJarResolver], which inflates an entry into an array of its exact size.
+ * - `entryStream` reads classes from the `ZipFile` input stream of an entry, which ASM copies to a growing buffer.
+ *
+ * The benchmark is meant to be run with the GC profiler to compare allocation rates:
+ * `./gradlew :verifier-benchmarks:jmh -PjmhIncludes=ConcurrentClassReadingBenchmark -PjmhProfilers=gc`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+open class ConcurrentClassReadingBenchmark {
+
+  @Param("5000")
+  @JvmField
+  var classesNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var classNames: List<String>
+
+  private lateinit var resolver: LazyJarResolver
+
+  private lateinit var zipHandler: ZipFileHandler
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("concurrent-class-reading")
+    val jarPath = workDirectory.resolve("ide.jar")
+    val packagesNumber = 50
+    SyntheticJars.writeIdeJar(jarPath, 0, packagesNumber, classesNumber / packagesNumber)
+    classNames = SyntheticJars.ideClassNames(0, packagesNumber, classesNumber / packagesNumber)
+    resolver = LazyJarResolver(jarPath, Resolver.ReadMode.FULL, SyntheticFileOrigin)
+    zipHandler = ZipFileHandler(jarPath)
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    resolver.close()
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun entryBytes(reader: ClassCursor, blackhole: Blackhole) {
+    val className = reader.next(classNames)
+    blackhole.consume(resolver.readClass(className, "$className.class"))
+  }
+
+  @Benchmark
+  fun entryStream(reader: ClassCursor, blackhole: Blackhole) {
+    val className = reader.next(classNames)
+    blackhole.consume(zipHandler.handleEntry("$className.class") { entry, resource ->
+      AsmUtil.readClassNode(className, resource.getInputStream(entry), true)
+    })
+  }
+
+  /**
+   * Position of a benchmark thread in the list of classes, so that threads read different classes.
+   */
+  @State(Scope.Thread)
+  open class ClassCursor {
+    private var position = System.identityHashCode(this)
+
+    fun next(classNames: List<String>): String = classNames[Math.floorMod(position++, classNames.size)]
+  }
+}
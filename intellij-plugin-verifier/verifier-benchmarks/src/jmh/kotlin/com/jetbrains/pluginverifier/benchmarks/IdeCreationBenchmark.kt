@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.plugin.Settings
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.ide.ProductInfoBasedIdeManager
+import com.jetbrains.plugin.structure.ide.classes.resolver.ProductInfoClassResolver
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Creation of an [Ide] by [ProductInfoBasedIdeManager] and of its [ProductInfoClassResolver]
+ * from a synthetic `product-info.json` layout with many bundled plugins and product modules.
+ *
+ * The `parallelism` of `1` loads bundled plugins sequentially and is the baseline for the concurrent loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class IdeCreationBenchmark {
+
+  @Param("1", "8")
+  @JvmField
+  var parallelism: Int = 0
+
+  @Param("300")
+  @JvmField
+  var pluginsNumber: Int = 0
+
+  @Param("300")
+  @JvmField
+  var modulesNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var idePath: Path
+
+  private lateinit var ide: Ide
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    Settings.IDE_PLUGIN_LOADING_PARALLELISM.set(parallelism.toString())
+    workDirectory = createBenchmarkDirectory("ide-creation")
+    idePath = workDirectory.resolve("ide")
+    SyntheticJars.writeProductInfoIde(idePath, modulesNumber, pluginsNumber, 20)
+    ide = ProductInfoBasedIdeManager().createIde(idePath)
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun createIde(): Int = ProductInfoBasedIdeManager().createIde(idePath).bundledPlugins.size
+
+  @Benchmark
+  fun createClassResolver(): Int = ProductInfoClassResolver.of(ide).use { it.layoutComponentNames.size }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.jar.DefaultJarFileSystemProvider
+import com.jetbrains.plugin.structure.jar.Jar
+import org.openjdk.jmh.annotations.AuxCounters
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.lang.management.ManagementFactory
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Heap retained by the class names and packages of indexed jars of a synthetic IDE.
+ *
+ * The retained heap is the difference of the used heap after a full GC with and without the indexed jars,
+ * reported as the `retainedBytes` and `retainedBytesPerClass` secondary results.
+ * Run it with `-PjmhIncludes=JarIndexFootprintBenchmark`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class JarIndexFootprintBenchmark {
+
+  @Param("400")
+  @JvmField
+  var jarsNumber: Int = 0
+
+  @Param("750")
+  @JvmField
+  var classesPerJar: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var jarPaths: List<Path>
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("jar-index-footprint")
+    val packagesNumber = 15
+    jarPaths = (0 until jarsNumber).map { jarIndex ->
+      workDirectory.resolve("ide-$jarIndex.jar").also {
+        SyntheticJars.writeIdeJar(it, jarIndex, packagesNumber, classesPerJar / packagesNumber)
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  open class Footprint {
+    @JvmField
+    var retainedBytes: Long = 0
+
+    @JvmField
+    var retainedBytesPerClass: Long = 0
+  }
+
+  @Benchmark
+  fun indexJars(footprint: Footprint): Int {
+    val usedBefore = usedHeapAfterGc()
+    val jars = jarPaths.map { jarPath ->
+      Jar(jarPath, DefaultJarFileSystemProvider()).init().also { it.packages.all }
+    }
+    val classesNumber = jars.sumOf { it.classes.size }
+    footprint.retainedBytes = usedHeapAfterGc() - usedBefore
+    footprint.retainedBytesPerClass = footprint.retainedBytes / classesNumber.coerceAtLeast(1)
+    jars.forEach { it.close() }
+    return classesNumber
+  }
+
+  private fun usedHeapAfterGc(): Long {
+    val memory = ManagementFactory.getMemoryMXBean()
+    repeat(3) { System.gc() }
+    return memory.heapMemoryUsage.used
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.jar.DefaultJarFileSystemProvider
+import com.jetbrains.plugin.structure.jar.Jar
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Indexing of a jar by [Jar.init]: classes, packages and resource bundles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class JarIndexingBenchmark {
+
+  @Param("1000", "20000")
+  @JvmField
+  var classesNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var jarPath: Path
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("jar-indexing")
+    jarPath = workDirectory.resolve("ide.jar")
+    val packagesNumber = 100
+    SyntheticJars.writeIdeJar(jarPath, 0, packagesNumber, classesNumber / packagesNumber)
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun indexClasses(): Int = Jar(jarPath, DefaultJarFileSystemProvider()).init().use { it.classes.size }
+
+  @Benchmark
+  fun indexPackages(): Int = Jar(jarPath, DefaultJarFileSystemProvider()).init().use { it.packages.all.size }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.classes.resolvers.FixedClassesResolver
+import com.jetbrains.pluginverifier.results.instruction.Instruction
+import com.jetbrains.pluginverifier.results.reference.MethodReference
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
+import com.jetbrains.pluginverifier.verifiers.resolution.Method
+import com.jetbrains.pluginverifier.verifiers.resolution.MethodResolver
+import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassOrNull
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.tree.ClassNode
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Resolution of methods declared at the top of a deep class hierarchy (JVM §5.4.3.3):
+ * a class method found by the superclass walk and a default method found
+ * by the maximally-specific superinterface search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class MethodResolutionBenchmark {
+
+  @Param("5", "50")
+  @JvmField
+  var hierarchyDepth: Int = 0
+
+  private lateinit var context: VerificationContext
+
+  private lateinit var deepestClass: ClassFile
+
+  private lateinit var callerMethod: Method
+
+  private lateinit var classMethodReference: MethodReference
+
+  private lateinit var defaultMethodReference: MethodReference
+
+  private val methodResolver = MethodResolver()
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    val packageName = "com/intellij/synthetic/hierarchy"
+    val classes = SyntheticJars.generateDeepHierarchy(packageName, hierarchyDepth)
+    val callers = SyntheticJars.generatePluginClasses(1, listOf("$packageName/Level0"), 1, missingReferenceRate = 0)
+    val classNodes = (classes + callers).values.map { bytes ->
+      ClassNode().also { ClassReader(bytes).accept(it, 0) }
+    } + ClassNode().also { ClassReader("java.lang.Object").accept(it, 0) }
+    context = BenchmarkVerificationContext(FixedClassesResolver.create(classNodes, SyntheticFileOrigin))
+
+    val deepestClassName = classes.keys.last()
+    deepestClass = context.classResolver.resolveClassOrNull(deepestClassName)!!
+    callerMethod = context.classResolver.resolveClassOrNull(callers.keys.single())!!.methods.first { it.name == "run" }
+    classMethodReference = MethodReference(deepestClassName, "method0", "()I")
+    defaultMethodReference = MethodReference(deepestClassName, "levelMethod0", "()V")
+  }
+
+  @Benchmark
+  fun resolveClassMethod(): Method? =
+    methodResolver.resolveMethod(deepestClass, classMethodReference, Instruction.INVOKE_VIRTUAL, callerMethod, context)
+
+  @Benchmark
+  fun resolveDefaultMethod(): Method? =
+    methodResolver.resolveMethod(deepestClass, defaultMethodReference, Instruction.INVOKE_VIRTUAL, callerMethod, context)
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.base.utils.forceRemoveDirectory
+import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.ide.IdeManager
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager
+import com.jetbrains.plugin.structure.intellij.plugin.PluginArchiveManager
+import com.jetbrains.pluginverifier.PluginVerificationDescriptor
+import com.jetbrains.pluginverifier.PluginVerificationResult
+import com.jetbrains.pluginverifier.PluginVerifier
+import com.jetbrains.pluginverifier.dependencies.resolution.BundledPluginDependencyFinder
+import com.jetbrains.pluginverifier.ide.IdeDescriptor
+import com.jetbrains.pluginverifier.plugin.DefaultPluginDetailsProvider
+import com.jetbrains.pluginverifier.plugin.PluginFilesBank
+import com.jetbrains.pluginverifier.plugin.SizeLimitedPluginDetailsCache
+import com.jetbrains.pluginverifier.repository.cleanup.DiskSpaceSetting
+import com.jetbrains.pluginverifier.repository.cleanup.SpaceAmount
+import com.jetbrains.pluginverifier.repository.repositories.local.LocalPluginInfo
+import com.jetbrains.pluginverifier.repository.repositories.marketplace.MarketplaceRepository
+import com.jetbrains.pluginverifier.resolution.DefaultClassResolverProvider
+import com.jetbrains.pluginverifier.verifiers.packages.DefaultPackageFilter
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.net.URL
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.TimeUnit
+
+/**
+ * Full [PluginVerifier.loadPluginAndVerify] of a synthetic plugin against a synthetic IDE,
+ * including creation of the [IdeDescriptor] and of the class resolvers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class PluginVerificationBenchmark {
+
+  @Param("1000")
+  @JvmField
+  var pluginClassesNumber: Int = 0
+
+  @Param("50")
+  @JvmField
+  var ideJarsNumber: Int = 0
+
+  private lateinit var workDirectory: Path
+
+  private lateinit var ide: Ide
+
+  private lateinit var idePlugin: IdePlugin
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    workDirectory = createBenchmarkDirectory("plugin-verification")
+    val idePath = workDirectory.resolve("ide")
+    SyntheticJars.writeIde(idePath, ideJarsNumber, 10, 20)
+    ide = IdeManager.createManager().createIde(idePath)
+
+    val referencedClasses = (0 until ideJarsNumber).flatMap { SyntheticJars.ideClassNames(it, 10, 20) }
+    val pluginJar = workDirectory.resolve("plugin.jar")
+    SyntheticJars.writePluginJar(pluginJar, SyntheticJars.generatePluginClasses(pluginClassesNumber, referencedClasses, 50))
+    idePlugin = (IdePluginManager.createManager().createPlugin(pluginJar) as PluginCreationSuccess).plugin
+  }
+
+  @TearDown(Level.Trial)
+  fun tearDown() {
+    workDirectory.forceRemoveDirectory()
+  }
+
+  @Benchmark
+  fun loadPluginAndVerify(): PluginVerificationResult {
+    val downloadDirectory = workDirectory.resolve("downloads")
+    val pluginFilesBank = PluginFilesBank.create(MarketplaceRepository(URL("https://unused.com")), downloadDirectory, DiskSpaceSetting(SpaceAmount.ZERO_SPACE))
+    val jdkPath = Paths.get(System.getProperty("java.home"))
+    return PluginArchiveManager(workDirectory.resolve("extracted")).use { archiveManager ->
+      val pluginDetailsCache = SizeLimitedPluginDetailsCache(10, pluginFilesBank, DefaultPluginDetailsProvider(archiveManager))
+      IdeDescriptor.create(ide.idePath, jdkPath, null).use { ideDescriptor ->
+        val classResolverProvider = DefaultClassResolverProvider(
+          BundledPluginDependencyFinder(ide),
+          ideDescriptor,
+          DefaultPackageFilter(emptyList()),
+          archiveManager = archiveManager
+        )
+        val verificationDescriptor = PluginVerificationDescriptor.IDE(ideDescriptor, classResolverProvider, LocalPluginInfo(idePlugin))
+        PluginVerifier(verificationDescriptor, emptyList(), pluginDetailsCache, emptyList(), false).loadPluginAndVerify()
+      }
+    }
+  }
+}
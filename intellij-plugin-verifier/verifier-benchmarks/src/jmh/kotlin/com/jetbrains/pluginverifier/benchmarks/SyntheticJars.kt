@@ -0,0 +1,291 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.benchmarks
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+/**
+ * Generates class files and jars used by the benchmarks.
+ *
+ * All the classes are generated with ASM, so the benchmarks do not depend
+ * on any IDE distribution or plugin downloaded from the network.
+ */
+object SyntheticJars {
+
+  const val IDE_VERSION = "IU-999.1"
+
+  const val PLUGIN_ID = "synthetic.benchmark.plugin"
+
+  private const val IDE_PACKAGE = "com/intellij/synthetic"
+
+  private const val PLUGIN_PACKAGE = "synthetic/plugin"
+
+  private const val METHODS_PER_CLASS = 8
+
+  /**
+   * Binary names of the IDE classes written to the [jarIndex]-th jar by [writeIdeJar].
+   */
+  fun ideClassNames(jarIndex: Int, packagesNumber: Int, classesPerPackage: Int): List<String> =
+    (0 until packagesNumber).flatMap { packageIndex ->
+      (0 until classesPerPackage).map { classIndex -> "$IDE_PACKAGE/jar$jarIndex/p$packageIndex/IdeClass$classIndex" }
+    }
+
+  fun writeIdeJar(jarPath: Path, jarIndex: Int, packagesNumber: Int, classesPerPackage: Int) {
+    val classes = ideClassNames(jarIndex, packagesNumber, classesPerPackage).associateWith { generateIdeClass(it) }
+    writeJar(jarPath, classes)
+  }
+
+  /**
+   * Generates a chain of classes `Level0 <- Level1 <- ... <- Level(depth - 1)`,
+   * where every level implements its own interface declaring a default method.
+   * Methods declared at the top of the chain are resolved by walking the whole hierarchy.
+   *
+   * Returns binary names of the classes mapped to their bytes, the deepest class comes last.
+   */
+  fun generateDeepHierarchy(packageName: String, depth: Int): Map<String, ByteArray> {
+    val classes = linkedMapOf<String, ByteArray>()
+    for (level in 0 until depth) {
+      val interfaceName = "$packageName/Level${level}Api"
+      classes[interfaceName] = generateInterface(interfaceName, "levelMethod$level")
+
+      val className = "$packageName/Level$level"
+      val superName = if (level == 0) "java/lang/Object" else "$packageName/Level${level - 1}"
+      classes[className] = generateClass(className, superName, listOf(interfaceName), methodsNumber = if (level == 0) METHODS_PER_CLASS else 0)
+    }
+    return classes
+  }
+
+  /**
+   * Generates plugin classes which reference [referencedClasses] with
+   * `new`, `invokespecial`, `invokevirtual`, `getstatic`, `checkcast` and `ldc` instructions.
+   * Every `missingReferenceRate`-th reference targets a class that does not exist,
+   * so that the verification produces compatibility problems.
+   */
+  fun generatePluginClasses(
+    classesNumber: Int,
+    referencedClasses: List<String>,
+    referencesPerMethod: Int,
+    missingReferenceRate: Int = 50
+  ): Map<String, ByteArray> {
+    var referenceIndex = 0
+    return (0 until classesNumber).associate { classIndex ->
+      val className = "$PLUGIN_PACKAGE/p${classIndex % 16}/PluginClass$classIndex"
+      val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+      writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null)
+      writer.visitDefaultConstructor("java/lang/Object")
+
+      val method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null)
+      method.visitCode()
+      repeat(referencesPerMethod) {
+        val index = referenceIndex++
+        val owner = if (missingReferenceRate > 0 && index % missingReferenceRate == 0) {
+          "$IDE_PACKAGE/missing/MissingClass$index"
+        } else {
+          referencedClasses[index % referencedClasses.size]
+        }
+        method.visitTypeInsn(Opcodes.NEW, owner)
+        method.visitInsn(Opcodes.DUP)
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>", "()V", false)
+        method.visitTypeInsn(Opcodes.CHECKCAST, owner)
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, "method${index % METHODS_PER_CLASS}", "()I", false)
+        method.visitInsn(Opcodes.POP)
+        method.visitFieldInsn(Opcodes.GETSTATIC, owner, "FIELD", "I")
+        method.visitInsn(Opcodes.POP)
+        method.visitLdcInsn(Type.getObjectType(owner))
+        method.visitInsn(Opcodes.POP)
+      }
+      method.visitInsn(Opcodes.RETURN)
+      method.visitMaxs(0, 0)
+      method.visitEnd()
+
+      writer.visitEnd()
+      className to writer.toByteArray()
+    }
+  }
+
+  fun writePluginJar(jarPath: Path, classes: Map<String, ByteArray>) {
+    val pluginXml = """
+      <idea-plugin>
+        <id>$PLUGIN_ID</id>
+        <name>Synthetic Benchmark Plugin</name>
+        <version>1.0</version>
+        <vendor email="vendor@example.com" url="https://example.com">Vendor</vendor>
+        <description>Synthetic plugin generated for benchmarking of the plugin verification</description>
+        <idea-version since-build="999"/>
+        <depends>com.intellij.modules.platform</depends>
+      </idea-plugin>
+    """.trimIndent()
+    writeJar(jarPath, classes, mapOf("META-INF/plugin.xml" to pluginXml.toByteArray()))
+  }
+
+  /**
+   * Creates a directory similar to an IDE distribution without `product-info.json`:
+   * `build.txt`, `lib/core.jar` with the platform plugin descriptor and [jarsNumber] jars with IDE classes.
+   */
+  fun writeIde(ideRoot: Path, jarsNumber: Int, packagesPerJar: Int, classesPerPackage: Int) {
+    val lib = Files.createDirectories(ideRoot.resolve("lib"))
+    Files.write(ideRoot.resolve("build.txt"), IDE_VERSION.toByteArray())
+    val corePluginXml = """
+      <idea-plugin>
+        <id>com.intellij</id>
+        <name>IDEA CORE</name>
+        <version>1.0</version>
+        <module value="com.intellij.modules.platform"/>
+      </idea-plugin>
+    """.trimIndent()
+    writeJar(lib.resolve("core.jar"), emptyMap(), mapOf("META-INF/plugin.xml" to corePluginXml.toByteArray()))
+    for (jarIndex in 0 until jarsNumber) {
+      writeIdeJar(lib.resolve("ide-$jarIndex.jar"), jarIndex, packagesPerJar, classesPerPackage)
+    }
+  }
+
+  /**
+   * Creates a directory similar to an IDE distribution with `product-info.json` whose layout declares
+   * [modulesNumber] product modules and [pluginsNumber] bundled plugins, each with a jar of [classesPerJar] classes.
+   * Module descriptors are written to `modules/module-descriptors.jar`, the core plugin descriptor to `lib/product.jar`.
+   */
+  fun writeProductInfoIde(ideRoot: Path, modulesNumber: Int, pluginsNumber: Int, classesPerJar: Int) {
+    Files.createDirectories(ideRoot)
+    Files.write(ideRoot.resolve("build.txt"), IDE_VERSION.toByteArray())
+    val corePluginXml = """
+      <idea-plugin>
+        <id>com.intellij</id>
+        <name>IDEA CORE</name>
+        <version>1.0</version>
+        <module value="com.intellij.modules.platform"/>
+      </idea-plugin>
+    """.trimIndent()
+    writeJar(ideRoot.resolve("lib/product.jar"), emptyMap(), mapOf("META-INF/plugin.xml" to corePluginXml.toByteArray()))
+
+    val layout = mutableListOf<String>()
+    val moduleDescriptors = linkedMapOf<String, ByteArray>()
+    for (moduleIndex in 0 until modulesNumber) {
+      val moduleName = "intellij.synthetic.module$moduleIndex"
+      val moduleJar = "lib/modules/$moduleName.jar"
+      val moduleXml = """<idea-plugin package="com.intellij.synthetic.module$moduleIndex"/>"""
+      writeJar(ideRoot.resolve(moduleJar), generateComponentClasses(moduleName, classesPerJar), mapOf("$moduleName.xml" to moduleXml.toByteArray()))
+      moduleDescriptors["$moduleName.xml"] = """
+        <module name="$moduleName">
+          <resources>
+            <resource-root path="../$moduleJar"/>
+          </resources>
+        </module>
+      """.trimIndent().toByteArray()
+      layout += layoutComponentJson(moduleName, "productModuleV2", moduleJar)
+    }
+    writeJar(ideRoot.resolve("modules/module-descriptors.jar"), emptyMap(), moduleDescriptors)
+
+    for (pluginIndex in 0 until pluginsNumber) {
+      val pluginId = "synthetic.bundled.plugin$pluginIndex"
+      val pluginJar = "plugins/plugin$pluginIndex/lib/plugin$pluginIndex.jar"
+      val pluginXml = """
+        <idea-plugin>
+          <id>$pluginId</id>
+          <name>Synthetic Bundled Plugin $pluginIndex</name>
+          <version>1.0</version>
+          <vendor>JetBrains</vendor>
+          <depends>com.intellij.modules.platform</depends>
+        </idea-plugin>
+      """.trimIndent()
+      writeJar(ideRoot.resolve(pluginJar), generateComponentClasses(pluginId, classesPerJar), mapOf("META-INF/plugin.xml" to pluginXml.toByteArray()))
+      layout += layoutComponentJson(pluginId, "plugin", pluginJar)
+    }
+
+    val productInfoJson = """
+      {
+        "name": "IntelliJ IDEA",
+        "version": "2099.1",
+        "buildNumber": "${IDE_VERSION.substringAfter('-')}",
+        "productCode": "${IDE_VERSION.substringBefore('-')}",
+        "dataDirectoryName": "IntelliJIdea2099.1",
+        "svgIconPath": "bin/idea.svg",
+        "productVendor": "JetBrains",
+        "launch": [],
+        "bundledPlugins": [],
+        "modules": [],
+        "fileExtensions": [],
+        "layout": [
+          ${layout.joinToString(",\n")}
+        ]
+      }
+    """.trimIndent()
+    Files.write(ideRoot.resolve("product-info.json"), productInfoJson.toByteArray())
+  }
+
+  private fun layoutComponentJson(name: String, kind: String, jarPath: String): String =
+    """{ "name": "$name", "kind": "$kind", "classPath": [ "$jarPath" ] }"""
+
+  private fun generateComponentClasses(componentName: String, classesNumber: Int): Map<String, ByteArray> {
+    val packageName = "synthetic/" + componentName.replace('.', '_')
+    return (0 until classesNumber).associate { classIndex ->
+      val className = "$packageName/ComponentClass$classIndex"
+      className to generateIdeClass(className)
+    }
+  }
+
+  fun writeJar(jarPath: Path, classes: Map<String, ByteArray>, resources: Map<String, ByteArray> = emptyMap()) {
+    Files.createDirectories(jarPath.parent)
+    JarOutputStream(Files.newOutputStream(jarPath)).use { jar ->
+      for ((name, bytes) in resources) {
+        jar.putNextEntry(JarEntry(name))
+        jar.write(bytes)
+        jar.closeEntry()
+      }
+      for ((className, bytes) in classes) {
+        jar.putNextEntry(JarEntry("$className.class"))
+        jar.write(bytes)
+        jar.closeEntry()
+      }
+    }
+  }
+
+  private fun generateIdeClass(className: String): ByteArray =
+    generateClass(className, "java/lang/Object", emptyList(), METHODS_PER_CLASS)
+
+  private fun generateClass(className: String, superName: String, interfaces: List<String>, methodsNumber: Int): ByteArray {
+    val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+    writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, className, null, superName, interfaces.toTypedArray())
+    writer.visitField(Opcodes.ACC_PUBLIC or Opcodes.ACC_STATIC, "FIELD", "I", null, null).visitEnd()
+    writer.visitDefaultConstructor(superName)
+    for (methodIndex in 0 until methodsNumber) {
+      val method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method$methodIndex", "()I", null, null)
+      method.visitCode()
+      method.visitLdcInsn(methodIndex)
+      method.visitInsn(Opcodes.IRETURN)
+      method.visitMaxs(0, 0)
+      method.visitEnd()
+    }
+    writer.visitEnd()
+    return writer.toByteArray()
+  }
+
+  private fun generateInterface(interfaceName: String, defaultMethodName: String): ByteArray {
+    val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+    writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC or Opcodes.ACC_INTERFACE or Opcodes.ACC_ABSTRACT, interfaceName, null, "java/lang/Object", null)
+    val method = writer.visitMethod(Opcodes.ACC_PUBLIC, defaultMethodName, "()V", null, null)
+    method.visitCode()
+    method.visitInsn(Opcodes.RETURN)
+    method.visitMaxs(0, 0)
+    method.visitEnd()
+    writer.visitEnd()
+    return writer.toByteArray()
+  }
+
+  private fun ClassWriter.visitDefaultConstructor(superName: String) {
+    val constructor = visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null)
+    constructor.visitCode()
+    constructor.visitVarInsn(Opcodes.ALOAD, 0)
+    constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false)
+    constructor.visitInsn(Opcodes.RETURN)
+    constructor.visitMaxs(0, 0)
+    constructor.visitEnd()
+  }
+}
@@ -135,7 +135,19 @@ object OptionsParser {
       }
     }
     val missingLayoutClasspathFileMode = createMissingLayoutClasspathFile(opts)
-    return IdeDescriptor.create(idePath, defaultJdkPath, null, missingLayoutClasspathFileMode)
+    val ideCacheDirectory = System.getProperty("intellij.plugin.verifier.ide.cache.dir")?.let { Paths.get(it) }
+      ?: return IdeDescriptor.create(idePath, defaultJdkPath, null, missingLayoutClasspathFileMode)
+    // Distinguishes IDE directories of the same name located in different places.
+    val cacheFileName = idePath.fileName.toString() + "-" + Integer.toHexString(idePath.toAbsolutePath().normalize().toString().hashCode())
+    LOG.info("Using class index and snapshot of the IDE from $ideCacheDirectory")
+    return IdeDescriptor.create(
+      idePath,
+      defaultJdkPath,
+      null,
+      missingLayoutClasspathFileMode,
+      ideCacheDirectory.resolve("$cacheFileName.class-index"),
+      ideCacheDirectory.resolve("$cacheFileName.ide-snapshot")
+    )
   }
 
   fun createPluginParsingConfiguration(opts: CmdOpts): PluginParsingConfiguration = with(opts) {
@@ -16,4 +16,43 @@ fun getConcurrencyLevel(): Int {
   //About 200 Mb is needed for an average verification
   val maxByMemory = availableMemory / 1024 / 1024 / 200
   return maxOf(8, minOf(maxByMemory, availableCpu)).toInt()
-}
\ No newline at end of file
+}
+
+/**
+ * Number of worker threads used to verify classes of a single plugin.
+ *
+ * `1` (the default) verifies classes sequentially in the calling thread.
+ */
+fun getClassVerificationParallelism(): Int {
+  val fromProperty = System.getProperty("intellij.plugin.verifier.class.verification.parallelism")?.toIntOrNull()
+    ?: return 1
+  check(fromProperty > 0) { "Invalid class verification parallelism: $fromProperty" }
+  return fromProperty
+}
+
+/**
+ * Heap budget in bytes of classes cached for all verifications against the same IDE.
+ *
+ * By default, it is an eighth of the maximum heap size, but no more than 512 Mb.
+ * `0` disables the cache.
+ */
+fun getSharedClassCacheSize(): Long {
+  val fromProperty = System.getProperty("intellij.plugin.verifier.shared.class.cache.size.mb")?.toLongOrNull()
+  if (fromProperty != null) {
+    check(fromProperty >= 0) { "Invalid shared class cache size: $fromProperty" }
+    return fromProperty * 1024 * 1024
+  }
+  return minOf(Runtime.getRuntime().maxMemory() / 8, 512L * 1024 * 1024)
+}
+
+/**
+ * Number of plugins downloaded and extracted ahead of their verification when several plugins are verified.
+ *
+ * By default, it is equal to the [concurrency level][getConcurrencyLevel]. `0` disables downloading ahead.
+ */
+fun getDownloadAheadCount(): Int {
+  val fromProperty = System.getProperty("intellij.plugin.verifier.download.ahead")?.toIntOrNull()
+    ?: return getConcurrencyLevel()
+  check(fromProperty >= 0) { "Invalid download ahead count: $fromProperty" }
+  return fromProperty
+}
@@ -30,13 +30,20 @@ import com.jetbrains.pluginverifier.verifiers.method.OverrideNonFinalVerifier
 import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
 import com.jetbrains.pluginverifier.verifiers.resolution.ClassFileAsm
 import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassOrNull
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
 class BytecodeVerifier(
   private val verificationFilters: List<ClassFilter> = emptyList(),
   additionalClassVerifiers: List<ClassVerifier> = emptyList(),
   additionalMethodVerifiers: List<MethodVerifier> = emptyList(),
   additionalFieldVerifiers: List<FieldVerifier> = emptyList(),
-  additionalInstructionVerifiers: List<InstructionVerifier> = emptyList()
+  additionalInstructionVerifiers: List<InstructionVerifier> = emptyList(),
+  private val classVerificationListener: ClassVerificationListener? = null
 ) {
 
   private val fieldVerifiers = listOf<FieldVerifier>(FieldTypeVerifier()) + additionalFieldVerifiers
@@ -64,6 +71,19 @@ class BytecodeVerifier(
     MultiANewArrayInstructionVerifier()
   ) + additionalInstructionVerifiers
 
+  /**
+   * Instruction verifiers indexed by opcode, see [InstructionVerifier.interestedOpcodes].
+   * Every slot keeps the registration order of [instructionVerifiers].
+   */
+  private val instructionVerifiersByOpcode: Array<List<InstructionVerifier>> = Array(OPCODES_NUMBER) { opcode ->
+    instructionVerifiers.filter { it.interestedOpcodes?.contains(opcode) ?: true }
+  }
+
+  /**
+   * Instruction verifiers invoked for pseudo-instructions: labels, line numbers and frames.
+   */
+  private val pseudoInstructionVerifiers: List<InstructionVerifier> = instructionVerifiers.filter { it.interestedOpcodes == null }
+
   @Throws(InterruptedException::class)
   @Deprecated(
     "Use verifyClasses(Set<BinaryClassName>, VerificationContext, (Double) -> Unit) instead",
@@ -97,11 +117,88 @@ class BytecodeVerifier(
     }
   }
 
+  /**
+   * Verifies [classesToCheck] on the worker threads of the [pool].
+   *
+   * Classes are split into chunks of at most [chunkSize] elements, and every chunk
+   * is verified by the same class, method, instruction and field verifiers as in the sequential
+   * [verifyClasses]. The [ProblemRegistrar], the [com.jetbrains.pluginverifier.warnings.WarningRegistrar]
+   * and the API usage processors of the [context] are invoked concurrently, so they must be thread-safe.
+   *
+   * The [progressIndicator] may be invoked from any worker thread.
+   */
+  @Throws(InterruptedException::class)
+  fun verifyClasses(
+    classesToCheck: Set<BinaryClassName>,
+    context: VerificationContext,
+    pool: ForkJoinPool,
+    chunkSize: Int = DEFAULT_CHUNK_SIZE,
+    progressIndicator: (Double) -> Unit
+  ) {
+    require(chunkSize > 0) { "Invalid chunk size: $chunkSize" }
+    if (classesToCheck.isEmpty()) return
+    val classes = classesToCheck.toList()
+    val verifiedClasses = AtomicInteger()
+    val cancelled = AtomicBoolean()
+
+    val verification = ClassesVerificationAction(classes, 0, classes.size, chunkSize, cancelled) { className ->
+      verifyClass(className, context)
+      progressIndicator(verifiedClasses.incrementAndGet().toDouble() / classes.size)
+    }
+    val future = pool.submit(verification)
+    try {
+      future.get()
+    } catch (e: InterruptedException) {
+      cancelled.set(true)
+      future.cancel(true)
+      throw e
+    } catch (e: CancellationException) {
+      throw InterruptedException("Class verification has been cancelled")
+    } catch (e: ExecutionException) {
+      val cause = e.cause ?: e
+      if (cause is InterruptedException) {
+        throw InterruptedException("Class verification has been interrupted")
+      }
+      throw cause
+    }
+  }
+
+  private class ClassesVerificationAction(
+    private val classes: List<BinaryClassName>,
+    private val fromIndex: Int,
+    private val toIndex: Int,
+    private val chunkSize: Int,
+    private val cancelled: AtomicBoolean,
+    private val verifier: (BinaryClassName) -> Unit
+  ) : RecursiveAction() {
+    override fun compute() {
+      if (toIndex - fromIndex <= chunkSize) {
+        for (index in fromIndex until toIndex) {
+          if (cancelled.get()) {
+            throw InterruptedException()
+          }
+          verifier(classes[index])
+        }
+      } else {
+        val middle = (fromIndex + toIndex) ushr 1
+        invokeAll(
+          ClassesVerificationAction(classes, fromIndex, middle, chunkSize, cancelled, verifier),
+          ClassesVerificationAction(classes, middle, toIndex, chunkSize, cancelled, verifier)
+        )
+      }
+    }
+  }
+
   private fun verifyClass(className: BinaryClassName, context: VerificationContext) {
-    context.resolveClass(className)?.let {
-      if (shouldVerify(it)) {
-        verifyClassFile(it, context)
+    classVerificationListener?.classVerificationStarted(className)
+    try {
+      context.resolveClass(className)?.let {
+        if (shouldVerify(it)) {
+          verifyClassFile(it, context)
+        }
       }
+    } finally {
+      classVerificationListener?.classVerificationFinished(className)
     }
   }
 
@@ -125,7 +222,9 @@ class BytecodeVerifier(
       }
 
       method.instructions.forEach { instruction ->
-        for (verifier in instructionVerifiers) {
+        val opcode = instruction.opcode
+        val verifiers = if (opcode >= 0) instructionVerifiersByOpcode[opcode] else pseudoInstructionVerifiers
+        for (verifier in verifiers) {
           verifier.verify(method, instruction, context)
         }
       }
@@ -143,4 +242,10 @@ class BytecodeVerifier(
       ClassFileAsm(it.value, it.fileOrigin)
     }
   }
+
+  private companion object {
+    const val DEFAULT_CHUNK_SIZE = 64
+
+    const val OPCODES_NUMBER = 256
+  }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.verifiers
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+
+/**
+ * Listener of verification of individual classes by [BytecodeVerifier].
+ *
+ * Both callbacks for a class are invoked on the thread verifying the class,
+ * so everything reported between them on that thread originates from the class.
+ * Classes are verified concurrently by the parallel [BytecodeVerifier.verifyClasses].
+ */
+interface ClassVerificationListener {
+  fun classVerificationStarted(className: BinaryClassName)
+
+  /**
+   * Invoked after the class is verified, also if the class is not found or is skipped by class filters.
+   */
+  fun classVerificationFinished(className: BinaryClassName)
+}
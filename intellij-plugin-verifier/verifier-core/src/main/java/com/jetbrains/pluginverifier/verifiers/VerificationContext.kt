@@ -6,7 +6,9 @@ package com.jetbrains.pluginverifier.verifiers
 
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver
 import com.jetbrains.pluginverifier.usages.ApiUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyIndex
 import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo
 import com.jetbrains.pluginverifier.warnings.WarningRegistrar
 
 interface VerificationContext {
@@ -19,4 +21,18 @@ interface VerificationContext {
   val warningRegistrar: WarningRegistrar
 
   val apiUsageProcessors: List<ApiUsageProcessor>
+
+  /**
+   * Memo of method and field lookups shared by all classes of this verification,
+   * or `null` if every lookup is performed from scratch.
+   */
+  val memberResolutionMemo: MemberResolutionMemo?
+    get() = null
+
+  /**
+   * Index of class hierarchies shared by all classes of this verification,
+   * or `null` if hierarchies are walked from scratch.
+   */
+  val classHierarchyIndex: ClassHierarchyIndex?
+    get() = null
 }
\ No newline at end of file
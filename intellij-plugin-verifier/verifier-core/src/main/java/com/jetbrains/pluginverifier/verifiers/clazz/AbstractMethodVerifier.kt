@@ -8,8 +8,8 @@ import com.jetbrains.pluginverifier.results.location.MethodLocation
 import com.jetbrains.pluginverifier.results.problems.MethodNotImplementedProblem
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassParentsVisitor
+import com.jetbrains.pluginverifier.verifiers.hierarchy.resolveParentChecked
 import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
-import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
 
 class AbstractMethodVerifier : ClassVerifier {
   override fun verify(classFile: ClassFile, context: VerificationContext) {
@@ -20,7 +20,7 @@ class AbstractMethodVerifier : ClassVerifier {
     var hasUnresolvedParents = false
 
     val parentsVisitor = ClassParentsVisitor(true) { subclassFile, superName ->
-      val parentFile = context.classResolver.resolveClassChecked(superName, subclassFile, context)
+      val parentFile = context.resolveParentChecked(subclassFile, superName)
       hasUnresolvedParents = hasUnresolvedParents || parentFile == null
       parentFile
     }
@@ -7,15 +7,19 @@ package com.jetbrains.pluginverifier.verifiers.hierarchy
 import com.jetbrains.pluginverifier.results.hierarchy.ClassHierarchy
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
-import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
 
 class ClassHierarchyBuilder(private val context: VerificationContext) {
 
   fun buildClassHierarchy(classFile: ClassFile): ClassHierarchy {
+    val classHierarchyIndex = context.classHierarchyIndex ?: return buildClassHierarchy(classFile, context)
+    return classHierarchyIndex.getClassHierarchy(classFile, context) { buildClassHierarchy(classFile, it) }
+  }
+
+  private fun buildClassHierarchy(classFile: ClassFile, context: VerificationContext): ClassHierarchy {
     val className2Hierarchy = hashMapOf<String, ClassHierarchy>()
 
     val parentsVisitor = ClassParentsVisitor(true) { subclassFile, superName ->
-      context.classResolver.resolveClassChecked(superName, subclassFile, context)
+      context.resolveParentChecked(subclassFile, superName)
     }
     parentsVisitor.visitClass(
       classFile,
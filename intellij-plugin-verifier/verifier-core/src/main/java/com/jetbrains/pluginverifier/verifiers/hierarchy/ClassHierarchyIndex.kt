@@ -0,0 +1,186 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.verifiers.hierarchy
+
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.results.hierarchy.ClassHierarchy
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.isSubclassOf
+import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFileAsm
+import com.jetbrains.pluginverifier.verifiers.resolution.RecordedLookup
+import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
+import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassOrNull
+import org.objectweb.asm.tree.ClassNode
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Index of class hierarchies shared by all classes of a verification.
+ *
+ * The index is populated lazily, as hierarchies are walked:
+ * - resolved direct parents of classes, along with problems reported by their resolution.
+ * The problems are reported again every time a parent is resolved through the index,
+ * so unresolved parents are reported exactly as without the index.
+ * - [ClassHierarchy] of classes used to describe problems.
+ * - [Supertypes] of classes used for subclass checks.
+ *
+ * Like [com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo], the index is bound
+ * to the class resolver and the external classes package filter it is created for.
+ * Contexts with another resolver or filter, as well as classes not read by a resolver, bypass the index.
+ */
+class ClassHierarchyIndex(
+  private val classResolver: Resolver,
+  private val externalClassesPackageFilter: PackageFilter
+) {
+
+  private val parents = ConcurrentHashMap<ParentKey, RecordedLookup<ClassFile?>>()
+
+  private val hierarchies = ConcurrentHashMap<ClassKey, RecordedLookup<ClassHierarchy>>()
+
+  private val supertypes = ConcurrentHashMap<ClassKey, Supertypes>()
+
+  /**
+   * Resolves [parentName], a direct superclass or superinterface of [subclassFile],
+   * reporting problems of the resolution to the [context] as [resolveClassChecked] does.
+   */
+  fun resolveParentChecked(subclassFile: ClassFile, parentName: String, context: VerificationContext): ClassFile? {
+    if (subclassFile !is ClassFileAsm || !isBoundTo(context)) {
+      return context.classResolver.resolveClassChecked(parentName, subclassFile, context)
+    }
+    val key = ParentKey(subclassFile.asmNode, subclassFile.classFileOrigin, parentName)
+    val lookup = parents[key] ?: RecordedLookup.record(context) { lookupContext ->
+      lookupContext.classResolver.resolveClassChecked(parentName, subclassFile, lookupContext)
+    }.let { recorded -> parents.putIfAbsent(key, recorded) ?: recorded }
+    return lookup.replay(context)
+  }
+
+  internal fun getClassHierarchy(
+    classFile: ClassFile,
+    context: VerificationContext,
+    build: (VerificationContext) -> ClassHierarchy
+  ): ClassHierarchy {
+    if (classFile !is ClassFileAsm || !isBoundTo(context)) {
+      return build(context)
+    }
+    val key = ClassKey(classFile.asmNode, classFile.classFileOrigin)
+    val lookup = hierarchies[key] ?: RecordedLookup.record(context, build)
+      .let { recorded -> hierarchies.putIfAbsent(key, recorded) ?: recorded }
+    return lookup.replay(context)
+  }
+
+  /**
+   * Returns supertypes of the [classFile] resolvable by the class resolver, without reporting any problems.
+   */
+  fun getSupertypes(classFile: ClassFile): Supertypes {
+    if (classFile !is ClassFileAsm) {
+      return computeSupertypes(classFile)
+    }
+    val key = ClassKey(classFile.asmNode, classFile.classFileOrigin)
+    return supertypes[key] ?: computeSupertypes(classFile).let { supertypes.putIfAbsent(key, it) ?: it }
+  }
+
+  /**
+   * Same as [Resolver.isSubclassOf] of the context's class resolver.
+   */
+  fun isSubclassOf(child: ClassFile, parentName: String, context: VerificationContext): Boolean {
+    if (!isBoundTo(context)) {
+      return context.classResolver.isSubclassOf(child, parentName)
+    }
+    if (parentName == "java/lang/Object") {
+      return true
+    }
+    return getSupertypes(child).isSubtypeOf(parentName)
+  }
+
+  private fun isBoundTo(context: VerificationContext): Boolean =
+    context.classResolver === classResolver && context.externalClassesPackageFilter === externalClassesPackageFilter
+
+  /**
+   * Visits the hierarchy in the same order as [Resolver.isSubclassOf].
+   */
+  private fun computeSupertypes(classFile: ClassFile): Supertypes {
+    val queue = LinkedList<ClassFile>()
+    val visited = linkedSetOf<String>()
+    val allInterfaces = linkedSetOf<String>()
+
+    queue.add(classFile)
+    visited.add(classFile.name)
+    while (queue.isNotEmpty()) {
+      val node = queue.poll()
+      val directParents = listOfNotNull(node.superName) + node.interfaces
+      for (parentName in directParents) {
+        val parent = classResolver.resolveClassOrNull(parentName) ?: continue
+        if (visited.add(parent.name)) {
+          if (parent.isInterface) {
+            allInterfaces += parent.name
+          }
+          queue.addLast(parent)
+        }
+      }
+    }
+
+    val superClasses = arrayListOf<String>()
+    val superClassesSet = hashSetOf(classFile.name)
+    var superName = classFile.superName
+    while (superName != null && superClassesSet.add(superName)) {
+      val superClass = classResolver.resolveClassOrNull(superName) ?: break
+      superClasses += superClass.name
+      superName = superClass.superName
+    }
+    return Supertypes(superClasses, allInterfaces, visited)
+  }
+
+  /**
+   * Resolved supertypes of a class.
+   *
+   * - [superClasses] - superclasses starting from the direct one, until the first unresolved superclass.
+   * - [allInterfaces] - all direct and indirect superinterfaces.
+   * - [depth] - number of resolved superclasses.
+   */
+  class Supertypes(
+    val superClasses: List<String>,
+    val allInterfaces: Set<String>,
+    private val classAndAllSupertypes: Set<String>
+  ) {
+    val depth: Int
+      get() = superClasses.size
+
+    fun isSubtypeOf(typeName: String): Boolean = typeName in classAndAllSupertypes
+  }
+
+  /**
+   * Classes are compared by identity of their nodes: different resolvers may provide different classes with the same name.
+   */
+  private open class ClassKey(private val node: ClassNode, private val origin: FileOrigin) {
+    override fun equals(other: Any?) = other is ClassKey && other.javaClass == javaClass && node === other.node && origin === other.origin
+
+    override fun hashCode() = System.identityHashCode(node)
+  }
+
+  private class ParentKey(node: ClassNode, origin: FileOrigin, private val parentName: String) : ClassKey(node, origin) {
+    override fun equals(other: Any?) = super.equals(other) && other is ParentKey && parentName == other.parentName
+
+    override fun hashCode() = 31 * super.hashCode() + parentName.hashCode()
+  }
+}
+
+/**
+ * Resolves [parentName], a direct superclass or superinterface of [subclassFile],
+ * through the [VerificationContext.classHierarchyIndex] if the context has one.
+ */
+fun VerificationContext.resolveParentChecked(subclassFile: ClassFile, parentName: String): ClassFile? {
+  val index = classHierarchyIndex ?: return classResolver.resolveClassChecked(parentName, subclassFile, this)
+  return index.resolveParentChecked(subclassFile, parentName, this)
+}
+
+/**
+ * Same as [Resolver.isSubclassOf] of the [VerificationContext.classResolver],
+ * but uses the [VerificationContext.classHierarchyIndex] if the context has one.
+ */
+fun VerificationContext.isSubclassOf(child: ClassFile, parentName: String): Boolean =
+  classHierarchyIndex?.isSubclassOf(child, parentName, this) ?: classResolver.isSubclassOf(child, parentName)
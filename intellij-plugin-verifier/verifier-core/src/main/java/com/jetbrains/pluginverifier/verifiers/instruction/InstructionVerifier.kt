@@ -9,5 +9,15 @@ import com.jetbrains.pluginverifier.verifiers.resolution.Method
 import org.objectweb.asm.tree.AbstractInsnNode
 
 interface InstructionVerifier {
+  /**
+   * Opcodes of the instructions this verifier is interested in.
+   *
+   * [verify] is invoked only for instructions with these opcodes.
+   * `null` means that the verifier must be invoked for every node of a method,
+   * including pseudo-instructions such as labels, line numbers and frames.
+   */
+  val interestedOpcodes: Set<Int>?
+    get() = null
+
   fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext)
 }
\ No newline at end of file
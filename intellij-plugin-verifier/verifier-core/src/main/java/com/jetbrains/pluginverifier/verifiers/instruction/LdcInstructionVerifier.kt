@@ -8,11 +8,15 @@ import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.extractClassNameFromDescriptor
 import com.jetbrains.pluginverifier.verifiers.resolution.Method
 import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
+import org.objectweb.asm.Opcodes
 import org.objectweb.asm.Type
 import org.objectweb.asm.tree.AbstractInsnNode
 import org.objectweb.asm.tree.LdcInsnNode
 
 class LdcInstructionVerifier : InstructionVerifier {
+  override val interestedOpcodes: Set<Int>
+    get() = INTERESTED_OPCODES
+
   override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
     if (instructionNode !is LdcInsnNode) return
 
@@ -31,4 +35,8 @@ class LdcInstructionVerifier : InstructionVerifier {
     val className = type.descriptor.extractClassNameFromDescriptor() ?: return
     context.classResolver.resolveClassChecked(className, method, context)
   }
+
+  private companion object {
+    val INTERESTED_OPCODES = setOf(Opcodes.LDC)
+  }
 }
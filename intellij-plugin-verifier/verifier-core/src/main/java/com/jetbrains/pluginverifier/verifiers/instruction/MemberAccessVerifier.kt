@@ -19,6 +19,9 @@ import org.objectweb.asm.tree.InvokeDynamicInsnNode
 import org.objectweb.asm.tree.MethodInsnNode
 
 class MemberAccessVerifier : InstructionVerifier {
+  override val interestedOpcodes: Set<Int>
+    get() = INTERESTED_OPCODES
+
   override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
     if (instructionNode is MethodInsnNode) {
       val instruction = when (instructionNode.opcode) {
@@ -106,4 +109,11 @@ class MemberAccessVerifier : InstructionVerifier {
     }
   }
 
+  private companion object {
+    val INTERESTED_OPCODES = setOf(
+      Opcodes.INVOKEVIRTUAL, Opcodes.INVOKESPECIAL, Opcodes.INVOKEINTERFACE, Opcodes.INVOKESTATIC,
+      Opcodes.PUTFIELD, Opcodes.GETFIELD, Opcodes.PUTSTATIC, Opcodes.GETSTATIC,
+      Opcodes.INVOKEDYNAMIC
+    )
+  }
 }
\ No newline at end of file
@@ -8,10 +8,14 @@ import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.extractClassNameFromDescriptor
 import com.jetbrains.pluginverifier.verifiers.resolution.Method
 import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
+import org.objectweb.asm.Opcodes
 import org.objectweb.asm.tree.AbstractInsnNode
 import org.objectweb.asm.tree.MultiANewArrayInsnNode
 
 class MultiANewArrayInstructionVerifier : InstructionVerifier {
+  override val interestedOpcodes: Set<Int>
+    get() = INTERESTED_OPCODES
+
   override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
     if (instructionNode !is MultiANewArrayInsnNode) return
 
@@ -21,4 +25,8 @@ class MultiANewArrayInstructionVerifier : InstructionVerifier {
     // any of the exceptions documented in §5.4.3.1 can be thrown.
     context.classResolver.resolveClassChecked(className, method, context)
   }
+
+  private companion object {
+    val INTERESTED_OPCODES = setOf(Opcodes.MULTIANEWARRAY)
+  }
 }
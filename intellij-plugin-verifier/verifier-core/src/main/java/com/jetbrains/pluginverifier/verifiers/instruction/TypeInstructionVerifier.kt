@@ -18,6 +18,9 @@ import org.objectweb.asm.tree.TypeInsnNode
  * Processing of `new`, `anewarray`, `checkcast`, `instanceof` instructions.
  */
 class TypeInstructionVerifier : InstructionVerifier {
+  override val interestedOpcodes: Set<Int>
+    get() = INTERESTED_OPCODES
+
   override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
     if (instructionNode !is TypeInsnNode) return
 
@@ -35,4 +38,7 @@ class TypeInstructionVerifier : InstructionVerifier {
 
   }
 
+  private companion object {
+    val INTERESTED_OPCODES = setOf(Opcodes.NEW, Opcodes.ANEWARRAY, Opcodes.CHECKCAST, Opcodes.INSTANCEOF)
+  }
 }
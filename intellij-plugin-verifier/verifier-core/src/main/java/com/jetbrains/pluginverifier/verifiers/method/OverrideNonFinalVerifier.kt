@@ -7,8 +7,8 @@ package com.jetbrains.pluginverifier.verifiers.method
 import com.jetbrains.pluginverifier.results.problems.OverridingFinalMethodProblem
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassParentsVisitor
+import com.jetbrains.pluginverifier.verifiers.hierarchy.resolveParentChecked
 import com.jetbrains.pluginverifier.verifiers.resolution.Method
-import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassChecked
 
 class OverrideNonFinalVerifier : MethodVerifier {
 
@@ -29,7 +29,7 @@ class OverrideNonFinalVerifier : MethodVerifier {
      * Java interfaces are not allowed to have final methods so it works.
      */
     val parentsVisitor = ClassParentsVisitor(false) { subclassFile, superName ->
-      context.classResolver.resolveClassChecked(superName, subclassFile, context)
+      context.resolveParentChecked(subclassFile, superName)
     }
     parentsVisitor.visitClass(method.containingClassFile, false, onEnter = { parent ->
       val sameMethod = parent.methods.find { it.name == method.name && it.descriptor == method.descriptor }
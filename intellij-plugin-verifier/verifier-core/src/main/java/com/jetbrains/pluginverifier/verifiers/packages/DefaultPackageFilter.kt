@@ -45,6 +45,8 @@ class DefaultPackageFilter(private val packages: List<Descriptor>) : PackageFilt
   private fun Descriptor.matchesPackageOf(binaryClassName: String) =
     binaryClassName.startsWith("$binaryPackageName/")
 
+  override fun toString() = packages.joinToString { (if (it.includeOrExclude) "+" else "-") + it.binaryPackageName }
+
   /**
    * Descriptor of a package, used by the [DefaultPackageFilter].
    *
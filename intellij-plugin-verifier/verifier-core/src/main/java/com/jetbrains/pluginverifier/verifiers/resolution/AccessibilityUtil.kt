@@ -6,7 +6,7 @@ package com.jetbrains.pluginverifier.verifiers.resolution
 
 import com.jetbrains.pluginverifier.results.access.AccessType
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
-import com.jetbrains.pluginverifier.verifiers.isSubclassOf
+import com.jetbrains.pluginverifier.verifiers.hierarchy.isSubclassOf
 
 fun isClassAccessibleToOtherClass(me: ClassFile, other: ClassFile): Boolean =
   me.isPublic
@@ -40,7 +40,7 @@ fun detectAccessProblem(callee: ClassFileMember, caller: ClassFileMember, contex
     }
     callee.isProtected ->
       if (caller.containingClassFile.packageName != callee.containingClassFile.packageName) {
-        if (!context.classResolver.isSubclassOf(caller.containingClassFile, callee.containingClassFile.name)) {
+        if (!context.isSubclassOf(caller.containingClassFile, callee.containingClassFile.name)) {
           return AccessType.PROTECTED
         }
       }
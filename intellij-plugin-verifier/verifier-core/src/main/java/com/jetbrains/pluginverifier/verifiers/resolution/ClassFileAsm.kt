@@ -13,7 +13,7 @@ import org.objectweb.asm.tree.ClassNode
 import org.objectweb.asm.tree.InnerClassNode
 
 class ClassFileAsm(val asmNode: ClassNode, override val classFileOrigin: FileOrigin) : ClassFile {
-  override val location: ClassLocation by lazy(LazyThreadSafetyMode.NONE) {
+  override val location: ClassLocation by lazy(LazyThreadSafetyMode.PUBLICATION) {
     ClassLocation(
       name,
       signature?.takeIf { it.isNotEmpty() },
@@ -34,7 +34,7 @@ class ClassFileAsm(val asmNode: ClassNode, override val classFileOrigin: FileOri
   override val javaPackageName
     get() = packageName.replace('/', '.')
 
-  private val _methods: List<MethodAsm> by lazy(LazyThreadSafetyMode.NONE) {
+  private val _methods: List<MethodAsm> by lazy(LazyThreadSafetyMode.PUBLICATION) {
     asmNode.methods.map { MethodAsm(this, it) }
   }
   override val methods: Sequence<Method>
@@ -10,6 +10,8 @@ import com.jetbrains.pluginverifier.results.problems.IllegalFieldAccessProblem
 import com.jetbrains.pluginverifier.results.reference.FieldReference
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyBuilder
+import com.jetbrains.pluginverifier.verifiers.hierarchy.resolveParentChecked
+import com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo.LookupKind
 
 /**
  * Utility class that implements fields resolution strategy,
@@ -24,7 +26,7 @@ class FieldResolver {
     callerMethod: Method,
     instruction: Instruction
   ): Field? =
-    when (val resolutionResult = doResolveField(classFile, fieldReference, context)) {
+    when (val resolutionResult = lookupField(classFile, fieldReference, context)) {
       FieldResolutionResult.Abort -> null
       FieldResolutionResult.NotFound -> {
         registerFieldNotFoundProblem(context, fieldReference, instruction, callerMethod, classFile)
@@ -44,6 +46,17 @@ class FieldResolver {
     data class Found(val field: Field) : FieldResolutionResult()
   }
 
+  private fun lookupField(
+    classFile: ClassFile,
+    fieldReference: FieldReference,
+    context: VerificationContext
+  ): FieldResolutionResult {
+    val memo = context.memberResolutionMemo ?: return doResolveField(classFile, fieldReference, context)
+    return memo.lookup(classFile, fieldReference.fieldName, fieldReference.fieldDescriptor, LookupKind.FIELD, context) { lookupContext ->
+      doResolveField(classFile, fieldReference, lookupContext)
+    }
+  }
+
   private fun doResolveField(
     classFile: ClassFile,
     fieldReference: FieldReference,
@@ -61,7 +74,7 @@ class FieldResolver {
      * 2) Otherwise, field lookup is applied recursively to the direct superinterfaces of the specified class or interface C.
      */
     for (anInterface in classFile.interfaces) {
-      val resolvedInterface = context.classResolver.resolveClassChecked(anInterface, classFile, context)
+      val resolvedInterface = context.resolveParentChecked(classFile, anInterface)
         ?: return FieldResolutionResult.Abort
 
       when (val lookupResult = doResolveField(resolvedInterface, fieldReference, context)) {
@@ -76,7 +89,7 @@ class FieldResolver {
      */
     val superName = classFile.superName
     if (superName != null) {
-      val resolvedSuper = context.classResolver.resolveClassChecked(superName, classFile, context)
+      val resolvedSuper = context.resolveParentChecked(classFile, superName)
         ?: return FieldResolutionResult.Abort
 
       when (val lookupResult = doResolveField(resolvedSuper, fieldReference, context)) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.verifiers.resolution
+
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import org.objectweb.asm.tree.ClassNode
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Memoizes lookups of methods and fields performed by [MethodResolver] and [FieldResolver],
+ * so that all call sites of a verification referencing the same member of the same class share a single lookup.
+ *
+ * A lookup is keyed by the resolved owner class, the member name and descriptor and the [LookupKind].
+ * Problems and class usages reported while walking the owner's hierarchy are recorded along with the lookup result
+ * and replayed to the [VerificationContext] of every call site, so the memo does not change the reported problems.
+ * Checks that depend on the call site, such as accessibility of the resolved member, are not memoized.
+ *
+ * The memo is bound to the class resolver and the external classes package filter it is created for,
+ * because the lookup results depend on them. Lookups in a context with another resolver or filter bypass the memo.
+ * Owner classes are identified by their ASM nodes, so lookups on wrapped classes are not memoized either.
+ */
+class MemberResolutionMemo(
+  private val classResolver: Resolver,
+  private val externalClassesPackageFilter: PackageFilter
+) {
+
+  enum class LookupKind {
+    CLASS_METHOD,
+    INTERFACE_METHOD,
+    FIELD
+  }
+
+  private val lookups = ConcurrentHashMap<Key, RecordedLookup<*>>()
+
+  val size: Int
+    get() = lookups.size
+
+  internal fun <T : Any> lookup(
+    ownerClass: ClassFile,
+    name: String,
+    descriptor: String,
+    kind: LookupKind,
+    context: VerificationContext,
+    doLookup: (VerificationContext) -> T
+  ): T {
+    if (ownerClass !is ClassFileAsm
+      || context.classResolver !== classResolver
+      || context.externalClassesPackageFilter !== externalClassesPackageFilter
+    ) {
+      return doLookup(context)
+    }
+    val key = Key(ownerClass.asmNode, ownerClass.classFileOrigin, name, descriptor, kind)
+    @Suppress("UNCHECKED_CAST")
+    val lookup = lookups[key] as RecordedLookup<T>? ?: RecordedLookup.record(context, doLookup).let { recorded ->
+      // A concurrent lookup of the same key may win, both of them have recorded the same events.
+      lookups.putIfAbsent(key, recorded) as RecordedLookup<T>? ?: recorded
+    }
+    return lookup.replay(context)
+  }
+
+  /**
+   * Classes are compared by identity of their nodes: different resolvers may provide different classes with the same name.
+   */
+  private class Key(
+    private val ownerNode: ClassNode,
+    private val ownerOrigin: FileOrigin,
+    private val name: String,
+    private val descriptor: String,
+    private val kind: LookupKind
+  ) {
+    override fun equals(other: Any?) = other is Key
+      && ownerNode === other.ownerNode
+      && ownerOrigin === other.ownerOrigin
+      && name == other.name
+      && descriptor == other.descriptor
+      && kind == other.kind
+
+    override fun hashCode(): Int {
+      var result = System.identityHashCode(ownerNode)
+      result = 31 * result + name.hashCode()
+      result = 31 * result + descriptor.hashCode()
+      result = 31 * result + kind.hashCode()
+      return result
+    }
+  }
+}
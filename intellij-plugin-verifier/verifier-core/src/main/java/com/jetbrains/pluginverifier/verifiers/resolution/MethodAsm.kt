@@ -16,7 +16,7 @@ import org.objectweb.asm.tree.LocalVariableNode
 import org.objectweb.asm.tree.MethodNode
 
 class MethodAsm(override val containingClassFile: ClassFile, val asmNode: MethodNode) : Method {
-  override val location: MethodLocation by lazy(LazyThreadSafetyMode.NONE) {
+  override val location: MethodLocation by lazy(LazyThreadSafetyMode.PUBLICATION) {
     MethodLocation(
       containingClassFile.location,
       name,
@@ -45,7 +45,7 @@ class MethodAsm(override val containingClassFile: ClassFile, val asmNode: Method
   override val localVariables: List<LocalVariableNode>
     get() = asmNode.localVariables.orEmpty()
 
-  override val methodParameters: List<MethodParameter> by lazy(LazyThreadSafetyMode.NONE) {
+  override val methodParameters: List<MethodParameter> by lazy(LazyThreadSafetyMode.PUBLICATION) {
     val parameterNames = asmNode.getParameterNames()
     val parameterAnnotations: Array<out MutableList<AnnotationNode>?> = asmNode.invisibleParameterAnnotations.orEmpty()
 
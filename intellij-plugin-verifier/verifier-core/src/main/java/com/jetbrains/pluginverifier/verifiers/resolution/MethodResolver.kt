@@ -9,7 +9,9 @@ import com.jetbrains.pluginverifier.results.problems.*
 import com.jetbrains.pluginverifier.results.reference.MethodReference
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyBuilder
-import com.jetbrains.pluginverifier.verifiers.isSubclassOf
+import com.jetbrains.pluginverifier.verifiers.hierarchy.isSubclassOf
+import com.jetbrains.pluginverifier.verifiers.hierarchy.resolveParentChecked
+import com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo.LookupKind
 import java.util.*
 
 /**
@@ -152,7 +154,13 @@ private class MethodResolveImpl(
       context.problemRegistrar.registerProblem(InvokeInterfaceMethodOnClassProblem(methodReference, callerMethod.location, instruction))
       return MethodResolutionResult.Abort
     }
+    return memoized(interfaceFile, LookupKind.INTERFACE_METHOD) { lookupInterfaceMethod(it) }
+  }
 
+  /**
+   * Steps of the interface method resolution that do not depend on the call site.
+   */
+  private fun lookupInterfaceMethod(interfaceFile: ClassFile): MethodResolutionResult {
     /*
     2) Otherwise, if C declares a method with the name and descriptor specified by
     the interface method reference, method lookup succeeds.
@@ -218,7 +226,7 @@ private class MethodResolveImpl(
     return allMatching.filter { method ->
       allMatching.none { otherMethod ->
         otherMethod.containingClassFile.name != method.containingClassFile.name
-          && context.classResolver.isSubclassOf(otherMethod.containingClassFile, method.containingClassFile.name)
+          && context.isSubclassOf(otherMethod.containingClassFile, method.containingClassFile.name)
       }
     }
   }
@@ -239,7 +247,7 @@ private class MethodResolveImpl(
 
       cur.interfaces.forEach {
         if (it !in visited) {
-          val resolveClass = context.classResolver.resolveClassChecked(it, cur, context)
+          val resolveClass = context.resolveParentChecked(cur, it)
             ?: return null
           visited.add(it)
           queue.add(resolveClass)
@@ -249,7 +257,7 @@ private class MethodResolveImpl(
       val superName = cur.superName
       if (superName != null) {
         if (superName !in visited) {
-          val resolvedSuper = context.classResolver.resolveClassChecked(superName, cur, context)
+          val resolvedSuper = context.resolveParentChecked(cur, superName)
             ?: return null
           visited.add(superName)
           queue.add(resolvedSuper)
@@ -284,7 +292,13 @@ private class MethodResolveImpl(
         return MethodResolutionResult.Abort
       }
     }
+    return memoized(classFile, LookupKind.CLASS_METHOD) { lookupClassMethod(it) }
+  }
 
+  /**
+   * Steps of the class method resolution that do not depend on the call site.
+   */
+  private fun lookupClassMethod(classFile: ClassFile): MethodResolutionResult {
     /*
       2) Otherwise, method resolution attempts to locate the referenced method in C and its superclasses:
     */
@@ -306,6 +320,20 @@ private class MethodResolveImpl(
     return MethodResolutionResult.NotFound
   }
 
+  /**
+   * Performs the [lookup] of this method in the [ownerClass] through the [MemberResolutionMemo] of the context, if any.
+   */
+  private fun memoized(
+    ownerClass: ClassFile,
+    kind: LookupKind,
+    lookup: MethodResolveImpl.(ClassFile) -> MethodResolutionResult
+  ): MethodResolutionResult {
+    val memo = context.memberResolutionMemo ?: return lookup(ownerClass)
+    return memo.lookup(ownerClass, methodName, methodDescriptor, kind, context) { lookupContext ->
+      MethodResolveImpl(methodReference, instruction, callerMethod, lookupContext).lookup(ownerClass)
+    }
+  }
+
   /**
    * A method is signature polymorphic if all of the following are true:
    * - It is declared in the java.lang.invoke.MethodHandle class.
@@ -357,7 +385,7 @@ private class MethodResolveImpl(
      */
     val superName = currentClass.superName
     if (superName != null) {
-      val resolvedSuper = context.classResolver.resolveClassChecked(superName, currentClass, context)
+      val resolvedSuper = context.resolveParentChecked(currentClass, superName)
         ?: return MethodResolutionResult.Abort
       when (val lookupResult = resolveClassMethodStep2(resolvedSuper)) {
         is MethodResolutionResult.Found -> return lookupResult
@@ -420,7 +448,7 @@ private class MethodResolveImpl(
         If a match is found, then it is the method to be invoked.
     */
     if (!classRef.isInterface && classRef.superName != null) {
-      var current: ClassFile = context.classResolver.resolveClassChecked(classRef.superName!!, classRef, context)
+      var current: ClassFile = context.resolveParentChecked(classRef, classRef.superName!!)
         ?: return null
       while (true) {
         val match = current.methods.find { it.name == resolvedMethod.name && it.descriptor == resolvedMethod.descriptor }
@@ -430,7 +458,7 @@ private class MethodResolveImpl(
 
         val superName = current.superName
         superName ?: break
-        current = context.classResolver.resolveClassChecked(superName, current, context)
+        current = context.resolveParentChecked(current, superName)
           ?: return null
       }
     }
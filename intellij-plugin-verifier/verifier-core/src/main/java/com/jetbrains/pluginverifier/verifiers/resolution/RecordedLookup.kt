@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.verifiers.resolution
+
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.results.problems.CompatibilityProblem
+import com.jetbrains.pluginverifier.results.reference.ClassReference
+import com.jetbrains.pluginverifier.results.reference.FieldReference
+import com.jetbrains.pluginverifier.results.reference.MethodReference
+import com.jetbrains.pluginverifier.usages.ApiUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.ProblemRegistrar
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyIndex
+import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import com.jetbrains.pluginverifier.warnings.CompatibilityWarning
+import com.jetbrains.pluginverifier.warnings.WarningRegistrar
+import org.objectweb.asm.tree.AbstractInsnNode
+
+/**
+ * Result of a lookup along with problems, warnings and API usages reported while performing it.
+ *
+ * The reports are [replayed][replay] in their original order to the context of every caller,
+ * so a cached lookup reports exactly what the lookup itself would have reported.
+ */
+internal class RecordedLookup<T>(private val result: T, private val events: List<(VerificationContext) -> Unit>) {
+
+  fun replay(context: VerificationContext): T {
+    events.forEach { it(context) }
+    return result
+  }
+
+  companion object {
+    fun <T> record(context: VerificationContext, lookup: (VerificationContext) -> T): RecordedLookup<T> {
+      val recordingContext = RecordingVerificationContext(context)
+      val result = lookup(recordingContext)
+      return RecordedLookup(result, recordingContext.events)
+    }
+  }
+}
+
+private class RecordingVerificationContext(private val delegate: VerificationContext) : VerificationContext {
+  val events = arrayListOf<(VerificationContext) -> Unit>()
+
+  override val classResolver: Resolver
+    get() = delegate.classResolver
+
+  override val externalClassesPackageFilter: PackageFilter
+    get() = delegate.externalClassesPackageFilter
+
+  override val memberResolutionMemo: MemberResolutionMemo?
+    get() = null
+
+  override val classHierarchyIndex: ClassHierarchyIndex?
+    get() = delegate.classHierarchyIndex
+
+  override val problemRegistrar = object : ProblemRegistrar {
+    override fun registerProblem(problem: CompatibilityProblem) {
+      events += { it.problemRegistrar.registerProblem(problem) }
+    }
+  }
+
+  override val warningRegistrar = object : WarningRegistrar {
+    override fun registerCompatibilityWarning(warning: CompatibilityWarning) {
+      events += { it.warningRegistrar.registerCompatibilityWarning(warning) }
+    }
+  }
+
+  override val apiUsageProcessors = listOf<ApiUsageProcessor>(object : ApiUsageProcessor {
+    override fun processClassReference(
+      classReference: ClassReference,
+      resolvedClass: ClassFile,
+      context: VerificationContext,
+      referrer: ClassFileMember,
+      classUsageType: ClassUsageType
+    ) {
+      events += { target ->
+        target.apiUsageProcessors.forEach { it.processClassReference(classReference, resolvedClass, target, referrer, classUsageType) }
+      }
+    }
+
+    override fun processMethodInvocation(
+      methodReference: MethodReference,
+      resolvedMethod: Method,
+      instructionNode: AbstractInsnNode,
+      callerMethod: Method,
+      context: VerificationContext
+    ) {
+      events += { target ->
+        target.apiUsageProcessors.forEach { it.processMethodInvocation(methodReference, resolvedMethod, instructionNode, callerMethod, target) }
+      }
+    }
+
+    override fun processFieldAccess(
+      fieldReference: FieldReference,
+      resolvedField: Field,
+      context: VerificationContext,
+      callerMethod: Method
+    ) {
+      events += { target ->
+        target.apiUsageProcessors.forEach { it.processFieldAccess(fieldReference, resolvedField, target, callerMethod) }
+      }
+    }
+  })
+}
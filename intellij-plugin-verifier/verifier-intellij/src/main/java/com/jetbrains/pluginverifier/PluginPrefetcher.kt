@@ -0,0 +1,242 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier
+
+import com.jetbrains.plugin.structure.base.utils.formatDuration
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.pluginverifier.plugin.PluginDetailsCache
+import com.jetbrains.pluginverifier.repository.PluginInfo
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * I/O stage of [runSeveralVerifiers] that downloads and extracts the [plugins] through the [pluginDetailsCache]
+ * ahead of their verification, so that verification workers do not wait for the network.
+ *
+ * The plugins are fetched in the order of verification by [depth] threads.
+ * At most [depth] fetched plugins are held in the cache until their verification [starts][startVerification]
+ * and ends. While the cache is [low on disk space][PluginDetailsCache.isLowOnDiskSpace],
+ * plugins are not fetched ahead, and the verification workers fetch them when they need them.
+ */
+class PluginPrefetcher(
+  private val plugins: List<PluginInfo>,
+  private val pluginDetailsCache: PluginDetailsCache,
+  private val depth: Int
+) : Closeable {
+
+  private companion object {
+    private val LOG = LoggerFactory.getLogger(PluginPrefetcher::class.java)
+
+    private val DISK_SPACE_RECHECK_PERIOD: Duration = Duration.ofMillis(500)
+
+    /**
+     * Marks a plugin whose verification has started before it was fetched ahead.
+     */
+    private val CLAIMED = Any()
+  }
+
+  init {
+    require(depth > 0) { "Number of plugins fetched ahead must be positive: $depth" }
+  }
+
+  private val slots = AtomicReferenceArray<Any>(plugins.size)
+
+  private val nextPluginIndex = AtomicInteger()
+
+  private val heldPlugins = Semaphore(depth)
+
+  private val stateLock = ReentrantLock()
+
+  private val stateChanged = stateLock.newCondition()
+
+  private val startNanos = System.nanoTime()
+
+  private val threadCounter = AtomicInteger()
+
+  private val executor: ExecutorService = Executors.newFixedThreadPool(depth) { runnable ->
+    Thread(runnable, "plugin-prefetch_" + threadCounter.incrementAndGet()).apply { isDaemon = true }
+  }
+
+  init {
+    repeat(depth) { executor.execute { prefetchPlugins() } }
+  }
+
+  private fun prefetchPlugins() {
+    try {
+      while (true) {
+        heldPlugins.acquire()
+        val index = nextPluginIndex.getAndIncrement()
+        if (index >= plugins.size) {
+          heldPlugins.release()
+          return
+        }
+        if (!awaitDiskSpace(index)) {
+          heldPlugins.release()
+          continue
+        }
+        val prefetch = Prefetch()
+        if (slots.compareAndSet(index, null, prefetch)) {
+          prefetch.fetch(plugins[index])
+        } else {
+          heldPlugins.release()
+        }
+      }
+    } catch (e: InterruptedException) {
+      // The prefetcher is closed.
+    }
+  }
+
+  /**
+   * Waits until there is disk space for the plugin by [index] or its verification starts.
+   * Returns `false` if the plugin must not be fetched ahead anymore.
+   */
+  private fun awaitDiskSpace(index: Int): Boolean {
+    stateLock.withLock {
+      while (pluginDetailsCache.isLowOnDiskSpace()) {
+        if (slots[index] != null) {
+          return false
+        }
+        stateChanged.await(DISK_SPACE_RECHECK_PERIOD.toMillis(), TimeUnit.MILLISECONDS)
+      }
+    }
+    return slots[index] == null
+  }
+
+  private fun signalStateChanged() {
+    stateLock.withLock { stateChanged.signalAll() }
+  }
+
+  /**
+   * Marks the start of verification of the plugin by [index].
+   * The returned handle releases the plugin fetched ahead and must be closed once the verification ends.
+   * The plugin that is not fetched ahead, for example because the prefetcher is [closed][close], is fetched by the caller.
+   */
+  fun startVerification(index: Int): Closeable {
+    if (slots.compareAndSet(index, null, CLAIMED)) {
+      signalStateChanged()
+      return Closeable { }
+    }
+    val prefetch = slots[index] as? Prefetch ?: return Closeable { }
+    prefetch.verificationStartNanos = System.nanoTime()
+    return Closeable { prefetch.release() }
+  }
+
+  /**
+   * Returns the statistics of plugins fetched ahead so far.
+   */
+  fun getStatistics(): Statistics {
+    var prefetchedPlugins = 0
+    var prefetchNanos = 0L
+    var overlappedNanos = 0L
+    for (index in 0 until slots.length()) {
+      val prefetch = slots[index] as? Prefetch ?: continue
+      val fetchEnd = prefetch.fetchEndNanos
+      if (fetchEnd == 0L) {
+        continue
+      }
+      prefetchedPlugins++
+      prefetchNanos += fetchEnd - prefetch.fetchStartNanos
+      val verificationStart = prefetch.verificationStartNanos
+      if (verificationStart != 0L) {
+        overlappedNanos += (minOf(fetchEnd, verificationStart) - prefetch.fetchStartNanos).coerceAtLeast(0)
+      }
+    }
+    return Statistics(
+      prefetchedPlugins,
+      Duration.ofNanos(prefetchNanos),
+      Duration.ofNanos(overlappedNanos),
+      Duration.ofNanos(System.nanoTime() - startNanos)
+    )
+  }
+
+  /**
+   * Stops fetching plugins ahead and releases all the plugins fetched ahead.
+   */
+  override fun close() {
+    executor.shutdownNow()
+    for (index in 0 until slots.length()) {
+      if (!slots.compareAndSet(index, null, CLAIMED)) {
+        (slots[index] as? Prefetch)?.release()
+      }
+    }
+  }
+
+  /**
+   * Plugin fetched ahead of verification.
+   *
+   * Times are [System.nanoTime] values, `0` means the event has not happened yet.
+   */
+  private inner class Prefetch {
+    private val result = CompletableFuture<PluginDetailsCache.Result>()
+
+    private val released = AtomicBoolean()
+
+    @Volatile
+    var fetchStartNanos = 0L
+
+    @Volatile
+    var fetchEndNanos = 0L
+
+    @Volatile
+    var verificationStartNanos = 0L
+
+    fun fetch(pluginInfo: PluginInfo) {
+      fetchStartNanos = System.nanoTime()
+      val cacheEntry = try {
+        pluginDetailsCache.getPluginDetailsCacheEntry(pluginInfo)
+      } catch (e: Exception) {
+        result.completeExceptionally(e)
+        e.rethrowIfInterrupted()
+        LOG.warn("Failed to fetch $pluginInfo ahead of verification", e)
+        return
+      }
+      fetchEndNanos = System.nanoTime()
+      result.complete(cacheEntry)
+      LOG.debug("Fetched {} ahead of verification in {}", pluginInfo, Duration.ofNanos(fetchEndNanos - fetchStartNanos).formatDuration())
+    }
+
+    fun release() {
+      if (released.compareAndSet(false, true)) {
+        result.whenComplete { cacheEntry, _ ->
+          cacheEntry?.close()
+          heldPlugins.release()
+          signalStateChanged()
+        }
+      }
+    }
+  }
+
+  /**
+   * Statistics of plugins fetched ahead of their verification.
+   *
+   * The [overlappedTime] is the part of the [prefetchTime] that passed before the verification of the plugins started,
+   * so the verification workers did not wait for it. Plugins whose verification has not started do not contribute to it.
+   */
+  data class Statistics(
+    val prefetchedPlugins: Int,
+    val prefetchTime: Duration,
+    val overlappedTime: Duration,
+    val wallClockTime: Duration
+  ) {
+    val presentableSummary: String
+      get() {
+        val share = if (wallClockTime.isZero) 0.0 else overlappedTime.toNanos() * 100.0 / wallClockTime.toNanos()
+        return "$prefetchedPlugins plugins fetched ahead of verification in ${prefetchTime.formatDuration()}, " +
+          "${overlappedTime.formatDuration()} of which overlapped with verification " +
+          "(${String.format("%.1f", share)}% of ${wallClockTime.formatDuration()} wall-clock time)"
+      }
+  }
+}
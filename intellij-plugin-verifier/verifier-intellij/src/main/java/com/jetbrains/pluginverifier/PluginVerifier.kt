@@ -7,6 +7,7 @@ package com.jetbrains.pluginverifier
 import com.jetbrains.plugin.structure.base.BinaryClassName
 import com.jetbrains.plugin.structure.base.problems.PluginProblem
 import com.jetbrains.plugin.structure.base.telemetry.MutablePluginTelemetry
+import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_REPLAYED_CLASSES_COUNT
 import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_VERIFIED_CLASSES_COUNT
 import com.jetbrains.plugin.structure.base.utils.binaryClassNames
 import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
@@ -25,6 +26,8 @@ import com.jetbrains.pluginverifier.filtering.ApiUsageFilter
 import com.jetbrains.pluginverifier.filtering.ExternalBuildClassesSelector
 import com.jetbrains.pluginverifier.filtering.MainClassesSelector
 import com.jetbrains.pluginverifier.filtering.ProblemsFilter
+import com.jetbrains.pluginverifier.incremental.IncrementalClassVerification
+import com.jetbrains.pluginverifier.incremental.VerificationResultStore
 import com.jetbrains.pluginverifier.plugin.PluginDetails
 import com.jetbrains.pluginverifier.plugin.PluginDetailsCache
 import com.jetbrains.pluginverifier.results.problems.ClassNotFoundProblem
@@ -38,6 +41,7 @@ import com.jetbrains.pluginverifier.usages.internal.InternalMethodOverridingProc
 import com.jetbrains.pluginverifier.usages.nonExtendable.NonExtendableMethodOverridingProcessor
 import com.jetbrains.pluginverifier.usages.nonExtendable.NonExtendableTypeInheritedProcessor
 import com.jetbrains.pluginverifier.verifiers.BytecodeVerifier
+import com.jetbrains.pluginverifier.verifiers.DeferredClassResults
 import com.jetbrains.pluginverifier.verifiers.PluginVerificationContext
 import com.jetbrains.pluginverifier.verifiers.VerificationContext
 import com.jetbrains.pluginverifier.verifiers.filter.ClassFilter
@@ -46,17 +50,23 @@ import com.jetbrains.pluginverifier.warnings.DependenciesCycleWarning
 import com.jetbrains.pluginverifier.warnings.MistakenlyBundledIdePackagesWarning
 import com.jetbrains.pluginverifier.warnings.PluginStructureError
 import com.jetbrains.pluginverifier.warnings.PluginStructureWarning
+import java.util.concurrent.ForkJoinPool
 
 /**
  * Performs verification specified by [verificationDescriptor] and returns [PluginVerificationResult].
+ *
+ * If the [resultStore] is specified, only the plugin classes that changed since the previous verification
+ * of the plugin are verified, and results of the other classes are replayed from the store.
  */
 class PluginVerifier(
   val verificationDescriptor: PluginVerificationDescriptor,
   private val problemFilters: List<ProblemsFilter>,
-  private val pluginDetailsCache: PluginDetailsCache,
+  internal val pluginDetailsCache: PluginDetailsCache,
   private val classFilters: List<ClassFilter>,
   private val excludeExternalBuildClassesSelector: Boolean,
   private val apiUsageFilters: List<ApiUsageFilter> = emptyList(),
+  private val classVerificationParallelism: Int = getClassVerificationParallelism(),
+  private val resultStore: VerificationResultStore? = null
 ) {
 
   private val structureProblemsResolver = KotlinCompatibilityModeProblemResolver()
@@ -113,7 +123,15 @@ class PluginVerifier(
         it.reportTelemetry(pluginDetails, context)
       }
 
-      BytecodeVerifier(
+      val incrementalVerification = resultStore?.let { IncrementalClassVerification(it, context, classFilters) }
+      val classesToVerify = incrementalVerification?.replayUnchangedClasses(classesToCheck) ?: classesToCheck
+      val deferredClassResults = if (classVerificationParallelism > 1) {
+        DeferredClassResults(context, incrementalVerification)
+      } else {
+        null
+      }
+
+      val bytecodeVerifier = BytecodeVerifier(
         classFilters,
         listOf(NonExtendableTypeInheritedProcessor(context)),
         listOf(
@@ -125,8 +143,32 @@ class PluginVerifier(
               InternalMethodOverridingProcessor(context)
             )
           )
-        )
-      ).verifyClasses(classesToCheck, context) {}
+        ),
+        classVerificationListener = deferredClassResults ?: incrementalVerification
+      )
+      when {
+        deferredClassResults == null -> bytecodeVerifier.verifyClasses(classesToVerify, context) {}
+        batchContext != null -> {
+          val pool = batchContext.getClassVerificationPool(classVerificationParallelism)
+          bytecodeVerifier.verifyClasses(classesToVerify, context, pool) {}
+        }
+        else -> {
+          // A single verification owns its pool.
+          val pool = ForkJoinPool(classVerificationParallelism)
+          try {
+            bytecodeVerifier.verifyClasses(classesToVerify, context, pool) {}
+          } finally {
+            pool.shutdown()
+          }
+        }
+      }
+      deferredClassResults?.registerInOrder(classesToVerify)
+      incrementalVerification?.let {
+        it.saveResults()
+        context.reportTelemetry(pluginDetails.pluginInfo, MutablePluginTelemetry().apply {
+          set(PLUGIN_REPLAYED_CLASSES_COUNT, it.replayedClassesCount)
+        })
+      }
 
       context.runAnalyzers()
 
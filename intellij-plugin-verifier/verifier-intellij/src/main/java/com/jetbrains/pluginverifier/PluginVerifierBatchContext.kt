@@ -4,15 +4,33 @@
 
 package com.jetbrains.pluginverifier
 
+import java.io.Closeable
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Function
 
 /**
  * Context for [com.jetbrains.pluginverifier.runSeveralVerifiers]
+ *
+ * It must be [closed][close] once the verifications are finished to shut down the class verification pools.
  */
-class PluginVerifierBatchContext {
+class PluginVerifierBatchContext : Closeable {
   val deduplicationMap: MutableMap<Any, Any> = ConcurrentHashMap()
 
+  private val classVerificationPools = ConcurrentHashMap<Int, ForkJoinPool>()
+
   @Suppress("UNCHECKED_CAST", "unused")
   fun <T : Any> deduplicate(t: T): T = deduplicationMap.computeIfAbsent(t, Function.identity()) as T
+
+  /**
+   * Returns a pool verifying classes of plugins, which is shared by all concurrent verifications of the batch
+   * with the same [parallelism], so that they do not multiply the number of worker threads.
+   */
+  fun getClassVerificationPool(parallelism: Int): ForkJoinPool =
+    classVerificationPools.computeIfAbsent(parallelism) { ForkJoinPool(it) }
+
+  override fun close() {
+    classVerificationPools.values.forEach { it.shutdown() }
+    classVerificationPools.clear()
+  }
 }
@@ -11,7 +11,17 @@ import com.jetbrains.pluginverifier.reporting.PluginVerificationReportage
 import java.time.Duration
 import kotlin.system.measureTimeMillis
 
-fun runSeveralVerifiers(reportage: PluginVerificationReportage, verifiers: List<PluginVerifier>): List<PluginVerificationResult> {
+/**
+ * Runs the [verifiers] concurrently and reports their results to the [reportage].
+ *
+ * If all the verifiers share the same plugin details cache, up to [downloadAhead] plugins
+ * are downloaded and extracted by the [PluginPrefetcher] ahead of their verification.
+ */
+fun runSeveralVerifiers(
+  reportage: PluginVerificationReportage,
+  verifiers: List<PluginVerifier>,
+  downloadAhead: Int = getDownloadAheadCount()
+): List<PluginVerificationResult> {
   if (verifiers.isEmpty()) {
     return emptyList()
   }
@@ -26,11 +36,18 @@ fun runSeveralVerifiers(reportage: PluginVerificationReportage, verifiers: List<
 
   val batchContext = PluginVerifierBatchContext()
 
-  val tasks = verifiers.map { verifier ->
+  val pluginDetailsCache = verifiers.map { it.pluginDetailsCache }.distinct().singleOrNull()
+  val prefetcher = if (pluginDetailsCache != null && downloadAhead > 0 && verifiers.size > 1) {
+    PluginPrefetcher(verifiers.map { it.verificationDescriptor.checkedPlugin }, pluginDetailsCache, downloadAhead)
+  } else {
+    null
+  }
+
+  val tasks = verifiers.mapIndexed { index, verifier ->
     ExecutorWithProgress.Task(verifier.verificationDescriptor.toString()) {
       val verificationResult: PluginVerificationResult
       measureTimeMillis {
-        verificationResult = verifier.loadPluginAndVerify(batchContext)
+        verificationResult = prefetcher?.startVerification(index).use { verifier.loadPluginAndVerify(batchContext) }
       }.let { verificationTime ->
         reportage.reportTelemetry(verificationResult.plugin, PluginTelemetry(PLUGIN_VERIFICATION_TIME to Duration.ofMillis(verificationTime)))
         if (verificationResult is PluginVerificationResult.Verified) {
@@ -41,5 +58,13 @@ fun runSeveralVerifiers(reportage: PluginVerificationReportage, verifiers: List<
       }
     }
   }
-  return executor.executeTasks(tasks)
+  try {
+    return executor.executeTasks(tasks)
+  } finally {
+    batchContext.close()
+    prefetcher?.let {
+      it.close()
+      reportage.logVerificationStage("Download ahead: ${it.getStatistics().presentableSummary}")
+    }
+  }
 }
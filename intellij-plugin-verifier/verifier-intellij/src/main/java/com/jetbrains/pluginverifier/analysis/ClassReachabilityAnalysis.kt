@@ -31,16 +31,103 @@ private typealias Descriptor = String
 
 private val logger: Logger = LoggerFactory.getLogger("com.jetbrains.pluginverifier.analysis.ClassReachabilityAnalysis")
 
+/**
+ * Graph of type references between classes.
+ *
+ * Class names are interned to int ids, and the edges are stored in int arrays
+ * that are compacted into adjacency arrays once the graph is traversed.
+ */
 class TypeGraph {
 
-  private val backTypeEdges: MutableMap<ClassName, MutableSet<ClassName>> = hashMapOf()
+  private val classIds: MutableMap<ClassName, Int> = hashMapOf()
+
+  private val classNames: MutableList<ClassName> = arrayListOf()
+
+  private var edgeSources = IntArray(16)
+
+  private var edgeTargets = IntArray(16)
+
+  private var edgeCount = 0
+
+  private var adjacency: Adjacency? = null
+
+  val classCount: Int
+    get() = classNames.size
 
   fun addEdge(from: ClassName, to: ClassName) {
-    backTypeEdges.getOrPut(to) { hashSetOf() } += from
+    if (edgeCount == edgeSources.size) {
+      edgeSources = edgeSources.copyOf(edgeCount * 2)
+      edgeTargets = edgeTargets.copyOf(edgeCount * 2)
+    }
+    edgeSources[edgeCount] = intern(from)
+    edgeTargets[edgeCount] = intern(to)
+    edgeCount++
+    adjacency = null
+  }
+
+  /**
+   * Returns the id of the class, or -1 if the class is not referenced in the graph.
+   */
+  fun getClassId(className: ClassName): Int =
+    classIds[className] ?: -1
+
+  /**
+   * Returns ids of the classes that are referenced, directly or transitively, by any of the [classes].
+   * A class of the [classes] belongs to the result only if it is referenced by one of them.
+   */
+  fun getReferencedClasses(classes: Collection<ClassName>): BitSet {
+    val adjacency = getAdjacency()
+    val sources = classes.mapNotNullTo(hashSetOf()) { classIds[it] }
+    val referenced = BitSet(classCount)
+    // Each class is queued once as a source and at most once as a referenced class.
+    val queue = IntArray(sources.size + classCount)
+    var head = 0
+    var tail = 0
+    sources.forEach { queue[tail++] = it }
+    while (head < tail) {
+      val current = queue[head++]
+      for (position in adjacency.offsets[current] until adjacency.offsets[current + 1]) {
+        val next = adjacency.targets[position]
+        if (!referenced[next]) {
+          referenced.set(next)
+          queue[tail++] = next
+        }
+      }
+    }
+    return referenced
   }
 
-  fun getEdgesTo(to: ClassName): Set<ClassName> =
-    backTypeEdges[to].orEmpty()
+  private fun intern(className: ClassName): Int =
+    classIds.getOrPut(className) {
+      classNames += className
+      classNames.size - 1
+    }
+
+  private fun getAdjacency(): Adjacency =
+    adjacency ?: Adjacency.create(classCount, edgeSources, edgeTargets, edgeCount).also { adjacency = it }
+
+  /**
+   * Classes referenced by the `i`-th class are `targets[offsets[i] until offsets[i + 1]]`.
+   */
+  private class Adjacency(val offsets: IntArray, val targets: IntArray) {
+    companion object {
+      fun create(classCount: Int, edgeSources: IntArray, edgeTargets: IntArray, edgeCount: Int): Adjacency {
+        val offsets = IntArray(classCount + 1)
+        for (edge in 0 until edgeCount) {
+          offsets[edgeSources[edge] + 1]++
+        }
+        for (i in 0 until classCount) {
+          offsets[i + 1] += offsets[i]
+        }
+        val nextPositions = offsets.copyOf(classCount)
+        val targets = IntArray(edgeCount)
+        for (edge in 0 until edgeCount) {
+          targets[nextPositions[edgeSources[edge]]++] = edgeTargets[edge]
+        }
+        return Adjacency(offsets, targets)
+      }
+    }
+  }
 }
 
 class ReachabilityGraph(private val graph: TypeGraph) {
@@ -50,44 +137,28 @@ class ReachabilityGraph(private val graph: TypeGraph) {
     OPTIONAL_PLUGIN
   }
 
-  private val classMarks: MutableMap<ClassName, EnumSet<ReachabilityMark>> = hashMapOf()
+  private val markedClasses: MutableMap<ReachabilityMark, MutableSet<ClassName>> = EnumMap(ReachabilityMark::class.java)
+
+  /**
+   * Classes reachable from the marked classes, computed for all the classes of a mark at once.
+   */
+  private val reachableClasses: MutableMap<ReachabilityMark, BitSet> = EnumMap(ReachabilityMark::class.java)
 
   fun markClass(className: ClassName, mark: ReachabilityMark) {
-    classMarks.getOrPut(className) { EnumSet.noneOf(ReachabilityMark::class.java) } += mark
+    markedClasses.getOrPut(mark) { hashSetOf() } += className
+    reachableClasses -= mark
   }
 
+  /**
+   * Checks whether the class is referenced, directly or transitively, by a class marked with the [mark].
+   */
   fun isClassReachableFromMark(className: ClassName, mark: ReachabilityMark): Boolean {
-    val visitedClasses = hashSetOf<ClassName>()
-    val stack = LinkedList<ClassName>()
-    val way = LinkedList<ClassName>()
-
-    stack += className
-    while (stack.isNotEmpty()) {
-      val currentClass = stack.peekFirst()
-      if (!visitedClasses.add(currentClass)) {
-        //Second time visiting the same node => all node's children are visited => poll from the queue.
-        stack.pollFirst()
-        way.pollLast()
-        continue
-      }
-      way.addLast(currentClass)
-
-      val referencingTypes = graph.getEdgesTo(currentClass)
-      for (typeName in referencingTypes) {
-        if (classMarks[typeName]?.contains(mark) == true) {
-          //Mark all the classes on the way as memoization.
-          for (name in way) {
-            markClass(name, mark)
-          }
-          return true
-        }
-
-        if (typeName !in visitedClasses) {
-          stack.addFirst(typeName)
-        }
-      }
+    val classId = graph.getClassId(className)
+    if (classId == -1) {
+      return false
     }
-    return false
+    val reachable = reachableClasses.getOrPut(mark) { graph.getReferencedClasses(markedClasses[mark].orEmpty()) }
+    return reachable[classId]
   }
 }
 
@@ -9,6 +9,7 @@ import com.jetbrains.plugin.structure.intellij.plugin.PluginDependency
 import com.jetbrains.plugin.structure.intellij.plugin.dependencies.PluginAware
 import com.jetbrains.plugin.structure.intellij.plugin.dependencies.id
 import com.jetbrains.pluginverifier.dependencies.presentation.DependenciesGraphPrettyPrinter
+import com.jetbrains.pluginverifier.dependencies.processing.CompactDigraph
 import com.jetbrains.pluginverifier.dependencies.processing.DependenciesGraphCycleFinder
 
 /**
@@ -42,6 +43,55 @@ data class DependenciesGraph(
   fun getEdgesFrom(dependencyNode: DependencyNode): List<DependencyEdge> =
     edgesFromNode[dependencyNode].orEmpty()
 
+  /**
+   * Builds the int-indexed adjacency structure of this graph for traversals, with the edges as labels.
+   *
+   * The structure is not cached: the graph lives through the verification of a plugin, while traversals run only a
+   * few times, so callers that need several traversals build it once and reuse it.
+   */
+  internal fun buildCompactGraph(): CompactDigraph<DependencyNode, DependencyEdge> {
+    val builder = CompactDigraph.Builder<DependencyNode, DependencyEdge>()
+    builder.addVertex(verifiedPlugin)
+    vertices.forEach { builder.addVertex(it) }
+    edges.forEach {
+      builder.addVertex(it.from)
+      builder.addVertex(it.to)
+      builder.addEdge(it.from, it.to, it)
+    }
+    return builder.build()
+  }
+
+  /**
+   * Returns all direct and transitive dependencies of the verified plugin.
+   */
+  fun getTransitiveDependencies(): Set<DependencyNode> =
+    buildCompactGraph().getReachableVertices(verifiedPlugin) - verifiedPlugin
+
+  /**
+   * Returns the shortest chain of dependencies through which the verified plugin depends on the [dependencyNode],
+   * which explains where a missing dependency of the [dependencyNode] comes from.
+   * Returns `null` if the verified plugin does not depend on the [dependencyNode].
+   */
+  fun getDependencyPath(dependencyNode: DependencyNode): List<DependencyEdge>? =
+    buildCompactGraph().findDependencyPath(dependencyNode)
+
+  /**
+   * Returns the shortest chains of dependencies through which the verified plugin depends on the plugins
+   * that have missing dependencies of their own, that is, explains where the transitive missing dependencies come from.
+   * Plugins the verified plugin does not depend on are omitted.
+   */
+  fun getTransitiveMissingDependencyPaths(): Map<DependencyNode, List<DependencyEdge>> {
+    val nodes = missingDependencies.keys - verifiedPlugin
+    if (nodes.isEmpty()) {
+      return emptyMap()
+    }
+    val graph = buildCompactGraph()
+    return nodes.mapNotNull { node -> graph.findDependencyPath(node)?.let { node to it } }.toMap()
+  }
+
+  private fun CompactDigraph<DependencyNode, DependencyEdge>.findDependencyPath(dependencyNode: DependencyNode): List<DependencyEdge>? =
+    if (dependencyNode in this) findShortestPath(verifiedPlugin, dependencyNode) else null
+
   /**
    * Checks for cycles in this graph that involve the verified plugin. If one is found, [fn] is invoked with it.
    * The dependencies cycles are harmful and should be fixed.
@@ -5,19 +5,31 @@
 package com.jetbrains.pluginverifier.dependencies
 
 import com.jetbrains.plugin.structure.base.problems.PluginProblem
+import com.jetbrains.plugin.structure.base.utils.closeLogged
 import com.jetbrains.plugin.structure.ide.Ide
 import com.jetbrains.plugin.structure.intellij.plugin.*
 import com.jetbrains.pluginverifier.dependencies.DependencyNode.Companion.dependencyNode
 import com.jetbrains.pluginverifier.dependencies.resolution.DependencyFinder
 import com.jetbrains.pluginverifier.plugin.PluginDetailsCache
-import org.jgrapht.Graph
-import org.jgrapht.graph.DefaultDirectedGraph
-import org.jgrapht.graph.DefaultEdge
+import com.jetbrains.pluginverifier.dependencies.processing.CompactDigraph
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 private const val INTELLIJ_MODULE_PREFIX = "com.intellij.modules."
 
 /**
  * Builds the dependencies graph using the [dependencyFinder].
+ *
+ * Transitive dependencies of plugins found by the [dependencyFinder], such as bundled plugins and modules of the IDE,
+ * are the same for all the verified plugins. Their closures are memoized by the builder
+ * and reused as prebuilt subgraphs of later graphs, so the builder is meant to be shared by the verifications
+ * of a batch against the same IDE. A memoized closure is reused only where the traversal of the dependencies would
+ * produce exactly the same subgraph, so the graphs, their missing dependencies and cycles do not depend on the memo.
+ * Closures that contain dependencies provided by the plugin details cache are not memoized.
+ *
+ * The results of the [dependencyFinder] that do not end up in the graph are closed by the builder,
+ * and the results of the vertices of the graph are returned to the caller to be closed after the verification.
+ * The builder is thread-safe.
  */
 class DependenciesGraphBuilder(
   private val dependencyFinder: DependencyFinder,
@@ -30,117 +42,264 @@ class DependenciesGraphBuilder(
     const val ALL_MODULES_ID = "com.intellij.modules.all"
   }
 
+  private val dependencyClosures = ConcurrentHashMap<DependencyClosureKey, DependencyClosure>()
+
   fun buildDependenciesGraph(plugin: IdePlugin, ide: Ide): Pair<DependenciesGraph, List<DependencyFinder.Result>> {
-    val graph = DefaultDirectedGraph<DepVertex, DepEdge>(DepEdge::class.java)
-    val missingDependencies = hashMapOf<DepId, MutableSet<DepMissingVertex>>()
+    val traversal = DependenciesTraversal(ide, reuseClosures = true)
 
     val start = DepVertex(plugin, DependencyFinder.Result.FoundPlugin(plugin))
-    addTransitiveDependencies(ide, graph, start, missingDependencies)
+    traversal.addTransitiveDependencies(start)
     if (plugin.pluginId != CORE_IDE_PLUGIN_ID) {
-      maybeAddOptionalJavaPluginDependency(plugin, ide, graph, missingDependencies)
-      maybeAddBundledPluginsWithUseIdeaClassLoader(ide, graph, missingDependencies)
+      maybeAddOptionalJavaPluginDependency(plugin, ide, traversal)
+      maybeAddBundledPluginsWithUseIdeaClassLoader(ide, traversal)
     }
 
-    val dependenciesGraph = DepGraph2ApiGraphConverter().convert(graph, start, missingDependencies)
-    return dependenciesGraph to graph.vertexSet().map { it.dependencyResult }
+    val graph = traversal.graph.build()
+    val dependenciesGraph = DepGraph2ApiGraphConverter().convert(graph, start, traversal.missingDependencies)
+    val dependencyResults = graph.vertices.map { it.dependencyResult }
+    traversal.closeResultsExcept(dependencyResults)
+    return dependenciesGraph to dependencyResults
   }
 
-  private fun addTransitiveDependencies(
-    pluginProvider: PluginProvider,
-    graph: Graph<DepVertex, DepEdge>,
-    vertex: DepVertex,
-    missingDependencies: MutableMap<DepId, MutableSet<DepMissingVertex>>
-  ) {
-    if (!graph.containsVertex(vertex)) {
-      graph.addVertex(vertex)
-
-      for (moduleId in vertex.plugin.incompatibleModules) { // TODO migrate: moduleId is pluginId
-        val result = dependencyFinder.findPluginDependency(moduleId, true)
-        if (result is DependencyFinder.Result.DetailsProvided && result.pluginDetailsCacheResult is PluginDetailsCache.Result.Provided ||
-                result is DependencyFinder.Result.FoundPlugin) {
-          val depMissingVertex = DepMissingVertex(vertex, PluginDependencyImpl(moduleId, false, true),
-                  "The plugin is incompatible with module '$moduleId'")
-          missingDependencies.getOrPut(DepId(moduleId, true)) { hashSetOf() } += depMissingVertex
+  /**
+   * Depth-first traversal of transitive dependencies that adds them to the [graph].
+   *
+   * The traversal records what it does, so that a traversal started from a single dependency
+   * in an empty graph can be memoized as a [DependencyClosure].
+   */
+  private inner class DependenciesTraversal(private val ide: Ide, private val reuseClosures: Boolean) {
+    val graph = CompactDigraph.Builder<DepVertex, PluginDependency>()
+
+    val missingDependencies = hashMapOf<DepId, MutableSet<DepMissingVertex>>()
+
+    val addedEdges = arrayListOf<DepEdge>()
+
+    val registeredMissingDependencies = arrayListOf<Pair<DepId, DepMissingVertex>>()
+
+    /**
+     * Dependencies that are looked up in the graph or registered as missing.
+     */
+    val touchedDepIds = hashSetOf<DepId>()
+
+    /**
+     * Results obtained from the [dependencyFinder] by this traversal.
+     */
+    private val obtainedResults = arrayListOf<DependencyFinder.Result>()
+
+    /**
+     * Whether all the dependencies were found by the [dependencyFinder] as plugins, or not found.
+     * Dependencies provided by the plugin details cache hold resources that are released after the verification,
+     * so a traversal that met them must not be memoized.
+     */
+    val isMemoizable: Boolean
+      get() = obtainedResults.none { it is DependencyFinder.Result.DetailsProvided }
+
+    fun findPluginDependency(dependencyId: String, isModule: Boolean): DependencyFinder.Result =
+      dependencyFinder.findPluginDependency(dependencyId, isModule).also { obtainedResults += it }
+
+    private fun findPluginDependency(dependency: PluginDependency): DependencyFinder.Result =
+      dependencyFinder.findPluginDependency(dependency).also { obtainedResults += it }
+
+    /**
+     * Closes the results obtained by this traversal, except for the [usedResults].
+     */
+    fun closeResultsExcept(usedResults: List<DependencyFinder.Result>) {
+      val usedResultsSet = Collections.newSetFromMap(IdentityHashMap<DependencyFinder.Result, Boolean>())
+      usedResultsSet += usedResults
+      obtainedResults.filterNot { it in usedResultsSet }.forEach { it.closeLogged() }
+    }
+
+    /**
+     * Adds the dependency [vertex] with its transitive dependencies,
+     * reusing the memoized closure of the dependency when it yields the same subgraph.
+     */
+    fun addDependency(vertex: DepVertex) {
+      if (reuseClosures && vertex !in graph && vertex.dependencyResult is DependencyFinder.Result.FoundPlugin) {
+        val closure = dependencyClosures.getOrPut(DependencyClosureKey(vertex.plugin, ide)) { buildDependencyClosure(vertex, ide) }
+        if (closure is DependencyClosure.Recorded && closure.canBeAddedTo(this)) {
+          closure.addTo(this, vertex)
+          return
         }
       }
+      addTransitiveDependencies(vertex)
+    }
 
-      val dependencies = arrayListOf<PluginDependency>()
-      dependencies += vertex.plugin.dependencies
-      dependencies += getRecursiveOptionalDependencies(vertex.plugin).map { PluginDependencyImpl(it.id, true, it.isModule) }
-
-      for (pluginDependency in dependencies) {
-        // OS and architecture dependencies are Marketplace compatibility metadata. They can be excluded from the
-        // verification graph because the verifier IDE only contains modules matching its own platform.
-        if (ignoreOsArch && pluginDependency.isPlatformConstraint) continue
-
-        val resolvedDependency = resolveDependency(pluginProvider, vertex, pluginDependency, graph, missingDependencies)
-          ?: continue
-
-        addTransitiveDependencies(pluginProvider, graph, resolvedDependency, missingDependencies)
-
-        /**
-         * Skip the dependency onto itself.
-         * An example of a plugin that declares a transitive dependency
-         * on itself through modules dependencies is the 'IDEA CORE' plugin:
-         *
-         * PlatformLangPlugin.xml (declares module 'com.intellij.modules.lang') ->
-         *   x-include /idea/RichPlatformPlugin.xml ->
-         *   x-include /META-INF/DesignerCorePlugin.xml ->
-         *   depends on module 'com.intellij.modules.lang'
-         */
-        if (vertex.plugin != resolvedDependency.plugin) {
-          graph.addEdge(vertex, resolvedDependency, DepEdge(pluginDependency, vertex, resolvedDependency))
+    fun addTransitiveDependencies(vertex: DepVertex) {
+      if (graph.addVertex(vertex)) {
+
+        for (moduleId in vertex.plugin.incompatibleModules) { // TODO migrate: moduleId is pluginId
+          val result = findPluginDependency(moduleId, true)
+          if (result is DependencyFinder.Result.DetailsProvided && result.pluginDetailsCacheResult is PluginDetailsCache.Result.Provided ||
+                  result is DependencyFinder.Result.FoundPlugin) {
+            val depMissingVertex = DepMissingVertex(vertex, PluginDependencyImpl(moduleId, false, true),
+                    "The plugin is incompatible with module '$moduleId'")
+            registerMissingDependency(DepId(moduleId, true), depMissingVertex)
+          }
+        }
+
+        val dependencies = arrayListOf<PluginDependency>()
+        dependencies += vertex.plugin.dependencies
+        dependencies += getRecursiveOptionalDependencies(vertex.plugin).map { PluginDependencyImpl(it.id, true, it.isModule) }
+
+        for (pluginDependency in dependencies) {
+          // OS and architecture dependencies are Marketplace compatibility metadata. They can be excluded from the
+          // verification graph because the verifier IDE only contains modules matching its own platform.
+          if (ignoreOsArch && pluginDependency.isPlatformConstraint) continue
+
+          val resolvedDependency = resolveDependency(vertex, pluginDependency)
+            ?: continue
+
+          addDependency(resolvedDependency)
+
+          /**
+           * Skip the dependency onto itself.
+           * An example of a plugin that declares a transitive dependency
+           * on itself through modules dependencies is the 'IDEA CORE' plugin:
+           *
+           * PlatformLangPlugin.xml (declares module 'com.intellij.modules.lang') ->
+           *   x-include /idea/RichPlatformPlugin.xml ->
+           *   x-include /META-INF/DesignerCorePlugin.xml ->
+           *   depends on module 'com.intellij.modules.lang'
+           */
+          if (vertex.plugin != resolvedDependency.plugin) {
+            addEdge(DepEdge(pluginDependency, vertex, resolvedDependency))
+          }
         }
       }
     }
-  }
 
-  private fun resolveDependency(
-    pluginProvider: PluginProvider,
-    vertex: DepVertex,
-    pluginDependency: PluginDependency,
-    graph: Graph<DepVertex, DepEdge>,
-    missingDependencies: MutableMap<DepId, MutableSet<DepMissingVertex>>
-  ): DepVertex? {
-    val (resolvedPluginDependency, depId) = pluginProvider.resolveIfModule(pluginDependency)
-
-    val existingVertex = graph.vertexSet().find {
-      if (depId.isModule) {
-        it.plugin.hasDefinedModuleWithId(depId.id)
-      } else {
-        it.plugin.pluginId == depId.id
-      }
+    fun addEdge(edge: DepEdge) {
+      graph.addEdge(edge.source, edge.target, edge.dependency)
+      addedEdges += edge
     }
-    if (existingVertex != null) {
-      return existingVertex
+
+    fun registerMissingDependency(depId: DepId, depMissingVertex: DepMissingVertex) {
+      missingDependencies.getOrPut(depId) { hashSetOf() } += depMissingVertex
+      registeredMissingDependencies += depId to depMissingVertex
+      touchedDepIds += depId
     }
 
-    fun registerMissingDependency(reason: String): DepVertex? {
-      missingDependencies.getOrPut(depId) { hashSetOf() } += DepMissingVertex(vertex, resolvedPluginDependency, reason)
-      return null
+    private fun resolveDependency(vertex: DepVertex, pluginDependency: PluginDependency): DepVertex? {
+      val (resolvedPluginDependency, depId) = ide.resolveIfModule(pluginDependency)
+      touchedDepIds += depId
+
+      val existingVertex = graph.vertices.find { it.matches(depId) }
+      if (existingVertex != null) {
+        return existingVertex
+      }
+
+      fun registerMissingDependency(reason: String): DepVertex? {
+        this.registerMissingDependency(depId, DepMissingVertex(vertex, resolvedPluginDependency, reason))
+        return null
+      }
+
+      if (depId in missingDependencies) {
+        val sameReason = missingDependencies[depId]!!.first().reason
+        return registerMissingDependency(sameReason)
+      }
+
+      return when (val result = findPluginDependency(resolvedPluginDependency)) {
+        is DependencyFinder.Result.FoundPlugin -> DepVertex(result.plugin, result)
+        is DependencyFinder.Result.DetailsProvided -> {
+          when (val cacheResult = result.pluginDetailsCacheResult) {
+            is PluginDetailsCache.Result.Provided -> DepVertex(cacheResult.pluginDetails.idePlugin, result)
+            is PluginDetailsCache.Result.InvalidPlugin -> registerMissingDependency(
+              cacheResult.pluginErrors.filter { it.level == PluginProblem.Level.ERROR }.joinToString()
+            )
+            is PluginDetailsCache.Result.Failed -> registerMissingDependency(cacheResult.reason)
+            is PluginDetailsCache.Result.FileNotFound -> registerMissingDependency(cacheResult.reason)
+          }
+        }
+        is DependencyFinder.Result.NotFound -> registerMissingDependency(result.reason)
+      }
     }
+  }
 
-    if (depId in missingDependencies) {
-      val sameReason = missingDependencies[depId]!!.first().reason
-      return registerMissingDependency(sameReason)
+  /**
+   * Traverses dependencies of the [root] in an empty graph and records the traversal.
+   * The traversal that met dependencies provided by the plugin details cache is not recorded,
+   * and all the results it obtained are closed.
+   */
+  private fun buildDependencyClosure(root: DepVertex, ide: Ide): DependencyClosure {
+    val traversal = DependenciesTraversal(ide, reuseClosures = false)
+    traversal.addTransitiveDependencies(root)
+    if (!traversal.isMemoizable) {
+      traversal.closeResultsExcept(emptyList())
+      return DependencyClosure.NotReusable
     }
+    return with(traversal) {
+      DependencyClosure.Recorded(
+        root,
+        graph.vertices.toList(),
+        addedEdges,
+        registeredMissingDependencies,
+        touchedDepIds
+      )
+    }
+  }
 
-    return when (val result = dependencyFinder.findPluginDependency(resolvedPluginDependency)) {
-      is DependencyFinder.Result.FoundPlugin -> DepVertex(result.plugin, result)
-      is DependencyFinder.Result.DetailsProvided -> {
-        when (val cacheResult = result.pluginDetailsCacheResult) {
-          is PluginDetailsCache.Result.Provided -> DepVertex(cacheResult.pluginDetails.idePlugin, result)
-          is PluginDetailsCache.Result.InvalidPlugin -> registerMissingDependency(
-            cacheResult.pluginErrors.filter { it.level == PluginProblem.Level.ERROR }.joinToString()
-          )
-          is PluginDetailsCache.Result.Failed -> registerMissingDependency(cacheResult.reason)
-          is PluginDetailsCache.Result.FileNotFound -> registerMissingDependency(cacheResult.reason)
+  private sealed class DependencyClosure {
+
+    /**
+     * Closure that cannot be reused, so the dependencies are always traversed.
+     */
+    object NotReusable : DependencyClosure()
+
+    /**
+     * Recorded traversal of transitive dependencies of the [root] started in an empty graph:
+     * added [vertices] in the order of addition, [edges] and [missingDependencies] in the order of registration,
+     * and [touchedDepIds] that were looked up in the graph or registered as missing.
+     */
+    class Recorded(
+      private val root: DepVertex,
+      private val vertices: List<DepVertex>,
+      private val edges: List<DepEdge>,
+      private val missingDependencies: List<Pair<DepId, DepMissingVertex>>,
+      private val touchedDepIds: Set<DepId>
+    ) : DependencyClosure() {
+      private val touchedPluginIds = touchedDepIds.filterNot { it.isModule }.mapTo(hashSetOf()) { it.id }
+
+      private val touchedModuleIds = touchedDepIds.filter { it.isModule }.map { it.id }
+
+      /**
+       * Checks that the traversal in the graph of the [traversal] would repeat the recorded one:
+       * none of the vertices is visited already, and none of the looked up dependencies
+       * is resolved to a vertex of the graph or is registered as missing already.
+       */
+      fun canBeAddedTo(traversal: DependenciesTraversal): Boolean {
+        val graph = traversal.graph
+        return vertices.none { it in graph }
+          && touchedDepIds.none { it in traversal.missingDependencies }
+          && graph.vertices.none { vertex ->
+            vertex.plugin.pluginId in touchedPluginIds || touchedModuleIds.any { vertex.plugin.hasDefinedModuleWithId(it) }
+          }
+      }
+
+      /**
+       * Repeats the recorded traversal in the graph of the [traversal], where the root of the closure is [rootVertex].
+       */
+      fun addTo(traversal: DependenciesTraversal, rootVertex: DepVertex) {
+        fun DepVertex.inTraversal() = if (this == root) rootVertex else this
+
+        vertices.forEach { traversal.graph.addVertex(it.inTraversal()) }
+        edges.forEach { traversal.addEdge(DepEdge(it.dependency, it.source.inTraversal(), it.target.inTraversal())) }
+        missingDependencies.forEach { (depId, missingVertex) ->
+          traversal.registerMissingDependency(depId, missingVertex.copy(vertex = missingVertex.vertex.inTraversal()))
         }
+        traversal.touchedDepIds += touchedDepIds
       }
-      is DependencyFinder.Result.NotFound -> registerMissingDependency(result.reason)
     }
   }
 
+  private data class DependencyClosureKey(val plugin: IdePlugin, val ide: Ide)
+
+  private fun DepVertex.matches(depId: DepId): Boolean =
+    if (depId.isModule) {
+      plugin.hasDefinedModuleWithId(depId.id)
+    } else {
+      plugin.pluginId == depId.id
+    }
+
   private fun getRecursiveOptionalDependencies(plugin: IdePlugin): List<PluginDependency> {
     val allDependencies = arrayListOf<PluginDependency>()
     for (optionalDescriptor in plugin.optionalDescriptors) {
@@ -161,19 +320,14 @@ class DependenciesGraphBuilder(
    *
    * So let's forcibly add Java as an optional dependency for such plugins.
    */
-  private fun maybeAddOptionalJavaPluginDependency(
-    plugin: IdePlugin,
-    ide: Ide,
-    graph: Graph<DepVertex, DepEdge>,
-    missingDependencies: MutableMap<DepId, MutableSet<DepMissingVertex>>
-  ) {
+  private fun maybeAddOptionalJavaPluginDependency(plugin: IdePlugin, ide: Ide, traversal: DependenciesTraversal) {
     if (ide.findPluginByModule(ALL_MODULES_ID) == null) {
       return
     }
     val isLegacyPlugin = plugin.dependencies.none { it.isModule }
     val isCustomPlugin = ide.bundledPlugins.none { it.pluginId == plugin.pluginId }
     if (isCustomPlugin || isLegacyPlugin) {
-      val dependencyResult = dependencyFinder.findPluginDependency(JAVA_MODULE_ID, true)
+      val dependencyResult = traversal.findPluginDependency(JAVA_MODULE_ID, true)
       val javaPlugin = when (dependencyResult) {
         is DependencyFinder.Result.DetailsProvided -> {
           val providedCacheEntry = dependencyResult.pluginDetailsCacheResult as? PluginDetailsCache.Result.Provided
@@ -183,7 +337,7 @@ class DependenciesGraphBuilder(
         is DependencyFinder.Result.NotFound -> null
       } ?: return
       val javaPluginVertex = DepVertex(javaPlugin, dependencyResult)
-      addTransitiveDependencies(ide, graph, javaPluginVertex, missingDependencies)
+      traversal.addDependency(javaPluginVertex)
     }
   }
 
@@ -193,18 +347,14 @@ class DependenciesGraphBuilder(
    *
    * We would like to emulate this behaviour by forcibly adding such plugins to the verification classpath.
    */
-  private fun maybeAddBundledPluginsWithUseIdeaClassLoader(
-    ide: Ide,
-    graph: Graph<DepVertex, DepEdge>,
-    missingDependencies: MutableMap<DepId, MutableSet<DepMissingVertex>>
-  ) {
+  private fun maybeAddBundledPluginsWithUseIdeaClassLoader(ide: Ide, traversal: DependenciesTraversal) {
     for (bundledPlugin in ide.bundledPlugins) {
       if (bundledPlugin.useIdeClassLoader && bundledPlugin.pluginId != null) {
         val dependencyId = bundledPlugin.pluginId!!
         val pluginDependency = PluginV1Dependency.Optional(dependencyId)
-        val dependencyResult = dependencyFinder.findPluginDependency(pluginDependency.id, pluginDependency.isModule)
+        val dependencyResult = traversal.findPluginDependency(pluginDependency.id, pluginDependency.isModule)
         val bundledVertex = DepVertex(bundledPlugin, dependencyResult)
-        addTransitiveDependencies(ide, graph, bundledVertex, missingDependencies)
+        traversal.addDependency(bundledVertex)
       }
     }
   }
@@ -248,15 +398,7 @@ private data class DepVertex(val plugin: IdePlugin, val dependencyResult: Depend
   override fun hashCode() = plugin.hashCode()
 }
 
-private data class DepEdge(
-  val dependency: PluginDependency,
-  private val sourceVertex: DepVertex,
-  private val targetVertex: DepVertex
-) : DefaultEdge() {
-  override fun getSource() = sourceVertex
-
-  override fun getTarget() = targetVertex
-}
+private data class DepEdge(val dependency: PluginDependency, val source: DepVertex, val target: DepVertex)
 
 private data class DepId(val id: String, val isModule: Boolean)
 
@@ -265,16 +407,15 @@ private data class DepMissingVertex(val vertex: DepVertex, val pluginDependency:
 private class DepGraph2ApiGraphConverter {
 
   fun convert(
-    graph: Graph<DepVertex, DepEdge>,
+    graph: CompactDigraph<DepVertex, PluginDependency>,
     startVertex: DepVertex,
     vertexMissingDependencies: Map<DepId, Set<DepMissingVertex>>
   ): DependenciesGraph {
     val startNode = startVertex.toDependencyNode()
-    val vertices = graph.vertexSet().mapNotNullTo(LinkedHashSet()) { it.toDependencyNode() }
-    val edges = graph.edgeSet().mapNotNullTo(LinkedHashSet()) { edge ->
-      val from = graph.getEdgeSource(edge).toDependencyNode()
-      val to = graph.getEdgeTarget(edge).toDependencyNode()
-      DependencyEdge(from, to, edge.dependency)
+    val vertices = graph.vertices.mapTo(LinkedHashSet()) { it.toDependencyNode() }
+    val edges = LinkedHashSet<DependencyEdge>(graph.edgeCount)
+    graph.forEachEdge { from, to, dependency ->
+      edges += DependencyEdge(from.toDependencyNode(), to.toDependencyNode(), dependency)
     }
     val missingDependencies = hashMapOf<DependencyNode, MutableSet<MissingDependency>>()
     for ((_, missingDeps) in vertexMissingDependencies) {
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.dependencies.processing
+
+import java.util.*
+
+/**
+ * Directed graph without parallel edges, whose vertices of type [V] are interned to int indices
+ * and whose edges labelled with [E] are stored as int adjacency arrays in the compressed sparse row format.
+ *
+ * Vertices and edges are iterated in the order they were added to the [Builder],
+ * and the successors of a vertex are iterated in the order their edges were added.
+ */
+class CompactDigraph<V : Any, E : Any> private constructor(
+  private val vertexTable: List<V>,
+  private val vertexIndices: Map<V, Int>,
+  private val edgeSources: IntArray,
+  private val edgeTargets: IntArray,
+  private val edgeLabels: List<E>
+) {
+
+  /**
+   * Edges of the `i`-th vertex are `successorEdges[successorOffsets[i] until successorOffsets[i + 1]]`.
+   */
+  private val successorOffsets = IntArray(vertexTable.size + 1)
+
+  private val successorEdges = IntArray(edgeSources.size)
+
+  init {
+    edgeSources.forEach { successorOffsets[it + 1]++ }
+    for (i in 0 until vertexTable.size) {
+      successorOffsets[i + 1] += successorOffsets[i]
+    }
+    val nextPositions = successorOffsets.copyOf(vertexTable.size)
+    for (edge in edgeSources.indices) {
+      successorEdges[nextPositions[edgeSources[edge]]++] = edge
+    }
+  }
+
+  private val predecessorOffsets: IntArray by lazy {
+    val offsets = IntArray(vertexTable.size + 1)
+    edgeTargets.forEach { offsets[it + 1]++ }
+    for (i in 0 until vertexTable.size) {
+      offsets[i + 1] += offsets[i]
+    }
+    offsets
+  }
+
+  private val predecessorEdges: IntArray by lazy {
+    val edges = IntArray(edgeTargets.size)
+    val nextPositions = predecessorOffsets.copyOf(vertexTable.size)
+    for (edge in edgeTargets.indices) {
+      edges[nextPositions[edgeTargets[edge]]++] = edge
+    }
+    edges
+  }
+
+  val vertices: List<V>
+    get() = vertexTable
+
+  val edgeCount: Int
+    get() = edgeSources.size
+
+  operator fun contains(vertex: V): Boolean = vertex in vertexIndices
+
+  /**
+   * Invokes [action] for every edge in the order of addition.
+   */
+  fun forEachEdge(action: (from: V, to: V, label: E) -> Unit) {
+    for (edge in edgeSources.indices) {
+      action(vertexTable[edgeSources[edge]], vertexTable[edgeTargets[edge]], edgeLabels[edge])
+    }
+  }
+
+  /**
+   * Returns vertices reachable from the [vertex] by one or more edges, in the breadth-first order.
+   * The [vertex] itself belongs to the result only if it lies on a cycle.
+   */
+  fun getReachableVertices(vertex: V): Set<V> {
+    val reachable = LinkedHashSet<V>()
+    val visited = BitSet(vertexTable.size)
+    // The vertex is queued once more if it lies on a cycle.
+    val queue = IntArrayQueue(vertexTable.size + 1)
+    queue.add(indexOf(vertex))
+    while (queue.isNotEmpty()) {
+      forEachSuccessor(queue.remove()) { next ->
+        if (!visited[next]) {
+          visited.set(next)
+          reachable += vertexTable[next]
+          queue.add(next)
+        }
+      }
+    }
+    return reachable
+  }
+
+  /**
+   * Returns labels of the edges of the shortest path from the [from] vertex to the [to] vertex,
+   * or `null` if the [to] vertex is not reachable. The path from a vertex to itself is empty.
+   */
+  fun findShortestPath(from: V, to: V): List<E>? {
+    val start = indexOf(from)
+    val end = indexOf(to)
+    if (start == end) return emptyList()
+
+    val parentEdges = IntArray(vertexTable.size) { -1 }
+    val queue = IntArrayQueue(vertexTable.size)
+    queue.add(start)
+    while (queue.isNotEmpty()) {
+      val current = queue.remove()
+      for (position in successorOffsets[current] until successorOffsets[current + 1]) {
+        val edge = successorEdges[position]
+        val next = edgeTargets[edge]
+        if (next != start && parentEdges[next] == -1) {
+          parentEdges[next] = edge
+          if (next == end) {
+            return generateSequence(edge) { parentEdges[edgeSources[it]].takeIf { parent -> parent != -1 } }
+              .map { edgeLabels[it] }
+              .toList()
+              .asReversed()
+          }
+          queue.add(next)
+        }
+      }
+    }
+    return null
+  }
+
+  /**
+   * Finds the shortest cycle passing through the [start] vertex within its strongly connected component.
+   * Returns the cycle as an ordered list of vertices beginning with [start],
+   * or `null` if the component consists of the [start] vertex only.
+   */
+  fun findCycleThrough(start: V): List<V>? {
+    val startIndex = indexOf(start)
+    val component = getStronglyConnectedComponent(startIndex)
+    if (component.cardinality() <= 1) return null
+
+    val parents = IntArray(vertexTable.size) { -1 }
+    val queue = IntArrayQueue(component.cardinality())
+    queue.add(startIndex)
+    while (queue.isNotEmpty()) {
+      val current = queue.remove()
+      for (position in successorOffsets[current] until successorOffsets[current + 1]) {
+        val next = edgeTargets[successorEdges[position]]
+        if (!component[next]) continue
+        if (next == startIndex) {
+          return generateSequence(current) { parents[it].takeIf { parent -> parent != -1 } }
+            .map { vertexTable[it] }
+            .toMutableList()
+            .asReversed()
+        }
+        if (parents[next] == -1) {
+          parents[next] = current
+          queue.add(next)
+        }
+      }
+    }
+    return null
+  }
+
+  /**
+   * Vertices that are both reachable from the vertex and reach it, including the vertex itself.
+   */
+  private fun getStronglyConnectedComponent(index: Int): BitSet {
+    val forward = traverse(index, successorOffsets, successorEdges, edgeTargets)
+    val backward = traverse(index, predecessorOffsets, predecessorEdges, edgeSources)
+    forward.and(backward)
+    return forward
+  }
+
+  private fun traverse(index: Int, offsets: IntArray, edges: IntArray, ends: IntArray): BitSet {
+    val visited = BitSet(vertexTable.size)
+    visited.set(index)
+    val queue = IntArrayQueue(vertexTable.size)
+    queue.add(index)
+    while (queue.isNotEmpty()) {
+      val current = queue.remove()
+      for (position in offsets[current] until offsets[current + 1]) {
+        val next = ends[edges[position]]
+        if (!visited[next]) {
+          visited.set(next)
+          queue.add(next)
+        }
+      }
+    }
+    return visited
+  }
+
+  private inline fun forEachSuccessor(index: Int, action: (Int) -> Unit) {
+    for (position in successorOffsets[index] until successorOffsets[index + 1]) {
+      action(edgeTargets[successorEdges[position]])
+    }
+  }
+
+  private fun indexOf(vertex: V): Int =
+    requireNotNull(vertexIndices[vertex]) { "Vertex $vertex does not belong to the graph" }
+
+  /**
+   * Queue of vertex indices, each of which is added at most once.
+   */
+  private class IntArrayQueue(capacity: Int) {
+    private val elements = IntArray(capacity)
+    private var head = 0
+    private var tail = 0
+
+    fun add(element: Int) {
+      elements[tail++] = element
+    }
+
+    fun remove(): Int = elements[head++]
+
+    fun isNotEmpty() = head < tail
+  }
+
+  /**
+   * Collects vertices and edges of a [CompactDigraph].
+   * Vertices are interned by [equals] and [hashCode], so equal vertices are added only once.
+   */
+  class Builder<V : Any, E : Any> {
+    private val vertexTable = arrayListOf<V>()
+    private val vertexIndices = hashMapOf<V, Int>()
+    private var edgeSources = IntArray(16)
+    private var edgeTargets = IntArray(16)
+    private val edgeLabels = arrayListOf<E>()
+    private val edgeKeys = hashSetOf<Long>()
+
+    /**
+     * Added vertices in the order of addition.
+     */
+    val vertices: List<V>
+      get() = vertexTable
+
+    operator fun contains(vertex: V): Boolean = vertex in vertexIndices
+
+    /**
+     * Adds the [vertex] unless an equal one is added already. Returns `true` if the vertex is added.
+     */
+    fun addVertex(vertex: V): Boolean {
+      if (vertex in vertexIndices) return false
+      vertexIndices[vertex] = vertexTable.size
+      vertexTable += vertex
+      return true
+    }
+
+    /**
+     * Adds the edge between the vertices added before unless there is an edge between them already.
+     * Returns `true` if the edge is added.
+     */
+    fun addEdge(from: V, to: V, label: E): Boolean {
+      val source = requireNotNull(vertexIndices[from]) { "Vertex $from does not belong to the graph" }
+      val target = requireNotNull(vertexIndices[to]) { "Vertex $to does not belong to the graph" }
+      if (!edgeKeys.add(source.toLong() shl 32 or target.toLong())) return false
+
+      val edge = edgeLabels.size
+      if (edge == edgeSources.size) {
+        edgeSources = edgeSources.copyOf(edge * 2)
+        edgeTargets = edgeTargets.copyOf(edge * 2)
+      }
+      edgeSources[edge] = source
+      edgeTargets[edge] = target
+      edgeLabels += label
+      return true
+    }
+
+    fun build(): CompactDigraph<V, E> = CompactDigraph(
+      vertexTable.toList(),
+      HashMap(vertexIndices),
+      edgeSources.copyOf(edgeLabels.size),
+      edgeTargets.copyOf(edgeLabels.size),
+      edgeLabels.toList()
+    )
+  }
+}
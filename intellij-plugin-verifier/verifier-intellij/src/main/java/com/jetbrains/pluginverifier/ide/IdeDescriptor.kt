@@ -9,17 +9,25 @@ import com.jetbrains.plugin.structure.base.utils.closeOnException
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver
 import com.jetbrains.plugin.structure.classes.resolvers.Resolver.ReadMode
 import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.ide.IdeSnapshot
 import com.jetbrains.plugin.structure.ide.classes.IdeResolverConfiguration
 import com.jetbrains.plugin.structure.ide.classes.IdeResolverCreator
 import com.jetbrains.plugin.structure.ide.createIde
 import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode
+import com.jetbrains.pluginverifier.getSharedClassCacheSize
 import com.jetbrains.pluginverifier.jdk.DefaultJdkDescriptorProvider
 import com.jetbrains.pluginverifier.jdk.JdkDescriptor
 import com.jetbrains.pluginverifier.jdk.JdkDescriptorProvider.Result.Found
 import com.jetbrains.pluginverifier.repository.files.FileLock
+import com.jetbrains.pluginverifier.resolution.SharedClassCache
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 import java.io.Closeable
+import java.io.IOException
 import java.nio.file.Path
 
+private val LOG: Logger = LoggerFactory.getLogger(IdeDescriptor::class.java)
+
 /**
  * Holds IDE objects necessary for verification.
  *
@@ -28,6 +36,7 @@ import java.nio.file.Path
  * - [jdkDescriptor] - JDK used to run the IDE: a bundled JDK if available or a specified default JDK
  * - [ideFileLock] - a lock to protect the IDE file from deletion.
  * It will be closed along with `this` descriptor.
+ * - [classCache] - cache of IDE and JDK classes shared by all verifications against this IDE.
  */
 data class IdeDescriptor(
   val ide: Ide,
@@ -40,9 +49,18 @@ data class IdeDescriptor(
 
   val jdkVersion get() = jdkDescriptor.jdkVersion
 
+  val classCache = SharedClassCache(getSharedClassCacheSize())
+
   override fun toString() = ideVersion.toString()
 
   override fun close() {
+    if (LOG.isDebugEnabled) {
+      LOG.debug(
+        "Closing IDE descriptor {}. {}. Class name filters: {}",
+        ideVersion, classCache, ideResolver.classNameFilterStatistics.presentableSummary
+      )
+    }
+    classCache.invalidateAll()
     ideResolver.closeLogged()
     jdkDescriptor.closeLogged()
     ideFileLock.closeLogged()
@@ -75,10 +93,51 @@ data class IdeDescriptor(
       ideFileLock: FileLock?,
       missingLayoutClasspathFileMode: MissingLayoutFileMode
     ): IdeDescriptor {
-      val ideResolverConfiguration = IdeResolverConfiguration(ReadMode.FULL, missingLayoutClasspathFileMode)
-      val ide = createIde {
-        path = idePath
-        missingLayoutFileMode = missingLayoutClasspathFileMode
+      return create(idePath, defaultJdkPath, ideFileLock, missingLayoutClasspathFileMode, null)
+    }
+
+    /**
+     * Creates [IdeDescriptor] for specified [idePath].
+     * [ideFileLock] will be released when this [IdeDescriptor] is closed.
+     *
+     * @param missingLayoutClasspathFileMode Behavior what to do on missing layout classpath entries.
+     * @param classIndexPath File of the persistent index of the IDE classes, which is written if it is missing or stale.
+     */
+    fun create(
+      idePath: Path,
+      defaultJdkPath: Path?,
+      ideFileLock: FileLock?,
+      missingLayoutClasspathFileMode: MissingLayoutFileMode,
+      classIndexPath: Path?
+    ): IdeDescriptor {
+      return create(idePath, defaultJdkPath, ideFileLock, missingLayoutClasspathFileMode, classIndexPath, null)
+    }
+
+    /**
+     * Creates [IdeDescriptor] for specified [idePath].
+     * [ideFileLock] will be released when this [IdeDescriptor] is closed.
+     *
+     * @param missingLayoutClasspathFileMode Behavior what to do on missing layout classpath entries.
+     * @param classIndexPath File of the persistent index of the IDE classes, which is written if it is missing or stale.
+     * @param snapshotPath File of the persistent [snapshot][IdeSnapshot] of the IDE model, which is written if it is missing or stale.
+     */
+    fun create(
+      idePath: Path,
+      defaultJdkPath: Path?,
+      ideFileLock: FileLock?,
+      missingLayoutClasspathFileMode: MissingLayoutFileMode,
+      classIndexPath: Path?,
+      snapshotPath: Path?
+    ): IdeDescriptor {
+      val ideResolverConfiguration = IdeResolverConfiguration(
+        ReadMode.FULL,
+        missingLayoutClasspathFileMode,
+        classIndexPath = classIndexPath
+      )
+      val ide = if (snapshotPath != null) {
+        getIdeFromSnapshot(idePath, missingLayoutClasspathFileMode, snapshotPath)
+      } else {
+        readIde(idePath, missingLayoutClasspathFileMode)
       }
       val ideResolver = IdeResolverCreator.createIdeResolver(ide, ideResolverConfiguration)
       ideResolver.closeOnException {
@@ -88,6 +147,25 @@ data class IdeDescriptor(
         }
       }
     }
+
+    private fun getIdeFromSnapshot(idePath: Path, missingLayoutFileMode: MissingLayoutFileMode, snapshotPath: Path): Ide {
+      IdeSnapshot.read(snapshotPath, idePath, missingLayoutFileMode)?.let {
+        LOG.debug("IDE {} is restored from the snapshot '{}'", it.version, snapshotPath)
+        return it
+      }
+      val ide = readIde(idePath, missingLayoutFileMode)
+      try {
+        IdeSnapshot.write(snapshotPath, ide, missingLayoutFileMode)
+      } catch (e: IOException) {
+        LOG.warn("IDE snapshot cannot be written to '{}': {}", snapshotPath, e.message)
+      }
+      return ide
+    }
+
+    private fun readIde(idePath: Path, missingLayoutFileMode: MissingLayoutFileMode): Ide = createIde {
+      path = idePath
+      this.missingLayoutFileMode = missingLayoutFileMode
+    }
   }
 
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ package com.jetbrains.pluginverifier.ide
 
 import com.jetbrains.plugin.structure.base.utils.closeLogged
 import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.plugin.structure.ide.layout.MissingLayoutFileMode
 import com.jetbrains.plugin.structure.intellij.version.IdeVersion
 import com.jetbrains.pluginverifier.repository.cache.ResourceCacheEntry
 import com.jetbrains.pluginverifier.repository.cache.ResourceCacheEntryResult
@@ -74,7 +75,14 @@ class IdeDescriptorsCache(cacheSize: Int, ideFilesBank: IdeFilesBank, defaultJdk
         is IdeFilesBank.Result.Found -> {
           val ideLock = result.ideFileLock
           val ideDescriptor = try {
-            IdeDescriptor.create(ideLock.file, defaultJdkPath, ideLock)
+            IdeDescriptor.create(
+              ideLock.file,
+              defaultJdkPath,
+              ideLock,
+              MissingLayoutFileMode.SKIP_AND_WARN,
+              ideFilesBank.getClassIndexFile(ideLock.file),
+              ideFilesBank.getSnapshotFile(ideLock.file)
+            )
           } catch (e: Exception) {
             ideLock.closeLogged()
             e.rethrowIfInterrupted()
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.incremental
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.base.utils.binaryClassNames
+import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
+import com.jetbrains.pluginverifier.PluginVerificationTarget
+import com.jetbrains.pluginverifier.toTarget
+import com.jetbrains.pluginverifier.verifiers.ClassResult
+import com.jetbrains.pluginverifier.verifiers.ClassVerificationListener
+import com.jetbrains.pluginverifier.verifiers.PluginVerificationContext
+import com.jetbrains.pluginverifier.verifiers.filter.ClassFilter
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+private val LOG: Logger = LoggerFactory.getLogger(IncrementalClassVerification::class.java)
+
+/**
+ * Verifies only the plugin classes that changed since the previous verification saved in the [store],
+ * and replays the results of the unchanged classes to the [context].
+ *
+ * A class is unchanged if the environment of the verification has the same fingerprint
+ * (the IDE, the JDK, the dependencies of the plugin and the verification options),
+ * the class and its supertypes have the same content,
+ * and all classes the class references, of the plugin, the IDE, the JDK or the dependencies,
+ * have the same content and supertypes.
+ *
+ * The instance is passed to the [com.jetbrains.pluginverifier.verifiers.BytecodeVerifier]
+ * to record results of the changed classes, which are [saved][saveResults] to the [store] after the verification.
+ */
+class IncrementalClassVerification(
+  private val store: VerificationResultStore,
+  private val context: PluginVerificationContext,
+  classFilters: List<ClassFilter>
+) : ClassVerificationListener {
+
+  private val key = with(context.verificationDescriptor) { VerificationResultStore.Key(checkedPlugin.pluginId, toTarget()) }
+
+  private val environmentFingerprint = getEnvironmentFingerprint(classFilters)
+
+  private val digests = PluginClassDigests(context.pluginResolver, context.classResolver)
+
+  private val replayedClasses = hashMapOf<String, StoredClassVerification>()
+
+  private val verifiedClassResults = ConcurrentHashMap<String, List<ClassResult>>()
+
+  val replayedClassesCount: Int
+    get() = replayedClasses.size
+
+  /**
+   * Replays the stored results of unchanged [classes] and returns the classes that must be verified.
+   */
+  fun replayUnchangedClasses(classes: Set<BinaryClassName>): Set<BinaryClassName> {
+    val stored = store.get(key)
+    if (stored == null || stored.environmentFingerprint != environmentFingerprint) {
+      return classes
+    }
+    val classesToVerify = binaryClassNames()
+    for (className in classes) {
+      val storedClass = stored.classes[className.toString()]
+      if (storedClass != null && storedClass.isUpToDate(className.toString())) {
+        context.replayClassResults(storedClass.results)
+        replayedClasses[className.toString()] = storedClass
+      } else {
+        classesToVerify += className
+      }
+    }
+    LOG.debug("Replayed results of {} unchanged classes of {}, {} classes will be verified", replayedClasses.size, key.pluginId, classesToVerify.size)
+    return classesToVerify
+  }
+
+  override fun classVerificationStarted(className: BinaryClassName) {
+    context.startRecordingClassResults()
+  }
+
+  override fun classVerificationFinished(className: BinaryClassName) {
+    verifiedClassResults[className.toString()] = context.stopRecordingClassResults()
+  }
+
+  /**
+   * Saves the results of the replayed and the verified classes to the [store].
+   */
+  fun saveResults() {
+    val classes = HashMap<String, StoredClassVerification>(replayedClasses)
+    for ((className, results) in verifiedClassResults) {
+      val hierarchyHash = digests.getHierarchyHash(className) ?: continue
+      val digest = digests.getDigest(className) ?: continue
+      val referenceFingerprints = digest.references.associateWith { digests.getReferenceFingerprint(it) }
+      classes[className] = StoredClassVerification(hierarchyHash, referenceFingerprints, results)
+    }
+    store.put(key, StoredPluginVerification(environmentFingerprint, classes))
+  }
+
+  private fun StoredClassVerification.isUpToDate(className: String): Boolean =
+    hierarchyHash == digests.getHierarchyHash(className)
+      && referenceFingerprints.all { (referencedClass, fingerprint) -> fingerprint == digests.getReferenceFingerprint(referencedClass) }
+
+  private fun getEnvironmentFingerprint(classFilters: List<ClassFilter>): String {
+    val dependenciesGraph = context.dependenciesGraph
+    val fingerprint = buildString {
+      when (val target = key.target) {
+        is PluginVerificationTarget.IDE -> appendLine("IDE ${target.ideVersion.asString()} ${target.jdkVersion}")
+        is PluginVerificationTarget.Plugin -> appendLine("Plugin ${target.plugin} ${target.jdkVersion}")
+      }
+      appendLine("Plugin ${key.pluginId} by ${context.idePlugin.vendor}")
+      dependenciesGraph.vertices.filter { it != dependenciesGraph.verifiedPlugin }.map { it.toString() }.sorted().forEach {
+        appendLine("Dependency $it")
+      }
+      dependenciesGraph.missingDependencies
+        .flatMap { (node, missingDependencies) -> missingDependencies.map { "${node.id} -> $it" } }
+        .sorted()
+        .forEach { appendLine("Missing dependency $it") }
+      appendLine("External classes ${context.externalClassesPackageFilter}")
+      appendLine("Class filters ${classFilters.map { it.javaClass.name }.sorted()}")
+      appendPluginResourceBundles()
+    }
+    return sha256(fingerprint.toByteArray())
+  }
+
+  /**
+   * Resource bundles of the plugin are resolved by verification of property usages.
+   */
+  private fun StringBuilder.appendPluginResourceBundles() {
+    for (baseName in context.pluginResolver.allBundleNameSet.baseBundleNames.sorted()) {
+      val bundle = context.pluginResolver.resolveExactPropertyResourceBundle(baseName, Locale.ROOT)
+      if (bundle is ResolutionResult.Found) {
+        appendLine("Bundle $baseName")
+        bundle.value.keySet().sorted().forEach { appendLine("$it=${bundle.value.getString(it)}") }
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.incremental
+
+import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.commons.ClassRemapper
+import org.objectweb.asm.commons.Remapper
+import org.objectweb.asm.tree.ClassNode
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.Optional
+
+/**
+ * Digest of a plugin class: hash of its bytecode, its direct parents and the classes it references.
+ */
+class ClassDigest(val contentHash: String, val parents: List<String>, val references: Set<String>) {
+  companion object {
+    fun of(classNode: ClassNode): ClassDigest {
+      val references = hashSetOf<String>()
+      val writer = ClassWriter(0)
+      classNode.accept(ClassRemapper(writer, object : Remapper() {
+        override fun map(internalName: String): String {
+          references += internalName
+          return internalName
+        }
+      }))
+      references -= classNode.name
+      val parents = listOfNotNull(classNode.superName) + classNode.interfaces.orEmpty()
+      return ClassDigest(sha256(writer.toByteArray()), parents, references)
+    }
+  }
+}
+
+/**
+ * Computes [digests][ClassDigest] of classes of a plugin resolved by [pluginResolver].
+ *
+ * Classes referenced by the plugin that are not plugin classes are resolved by the [classResolver],
+ * which resolves the classes of the IDE, the JDK and the dependencies, and fingerprinted by their content
+ * and the content of their supertypes, so a changed dependency invalidates the results of the classes referencing it.
+ *
+ * Not thread safe.
+ */
+class PluginClassDigests(private val pluginResolver: Resolver, private val classResolver: Resolver) {
+
+  private val digests = hashMapOf<String, Optional<ClassDigest>>()
+
+  private val hierarchyHashes = hashMapOf<String, String>()
+
+  private val hierarchyHashesInProgress = hashSetOf<String>()
+
+  /**
+   * Returns the digest of the plugin class, or `null` if the class is not a plugin class or is invalid.
+   */
+  fun getDigest(className: String): ClassDigest? =
+    if (pluginResolver.containsClass(className)) resolveDigest(className) else null
+
+  /**
+   * Returns the hash of the plugin class and all its supertypes, or `null` if the class is not a plugin class or is invalid.
+   *
+   * The hash changes when the class or any of its supertypes changes,
+   * which may change resolution of members referenced through the class.
+   */
+  fun getHierarchyHash(className: String): String? =
+    if (pluginResolver.containsClass(className)) resolveHierarchyHash(className) else null
+
+  /**
+   * Returns the fingerprint of the class referenced by a plugin class.
+   * The fingerprint changes if the referenced class or any of its supertypes changes, appears or disappears.
+   */
+  fun getReferenceFingerprint(className: String): String = when {
+    pluginResolver.containsClass(className) -> "plugin:" + (resolveHierarchyHash(className) ?: "invalid")
+    else -> resolveHierarchyHash(className)?.let { "external:$it" } ?: "unresolved"
+  }
+
+  private fun resolveDigest(className: String): ClassDigest? =
+    digests.getOrPut(className) {
+      val resolver = if (pluginResolver.containsClass(className)) pluginResolver else classResolver
+      val digest = (resolver.resolveClass(className) as? ResolutionResult.Found)?.value?.let { ClassDigest.of(it) }
+      Optional.ofNullable(digest)
+    }.orElse(null)
+
+  private fun resolveHierarchyHash(className: String): String? {
+    hierarchyHashes[className]?.let { return it }
+    val digest = resolveDigest(className) ?: return null
+    if (!hierarchyHashesInProgress.add(className)) {
+      // Cyclic inheritance: hash the class by its own content.
+      return digest.contentHash
+    }
+    try {
+      val parentFingerprints = digest.parents.joinToString(separator = "\n") { "$it=${getReferenceFingerprint(it)}" }
+      return sha256((digest.contentHash + "\n" + parentFingerprints).toByteArray()).also {
+        hierarchyHashes[className] = it
+      }
+    } finally {
+      hierarchyHashesInProgress -= className
+    }
+  }
+}
+
+internal fun sha256(bytes: ByteArray): String =
+  Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes))
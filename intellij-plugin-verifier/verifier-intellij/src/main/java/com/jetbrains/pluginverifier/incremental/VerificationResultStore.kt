@@ -0,0 +1,58 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.incremental
+
+import com.jetbrains.pluginverifier.PluginVerificationTarget
+import com.jetbrains.pluginverifier.verifiers.ClassResult
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Stores results of verification of plugin classes, so that the next verification
+ * of the same plugin against the same [target][PluginVerificationTarget] re-verifies only changed classes.
+ */
+interface VerificationResultStore {
+  fun get(key: Key): StoredPluginVerification?
+
+  fun put(key: Key, verification: StoredPluginVerification)
+
+  data class Key(val pluginId: String, val target: PluginVerificationTarget)
+}
+
+/**
+ * Results of verification of classes of a plugin.
+ *
+ * The results are valid only for the environment identified by [environmentFingerprint]:
+ * the IDE, the JDK, the dependencies and the verification options.
+ */
+class StoredPluginVerification(
+  val environmentFingerprint: String,
+  val classes: Map<String, StoredClassVerification>
+)
+
+/**
+ * Results registered by verification of a class.
+ *
+ * The results are valid as long as the class and its supertypes have the same [hierarchyHash]
+ * and all the classes it references have the same [fingerprints][referenceFingerprints].
+ */
+class StoredClassVerification(
+  val hierarchyHash: String,
+  val referenceFingerprints: Map<String, String>,
+  val results: List<ClassResult>
+)
+
+/**
+ * [VerificationResultStore] that keeps the results in memory for the lifetime of the process,
+ * for instance, of a long-running verification service.
+ */
+class InMemoryVerificationResultStore : VerificationResultStore {
+  private val verifications = ConcurrentHashMap<VerificationResultStore.Key, StoredPluginVerification>()
+
+  override fun get(key: VerificationResultStore.Key) = verifications[key]
+
+  override fun put(key: VerificationResultStore.Key, verification: StoredPluginVerification) {
+    verifications[key] = verification
+  }
+}
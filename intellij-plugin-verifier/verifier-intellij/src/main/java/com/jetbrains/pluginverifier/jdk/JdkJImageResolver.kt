@@ -84,7 +84,9 @@ class JdkJImageResolver(jdkPath: Path, override val readMode: ReadMode) : Resolv
     get() = classNameToModuleName.keys
 
   override val allClassNames: Set<BinaryClassName>
-    get() = allClassNames
+    get() = classNameToModuleName.keys
+
+  override val classNameFilter: ClassNameFilter by lazy { ClassNameFilter.of(classNameToModuleName.keys) }
 
   @Deprecated("Use 'packages' property instead. This property may be slow on some file systems.")
   override val allPackages
@@ -15,6 +15,7 @@ fun PluginTelemetry.toPlainString(): String {
     }
     appendLine("Plugin size (bytes): $archiveFileSize")
     appendLine(telemetry, PLUGIN_VERIFIED_CLASSES_COUNT, "Verified classes in plugin artifact")
+    appendLine(telemetry, PLUGIN_REPLAYED_CLASSES_COUNT, "Classes replayed from previous verification")
     telemetry[PLUGIN_VERIFICATION_TIME]?.let {
       if (it is Duration) {
         appendLine("Verification time: ${it.formatDuration()}")
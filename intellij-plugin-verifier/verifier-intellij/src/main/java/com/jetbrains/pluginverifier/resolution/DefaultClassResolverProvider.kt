@@ -85,8 +85,25 @@ class DefaultClassResolverProvider(
 
   private val dependenciesGraphProvider = DependenciesGraphProvider()
 
+  private val dependenciesGraphBuilder = DependenciesGraphBuilder(dependencyFinder, ignoreOsArch)
+
   private val classSearchContext = ClassSearchContext(archiveManager)
 
+  private val jdkResolver: Resolver by lazy {
+    ideDescriptor.classCache.wrap(ideDescriptor.jdkDescriptor.jdkResolver)
+  }
+
+  /**
+   * JDK and IDE classes visible to plugins that are resolved against the whole IDE.
+   * Shared by all verifications, so that its package index is built only once.
+   */
+  private val jdkAndIdeResolver: Resolver by lazy {
+    LazyCompositeResolver.create(
+      listOf(jdkResolver, ideDescriptor.classCache.wrap(ideDescriptor.ideResolver)),
+      "JDK and IDE resolver for ${ideDescriptor.ideVersion}"
+    )
+  }
+
   override fun provide(checkedPluginDetails: PluginDetails): ClassResolverProvider.Result {
     val closeableResources = arrayListOf<Closeable>()
     closeableResources.closeOnException {
@@ -96,8 +113,12 @@ class DefaultClassResolverProvider(
       val ideResolver = getIdeResolver(checkedPluginDetails.idePlugin, ideDescriptor)
       val allResolvers = mutableListOf<Resolver>()
       allResolvers += pluginResolver.also { closeableResources += it }
-      allResolvers += ideDescriptor.jdkDescriptor.jdkResolver
-      allResolvers += ideResolver
+      if (ideResolver === ideDescriptor.ideResolver) {
+        allResolvers += jdkAndIdeResolver
+      } else {
+        allResolvers += jdkResolver
+        allResolvers += ideResolver.withSharedClassCache()
+      }
 
       val dependenciesGraph: DependenciesGraph
       if (!ideDescriptor.isProductInfoBased()
@@ -105,8 +126,7 @@ class DefaultClassResolverProvider(
         || ideResolver !is DependencyTreeAwareResolver
         ) {
         val (depGraph, dependenciesResults) =
-          DependenciesGraphBuilder(dependencyFinder, ignoreOsArch)
-            .buildDependenciesGraph(checkedPluginDetails.idePlugin, ideDescriptor.ide)
+          dependenciesGraphBuilder.buildDependenciesGraph(checkedPluginDetails.idePlugin, ideDescriptor.ide)
         closeableResources += dependenciesResults
 
         // Resolve dependencies via DependencyFinder mechanism.
@@ -123,7 +143,13 @@ class DefaultClassResolverProvider(
 
       allResolvers += additionalClassResolvers
 
-      val resolver = LazyCompositeResolver.create(allResolvers, checkedPluginDetails.pluginInfo.pluginId).caching()
+      // The few delegates are probed in turn: each of them indexes its own classes,
+      // and indexing the packages of the whole IDE again for every plugin would cost more than it saves.
+      val resolver = LazyCompositeResolver.create(
+        allResolvers,
+        checkedPluginDetails.pluginInfo.pluginId,
+        packageIndexThreshold = Int.MAX_VALUE
+      ).caching()
       return ClassResolverProvider.Result(pluginResolver, resolver, dependenciesGraph, closeableResources)
     }
   }
@@ -138,6 +164,20 @@ class DefaultClassResolverProvider(
     }
   }
 
+  /**
+   * Classes of the IDE are cached in the [IdeDescriptor.classCache] shared by all verifications against this IDE.
+   * A plugin-specific resolver of bundled plugins is assembled from shared per-dependency resolvers,
+   * so each of them is cached separately.
+   */
+  private fun Resolver.withSharedClassCache(): Resolver {
+    val classCache = ideDescriptor.classCache
+    return if (this is DependencyTreeAwareResolver) {
+      LazyCompositeResolver.create(components.map { classCache.wrap(it) }, name)
+    } else {
+      classCache.wrap(this)
+    }
+  }
+
   private fun IdeDescriptor.isProductInfoBased(): Boolean {
     return ide is ProductInfoAware && ideResolver is ProductInfoClassResolver
   }
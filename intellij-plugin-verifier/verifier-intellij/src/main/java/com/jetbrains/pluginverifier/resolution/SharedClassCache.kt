@@ -0,0 +1,177 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.resolution
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.RemovalCause
+import com.github.benmanes.caffeine.cache.stats.CacheStats
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import com.jetbrains.plugin.structure.classes.resolvers.ClassNameFilter
+import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.classes.resolvers.ResourceBundleNameSet
+import org.objectweb.asm.tree.ClassNode
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Cache of classes resolved by resolvers that are shared by all verifications against the same target,
+ * such as the IDE and JDK resolvers of an [com.jetbrains.pluginverifier.ide.IdeDescriptor].
+ *
+ * Entries are keyed by the identity of the resolver and the class name, so that classes of different resolvers never mix.
+ * Resolvers are only weakly referenced: once a resolver is garbage collected, for example after being evicted
+ * from a cache of resolvers, its entries are removed.
+ * Resolvers of verified plugins and of their non-IDE dependencies must not be [wrapped][wrap]:
+ * classes of a plugin are visible only to the verification of that plugin.
+ *
+ * The total estimated size of cached classes is kept within [maximumSizeBytes].
+ */
+class SharedClassCache(val maximumSizeBytes: Long) {
+
+  private val cache: Cache<Key, ResolutionResult<ClassNode>> = Caffeine.newBuilder()
+    .maximumWeight(maximumSizeBytes)
+    .weigher<Key, ResolutionResult<ClassNode>> { _, result -> estimateSize(result) }
+    .recordStats()
+    .build()
+
+  private val resolverIdGenerator = AtomicLong()
+
+  private val resolverIds: Cache<Resolver, Long> = Caffeine.newBuilder()
+    .weakKeys()
+    .executor(Runnable::run)
+    .removalListener<Resolver, Long> { _, resolverId, cause ->
+      if (cause == RemovalCause.COLLECTED && resolverId != null) {
+        cache.asMap().keys.removeIf { it.resolverId == resolverId }
+      }
+    }
+    .build()
+
+  /**
+   * Hit, miss and eviction statistics of this cache.
+   * Pending evictions are performed first, so that they are included.
+   */
+  fun stats(): CacheStats {
+    cleanUp()
+    return cache.stats()
+  }
+
+  /**
+   * Estimated size in bytes of currently cached classes.
+   */
+  fun estimatedSizeBytes(): Long {
+    cleanUp()
+    return cache.policy().eviction().map { it.weightedSize().orElse(0) }.orElse(0)
+  }
+
+  /**
+   * Returns a resolver that looks up classes of the [resolver] in this cache.
+   *
+   * The returned resolver does not own the [resolver]: closing it does nothing.
+   */
+  fun wrap(resolver: Resolver): Resolver =
+    if (maximumSizeBytes > 0) SharedClassCacheResolver(resolver, this) else resolver
+
+  fun invalidateAll() {
+    cache.invalidateAll()
+  }
+
+  private fun cleanUp() {
+    resolverIds.cleanUp()
+    cache.cleanUp()
+  }
+
+  private fun resolveClass(resolver: Resolver, className: BinaryClassName): ResolutionResult<ClassNode> {
+    val resolverId = resolverIds.get(resolver) { resolverIdGenerator.incrementAndGet() }
+    return cache.get(Key(resolverId, className.toString())) { resolver.resolveClass(className) }
+  }
+
+  override fun toString() = "Shared class cache (${estimatedSizeBytes() / 1024 / 1024} of ${maximumSizeBytes / 1024 / 1024} Mb): ${stats()}"
+
+  /**
+   * Resolvers are identified by the ID assigned to the resolver instance: equal resolvers may still see different classes.
+   * The key does not reference the resolver, so that cached classes do not keep it reachable.
+   */
+  private data class Key(val resolverId: Long, val className: String)
+
+  private class SharedClassCacheResolver(private val delegate: Resolver, private val classCache: SharedClassCache) : Resolver() {
+
+    @Deprecated("Use 'allClassNames' property instead which is more efficient")
+    override val allClasses
+      get() = delegate.allClasses
+
+    override val allClassNames: Set<BinaryClassName>
+      get() = delegate.allClassNames
+
+    override val allBundleNameSet: ResourceBundleNameSet
+      get() = delegate.allBundleNameSet
+
+    @Deprecated("Use 'packages' property instead. This property may be slow on some file systems.")
+    override val allPackages
+      get() = delegate.allPackages
+
+    override val packages: Set<String>
+      get() = delegate.packages
+
+    override val readMode
+      get() = delegate.readMode
+
+    override val classNameFilter: ClassNameFilter?
+      get() = delegate.classNameFilter
+
+    override fun collectClassNameFilters(filters: MutableSet<ClassNameFilter>) = delegate.collectClassNameFilters(filters)
+
+    @Deprecated("Use 'resolveClass(BinaryClassName)' instead")
+    override fun resolveClass(className: String): ResolutionResult<ClassNode> = resolveClass(className as BinaryClassName)
+
+    override fun resolveClass(className: BinaryClassName): ResolutionResult<ClassNode> =
+      classCache.resolveClass(delegate, className)
+
+    override fun resolveExactPropertyResourceBundle(baseName: String, locale: Locale): ResolutionResult<PropertyResourceBundle> =
+      delegate.resolveExactPropertyResourceBundle(baseName, locale)
+
+    @Deprecated("Use 'containsClass(BinaryClassName)' instead")
+    override fun containsClass(className: String) = delegate.containsClass(className)
+
+    override fun containsClass(className: BinaryClassName) = delegate.containsClass(className)
+
+    override fun containsPackage(packageName: String) = delegate.containsPackage(packageName)
+
+    override fun processAllClasses(processor: (ResolutionResult<ClassNode>) -> Boolean) =
+      delegate.processAllClasses(processor)
+
+    override fun close() = Unit
+
+    override fun toString() = "Shared class cache resolver for $delegate"
+  }
+
+  private companion object {
+    const val NOT_FOUND_SIZE = 64
+    const val CLASS_SIZE = 1024
+    const val FIELD_SIZE = 128
+    const val METHOD_SIZE = 256
+    const val INSTRUCTION_SIZE = 48
+    const val TRY_CATCH_BLOCK_SIZE = 64
+
+    /**
+     * Rough estimation of the retained size of the resolved class.
+     * It only needs to be proportional to the real size to keep the cache within its budget.
+     */
+    fun estimateSize(result: ResolutionResult<ClassNode>): Int {
+      if (result !is ResolutionResult.Found) {
+        return NOT_FOUND_SIZE
+      }
+      val classNode = result.value
+      var size = CLASS_SIZE
+      size += classNode.fields.orEmpty().size * FIELD_SIZE
+      for (method in classNode.methods.orEmpty()) {
+        size += METHOD_SIZE
+        size += method.instructions.size() * INSTRUCTION_SIZE
+        size += method.tryCatchBlocks.orEmpty().size * TRY_CATCH_BLOCK_SIZE
+      }
+      return size
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.verifiers
+
+import com.jetbrains.plugin.structure.base.BinaryClassName
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Defers results of classes verified concurrently until all of them are verified,
+ * then [registers][registerInOrder] them to the [context] in the order of the classes,
+ * so that the results are registered in the same order as by the sequential verification.
+ *
+ * The [delegate] is notified about each class while its results are registered.
+ */
+class DeferredClassResults(
+  private val context: PluginVerificationContext,
+  private val delegate: ClassVerificationListener?
+) : ClassVerificationListener {
+
+  private val classResults = ConcurrentHashMap<String, List<ClassResult>>()
+
+  override fun classVerificationStarted(className: BinaryClassName) {
+    context.startRecordingClassResults(deferred = true)
+  }
+
+  override fun classVerificationFinished(className: BinaryClassName) {
+    classResults[className.toString()] = context.stopRecordingClassResults()
+  }
+
+  fun registerInOrder(classes: Set<BinaryClassName>) {
+    for (className in classes) {
+      val results = classResults[className.toString()] ?: continue
+      delegate?.classVerificationStarted(className)
+      context.replayClassResults(results)
+      delegate?.classVerificationFinished(className)
+    }
+  }
+}
@@ -34,11 +34,24 @@ import com.jetbrains.pluginverifier.usages.overrideOnly.OverrideOnlyMethodUsage
 import com.jetbrains.pluginverifier.usages.overrideOnly.OverrideOnlyMethodUsageProcessor
 import com.jetbrains.pluginverifier.usages.overrideOnly.OverrideOnlyRegistrar
 import com.jetbrains.pluginverifier.usages.properties.PropertyUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyIndex
 import com.jetbrains.pluginverifier.verifiers.packages.PackageFilter
+import com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo
 import com.jetbrains.pluginverifier.warnings.CompatibilityWarning
 import com.jetbrains.pluginverifier.warnings.PluginStructureWarning
 import com.jetbrains.pluginverifier.warnings.WarningRegistrar
 
+/**
+ * Result registered by verification of a class, which is replayed by registering it to a [PluginVerificationContext].
+ */
+typealias ClassResult = (PluginVerificationContext) -> Unit
+
+/**
+ * Collects the results of a single plugin verification.
+ *
+ * Registration methods are synchronized, because plugin classes
+ * may be verified concurrently by [BytecodeVerifier].
+ */
 data class PluginVerificationContext(
   val idePlugin: IdePlugin,
   val verificationDescriptor: PluginVerificationDescriptor,
@@ -60,6 +73,10 @@ data class PluginVerificationContext(
   override val classResolver
     get() = allResolver
 
+  override val memberResolutionMemo = MemberResolutionMemo(allResolver, externalClassesPackageFilter)
+
+  override val classHierarchyIndex = ClassHierarchyIndex(allResolver, externalClassesPackageFilter)
+
   override val apiUsageProcessors: List<ApiUsageProcessor> =
     listOf(
       DeprecatedApiUsageProcessor(this),
@@ -91,44 +108,102 @@ data class PluginVerificationContext(
   override val warningRegistrar
     get() = this
 
+  /**
+   * Results registered by the class being verified on the current thread, see [startRecordingClassResults].
+   */
+  private val recordedClassResults = ThreadLocal<ClassResultsRecording>()
+
+  /**
+   * Starts recording problems, warnings and API usages registered on the current thread,
+   * until [stopRecordingClassResults] is invoked.
+   * The recorded results can be [replayed][replayClassResults] to the context of another verification of the same class.
+   *
+   * If [deferred] is `true`, the results are only recorded and are registered to this context once they are replayed.
+   */
+  fun startRecordingClassResults(deferred: Boolean = false) {
+    recordedClassResults.set(ClassResultsRecording(deferred))
+  }
+
+  fun stopRecordingClassResults(): List<ClassResult> {
+    val results = recordedClassResults.get()?.results.orEmpty()
+    recordedClassResults.remove()
+    return results
+  }
+
+  fun replayClassResults(results: List<ClassResult>) {
+    results.forEach { it(this) }
+  }
+
+  /**
+   * Records the [result] if recording is started on the current thread.
+   * Returns `true` if the recording is deferred, so the result must not be registered yet.
+   */
+  private fun record(result: ClassResult): Boolean {
+    val recording = recordedClassResults.get() ?: return false
+    recording.results += result
+    return recording.deferred
+  }
+
+  private class ClassResultsRecording(val deferred: Boolean) {
+    val results = arrayListOf<ClassResult>()
+  }
+
 
+  @Synchronized
   override fun registerProblem(problem: CompatibilityProblem) {
+    if (record { it.registerProblem(problem) }) return
     compatibilityProblems += problem
   }
 
+  @Synchronized
   override fun registerDeprecatedUsage(deprecatedApiUsage: DeprecatedApiUsage) {
+    if (record { it.registerDeprecatedUsage(deprecatedApiUsage) }) return
     deprecatedUsages += deprecatedApiUsage
   }
 
+  @Synchronized
   override fun registerExperimentalApiUsage(experimentalApiUsage: ExperimentalApiUsage) {
+    if (record { it.registerExperimentalApiUsage(experimentalApiUsage) }) return
     experimentalApiUsages += experimentalApiUsage
   }
 
+  @Synchronized
   override fun registerInternalApiUsage(internalApiUsage: InternalApiUsage) {
+    if (record { it.registerInternalApiUsage(internalApiUsage) }) return
     internalApiUsages += internalApiUsage
   }
 
+  @Synchronized
   override fun registerNonExtendableApiUsage(nonExtendableApiUsage: NonExtendableApiUsage) {
+    if (record { it.registerNonExtendableApiUsage(nonExtendableApiUsage) }) return
     nonExtendableApiUsages += nonExtendableApiUsage
   }
 
+  @Synchronized
   override fun registerOverrideOnlyMethodUsage(overrideOnlyMethodUsage: OverrideOnlyMethodUsage) {
+    if (record { it.registerOverrideOnlyMethodUsage(overrideOnlyMethodUsage) }) return
     overrideOnlyMethodUsages += overrideOnlyMethodUsage
   }
 
+  @Synchronized
   override fun registerJavaPluginClassUsage(javaPluginClassUsage: JavaPluginClassUsage) {
+    if (record { it.registerJavaPluginClassUsage(javaPluginClassUsage) }) return
     compatibilityIssueAnalyzers.filterIsInstance<JavaPluginApiCompatibilityIssueAnalyzer>()
             .map { it.analyze(this, javaPluginClassUsage) }
   }
 
+  @Synchronized
   override fun registerCompatibilityWarning(warning: CompatibilityWarning) {
+    if (record { it.registerCompatibilityWarning(warning) }) return
     compatibilityWarnings += warning
   }
 
+  @Synchronized
   override fun reportTelemetry(pluginInfo: PluginInfo, telemetry: PluginTelemetry) {
     _telemetry.merge(telemetry)
   }
 
+  @Synchronized
   fun registerPluginStructureWarning(warning: PluginStructureWarning) {
     pluginStructureWarnings += warning
   }
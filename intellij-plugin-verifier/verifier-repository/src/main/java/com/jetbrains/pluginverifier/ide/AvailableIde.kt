@@ -38,7 +38,12 @@ data class AvailableIde(
   /**
    * IntelliJ Platform Product descriptor.
    */
-  val product: IntelliJPlatformProduct
+  val product: IntelliJPlatformProduct,
+  /**
+   * URL of the SHA-256 checksum of the file by [downloadUrl],
+   * or `null` if the repository does not publish checksums.
+   */
+  val checksumUrl: URL? = null
 ) {
 
   override fun toString() = version.toString() + (if (isRelease) " ($releaseVersion)" else "")
@@ -28,7 +28,8 @@ internal class DataServicesIndexParser {
               if (ideVersion != null) {
                 val releaseVersion = getReleaseVersion(release)
                 val uploadDate = LocalDate.parse(release.date)
-                val availableIde = AvailableIde(ideVersion, releaseVersion, downloadUrl, uploadDate, intelliJPlatformProduct)
+                val checksumUrl = download.checksumLink?.let { URL(it) }
+                val availableIde = AvailableIde(ideVersion, releaseVersion, downloadUrl, uploadDate, intelliJPlatformProduct, checksumUrl)
                 availableIdes.add(availableIde)
               }
             }
@@ -13,23 +13,64 @@ import com.jetbrains.plugin.structure.base.utils.listFiles
 import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
 import com.jetbrains.plugin.structure.base.utils.simpleName
 import com.jetbrains.plugin.structure.intellij.version.IdeVersion
+import com.jetbrains.pluginverifier.misc.RestApiFailed
+import com.jetbrains.pluginverifier.misc.RestApiOk
+import com.jetbrains.pluginverifier.misc.RestApis
+import com.jetbrains.pluginverifier.repository.downloader.DownloadOptions
 import com.jetbrains.pluginverifier.repository.downloader.DownloadResult
 import com.jetbrains.pluginverifier.repository.downloader.Downloader
 import com.jetbrains.pluginverifier.repository.downloader.UrlDownloader
+import org.slf4j.LoggerFactory
 import java.nio.file.Files
 import java.nio.file.Path
+import java.time.Duration
 
 /**
  * [Downloader] of the IDEs.
+ *
+ * IDE archives are verified against the [checksums][AvailableIde.checksumUrl] published by the IDE repository, if any.
  */
 class IdeDownloader : Downloader<AvailableIde> {
 
-  private val urlDownloader = UrlDownloader<AvailableIde> { it.downloadUrl }
+  private val restApis = RestApis()
+
+  private val urlDownloader = UrlDownloader<AvailableIde>(
+    DownloadOptions.fromSystemProperties(),
+    checksumProvider = ::fetchChecksum
+  ) { it.downloadUrl }
+
+  /**
+   * Fetches the SHA-256 checksum of the IDE archive, published as a line `<checksum> *<file name>`.
+   * If the checksum cannot be fetched, the archive is verified only by the checksum response headers.
+   */
+  private fun fetchChecksum(availableIde: AvailableIde): String? {
+    val checksumUrl = availableIde.checksumUrl ?: return null
+    val checksum = try {
+      when (val result = restApis.getRawString(checksumUrl.toExternalForm(), CHECKSUM_TIMEOUT)) {
+        is RestApiOk -> result.payload.trim().substringBefore(' ')
+        is RestApiFailed -> null
+      }
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      null
+    }
+    if (checksum == null || checksum.length != 64 || !checksum.all { it.isHexDigit() }) {
+      LOG.debug("Checksum of {} is not available by {}", availableIde, checksumUrl)
+      return null
+    }
+    return checksum
+  }
+
+  private fun Char.isHexDigit() = this in '0'..'9' || this in 'a'..'f' || this in 'A'..'F'
+
+  @Throws(InterruptedException::class)
+  override fun download(key: AvailableIde, tempDirectory: Path): DownloadResult =
+    download(key, tempDirectory, tempDirectory)
 
   @Throws(InterruptedException::class)
-  override fun download(key: AvailableIde, tempDirectory: Path): DownloadResult {
+  override fun download(key: AvailableIde, tempDirectory: Path, partialDownloadsDirectory: Path): DownloadResult {
     return try {
-      downloadIde(key, key.version, tempDirectory)
+      downloadIde(key, key.version, tempDirectory, partialDownloadsDirectory)
     } catch (e: Exception) {
       e.rethrowIfInterrupted()
       DownloadResult.FailedToDownload("Unable to download $key", e)
@@ -39,8 +80,9 @@ class IdeDownloader : Downloader<AvailableIde> {
   private fun downloadIde(
     availableIde: AvailableIde,
     ideVersion: IdeVersion,
-    tempDirectory: Path
-  ) = with(urlDownloader.download(availableIde, tempDirectory)) {
+    tempDirectory: Path,
+    partialDownloadsDirectory: Path
+  ) = with(urlDownloader.download(availableIde, tempDirectory, partialDownloadsDirectory)) {
     when (this) {
       is DownloadResult.Downloaded -> {
         try {
@@ -89,6 +131,10 @@ class IdeDownloader : Downloader<AvailableIde> {
   }
 
   companion object {
+    private val LOG = LoggerFactory.getLogger(IdeDownloader::class.java)
+
+    private val CHECKSUM_TIMEOUT = Duration.ofMinutes(1)
+
     /**
      * If the [directory] contains a single directory,
      * that directory will be truncated and all its
@@ -18,12 +18,19 @@ import com.jetbrains.pluginverifier.repository.provider.ProvideResult
 import com.jetbrains.pluginverifier.repository.provider.ResourceProvider
 import java.nio.file.Path
 
+private const val CLASS_INDEX_SUFFIX = ".class-index"
+private const val SNAPSHOT_SUFFIX = ".ide-snapshot"
+
 /**
  * Storage of IDE builds, which are kept under the [bankDirectory].
  *
  * Each IDE is identified by its [IdeVersion] and can be locked for the use time
  * to avoid use-remove conflicts when one thread uses the IDE build and another
  * thread deletes it.
+ *
+ * Next to each IDE build, the bank keeps the [class index][getClassIndexFile] of the IDE jars
+ * and the [snapshot][getSnapshotFile] of the IDE model.
+ * Indexes and snapshots of IDE builds that are no longer in the bank are deleted on startup.
  */
 class IdeFilesBank(
   private val bankDirectory: Path,
@@ -33,8 +40,14 @@ class IdeFilesBank(
 
   private val ideFilesRepository = FileRepository(
     IdeDownloadProvider(bankDirectory, ideRepository),
-    LruFileSizeSweepPolicy(diskSpaceSetting)
-  ).addInitialFilesFrom(bankDirectory) { getIdeVersionByPath(it) }
+    LruFileSizeSweepPolicy(diskSpaceSetting),
+    usageStatisticsFile = bankDirectory.resolve(FileRepository.USAGE_STATISTICS_FILE_NAME)
+  ).addInitialFilesFrom(bankDirectory, { it.simpleName == DownloadProvider.PARTIAL_DOWNLOADS_DIRECTORY || it.isAuxiliaryFileOfExistingIde() }) { getIdeVersionByPath(it) }
+
+  private fun Path.isAuxiliaryFileOfExistingIde(): Boolean =
+    listOf(CLASS_INDEX_SUFFIX, SNAPSHOT_SUFFIX).any { suffix ->
+      simpleName.endsWith(suffix) && resolveSibling(simpleName.removeSuffix(suffix)).isDirectory
+    }
 
   private fun getIdeVersionByPath(file: Path) =
     if (file.isDirectory) {
@@ -50,6 +63,18 @@ class IdeFilesBank(
   fun getAvailableIdeFiles(): List<AvailableFile<IdeVersion>> =
     ideFilesRepository.getAvailableFiles()
 
+  /**
+   * Returns the file of the persistent class index of the IDE build located at [ideFile].
+   * The file may not exist yet: it is written on the first use of the IDE.
+   */
+  fun getClassIndexFile(ideFile: Path): Path = ideFile.resolveSibling(ideFile.simpleName + CLASS_INDEX_SUFFIX)
+
+  /**
+   * Returns the file of the persistent snapshot of the model of the IDE build located at [ideFile].
+   * The file may not exist yet: it is written on the first use of the IDE.
+   */
+  fun getSnapshotFile(ideFile: Path): Path = ideFile.resolveSibling(ideFile.simpleName + SNAPSHOT_SUFFIX)
+
   @Throws(InterruptedException::class)
   fun getIdeFile(ideVersion: IdeVersion): Result =
     with(ideFilesRepository.getFile(ideVersion)) {
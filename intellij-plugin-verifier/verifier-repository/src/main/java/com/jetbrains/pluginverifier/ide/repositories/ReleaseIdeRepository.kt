@@ -99,5 +99,8 @@ internal data class Download(
   val link: String,
 
   @JsonProperty("size")
-  val size: Long
+  val size: Long,
+
+  @JsonProperty("checksumLink")
+  val checksumLink: String? = null
 )
\ No newline at end of file
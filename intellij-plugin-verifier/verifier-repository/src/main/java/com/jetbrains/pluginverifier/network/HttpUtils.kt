@@ -6,6 +6,15 @@ object HttpHeaders {
   const val CONTENT_DISPOSITION = "Content-Disposition"
   const val CONTENT_TYPE = "Content-Type"
   const val CONTENT_LENGTH = "Content-Length"
+  const val CONTENT_RANGE = "Content-Range"
+  const val ACCEPT_RANGES = "Accept-Ranges"
+  const val RANGE = "Range"
+  const val IF_RANGE = "If-Range"
+  const val ETAG = "ETag"
+  const val LAST_MODIFIED = "Last-Modified"
+  const val DIGEST = "Digest"
+  const val REPR_DIGEST = "Repr-Digest"
+  const val X_CHECKSUM_SHA256 = "X-Checksum-Sha256"
 }
 
 /**
@@ -25,6 +25,12 @@ interface PluginDetailsCache : Closeable {
    */
   val statistics: CacheStatistics
 
+  /**
+   * Whether the space for plugin files is running out,
+   * so that plugins should not be provided before they are needed.
+   */
+  fun isLowOnDiskSpace(): Boolean = false
+
   /**
    * Represents possible results of the [getPluginDetailsCacheEntry].
    * It **must be** closed after usage.
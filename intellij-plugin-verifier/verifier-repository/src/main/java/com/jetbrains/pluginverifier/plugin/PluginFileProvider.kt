@@ -18,6 +18,12 @@ interface PluginFileProvider {
    */
   fun getPluginFile(pluginInfo: PluginInfo): Result
 
+  /**
+   * Whether the space for plugin files is running out,
+   * so that files should not be fetched before they are needed.
+   */
+  fun isLowOnDiskSpace(): Boolean = false
+
   /**
    * Represents possible outcomes of [fetching] [getPluginFile] the plugin's file.
    */
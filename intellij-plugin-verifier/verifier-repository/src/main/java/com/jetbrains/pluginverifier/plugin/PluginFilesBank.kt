@@ -8,11 +8,13 @@ import com.jetbrains.plugin.structure.base.utils.deleteLogged
 import com.jetbrains.plugin.structure.base.utils.listFiles
 import com.jetbrains.plugin.structure.base.utils.nameWithoutExtension
 import com.jetbrains.plugin.structure.base.utils.replaceInvalidFileNameCharacters
+import com.jetbrains.plugin.structure.base.utils.simpleName
 import com.jetbrains.pluginverifier.repository.Downloadable
 import com.jetbrains.pluginverifier.repository.PluginInfo
 import com.jetbrains.pluginverifier.repository.PluginRepository
 import com.jetbrains.pluginverifier.repository.cleanup.DiskSpaceSetting
 import com.jetbrains.pluginverifier.repository.cleanup.LruFileSizeSweepPolicy
+import com.jetbrains.pluginverifier.repository.downloader.DownloadOptions
 import com.jetbrains.pluginverifier.repository.downloader.DownloadProvider
 import com.jetbrains.pluginverifier.repository.downloader.DownloadStatistics
 import com.jetbrains.pluginverifier.repository.downloader.UrlDownloader
@@ -47,7 +49,7 @@ class PluginFilesBank(
       val sweepPolicy = LruFileSizeSweepPolicy<PluginInfo>(diskSpaceSetting)
 
       val urlProvider: (PluginInfo) -> URL? = { (it as? Downloadable)?.downloadUrl }
-      val urlDownloader = UrlDownloader(urlProvider)
+      val urlDownloader = UrlDownloader(DownloadOptions.fromSystemProperties(), urlProvider = urlProvider)
 
       val downloadProvider = DownloadProvider(pluginsDir, urlDownloader, "Plugin") { key ->
         when (key) {
@@ -59,7 +61,8 @@ class PluginFilesBank(
       val fileRepository = FileRepository(
         downloadProvider,
         sweepPolicy,
-        "downloaded-plugins"
+        "downloaded-plugins",
+        usageStatisticsFile = pluginsDir.resolve(FileRepository.USAGE_STATISTICS_FILE_NAME)
       )
 
       if (pluginRepository is MarketplaceRepository) {
@@ -86,6 +89,9 @@ class PluginFilesBank(
     ) {
       val pathToPluginIdAndUpdateId = hashMapOf<Path, Pair<Int, Int>>()
       for (path in pluginsDir.listFiles()) {
+        if (path.simpleName == DownloadProvider.PARTIAL_DOWNLOADS_DIRECTORY || path == fileRepository.usageStatisticsFile) {
+          continue
+        }
         val pluginIdAndUpdateId = getPluginIdAndUpdateIdByPath(path)
         if (pluginIdAndUpdateId != null) {
           pathToPluginIdAndUpdateId[path] = pluginIdAndUpdateId
@@ -143,6 +149,8 @@ class PluginFilesBank(
     }
   }
 
+  override fun isLowOnDiskSpace(): Boolean = fileRepository.isLowOnSpace()
+
   /**
    * Returns a set of plugins available locally at the moment.
    */
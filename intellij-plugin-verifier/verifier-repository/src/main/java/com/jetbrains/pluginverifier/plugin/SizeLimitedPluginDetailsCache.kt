@@ -26,7 +26,7 @@ import com.jetbrains.pluginverifier.repository.repositories.local.LocalPluginInf
  */
 class SizeLimitedPluginDetailsCache(
   cacheSize: Int,
-  pluginFileProvider: PluginFileProvider,
+  private val pluginFileProvider: PluginFileProvider,
   pluginDetailsProvider: PluginDetailsProvider
 ) : PluginDetailsCache {
 
@@ -40,6 +40,8 @@ class SizeLimitedPluginDetailsCache(
   override val statistics: CacheStatistics
     get() = internalCache.statistics
 
+  override fun isLowOnDiskSpace(): Boolean = pluginFileProvider.isLowOnDiskSpace()
+
   /**
    * Provides the [PluginDetails] of the given [pluginInfo] wrapped in a [Result].
    */
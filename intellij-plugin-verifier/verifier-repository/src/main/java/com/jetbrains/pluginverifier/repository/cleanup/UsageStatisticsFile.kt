@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.repository.cleanup
+
+import com.jetbrains.plugin.structure.base.utils.exists
+import com.jetbrains.plugin.structure.base.utils.readLines
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.plugin.structure.base.utils.writeBytesAtomically
+import org.slf4j.LoggerFactory
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+
+/**
+ * File that keeps [usage statistics][UsageStatistic] of the files of a repository between runs,
+ * so that the files found in the repository on startup are not considered equally old.
+ *
+ * Each line holds the number of accesses, the last access time in epoch milliseconds
+ * and the name of the file, separated by spaces.
+ */
+class UsageStatisticsFile(val file: Path) {
+
+  private companion object {
+    private val LOG = LoggerFactory.getLogger(UsageStatisticsFile::class.java)
+  }
+
+  /**
+   * Reads the statistics by file names, or returns an empty map if the file is absent or corrupted.
+   */
+  fun load(): Map<String, UsageStatistic> {
+    if (!file.exists()) {
+      return emptyMap()
+    }
+    return try {
+      file.readLines().filter { it.isNotEmpty() }.associate { line ->
+        val (timesAccessed, lastAccessTime, fileName) = line.split(' ', limit = 3)
+        fileName to UsageStatistic(Instant.ofEpochMilli(lastAccessTime.toLong()), timesAccessed.toLong())
+      }
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      LOG.warn("Usage statistics '{}' are corrupted and will be rewritten: {}", file, e.message)
+      emptyMap()
+    }
+  }
+
+  /**
+   * Replaces the content of the file with the [statistics] by file names.
+   */
+  fun save(statistics: Map<String, UsageStatistic>) {
+    val content = buildString {
+      for ((fileName, statistic) in statistics) {
+        append(statistic.timesAccessed).append(' ').append(statistic.lastAccessTime.toEpochMilli()).append(' ').append(fileName).append('\n')
+      }
+    }
+    file.writeBytesAtomically(content.toByteArray())
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.repository.downloader
+
+import java.time.Duration
+
+/**
+ * Options of HTTP downloads performed by the [UrlDownloader].
+ *
+ * A download that fails with a network error or an unexpected server error is repeated up to [maxAttempts] times.
+ * Every next attempt resumes the partially downloaded file with an HTTP `Range` request,
+ * provided that the server supports byte ranges and the resource has an `ETag` or `Last-Modified` validator
+ * or a known checksum, so that parts of different versions of the resource are never mixed.
+ *
+ * Files of at least [segmentedDownloadThreshold] bytes are downloaded by [segmentCount] byte ranges in parallel,
+ * unless [segmentCount] is 1.
+ *
+ * [timeout] limits connecting and waiting for the response headers of a single HTTP request.
+ * Reading the response body is not limited by it.
+ */
+data class DownloadOptions(
+  val maxAttempts: Int = 3,
+  val segmentCount: Int = 1,
+  val segmentedDownloadThreshold: Long = 64L * 1024 * 1024,
+  val timeout: Duration = Duration.ofMinutes(5)
+) {
+  init {
+    require(maxAttempts >= 1) { "At least one download attempt is required: $maxAttempts" }
+    require(segmentCount >= 1) { "At least one download segment is required: $segmentCount" }
+  }
+
+  companion object {
+    private const val SEGMENT_COUNT_PROPERTY = "intellij.plugin.verifier.download.segments"
+
+    /**
+     * Default options, with the number of parallel segments configured
+     * by the `intellij.plugin.verifier.download.segments` system property.
+     */
+    fun fromSystemProperties(): DownloadOptions =
+      DownloadOptions(segmentCount = System.getProperty(SEGMENT_COUNT_PROPERTY)?.toIntOrNull()?.coerceAtLeast(1) ?: 1)
+  }
+}
@@ -24,6 +24,12 @@ import java.time.Duration
  *
  * The [presentableName] is used as a label in log messages so callers can tell apart
  * downloads coming from different download providers (e.g. plugin vs. IDE downloads).
+ *
+ * Partially downloaded files are kept in the [PARTIAL_DOWNLOADS_DIRECTORY] between downloads
+ * and across restarts, so that a failed download is resumed by the next request of the same key.
+ * They are not files of the repository, so they do not count towards its
+ * [disk space limits][com.jetbrains.pluginverifier.repository.cleanup.DiskSpaceSetting].
+ * A partial file is removed when its download completes, and a week after it was last written otherwise.
  */
 class DownloadProvider<in K : Any>(
   private val destinationDirectory: Path,
@@ -31,19 +37,39 @@ class DownloadProvider<in K : Any>(
   private val presentableName: String = "Downloads",
   private val fileNameWithoutExtensionMapper: (K) -> String
 ) : ResourceProvider<K, Path> {
-  private companion object {
-    const val DOWNLOADS_DIRECTORY = ".downloads"
+  companion object {
+    private const val DOWNLOADS_DIRECTORY = ".downloads"
+
+    /**
+     * Name of the directory under the destination directory that keeps partially downloaded files.
+     */
+    const val PARTIAL_DOWNLOADS_DIRECTORY = ".partial-downloads"
+
+    private val STALE_PARTIAL_DOWNLOAD_AGE = Duration.ofDays(7)
   }
 
   private val logger: Logger = LoggerFactory.getLogger(DownloadProvider::class.java.name + "." + presentableName)
 
   private val downloadDirectory = destinationDirectory.resolve(DOWNLOADS_DIRECTORY)
 
+  private val partialDownloadsDirectory = destinationDirectory.resolve(PARTIAL_DOWNLOADS_DIRECTORY)
+
   val downloadStatistics = DownloadStatistics()
 
   init {
     destinationDirectory.createDir()
     downloadDirectory.forceDeleteIfExists()
+    deleteStalePartialDownloads()
+  }
+
+  private fun deleteStalePartialDownloads() {
+    if (!partialDownloadsDirectory.isDirectory) {
+      return
+    }
+    val staleTime = System.currentTimeMillis() - STALE_PARTIAL_DOWNLOAD_AGE.toMillis()
+    partialDownloadsDirectory.listFiles()
+      .filter { Files.getLastModifiedTime(it).toMillis() < staleTime }
+      .forEach { it.deleteLogged() }
   }
 
   @Throws(InterruptedException::class)
@@ -53,7 +79,7 @@ class DownloadProvider<in K : Any>(
     logger.debug("Download started: {}", key)
     val tempDirectory = createTempDirectoryForDownload(key)
     try {
-      return with(downloader.download(key, tempDirectory)) {
+      return with(downloader.download(key, tempDirectory, partialDownloadsDirectory)) {
         when (this) {
           is DownloadResult.Downloaded -> {
             val size = downloadedFileOrDirectory.fileSize
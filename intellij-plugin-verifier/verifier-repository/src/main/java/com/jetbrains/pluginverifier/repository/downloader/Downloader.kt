@@ -20,4 +20,16 @@ interface Downloader<in K> {
    */
   @Throws(InterruptedException::class)
   fun download(key: K, tempDirectory: Path): DownloadResult
+
+  /**
+   * Downloads file or directory by [key] to a file or a directory under [tempDirectory],
+   * keeping partially downloaded files in the [partialDownloadsDirectory],
+   * so that they are resumed by the next download of the same [key] if this one fails.
+   *
+   * @throws InterruptedException if the current thread has been
+   * interrupted while downloading the resource.
+   */
+  @Throws(InterruptedException::class)
+  fun download(key: K, tempDirectory: Path, partialDownloadsDirectory: Path): DownloadResult =
+    download(key, tempDirectory)
 }
\ No newline at end of file
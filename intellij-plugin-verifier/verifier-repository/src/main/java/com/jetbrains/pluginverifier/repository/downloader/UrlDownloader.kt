@@ -7,28 +7,54 @@ package com.jetbrains.pluginverifier.repository.downloader
 import com.jetbrains.plugin.structure.base.utils.*
 import com.jetbrains.pluginverifier.misc.createHttpClient
 import com.jetbrains.pluginverifier.network.*
+import com.jetbrains.pluginverifier.network.HttpHeaders.ACCEPT_RANGES
 import com.jetbrains.pluginverifier.network.HttpHeaders.CONTENT_DISPOSITION
 import com.jetbrains.pluginverifier.network.HttpHeaders.CONTENT_LENGTH
+import com.jetbrains.pluginverifier.network.HttpHeaders.CONTENT_RANGE
 import com.jetbrains.pluginverifier.network.HttpHeaders.CONTENT_TYPE
+import com.jetbrains.pluginverifier.network.HttpHeaders.DIGEST
+import com.jetbrains.pluginverifier.network.HttpHeaders.ETAG
+import com.jetbrains.pluginverifier.network.HttpHeaders.IF_RANGE
+import com.jetbrains.pluginverifier.network.HttpHeaders.LAST_MODIFIED
+import com.jetbrains.pluginverifier.network.HttpHeaders.RANGE
+import com.jetbrains.pluginverifier.network.HttpHeaders.REPR_DIGEST
+import com.jetbrains.pluginverifier.network.HttpHeaders.X_CHECKSUM_SHA256
 import org.apache.commons.io.FileUtils
 import org.slf4j.LoggerFactory
+import java.io.IOException
 import java.io.InputStream
+import java.io.OutputStream
 import java.net.URI
 import java.net.URL
 import java.net.http.HttpRequest
 import java.net.http.HttpResponse
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.StandardCopyOption
-import java.time.Duration
+import java.nio.file.StandardOpenOption
+import java.security.DigestOutputStream
+import java.security.MessageDigest
+import java.util.*
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 
 private const val FILENAME = "filename="
 private val urlPathExtensions = listOf("jar", "zip", "tar.gz", "tar.bz2", "txt", "html", "xml", "json")
 
 /**
  * [Downloader] of files for URLs provided with [urlProvider].
+ *
+ * HTTP downloads are repeated and resumed from partially downloaded files as configured by the [options].
+ * A downloaded file is verified against the SHA-256 checksum provided by the [checksumProvider],
+ * as a hex string, or by the server in the `Repr-Digest`, `Digest` or `X-Checksum-Sha256` response headers.
  */
-class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K> {
+class UrlDownloader<in K>(
+  private val options: DownloadOptions = DownloadOptions(),
+  private val checksumProvider: (K) -> String? = { null },
+  private val urlProvider: (K) -> URL?
+) : Downloader<K> {
 
   private companion object {
     private const val FILE_PROTOCOL = "file"
@@ -37,12 +63,17 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
 
     private val LOG = LoggerFactory.getLogger(UrlDownloader::class.java)
 
+    private val partialDownloadLocks = Striped.lock(64)
   }
 
   private val downloadConnector = DownloadConnector()
 
   @Throws(InterruptedException::class)
-  override fun download(key: K, tempDirectory: Path): DownloadResult {
+  override fun download(key: K, tempDirectory: Path): DownloadResult =
+    download(key, tempDirectory, tempDirectory)
+
+  @Throws(InterruptedException::class)
+  override fun download(key: K, tempDirectory: Path, partialDownloadsDirectory: Path): DownloadResult {
     val downloadUrl = try {
       urlProvider(key)
     } catch (e: Exception) {
@@ -50,13 +81,13 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
       return DownloadResult.FailedToDownload("Invalid URL", e)
     } ?: return DownloadResult.NotFound("Unknown URL for $key")
 
-    return downloadByUrl(key, downloadUrl, tempDirectory)
+    return downloadByUrl(key, downloadUrl, tempDirectory, partialDownloadsDirectory)
   }
 
-  private fun downloadByUrl(key: K, downloadUrl: URL, tempDirectory: Path): DownloadResult {
+  private fun downloadByUrl(key: K, downloadUrl: URL, tempDirectory: Path, partialDownloadsDirectory: Path): DownloadResult {
     checkIfInterrupted()
     return try {
-      doDownload(key, downloadUrl, tempDirectory)
+      doDownload(key, downloadUrl, tempDirectory, partialDownloadsDirectory)
     } catch (e: NotFound404ResponseException) {
       DownloadResult.NotFound("Resource is not found by $downloadUrl")
     } catch (e: Exception) {
@@ -65,10 +96,10 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
     }
   }
 
-  private fun doDownload(key: K, downloadUrl: URL, tempDirectory: Path): DownloadResult {
+  private fun doDownload(key: K, downloadUrl: URL, tempDirectory: Path, partialDownloadsDirectory: Path): DownloadResult {
     return when (val protocol = downloadUrl.protocol) {
       FILE_PROTOCOL -> copyFileOrDirectory(downloadUrl, tempDirectory)
-      HTTP_PROTOCOL, HTTPS_PROTOCOL -> downloadFileOrDirectory(downloadUrl, tempDirectory, key)
+      HTTP_PROTOCOL, HTTPS_PROTOCOL -> downloadFile(downloadUrl, tempDirectory, partialDownloadsDirectory, key)
       else -> throw IllegalArgumentException("Unknown protocol: $protocol of $downloadUrl")
     }
   }
@@ -80,42 +111,293 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
     return DownloadResult.Downloaded(destination, destination.extension, destination.isDirectory)
   }
 
-  private fun downloadFileOrDirectory(downloadUrl: URL, tempDirectory: Path, key: K): DownloadResult {
-    val response = downloadConnector.download(downloadUrl.toExternalForm())
-    val extension = response.extension
-    val downloadedTempFile = Files.createTempFile(tempDirectory, "", ".$extension")
-    return try {
-      LOG.debug("Downloading {} to {}", key, downloadedTempFile)
-      copyResponseTo(response, downloadedTempFile)
-      DownloadResult.Downloaded(downloadedTempFile, extension, false)
-    } catch (e: Throwable) {
-      downloadedTempFile.deleteLogged()
-      throw e
+  private fun downloadFile(downloadUrl: URL, tempDirectory: Path, partialDownloadsDirectory: Path, key: K): DownloadResult {
+    val url = downloadUrl.toExternalForm()
+    val expectedChecksum = checksumProvider(key)?.let { Checksum.fromHex(it) }
+    val partialDownload = PartialDownload(partialDownloadsDirectory, url)
+    val lock = partialDownloadLocks.get(partialDownload.file)
+    lock.lockInterruptibly()
+    try {
+      var allowSegments = true
+      for (attempt in 1..options.maxAttempts) {
+        checkIfInterrupted()
+        val extension = try {
+          LOG.debug("Downloading {} to {} (attempt {})", key, partialDownload.file, attempt)
+          downloadConnector.download(url, partialDownload, expectedChecksum, allowSegments)
+        } catch (e: Exception) {
+          e.rethrowIfInterrupted()
+          if (attempt == options.maxAttempts || !e.isRetryable()) {
+            throw e
+          }
+          LOG.info("Download of {} failed (attempt {} of {}), retrying: {}", key, attempt, options.maxAttempts, e.message)
+          allowSegments = false
+          continue
+        }
+        val downloadedTempFile = Files.createTempFile(tempDirectory, "", ".$extension")
+        Files.move(partialDownload.file, downloadedTempFile, StandardCopyOption.REPLACE_EXISTING)
+        partialDownload.delete()
+        return DownloadResult.Downloaded(downloadedTempFile, extension, false)
+      }
+      throw IllegalStateException("No download attempts are made for $key")
+    } finally {
+      lock.unlock()
     }
   }
 
-  private fun copyResponseTo(response: Response, file: Path) {
-    checkIfInterrupted()
-    response.body.use { responseBody ->
-      Files.copy(responseBody, file, StandardCopyOption.REPLACE_EXISTING)
+  private fun Exception.isRetryable(): Boolean =
+    this is IOException || this is ServerInternalError500Exception || this is ServerUnavailable503Exception
+
+  /**
+   * Partially downloaded file of the [url] along with the validator of the downloaded resource version,
+   * which is its `ETag` or `Last-Modified` header value.
+   */
+  private class PartialDownload(directory: Path, url: String) {
+    private val name = MessageDigest.getInstance("SHA-256").digest(url.toByteArray()).toHexString().take(32)
+
+    val file: Path = directory.resolve("$name.part")
+
+    private val validatorFile: Path = directory.resolve("$name.validator")
+
+    val size: Long
+      get() = if (file.exists()) Files.size(file) else 0
+
+    var validator: String?
+      get() = if (validatorFile.exists()) validatorFile.readText().takeIf { it.isNotEmpty() } else null
+      set(value) {
+        if (value != null) validatorFile.writeText(value) else Files.deleteIfExists(validatorFile)
+      }
+
+    fun start(validator: String?) {
+      file.parent.createDir()
+      Files.deleteIfExists(file)
+      this.validator = validator
+    }
+
+    fun delete() {
+      Files.deleteIfExists(file)
+      validator = null
     }
   }
 
-  private data class Response(val body: InputStream, val contentLength: Long = -1, val extension: String)
+  private class ChecksumMismatchException(url: String, expected: Checksum, actual: Checksum) :
+    IOException("SHA-256 checksum ${actual.hex} of $url does not match the expected ${expected.hex}")
+
+  private class Checksum(val bytes: ByteArray) {
+    val hex: String
+      get() = bytes.toHexString()
+
+    override fun equals(other: Any?) = other is Checksum && bytes.contentEquals(other.bytes)
 
-  private class DownloadConnector {
-    val httpClient = createHttpClient()
+    override fun hashCode() = bytes.contentHashCode()
+
+    companion object {
+      fun fromHex(hex: String): Checksum {
+        require(hex.length == 64) { "SHA-256 checksum must consist of 64 hex digits: $hex" }
+        return Checksum(ByteArray(32) { hex.substring(it * 2, it * 2 + 2).toInt(16).toByte() })
+      }
+
+      fun fromBase64(base64: String): Checksum? =
+        try {
+          Base64.getDecoder().decode(base64).takeIf { it.size == 32 }?.let { Checksum(it) }
+        } catch (e: IllegalArgumentException) {
+          null
+        }
 
-    fun download(url: String, timeout: Duration = Duration.ofMinutes(5)): Response {
-      val httpGet = HttpRequest.newBuilder().GET()
-              .uri(URI.create(url))
-              .timeout(timeout)
-              .build()
+      /**
+       * Parses the SHA-256 checksum of the whole resource from the response headers, if the server provides it.
+       */
+      fun fromHeaders(response: HttpResponse<*>): Checksum? {
+        val headers = response.headers()
+        val reprDigest = headers.firstValue(REPR_DIGEST).orElse(null)?.findDigest()?.removeSurrounding(":")
+        val digest = headers.firstValue(DIGEST).orElse(null)?.findDigest()
+        val sha256 = headers.firstValue(X_CHECKSUM_SHA256).orElse(null)?.trim()
+        return reprDigest?.let { fromBase64(it) }
+          ?: digest?.let { fromBase64(it) }
+          ?: sha256?.takeIf { it.length == 64 }?.let { runCatching { fromHex(it) }.getOrNull() }
+      }
+
+      private fun String.findDigest(): String? =
+        split(',')
+          .map { it.trim() }
+          .firstOrNull { it.substringBefore('=').trim().equals("sha-256", ignoreCase = true) }
+          ?.substringAfter('=')
+          ?.trim()
+    }
+  }
+
+  private inner class DownloadConnector {
+    val httpClient = createHttpClient(options.timeout)
+
+    /**
+     * Downloads the [url] to the [partialDownload] file, resuming the file if possible.
+     * Returns the extension of the downloaded file.
+     */
+    fun download(url: String, partialDownload: PartialDownload, expectedChecksum: Checksum?, allowSegments: Boolean): String {
+      val offset = partialDownload.size
+      val validator = partialDownload.validator
+      val canResume = offset > 0 && (validator != null || expectedChecksum != null)
+      if (!canResume) {
+        partialDownload.delete()
+      }
 
-      val response: HttpResponse<InputStream> = httpClient.send(httpGet, HttpResponse.BodyHandlers.ofInputStream())
-      assertHttpOk(url, response)
+      val requestBuilder = newRequest(url)
+      if (canResume) {
+        requestBuilder.header(RANGE, "bytes=$offset-")
+        if (validator != null) {
+          requestBuilder.header(IF_RANGE, validator)
+        }
+      }
+      val response: HttpResponse<InputStream> = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream())
       val extension = response.guessExtension()
-      return Response(response.body(), response.contentLength(), extension)
+      response.body().use { body ->
+        when (response.statusCode()) {
+          206 -> {
+            val rangeStart = response.headers().firstValue(CONTENT_RANGE).orElse(null)
+              ?.substringAfter("bytes ", "")?.substringBefore('-')?.toLongOrNull()
+            if (!canResume || rangeStart != offset) {
+              partialDownload.delete()
+              throw IOException("Server $url responded with unexpected range $rangeStart instead of $offset")
+            }
+            LOG.info("Resuming download of {} from byte {}", url, offset)
+            val checksum = expectedChecksum ?: Checksum.fromHeaders(response)
+            writeBody(url, body, partialDownload, append = true, checksum)
+          }
+          200 -> {
+            partialDownload.start(response.getValidator())
+            val checksum = expectedChecksum ?: Checksum.fromHeaders(response)
+            val contentLength = response.contentLength()
+            if (allowSegments && options.segmentCount > 1 && contentLength >= options.segmentedDownloadThreshold
+              && response.headers().firstValue(ACCEPT_RANGES).orElse("").equals("bytes", ignoreCase = true)
+              && (partialDownload.validator != null || checksum != null)
+            ) {
+              body.close()
+              downloadSegments(url, partialDownload, contentLength, checksum)
+            } else {
+              writeBody(url, body, partialDownload, append = false, checksum)
+            }
+          }
+          416 -> {
+            partialDownload.delete()
+            throw IOException("Server $url cannot resume the download from byte $offset: HTTP Response 416")
+          }
+          else -> assertHttpOk(url, response)
+        }
+      }
+      return extension
+    }
+
+    private fun newRequest(url: String): HttpRequest.Builder =
+      HttpRequest.newBuilder().GET()
+        .uri(URI.create(url))
+        .timeout(options.timeout)
+
+    private fun writeBody(url: String, body: InputStream, partialDownload: PartialDownload, append: Boolean, checksum: Checksum?) {
+      val messageDigest = checksum?.let { MessageDigest.getInstance("SHA-256") }
+      if (append && messageDigest != null) {
+        Files.newInputStream(partialDownload.file).use { it.copyTo(DigestOutputStream(OutputStream.nullOutputStream(), messageDigest)) }
+      }
+      val openOptions = if (append) arrayOf(StandardOpenOption.CREATE, StandardOpenOption.APPEND) else arrayOf(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+      Files.newOutputStream(partialDownload.file, *openOptions).use { fileStream ->
+        val output = if (messageDigest != null) DigestOutputStream(fileStream, messageDigest) else fileStream
+        body.copyTo(output)
+      }
+      if (checksum != null && messageDigest != null) {
+        verifyChecksum(url, partialDownload, checksum, Checksum(messageDigest.digest()))
+      }
+    }
+
+    /**
+     * Downloads [contentLength] bytes of the [url] by [DownloadOptions.segmentCount] byte ranges in parallel.
+     * Each segment is retried from its last downloaded byte up to [DownloadOptions.maxAttempts] times.
+     */
+    private fun downloadSegments(url: String, partialDownload: PartialDownload, contentLength: Long, checksum: Checksum?) {
+      val validator = partialDownload.validator
+      val segmentSize = (contentLength + options.segmentCount - 1) / options.segmentCount
+      val segments = (0 until options.segmentCount)
+        .map { it * segmentSize until minOf((it + 1) * segmentSize, contentLength) }
+        .filterNot { it.isEmpty() }
+      LOG.debug("Downloading {} by {} segments", url, segments.size)
+
+      val executor = Executors.newFixedThreadPool(segments.size, threadFactory("plugin-verifier-download-segment-%d", daemon = true))
+      try {
+        FileChannel.open(partialDownload.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE).use { channel ->
+          val futures = segments.map { segment -> executor.submit { downloadSegment(url, validator, segment, channel) } }
+          try {
+            futures.forEach { it.get() }
+          } catch (e: ExecutionException) {
+            throw e.cause as? Exception ?: e
+          }
+        }
+      } catch (e: Exception) {
+        // The file is not a contiguous prefix of the resource and cannot be resumed.
+        partialDownload.delete()
+        throw e
+      } finally {
+        executor.shutdownNow()
+      }
+
+      if (checksum != null) {
+        val messageDigest = MessageDigest.getInstance("SHA-256")
+        Files.newInputStream(partialDownload.file).use { it.copyTo(DigestOutputStream(OutputStream.nullOutputStream(), messageDigest)) }
+        verifyChecksum(url, partialDownload, checksum, Checksum(messageDigest.digest()))
+      }
+    }
+
+    private fun downloadSegment(url: String, validator: String?, segment: LongRange, channel: FileChannel) {
+      var position = segment.first
+      var attempt = 1
+      while (position <= segment.last) {
+        checkIfInterrupted()
+        try {
+          val requestBuilder = newRequest(url).header(RANGE, "bytes=$position-${segment.last}")
+          if (validator != null) {
+            requestBuilder.header(IF_RANGE, validator)
+          }
+          val response = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream())
+          response.body().use { body ->
+            if (response.statusCode() != 206) {
+              assertHttpOk(url, response)
+              throw IOException("Server $url ignored the requested range of bytes $position-${segment.last}")
+            }
+            val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
+            while (position <= segment.last) {
+              val read = body.read(buffer, 0, minOf(buffer.size.toLong(), segment.last - position + 1).toInt())
+              if (read < 0) break
+              val byteBuffer = ByteBuffer.wrap(buffer, 0, read)
+              while (byteBuffer.hasRemaining()) {
+                position += channel.write(byteBuffer, position)
+              }
+            }
+          }
+          if (position <= segment.last) {
+            throw IOException("Server $url closed the connection at byte $position of the segment ending at ${segment.last}")
+          }
+        } catch (e: Exception) {
+          e.rethrowIfInterrupted()
+          if (attempt++ >= options.maxAttempts || !e.isRetryable()) {
+            throw e
+          }
+          LOG.debug("Download of bytes {}-{} of {} failed, retrying: {}", position, segment.last, url, e.message)
+        }
+      }
+    }
+
+    private fun verifyChecksum(url: String, partialDownload: PartialDownload, expected: Checksum, actual: Checksum) {
+      if (expected != actual) {
+        partialDownload.delete()
+        throw ChecksumMismatchException(url, expected, actual)
+      }
+    }
+
+    /**
+     * Strong validator of the resource version usable in the `If-Range` header.
+     */
+    private fun HttpResponse<*>.getValidator(): String? {
+      val eTag = headers().firstValue(ETAG).orElse(null)
+      if (eTag != null && !eTag.startsWith("W/")) {
+        return eTag
+      }
+      return headers().firstValue(LAST_MODIFIED).orElse(null)
     }
 
     private fun assertHttpOk(url: String, response: HttpResponse<InputStream>) {
@@ -125,7 +407,7 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
         500 -> throw ServerInternalError500Exception(url)
         503 -> throw ServerUnavailable503Exception(url)
         else -> {
-          val message = response.body().bufferedReader().readLine().take(255)
+          val message = response.body().bufferedReader().readLine().orEmpty().take(255)
           throw NonSuccessfulResponseException(url, code, message)
         }
       }
@@ -133,6 +415,9 @@ class UrlDownloader<in K>(private val urlProvider: (K) -> URL?) : Downloader<K>
   }
 }
 
+private fun ByteArray.toHexString(): String =
+  joinToString("") { "%02x".format(it) }
+
 private fun HttpResponse<*>.contentLength(): Long {
   return this.headers()
           .firstValueAsLong(CONTENT_LENGTH)
@@ -6,28 +6,53 @@ package com.jetbrains.pluginverifier.repository.files
 
 import com.jetbrains.plugin.structure.base.utils.deleteLogged
 import com.jetbrains.plugin.structure.base.utils.listFiles
+import com.jetbrains.plugin.structure.base.utils.rethrowIfInterrupted
+import com.jetbrains.plugin.structure.base.utils.simpleName
 import com.jetbrains.pluginverifier.repository.cleanup.IdleSweepPolicy
 import com.jetbrains.pluginverifier.repository.cleanup.SpaceAmount
 import com.jetbrains.pluginverifier.repository.cleanup.SweepPolicy
+import com.jetbrains.pluginverifier.repository.cleanup.UsageStatistic
+import com.jetbrains.pluginverifier.repository.cleanup.UsageStatisticsFile
 import com.jetbrains.pluginverifier.repository.cleanup.fileSize
 import com.jetbrains.pluginverifier.repository.provider.EmptyResourceProvider
 import com.jetbrains.pluginverifier.repository.provider.ResourceProvider
 import com.jetbrains.pluginverifier.repository.resources.ResourceRepository
 import com.jetbrains.pluginverifier.repository.resources.ResourceRepositoryImpl
 import com.jetbrains.pluginverifier.repository.resources.ResourceRepositoryResult
+import org.slf4j.LoggerFactory
 import java.nio.file.Path
 import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * File repository is the refinement of the
  * [resource repository] [ResourceRepository] for files.
+ *
+ * If the [usageStatisticsFile] is specified, the usage statistics of the files
+ * are saved to it at most once in a minute and on the [cleanup],
+ * and the files [added][add] later, for example on the next startup, get their saved statistics back.
  */
 class FileRepository<K : Any>(
   resourceProvider: ResourceProvider<K, Path> = EmptyResourceProvider(),
   sweepPolicy: SweepPolicy<K> = IdleSweepPolicy(),
   presentableName: String = "FileRepository",
-  clock: Clock = Clock.systemUTC()
+  private val clock: Clock = Clock.systemUTC(),
+  val usageStatisticsFile: Path? = null
 ) {
+
+  companion object {
+    /**
+     * Conventional name of the [usageStatisticsFile] in the directory of the repository files.
+     */
+    const val USAGE_STATISTICS_FILE_NAME = ".usage-statistics"
+
+    private val LOG = LoggerFactory.getLogger(FileRepository::class.java)
+
+    private val USAGE_STATISTICS_SAVE_PERIOD: Duration = Duration.ofMinutes(1)
+  }
+
   private val resourceRepository = ResourceRepositoryImpl(
     sweepPolicy,
     clock,
@@ -38,6 +63,12 @@ class FileRepository<K : Any>(
     presentableName
   )
 
+  private val usageStatistics = usageStatisticsFile?.let { UsageStatisticsFile(it) }
+
+  private val savedUsageStatistics: Map<String, UsageStatistic> = usageStatistics?.load().orEmpty()
+
+  private val nextUsageStatisticsSave = AtomicReference<Instant>(Instant.MIN)
+
   /**
    * Provides the file by [key]. The file is returned from the
    * local cache or is provided by the [ResourceProvider] of this class's constructor.
@@ -58,9 +89,16 @@ class FileRepository<K : Any>(
       is ResourceRepositoryResult.NotFound -> FileRepositoryResult.NotFound(reason)
       is ResourceRepositoryResult.Failed -> FileRepositoryResult.Failed(reason, error)
     }
-  }
+  }.also { maybeSaveUsageStatistics() }
 
-  fun add(key: K, resource: Path): Boolean = resourceRepository.add(key, resource)
+  fun add(key: K, resource: Path): Boolean {
+    val savedStatistic = savedUsageStatistics[resource.simpleName]
+    return if (savedStatistic != null) {
+      resourceRepository.add(key, resource, savedStatistic)
+    } else {
+      resourceRepository.add(key, resource)
+    }
+  }
 
   fun remove(key: K): Boolean = resourceRepository.remove(key)
 
@@ -81,12 +119,51 @@ class FileRepository<K : Any>(
 
   fun cleanup() {
     resourceRepository.cleanup()
+    saveUsageStatistics()
+  }
+
+  /**
+   * Saves the usage statistics of the available files to the [usageStatisticsFile], if it is specified.
+   */
+  fun saveUsageStatistics() {
+    val usageStatistics = usageStatistics ?: return
+    nextUsageStatisticsSave.set(clock.instant() + USAGE_STATISTICS_SAVE_PERIOD)
+    try {
+      usageStatistics.save(getAvailableFiles().associate { it.fileInfo.file.simpleName to it.usageStatistic })
+    } catch (e: Exception) {
+      e.rethrowIfInterrupted()
+      LOG.warn("Failed to save usage statistics to $usageStatisticsFile", e)
+    }
+  }
+
+  private fun maybeSaveUsageStatistics() {
+    val nextSave = nextUsageStatisticsSave.get()
+    if (usageStatistics != null && clock.instant() >= nextSave && nextUsageStatisticsSave.compareAndSet(nextSave, Instant.MAX)) {
+      saveUsageStatistics()
+    }
   }
 
+  /**
+   * Whether the files occupy so much space that the sweep policy requires a cleanup,
+   * so adding more files would evict files that are not locked.
+   */
+  fun isLowOnSpace(): Boolean = resourceRepository.isEvictionNecessary()
+
 }
 
-fun <K : Any> FileRepository<K>.addInitialFilesFrom(directory: Path, keyProvider: (Path) -> K?): FileRepository<K> {
+/**
+ * Adds files of the [directory] to the repository under keys provided by the [keyProvider].
+ * Files with no key are deleted, unless they are [kept][isKept].
+ */
+fun <K : Any> FileRepository<K>.addInitialFilesFrom(
+  directory: Path,
+  isKept: (Path) -> Boolean = { false },
+  keyProvider: (Path) -> K?
+): FileRepository<K> {
   for (file in directory.listFiles()) {
+    if (file == usageStatisticsFile || isKept(file)) {
+      continue
+    }
     val key = keyProvider(file)
     if (key != null) {
       add(key, file)
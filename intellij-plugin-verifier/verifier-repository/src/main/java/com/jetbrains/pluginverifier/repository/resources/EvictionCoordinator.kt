@@ -0,0 +1,54 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.repository.resources
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Runs the [eviction] procedure of the [ResourceRepositoryImpl] in one thread at a time.
+ *
+ * Threads [requesting][requestEviction] an eviction while another thread runs it do not wait:
+ * the running thread repeats the eviction on their behalf once it completes the current one.
+ */
+internal class EvictionCoordinator(private val eviction: () -> Unit) {
+
+  /**
+   * Number of requests not served yet, which is positive while some thread runs the eviction.
+   */
+  private val pendingRequests = AtomicInteger()
+
+  private val evictionLock = ReentrantLock()
+
+  /**
+   * Runs the eviction in the current thread unless another thread is running it already.
+   *
+   * @return whether the eviction was run by the current thread
+   */
+  fun requestEviction(): Boolean {
+    if (pendingRequests.getAndIncrement() > 0) {
+      return false
+    }
+    try {
+      do {
+        val servedRequests = pendingRequests.get()
+        evictionLock.withLock { eviction() }
+      } while (pendingRequests.addAndGet(-servedRequests) > 0)
+    } catch (e: Throwable) {
+      // Let the next request run the eviction.
+      pendingRequests.set(0)
+      throw e
+    }
+    return true
+  }
+
+  /**
+   * Runs the eviction in the current thread, waiting for the eviction run by another thread, if any.
+   */
+  fun evictNow() {
+    evictionLock.withLock { eviction() }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.repository.resources
+
+import com.jetbrains.pluginverifier.repository.cleanup.UsageStatistic
+
+/**
+ * [Eviction policy][EvictionPolicy] that maintains its own index of the resources
+ * of the [repository][ResourceRepositoryImpl], so that selecting resources for eviction
+ * does not require examining all of them.
+ *
+ * The repository notifies the policy of every addition, access and removal of a resource.
+ * Notifications on the same resource may come from different threads out of order,
+ * so the index must tolerate entries of resources that are no longer in the repository.
+ * The resource is identified by its key and its [ResourceInfo] instance.
+ */
+interface IndexedEvictionPolicy<R, K, W : ResourceWeight<W>> : EvictionPolicy<R, K, W> {
+
+  /**
+   * Notifies that the resource by [key] has been added to the repository or accessed
+   * and now has the [usageStatistic].
+   */
+  fun onResourceAccessed(key: K, resourceInfo: ResourceInfo<R, W>, usageStatistic: UsageStatistic)
+
+  /**
+   * Notifies that the resource by [key] has been removed from the repository.
+   */
+  fun onResourceRemoved(key: K, resourceInfo: ResourceInfo<R, W>)
+
+  /**
+   * Determines which resources must be [removed][ResourceRepository.remove]
+   * given the total weight of the resources in the repository is [totalWeight].
+   *
+   * The [lockState] tells whether a resource of the index is currently locked,
+   * or returns `null` if the resource is no longer in the repository.
+   */
+  fun selectResourcesForEviction(
+    totalWeight: W,
+    lockState: (K, ResourceInfo<R, W>) -> Boolean?
+  ): List<AvailableResource<R, K, W>>
+}
@@ -15,13 +15,11 @@ import com.jetbrains.pluginverifier.repository.provider.ResourceProvider
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import java.time.Clock
+import java.time.Instant
 import java.util.concurrent.*
 import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.atomic.AtomicLong
 import java.util.concurrent.atomic.AtomicReference
-import java.util.concurrent.locks.Condition
-import java.util.concurrent.locks.ReentrantLock
-import kotlin.concurrent.withLock
 
 /**
  * The implementation of the [resource repository][ResourceRepository]
@@ -34,6 +32,12 @@ import kotlin.concurrent.withLock
  * typically equal zero in the units of chosen weights domain, the [weigher] used to assign
  * weights of the resources in a controlled way and the [disposer] used to deallocate
  * the resources being removed.
+ *
+ * Threads working with different keys do not block each other:
+ * the state of each key is kept in its own entry of a concurrent map,
+ * either as a [future][Fetching] of the resource being provided, which other threads wait for,
+ * or as the [stored][Stored] resource with an atomic counter of its locks.
+ * The eviction is run by the [EvictionCoordinator] only when the [evictionPolicy] requires it.
  */
 class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
   private val evictionPolicy: EvictionPolicy<R, K, W>,
@@ -52,7 +56,11 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
 
   private val storage = ConcurrentHashMap<K, StorageStatus>()
   private val totalWeight: AtomicReference<W> = AtomicReference(initialWeight)
-  private val removeQueue: MutableSet<Pair<K, StorageStatus>> = ConcurrentHashMap.newKeySet()
+
+  @Suppress("UNCHECKED_CAST")
+  private val indexedEvictionPolicy = evictionPolicy as? IndexedEvictionPolicy<R, K, W>
+
+  private val evictionCoordinator = EvictionCoordinator { doCleanup() }
 
   sealed interface StorageStatus
 
@@ -61,6 +69,12 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
     @Volatile
     var fetched: Stored<R, *, *>? = null
 
+    /**
+     * Whether the resource must be removed once it is provided and its locks are released.
+     */
+    @Volatile
+    var removalRequested: Boolean = false
+
     override fun equals(other: Any?): Boolean {
       return this === other
     }
@@ -74,6 +88,12 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
     // `-1` means Stored was removed from the storage. One should re-read it.
     internal val locks = AtomicInteger()
 
+    /**
+     * Whether the resource must be removed once its last lock is released.
+     */
+    @Volatile
+    internal var removalRequested: Boolean = false
+
     /**
      * Use identity equals
      */
@@ -97,15 +117,34 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
         }
       }
     }
+
+    /**
+     * Registers an access of the resource and returns a copy of the updated statistics.
+     */
+    internal fun access(now: Instant): UsageStatistic =
+      synchronized(statistic) {
+        statistic.access(now)
+        statistic.copy()
+      }
+
+    internal fun copyStatistic(): UsageStatistic = synchronized(statistic) { statistic.copy() }
   }
 
-  override fun add(key: K, resource: R) =
+  override fun add(key: K, resource: R) = add(key, resource, UsageStatistic(clock.instant(), 1))
+
+  /**
+   * Adds the [resource] by [key] with the [usageStatistic] preserved from its previous use,
+   * unless a resource by [key] is already available.
+   */
+  fun add(key: K, resource: R, usageStatistic: UsageStatistic): Boolean =
     try {
       val weight = weigher(resource)
-      val previous = storage.putIfAbsent(key, Stored<R, K, W>(ResourceInfo(resource, weight), UsageStatistic(clock.instant(), 1)))
+      val stored = Stored<R, K, W>(ResourceInfo(resource, weight), usageStatistic.copy())
+      val previous = storage.putIfAbsent(key, stored)
       val added = previous === null
       if (added) {
         totalWeight.accumulateAndGet(weight) { acc, weight -> acc + weight }
+        indexedEvictionPolicy?.onResourceAccessed(key, stored.info, stored.copyStatistic())
       }
       added
     } finally {
@@ -114,6 +153,11 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
 
   override fun getAllExistingKeys(): Set<K> = HashSet(storage.keys)
 
+  /**
+   * Whether the total weight of the resources is so large that the [evictionPolicy] requires a cleanup.
+   */
+  fun isEvictionNecessary(): Boolean = evictionPolicy.isNecessary(totalWeight.get())
+
   override fun has(key: K): Boolean = storage.containsKey(key)
 
   override fun isLockedOrBeingProvided(key: K): Boolean {
@@ -128,40 +172,54 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
 
   private fun remove2(key: K, cleanupIfRemoved: Boolean): Boolean {
     val value = storage[key] ?: return false
-    when (value) {
+    val stored = when (value) {
       is Fetching<*> -> {
-        logger.debugMaybe { "remove($key): the resource is being provided, enqueue for removing later" }
-        removeQueue.add(key to (value.fetched ?: value))
-        return false
-      }
-
-      is Stored<*, *, *> -> {
-        val markAsRemoved = value.locks.compareAndExchange(0, -1)
-        if (markAsRemoved > 0) {
-          // still have live locks
-          logger.debugMaybe { "remove($key): the resource is locked, enqueue for removing later" }
-          removeQueue.add(key to value)
+        value.removalRequested = true
+        // The providing thread may have stored the resource before seeing the request.
+        value.fetched ?: run {
+          logger.debugMaybe { "remove($key): the resource is being provided, remove it once it is released" }
           return false
         }
-        val removedFromStorage = storage.remove(key, value)
-
-        if (removedFromStorage) {
-          logger.debugMaybe { "remove($key): the resource is not locked, deleting now" }
-          @Suppress("UNCHECKED_CAST")
-          val info = value.info as ResourceInfo<*, W>
-          totalWeight.accumulateAndGet(info.weight) { acc, weight -> acc - weight }
-          @Suppress("UNCHECKED_CAST")
-          safeDispose(key, value.info.resource as R)
-        } else {
-          // Association has changed, probably some other thread removed it and optionally put another value.
-          // Since our `value` is obsolete and has no locks, consider that it's removed.
-        }
-        if (cleanupIfRemoved) {
-          maybeCleanup()
-        }
-        return true
+      }
+
+      is Stored<*, *, *> -> value
+    }
+    @Suppress("UNCHECKED_CAST")
+    stored as Stored<R, K, W>
+    if (!removeIfNotLocked(key, stored)) {
+      logger.debugMaybe { "remove($key): the resource is locked, remove it once it is released" }
+      stored.removalRequested = true
+      // The last lock may have been released before the request was seen.
+      if (!removeIfNotLocked(key, stored)) {
+        return false
       }
     }
+    if (cleanupIfRemoved) {
+      maybeCleanup()
+    }
+    return true
+  }
+
+  /**
+   * Removes the [value] stored by [key] and disposes its resource, unless the resource is locked.
+   * Returns `false` if the resource is locked.
+   */
+  private fun removeIfNotLocked(key: K, value: Stored<R, K, W>): Boolean {
+    val markAsRemoved = value.locks.compareAndExchange(0, -1)
+    if (markAsRemoved > 0) {
+      // still have live locks
+      return false
+    }
+    if (storage.remove(key, value)) {
+      logger.debugMaybe { "remove($key): the resource is not locked, deleting now" }
+      totalWeight.accumulateAndGet(value.info.weight) { acc, weight -> acc - weight }
+      indexedEvictionPolicy?.onResourceRemoved(key, value.info)
+      safeDispose(key, value.info.resource)
+    } else {
+      // Association has changed, probably some other thread removed it and optionally put another value.
+      // Since our `value` is obsolete and has no locks, consider that it's removed.
+    }
+    return true
   }
 
   override fun removeAll() {
@@ -173,53 +231,14 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
   internal fun releaseLock(lock: ResourceLockImpl<R, K, W>) {
     logger.debugMaybe { "releasing lock $lock" }
 
-    val key = lock.key
     val value = lock.value
-    val pair = key to value
-
-    val hasLocks = let {
-      val value = value.locks.decrementAndGet()
-      value > 0
-    }
-
-    if (hasLocks) {
+    if (value.locks.decrementAndGet() > 0) {
       return
     }
 
-    refreshRemoveQueue()
-
-    // Probably should be removed since no more locks left
-    if (removeQueue.remove(pair)) {
-      // was in the queue, remove it from the storage if there are no locks
-      val markAsRemoved = value.locks.compareAndExchange(0, -1)
-      if (markAsRemoved > 0) {
-        // someone acquired a lock while we were removing the pair from the queue, put it back
-        logger.debugMaybe { "remove($key): the resource is locked, enqueue for removing later" }
-        removeQueue.add(pair)
-        return
-      }
-      val removed = storage.remove(key, value)
-
-      if (removed) {
-        logger.debugMaybe { "remove($key): the resource is not locked, deleting now" }
-        totalWeight.accumulateAndGet(value.info.weight) { acc, weight -> acc - weight }
-        safeDispose(key, value.info.resource)
-      } else {
-        // Association has changed, probably some other thread removed it and optionally put another value.
-        // Since our `value` is obsolete and has no locks, consider that it's removed.
-      }
-    }
-  }
-
-  private fun refreshRemoveQueue() {
-    for (pair in removeQueue) {
-      if (pair.second is Fetching<*>) {
-        val fetched = (pair.second as Fetching<*>).fetched
-        if (fetched != null) {
-          removeQueue.remove(pair)
-          removeQueue.add(pair.first to fetched)
-        }
-      }
+    // If another thread has acquired a lock in the meantime, the resource will be removed on its release.
+    if (value.removalRequested) {
+      removeIfNotLocked(lock.key, value)
     }
   }
 
@@ -241,7 +260,8 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
           // was marked as removed, can no longer add any lock, re-run the whole method to read new association from storage
           continue
         }
-        value.statistic.access(now)
+        val statistic = value.access(now)
+        indexedEvictionPolicy?.onResourceAccessed(key, value.info, statistic)
         statistics.recordHit()
         logger.debugMaybe { "$presentableName hit: the resource $key is available and a lock is registered $lock (cached, lockId=$lockId)" }
         return ResourceRepositoryResult.Found(lock)
@@ -293,9 +313,10 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
         if (storage.replace(key, fetchTask, created)) {
           // successfully replaced the task with the created value
           totalWeight.accumulateAndGet(created.info.weight) { acc, weight -> acc + weight }
+          indexedEvictionPolicy?.onResourceAccessed(key, created.info, created.copyStatistic())
           fetchTask.fetched = created
-          if (removeQueue.remove(key to fetchTask)) {
-            removeQueue.add(key to created)
+          if (fetchTask.removalRequested) {
+            created.removalRequested = true
           }
         } else {
           // probably another thread updated the association, re-run the whole method
@@ -327,88 +348,46 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
       @Suppress("UNCHECKED_CAST")
       val value = it.value as Stored<R, K, W>
       // copying statistics since it could be used in sorting and it should be unmodifiable
-      val (isLocked, stats) = (value.locks.get() > 0) to value.statistic.copy()
+      val (isLocked, stats) = (value.locks.get() > 0) to value.copyStatistic()
       AvailableResource(it.key, value.info, stats, isLocked)
     }
   }
 
+  /**
+   * Runs the cleanup in the current thread, after the cleanup run by another thread completes, if any.
+   */
   override fun cleanup() {
-    if (maybeCleanup()) {
-      return
-    }
-    // wait for another running cleanup, run one more from the current thread
-    var skipped = 0
-    while (true) {
-      val stop = cleanupState.lock.withLock {
-        if (cleanupState.running) {
-          cleanupState.condition.await()
-        }
-        if (!cleanupState.running) {
-          cleanupState.running = true
-          skipped = cleanupState.skipped
-          true
-        } else {
-          false
-        }
-      }
-      if (stop) {
-        break
-      }
-    }
-    try {
-      doCleanup()
-    } finally {
-      cleanupState.lock.withLock {
-        cleanupState.running = false
-        cleanupState.skipped -= skipped
-        cleanupState.condition.signalAll()
-      }
-    }
+    evictionCoordinator.evictNow()
   }
 
   /**
-   * Runs cleanup if other thread isn't doing it, else skip
+   * Runs cleanup if it is necessary and other thread isn't doing it, else skip.
+   * The thread running the cleanup repeats it once it completes, if it was skipped by other threads meanwhile.
    *
    * @return whether cleanup was performed by the current thread
    */
   fun maybeCleanup(): Boolean {
-    val skipped: Int = cleanupState.lock.withLock {
-      if (!cleanupState.running) {
-        cleanupState.running = true
-        cleanupState.skipped
-      } else {
-        cleanupState.skipped++
-        return false
-      }
+    if (!isEvictionNecessary()) {
+      return false
     }
-    try {
-      doCleanup()
-    } finally {
-      cleanupState.lock.withLock {
-        cleanupState.running = false
-        cleanupState.skipped -= skipped
-        cleanupState.condition.signalAll()
-      }
-    }
-    return true
-  }
-
-  private class CleanupState {
-    val lock = ReentrantLock()
-    val condition: Condition = lock.newCondition()
-    var running: Boolean = false
-    var skipped: Int = 0
+    return evictionCoordinator.requestEviction()
   }
 
-  private val cleanupState = CleanupState()
-
   fun doCleanup() {
     if (evictionPolicy.isNecessary(totalWeight.get())) {
-      val availableResources = getAvailableResources()
-      val totalWeight = availableResources.map { it.resourceInfo.weight }.reduce { acc, weight -> acc + weight }
-
-      val evictionInfo = EvictionInfo(totalWeight, availableResources)
-      val resourcesForEviction = evictionPolicy.selectResourcesForEviction(evictionInfo)
+      val totalWeight: W
+      val resourcesForEviction: List<AvailableResource<R, K, W>>
+      if (indexedEvictionPolicy != null) {
+        totalWeight = this.totalWeight.get()
+        resourcesForEviction = indexedEvictionPolicy.selectResourcesForEviction(totalWeight) { key, resourceInfo ->
+          val value = storage[key] as? Stored<*, *, *>
+          if (value != null && value.info === resourceInfo) value.locks.get() > 0 else null
+        }
+      } else {
+        val availableResources = getAvailableResources()
+        totalWeight = availableResources.map { it.resourceInfo.weight }.reduce { acc, weight -> acc + weight }
+        resourcesForEviction = evictionPolicy.selectResourcesForEviction(EvictionInfo(totalWeight, availableResources))
+      }
 
       if (resourcesForEviction.isNotEmpty()) {
         val disposedTotalWeight = resourcesForEviction.map { it.resourceInfo.weight }.reduce { acc, weight -> acc + weight }
@@ -467,4 +446,4 @@ class ResourceRepositoryImpl<R : Any, K : Any, W : ResourceWeight<W>>(
 
   override fun toString() = presentableName
 
-}
\ No newline at end of file
+}
@@ -44,6 +44,10 @@ class DataServicesIndexParserTest {
     )
 
     assertEquals(expectedIdes, actualIdes)
+    assertEquals(
+      URL("https://download.jetbrains.com/cpp/CLion-182.3458.13.tar.gz.sha256"),
+      actualIdes.first { it.version == createIdeVersion("CL-182.3458.13") }.checksumUrl
+    )
   }
 
   private fun availableIde(version: String, releaseVersion: String?, url: String, uploadDate: LocalDate): AvailableIde {
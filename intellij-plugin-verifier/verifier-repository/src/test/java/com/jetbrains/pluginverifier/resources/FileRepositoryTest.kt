@@ -16,6 +16,11 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.TemporaryFolder
 import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
 import java.util.*
 import java.util.concurrent.Callable
 import java.util.concurrent.CountDownLatch
@@ -279,4 +284,74 @@ class FileRepositoryTest {
     assertEquals("2", downloadDir.resolve("a (2).txt").readText())
     assertEquals("3", downloadDir.resolve("a (3).txt").readText())
   }
+
+  @Test
+  fun `LRU sweep policy deletes least recently accessed files`() {
+    val clock = ManualClock()
+    val fileRepository = FileRepository(
+      createDownloadingProvider(tempFolder.newFolderPath()),
+      LruFileSizeSweepPolicy(DiskSpaceSetting(ONE_BYTE * 5, ONE_BYTE * 2, ONE_BYTE * 3)),
+      clock = clock
+    )
+
+    for (key in listOf(1, 2, 3, 1)) {
+      clock.advance()
+      fileRepository.getFound(key).lockedFile.release()
+    }
+    assertEquals(setOf(1, 2, 3), fileRepository.getAllExistingKeys())
+
+    //the 4-th byte leaves 1 byte of free space, so 2 more bytes must be freed
+    clock.advance()
+    fileRepository.getFound(4).lockedFile.release()
+    assertEquals(setOf(1, 4), fileRepository.getAllExistingKeys())
+  }
+
+  @Test
+  fun `usage statistics of files are restored on repository creation`() {
+    val repositoryDir = tempFolder.newFolderPath()
+    for (i in 1..3) {
+      repositoryDir.resolve(i.toString()).writeText(i.toString())
+    }
+    val usageStatisticsFile = repositoryDir.resolve(FileRepository.USAGE_STATISTICS_FILE_NAME)
+
+    val clock = ManualClock()
+    val fileRepository = FileRepository(
+      createDownloadingProvider(repositoryDir),
+      IdleSweepPolicy(),
+      clock = clock,
+      usageStatisticsFile = usageStatisticsFile
+    ).addInitialFilesFrom(repositoryDir) { it.nameWithoutExtension.toIntOrNull() }
+    for (key in listOf(3, 1)) {
+      clock.advance()
+      fileRepository.getFound(key).lockedFile.release()
+    }
+    fileRepository.saveUsageStatistics()
+
+    //all files look equally old to the new repository, unless their statistics are restored
+    val restoredRepository = FileRepository(
+      createDownloadingProvider(repositoryDir),
+      LruFileSizeSweepPolicy(DiskSpaceSetting(ONE_BYTE * 4, ONE_BYTE * 2, ONE_BYTE * 3)),
+      clock = clock,
+      usageStatisticsFile = usageStatisticsFile
+    )
+    restoredRepository.addInitialFilesFrom(repositoryDir) { it.nameWithoutExtension.toIntOrNull() }
+
+    assertTrue(usageStatisticsFile.exists())
+    assertEquals(setOf(1), restoredRepository.getAllExistingKeys())
+    val restoredStatistic = restoredRepository.getAvailableFiles().single().usageStatistic
+    assertEquals(2L, restoredStatistic.timesAccessed)
+    assertEquals(clock.instant(), restoredStatistic.lastAccessTime)
+  }
+
+  private class ManualClock(private var now: Instant = Instant.parse("2026-01-01T00:00:00Z")) : Clock() {
+    fun advance() {
+      now += Duration.ofMinutes(1)
+    }
+
+    override fun instant(): Instant = now
+
+    override fun getZone(): ZoneId = ZoneOffset.UTC
+
+    override fun withZone(zone: ZoneId): Clock = this
+  }
 }
\ No newline at end of file
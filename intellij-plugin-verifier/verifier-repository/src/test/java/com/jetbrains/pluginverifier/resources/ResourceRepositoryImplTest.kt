@@ -4,17 +4,33 @@
 
 package com.jetbrains.pluginverifier.resources
 
+import com.jetbrains.plugin.structure.base.utils.shutdownAndAwaitTermination
+import com.jetbrains.pluginverifier.repository.cleanup.DiskSpaceSetting
+import com.jetbrains.pluginverifier.repository.cleanup.LruFileSizeSweepPolicy
 import com.jetbrains.pluginverifier.repository.cleanup.SizeEvictionPolicy
 import com.jetbrains.pluginverifier.repository.cleanup.SizeWeight
+import com.jetbrains.pluginverifier.repository.cleanup.SpaceAmount
+import com.jetbrains.pluginverifier.repository.cleanup.SpaceAmount.Companion.ONE_BYTE
+import com.jetbrains.pluginverifier.repository.files.SpaceWeight
 import com.jetbrains.pluginverifier.repository.provider.ProvideResult
 import com.jetbrains.pluginverifier.repository.provider.ResourceProvider
 import com.jetbrains.pluginverifier.repository.resources.ResourceLock
 import com.jetbrains.pluginverifier.repository.resources.ResourceRepositoryImpl
 import com.jetbrains.pluginverifier.repository.resources.ResourceRepositoryResult
+import com.jetbrains.pluginverifier.repository.resources.ResourceWeight
 import org.junit.Assert.*
 import org.junit.Test
 import java.io.Closeable
+import java.nio.file.Path
+import java.nio.file.Paths
 import java.time.Clock
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
 
 class ResourceRepositoryImplTest {
@@ -144,4 +160,136 @@ class ResourceRepositoryImplTest {
     assertFalse(resourceRepository.has(key))
   }
 
+  @Test
+  fun `concurrent access to random keys preserves invariants of repository with size eviction policy`() {
+    val resourceTracker = StressResourceTracker()
+    val resourceRepository = ResourceRepositoryImpl(
+      SizeEvictionPolicy(8),
+      Clock.systemUTC(),
+      resourceTracker,
+      SizeWeight(0),
+      { SizeWeight(1) },
+      { resourceTracker.dispose(it) },
+      "testRepository"
+    )
+    hammerRandomKeys(resourceRepository, resourceTracker)
+    assertTrue(resourceRepository.getAllExistingKeys().size <= 8)
+  }
+
+  @Test
+  fun `concurrent access to random keys preserves invariants of repository with indexed eviction policy`() {
+    val resourceTracker = StressResourceTracker()
+    val resourceRepository = ResourceRepositoryImpl(
+      LruFileSizeSweepPolicy(DiskSpaceSetting(ONE_BYTE * 10, ONE_BYTE * 2, ONE_BYTE * 4)),
+      Clock.systemUTC(),
+      resourceTracker,
+      SpaceWeight(SpaceAmount.ZERO_SPACE),
+      { SpaceWeight(ONE_BYTE) },
+      { resourceTracker.dispose(it) },
+      "testRepository"
+    )
+    hammerRandomKeys(resourceRepository, resourceTracker)
+    assertFalse(resourceRepository.isEvictionNecessary())
+  }
+
+  /**
+   * Gets, locks, releases and removes random keys from many threads at once,
+   * and checks that locked resources are never disposed and a resource is never provided
+   * by several threads at once. Once all the locks are released, the repository must contain
+   * exactly the provided resources that have not been disposed.
+   */
+  private fun <W : ResourceWeight<W>> hammerRandomKeys(
+    resourceRepository: ResourceRepositoryImpl<Path, Int, W>,
+    resourceTracker: StressResourceTracker
+  ) {
+    val threads = 16
+    val keys = 32
+    val startLatch = CountDownLatch(1)
+    val executorService = Executors.newFixedThreadPool(threads)
+    try {
+      val futures = (0 until threads).map { thread ->
+        executorService.submit(Callable {
+          val random = Random(thread.toLong())
+          startLatch.await()
+          repeat(3000) {
+            val key = random.nextInt(keys)
+            if (random.nextInt(10) == 0) {
+              resourceRepository.remove(key)
+            } else {
+              val lock = (resourceRepository.get(key) as ResourceRepositoryResult.Found).lockedResource
+              resourceTracker.use(lock.resource) {
+                if (random.nextBoolean()) {
+                  Thread.yield()
+                }
+              }
+              lock.release()
+            }
+          }
+        })
+      }
+      startLatch.countDown()
+      futures.forEach { it.get(1, TimeUnit.MINUTES) }
+    } finally {
+      executorService.shutdownAndAwaitTermination(1, TimeUnit.MINUTES)
+    }
+
+    assertEquals(emptyList<String>(), resourceTracker.violations.toList())
+    resourceRepository.cleanup()
+    assertEquals(resourceTracker.getAliveResources(), resourceRepository.getAvailableResources().map { it.resourceInfo.resource }.toSet())
+    assertTrue(resourceRepository.getAvailableResources().none { it.isLocked })
+  }
+
+  /**
+   * Provides distinct resources and records the violations of the repository invariants.
+   */
+  private class StressResourceTracker : ResourceProvider<Int, Path> {
+    val violations = ConcurrentLinkedQueue<String>()
+
+    private val nextResourceId = AtomicInteger()
+
+    private val keysBeingProvided: MutableSet<Int> = ConcurrentHashMap.newKeySet()
+
+    private val resourceLocks = ConcurrentHashMap<Path, AtomicInteger>()
+
+    private val disposedResources: MutableSet<Path> = ConcurrentHashMap.newKeySet()
+
+    override fun provide(key: Int): ProvideResult<Path> {
+      if (!keysBeingProvided.add(key)) {
+        violations += "Resource $key is provided by several threads at once"
+      }
+      try {
+        Thread.yield()
+        val resource = Paths.get("$key-${nextResourceId.incrementAndGet()}")
+        resourceLocks[resource] = AtomicInteger()
+        return ProvideResult.Provided(resource)
+      } finally {
+        keysBeingProvided.remove(key)
+      }
+    }
+
+    fun use(resource: Path, action: () -> Unit) {
+      val locks = resourceLocks.getValue(resource)
+      locks.incrementAndGet()
+      try {
+        if (resource in disposedResources) {
+          violations += "Resource $resource is used after it has been disposed"
+        }
+        action()
+      } finally {
+        locks.decrementAndGet()
+      }
+    }
+
+    fun dispose(resource: Path) {
+      if (resourceLocks.getValue(resource).get() > 0) {
+        violations += "Resource $resource is disposed while it is locked"
+      }
+      if (!disposedResources.add(resource)) {
+        violations += "Resource $resource is disposed twice"
+      }
+    }
+
+    fun getAliveResources(): Set<Path> = resourceLocks.keys - disposedResources
+  }
+
 }
\ No newline at end of file
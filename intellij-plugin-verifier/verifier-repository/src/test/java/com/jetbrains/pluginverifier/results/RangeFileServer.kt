@@ -0,0 +1,88 @@
+package com.jetbrains.pluginverifier.results
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import java.io.Closeable
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.URL
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * HTTP server of the [content] supporting byte range requests, which
+ * closes the connection after sending [dropAfterBytes] bytes of the body for the first [droppedResponses] responses.
+ */
+class RangeFileServer(
+  private val content: ByteArray,
+  private val eTag: String? = "\"v1\"",
+  private val headers: Map<String, String> = emptyMap(),
+  private val dropAfterBytes: Int = content.size / 2,
+  droppedResponses: Int = 0
+) : Closeable {
+
+  private val remainingDroppedResponses = AtomicInteger(droppedResponses)
+
+  /**
+   * Values of the `Range` header of the received requests, or `null` for requests of the whole content.
+   */
+  val requestedRanges: MutableList<String?> = Collections.synchronizedList(arrayListOf())
+
+  private val executor = Executors.newCachedThreadPool()
+
+  private val server = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0).apply {
+    createContext("/") { exchange ->
+      try {
+        respond(exchange)
+      } finally {
+        exchange.close()
+      }
+    }
+    executor = this@RangeFileServer.executor
+    start()
+  }
+
+  val url: URL
+    get() = URL("http://${server.address.hostString}:${server.address.port}/plugin.zip")
+
+  private fun respond(exchange: HttpExchange) {
+    val range = exchange.requestHeaders.getFirst("Range")
+    requestedRanges += range
+    val ifRange = exchange.requestHeaders.getFirst("If-Range")
+    val responseHeaders = exchange.responseHeaders
+    responseHeaders.add("Accept-Ranges", "bytes")
+    eTag?.let { responseHeaders.add("ETag", it) }
+    headers.forEach { (name, value) -> responseHeaders.add(name, value) }
+
+    val (start, end) = if (range != null && (ifRange == null || ifRange == eTag)) {
+      val bounds = range.removePrefix("bytes=").split('-')
+      val start = bounds[0].toInt()
+      val end = bounds[1].takeIf { it.isNotEmpty() }?.toInt() ?: (content.size - 1)
+      if (start >= content.size) {
+        exchange.sendResponseHeaders(416, -1)
+        return
+      }
+      responseHeaders.add("Content-Range", "bytes $start-$end/${content.size}")
+      exchange.sendResponseHeaders(206, (end - start + 1).toLong())
+      start to end
+    } else {
+      exchange.sendResponseHeaders(200, content.size.toLong())
+      0 to content.size - 1
+    }
+
+    val length = end - start + 1
+    if (remainingDroppedResponses.getAndDecrement() > 0) {
+      exchange.responseBody.write(content, start, minOf(dropAfterBytes, length))
+      exchange.responseBody.flush()
+      // Closing the exchange with the body partially written drops the connection.
+      return
+    }
+    exchange.responseBody.write(content, start, length)
+  }
+
+  override fun close() {
+    server.stop(0)
+    executor.shutdownNow()
+  }
+}
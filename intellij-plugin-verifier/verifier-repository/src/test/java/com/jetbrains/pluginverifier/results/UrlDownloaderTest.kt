@@ -2,19 +2,26 @@ package com.jetbrains.pluginverifier.results
 
 import com.jetbrains.plugin.structure.base.utils.*
 import com.jetbrains.pluginverifier.network.jsonMediaTypeValue
+import com.jetbrains.pluginverifier.repository.downloader.DownloadOptions
 import com.jetbrains.pluginverifier.repository.downloader.DownloadResult
 import com.jetbrains.pluginverifier.repository.downloader.UrlDownloader
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
 import org.junit.Assert
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.TemporaryFolder
+import java.nio.file.Files
 import java.nio.file.Path
+import java.security.MessageDigest
+import java.util.*
 import kotlin.io.path.extension
 import kotlin.io.path.isRegularFile
+import kotlin.random.Random
 
 class UrlDownloaderTest {
 
@@ -127,4 +134,117 @@ class UrlDownloaderTest {
       assertEquals(jsonContent, downloadedFileOrDirectory.readText())
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  fun `dropped connection is resumed from the downloaded bytes`() {
+    val content = Random(1).nextBytes(100_000)
+    RangeFileServer(content, dropAfterBytes = 30_000, droppedResponses = 1).use { server ->
+      val downloader = UrlDownloader<Int> { server.url }
+      val downloaded = download(downloader)
+      assertArrayEquals(content, Files.readAllBytes(downloaded))
+      assertResumed(server.requestedRanges.toList(), 30_000)
+    }
+  }
+
+  @Test
+  fun `failed download is resumed by the next download of the same URL`() {
+    val content = Random(2).nextBytes(100_000)
+    val partialDownloadsDirectory = tempFolder.newFolder().toPath()
+    RangeFileServer(content, dropAfterBytes = 40_000, droppedResponses = 1).use { server ->
+      val downloader = UrlDownloader<Int>(DownloadOptions(maxAttempts = 1)) { server.url }
+      val failed = downloader.download(0, tempFolder.newFolder().toPath(), partialDownloadsDirectory)
+      assertTrue(failed is DownloadResult.FailedToDownload)
+
+      val downloaded = download(downloader, partialDownloadsDirectory)
+      assertArrayEquals(content, Files.readAllBytes(downloaded))
+      assertResumed(server.requestedRanges.toList(), 40_000)
+      assertTrue(partialDownloadsDirectory.listFiles().isEmpty())
+    }
+  }
+
+  @Test
+  fun `download without a validator or a checksum is restarted`() {
+    val content = Random(3).nextBytes(100_000)
+    RangeFileServer(content, eTag = null, droppedResponses = 1).use { server ->
+      val downloader = UrlDownloader<Int> { server.url }
+      val downloaded = download(downloader)
+      assertArrayEquals(content, Files.readAllBytes(downloaded))
+      assertEquals(listOf<String?>(null, null), server.requestedRanges.toList())
+    }
+  }
+
+  @Test
+  fun `resumed download is verified against the expected checksum`() {
+    val content = Random(4).nextBytes(100_000)
+    RangeFileServer(content, eTag = null, droppedResponses = 1).use { server ->
+      val downloader = UrlDownloader<Int>(checksumProvider = { sha256Hex(content) }) { server.url }
+      val downloaded = download(downloader)
+      assertArrayEquals(content, Files.readAllBytes(downloaded))
+      assertResumed(server.requestedRanges.toList(), 50_000)
+    }
+  }
+
+  @Test
+  fun `download with a checksum mismatch fails`() {
+    val content = Random(5).nextBytes(10_000)
+    val partialDownloadsDirectory = tempFolder.newFolder().toPath()
+    RangeFileServer(content).use { server ->
+      val downloader = UrlDownloader<Int>(DownloadOptions(maxAttempts = 2), checksumProvider = { sha256Hex(byteArrayOf(42)) }) { server.url }
+      val downloadResult = downloader.download(0, tempFolder.newFolder().toPath(), partialDownloadsDirectory)
+      assertTrue(downloadResult is DownloadResult.FailedToDownload)
+      assertEquals(listOf<String?>(null, null), server.requestedRanges.toList())
+      assertTrue(partialDownloadsDirectory.listFiles().isEmpty())
+    }
+  }
+
+  @Test
+  fun `download is verified against the checksum provided by the server`() {
+    val content = Random(6).nextBytes(10_000)
+    val wrongDigest = "sha-256=:" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(byteArrayOf(42))) + ":"
+    RangeFileServer(content, headers = mapOf("Repr-Digest" to wrongDigest)).use { server ->
+      val downloader = UrlDownloader<Int>(DownloadOptions(maxAttempts = 1)) { server.url }
+      assertTrue(downloader.download(0, tempFolder.newFolder().toPath()) is DownloadResult.FailedToDownload)
+    }
+
+    val digest = "SHA-256=" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content))
+    RangeFileServer(content, headers = mapOf("Digest" to digest)).use { server ->
+      val downloader = UrlDownloader<Int> { server.url }
+      assertArrayEquals(content, Files.readAllBytes(download(downloader)))
+    }
+  }
+
+  @Test
+  fun `large file is downloaded by parallel segments`() {
+    val content = Random(7).nextBytes(1_000_000)
+    RangeFileServer(content, dropAfterBytes = 10_000, droppedResponses = 3).use { server ->
+      val options = DownloadOptions(segmentCount = 4, segmentedDownloadThreshold = 500_000)
+      val downloader = UrlDownloader<Int>(options, checksumProvider = { sha256Hex(content) }) { server.url }
+      val downloaded = download(downloader)
+      assertArrayEquals(content, Files.readAllBytes(downloaded))
+
+      val ranges = server.requestedRanges.toList()
+      assertNull(ranges.first())
+      val segmentEnds = ranges.drop(1).map { it!!.substringAfter('-') }.toSet()
+      assertEquals(setOf("249999", "499999", "749999", "999999"), segmentEnds)
+    }
+  }
+
+  private fun download(downloader: UrlDownloader<Int>, partialDownloadsDirectory: Path = tempFolder.newFolder().toPath()): Path {
+    val downloadResult = downloader.download(0, tempFolder.newFolder().toPath(), partialDownloadsDirectory)
+    return (downloadResult as DownloadResult.Downloaded).downloadedFileOrDirectory
+  }
+
+  /**
+   * Asserts that the whole content is requested first and then resumed from a byte
+   * no further than the [sentBytes] sent before the connection is dropped.
+   */
+  private fun assertResumed(requestedRanges: List<String?>, sentBytes: Int) {
+    assertEquals(2, requestedRanges.size)
+    assertNull(requestedRanges[0])
+    val offset = requestedRanges[1]!!.removePrefix("bytes=").removeSuffix("-").toInt()
+    assertTrue(offset in 1..sentBytes)
+  }
+
+  private fun sha256Hex(bytes: ByteArray): String =
+    MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+}
@@ -0,0 +1,113 @@
+package com.jetbrains.pluginverifier.resolution
+
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.FixedClassesResolver
+import com.jetbrains.plugin.structure.classes.resolvers.ResolutionResult
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import java.util.concurrent.TimeUnit
+
+class SharedClassCacheTest {
+
+  private val fileOrigin = object : FileOrigin {
+    override val parent: FileOrigin? = null
+  }
+
+  @Test
+  fun `class is resolved by the delegate resolver once`() {
+    val classCache = SharedClassCache(1024 * 1024)
+    val ideResolver = createResolver("com/intellij/Service")
+
+    val first = classCache.wrap(ideResolver).resolveClass("com/intellij/Service")
+    val second = classCache.wrap(ideResolver).resolveClass("com/intellij/Service")
+
+    assertSame(first.classNode, second.classNode)
+    val stats = classCache.stats()
+    assertEquals(1, stats.missCount())
+    assertEquals(1, stats.hitCount())
+  }
+
+  @Test
+  fun `classes with the same name of different resolvers are isolated`() {
+    val classCache = SharedClassCache(1024 * 1024)
+    val firstResolver = createResolver("com/example/Util")
+    val secondResolver = createResolver("com/example/Util")
+
+    val first = classCache.wrap(firstResolver).resolveClass("com/example/Util")
+    val second = classCache.wrap(secondResolver).resolveClass("com/example/Util")
+
+    assertSame(firstResolver.resolveClass("com/example/Util").classNode, first.classNode)
+    assertSame(secondResolver.resolveClass("com/example/Util").classNode, second.classNode)
+    assertEquals(2, classCache.stats().missCount())
+  }
+
+  @Test
+  fun `not found classes are cached`() {
+    val classCache = SharedClassCache(1024 * 1024)
+    val resolver = classCache.wrap(createResolver("com/intellij/Service"))
+
+    assertEquals(ResolutionResult.NotFound, resolver.resolveClass("com/intellij/Missing"))
+    assertEquals(ResolutionResult.NotFound, resolver.resolveClass("com/intellij/Missing"))
+    assertEquals(1, classCache.stats().hitCount())
+  }
+
+  @Test
+  fun `cache is kept within the size budget`() {
+    val maximumSizeBytes = 16 * 1024L
+    val classCache = SharedClassCache(maximumSizeBytes)
+    val classNames = (0 until 100).map { "com/intellij/Service$it" }
+    val resolver = classCache.wrap(createResolver(*classNames.toTypedArray()))
+
+    classNames.forEach { resolver.resolveClass(it) }
+
+    assertTrue(classCache.estimatedSizeBytes() <= maximumSizeBytes)
+    assertTrue(classCache.stats().evictionCount() > 0)
+  }
+
+  @Test
+  fun `zero budget disables the cache`() {
+    val classCache = SharedClassCache(0)
+    val resolver = createResolver("com/intellij/Service")
+    assertSame(resolver, classCache.wrap(resolver))
+  }
+
+  @Test
+  fun `classes of an unreachable resolver are freed`() {
+    val classCache = SharedClassCache(1024 * 1024)
+    resolveWithDroppedResolver(classCache, "com/intellij/Service")
+    assertEquals(1, classCache.stats().missCount())
+
+    val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+    while (classCache.estimatedSizeBytes() > 0 && System.nanoTime() < deadline) {
+      System.gc()
+      Thread.sleep(10)
+    }
+    assertEquals(0, classCache.estimatedSizeBytes())
+  }
+
+  /**
+   * Resolves a class by a resolver that is not referenced once this method returns,
+   * as happens to a resolver evicted from a cache of resolvers.
+   */
+  private fun resolveWithDroppedResolver(classCache: SharedClassCache, className: String) {
+    classCache.wrap(createResolver(className)).resolveClass(className)
+  }
+
+  private fun createResolver(vararg classNames: String): Resolver =
+    FixedClassesResolver.create(classNames.map { createClassNode(it) }, fileOrigin)
+
+  private fun createClassNode(className: String) = ClassNode().apply {
+    version = Opcodes.V11
+    access = Opcodes.ACC_PUBLIC
+    name = className
+    superName = "java/lang/Object"
+  }
+
+  private val ResolutionResult<ClassNode>.classNode: ClassNode
+    get() = (this as ResolutionResult.Found).value
+}
@@ -0,0 +1,250 @@
+package com.jetbrains.pluginverifier.tests
+
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_REPLAYED_CLASSES_COUNT
+import com.jetbrains.plugin.structure.base.telemetry.PLUGIN_VERIFIED_CLASSES_COUNT
+import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildDirectory
+import com.jetbrains.plugin.structure.base.utils.contentBuilder.buildZipFile
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.FixedClassesResolver
+import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.ide.IdeManager
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager
+import com.jetbrains.pluginverifier.PluginVerificationResult
+import com.jetbrains.pluginverifier.incremental.InMemoryVerificationResultStore
+import com.jetbrains.pluginverifier.incremental.PluginClassDigests
+import com.jetbrains.pluginverifier.incremental.VerificationResultStore
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import org.objectweb.asm.tree.FieldNode
+
+class IncrementalVerificationTest {
+
+  @Rule
+  @JvmField
+  val temporaryFolder = TemporaryFolder()
+
+  @Test
+  fun `replayed results are identical to results of a fresh verification`() {
+    System.setProperty("plugin.verifier.test.private.interface.method.name", "privateInterfaceMethodTestName")
+    val ide = IdeManager.createManager().createIde(findMockIdePath())
+    val plugin = (IdePluginManager.createManager().createPlugin(findMockPluginJarPath()) as PluginCreationSuccess).plugin
+    val resultStore = InMemoryVerificationResultStore()
+
+    val freshResult = verify(ide, plugin, resultStore = null)
+    val firstResult = verify(ide, plugin, resultStore)
+    val replayedResult = verify(ide, plugin, resultStore)
+
+    assertEquals(0, firstResult.telemetry[PLUGIN_REPLAYED_CLASSES_COUNT])
+    val replayedClassesCount = replayedResult.telemetry[PLUGIN_REPLAYED_CLASSES_COUNT] as Int
+    assertTrue(replayedClassesCount > 0)
+    assertTrue(replayedClassesCount <= replayedResult.telemetry[PLUGIN_VERIFIED_CLASSES_COUNT] as Int)
+
+    val freshReport = freshResult.renderReport()
+    assertTrue(freshResult.compatibilityProblems.isNotEmpty())
+    assertEquals(freshReport, firstResult.renderReport())
+    assertEquals(freshReport, replayedResult.renderReport())
+  }
+
+  @Test
+  fun `modified plugin class is verified again`() {
+    val ide = buildIde(apiHasRunMethod = true)
+    val resultStore = InMemoryVerificationResultStore()
+    verify(ide, buildPlugin(otherFieldName = "original"), resultStore)
+    assertEquals(2, verify(ide, buildPlugin(otherFieldName = "original"), resultStore).telemetry[PLUGIN_REPLAYED_CLASSES_COUNT])
+
+    val modifiedPlugin = buildPlugin(otherFieldName = "modified")
+    val result = verify(ide, modifiedPlugin, resultStore)
+
+    assertEquals(1, result.telemetry[PLUGIN_REPLAYED_CLASSES_COUNT])
+    assertEquals(verify(ide, modifiedPlugin, resultStore = null).renderReport(), result.renderReport())
+  }
+
+  @Test
+  fun `changed class of a dependency invalidates results of the classes referencing it`() {
+    val plugin = buildPlugin(otherFieldName = "original")
+    val resultStore = InMemoryVerificationResultStore()
+    val originalResult = verify(buildIde(apiHasRunMethod = true), plugin, resultStore)
+    assertTrue(originalResult.compatibilityProblems.isEmpty())
+
+    val changedIde = buildIde(apiHasRunMethod = false)
+    val result = verify(changedIde, plugin, resultStore)
+
+    assertEquals(originalResult.verificationTarget, result.verificationTarget)
+    assertEquals(1, result.telemetry[PLUGIN_REPLAYED_CLASSES_COUNT])
+    assertTrue(result.compatibilityProblems.isNotEmpty())
+    assertEquals(verify(changedIde, plugin, resultStore = null).renderReport(), result.renderReport())
+  }
+
+  @Test
+  fun `change of a class of a dependency changes fingerprints of its referrers`() {
+    val plugin = createResolver(baseFieldName = "original")
+    val original = PluginClassDigests(plugin, createDependencyResolver(apiFieldName = "original"))
+    val changed = PluginClassDigests(plugin, createDependencyResolver(apiFieldName = "changed"))
+
+    assertNotEquals(original.getReferenceFingerprint("com/example/dependency/Api"), changed.getReferenceFingerprint("com/example/dependency/Api"))
+    assertEquals(original.getHierarchyHash("com/example/Child"), changed.getHierarchyHash("com/example/Child"))
+    assertEquals("unresolved", original.getReferenceFingerprint("com/example/dependency/Absent"))
+  }
+
+  @Test
+  fun `change of a plugin class changes fingerprints of its subclasses and referrers`() {
+    val dependencyResolver = createDependencyResolver(apiFieldName = "original")
+    val original = PluginClassDigests(createResolver(baseFieldName = "original"), dependencyResolver)
+    val changed = PluginClassDigests(createResolver(baseFieldName = "changed"), dependencyResolver)
+
+    assertNotEquals(original.getHierarchyHash("com/example/Base"), changed.getHierarchyHash("com/example/Base"))
+    assertNotEquals(original.getHierarchyHash("com/example/Child"), changed.getHierarchyHash("com/example/Child"))
+    assertNotEquals(original.getReferenceFingerprint("com/example/Child"), changed.getReferenceFingerprint("com/example/Child"))
+
+    assertEquals(original.getDigest("com/example/Child")!!.contentHash, changed.getDigest("com/example/Child")!!.contentHash)
+    assertEquals(original.getHierarchyHash("com/example/Unrelated"), changed.getHierarchyHash("com/example/Unrelated"))
+    assertEquals(original.getReferenceFingerprint("java/lang/Object"), changed.getReferenceFingerprint("java/lang/Object"))
+    assertTrue("com/example/Child" in original.getDigest("com/example/Unrelated")!!.references)
+  }
+
+  private fun verify(ide: Ide, plugin: IdePlugin, resultStore: VerificationResultStore?): PluginVerificationResult.Verified {
+    return VerificationRunner().withPluginVerifier(ide, plugin, resultStore = resultStore) {
+      it.loadPluginAndVerify()
+    } as PluginVerificationResult.Verified
+  }
+
+  /**
+   * Builds an IDE of the same version whose bundled Java plugin has the `com/example/api/Api` class
+   * with or without the static `run` method.
+   */
+  private fun buildIde(apiHasRunMethod: Boolean): Ide {
+    val apiClass = ClassWriter(ClassWriter.COMPUTE_MAXS).apply {
+      visit(Opcodes.V11, Opcodes.ACC_PUBLIC, "com/example/api/Api", null, "java/lang/Object", null)
+      if (apiHasRunMethod) {
+        visitMethod(Opcodes.ACC_PUBLIC or Opcodes.ACC_STATIC, "run", "()V", null, null).apply {
+          visitCode()
+          visitInsn(Opcodes.RETURN)
+          visitMaxs(0, 0)
+          visitEnd()
+        }
+      }
+      visitEnd()
+    }.toByteArray()
+    val ideDirectory = buildDirectory(temporaryFolder.newFolder().toPath()) {
+      file("build.txt", "IU-192.1")
+      dir("lib") {
+        zip("idea.jar") {
+          dir("META-INF") {
+            file("plugin.xml", "<idea-plugin><id>com.intellij</id><name>IDEA CORE</name><version>1.0</version><module value=\"com.intellij.modules.all\"/></idea-plugin>")
+          }
+        }
+      }
+      dir("plugins") {
+        dir("java") {
+          dir("lib") {
+            zip("java.jar") {
+              dir("META-INF") {
+                file("plugin.xml", "<idea-plugin><id>com.intellij.java</id><module value=\"com.intellij.modules.java\"/></idea-plugin>")
+              }
+              dir("com") {
+                dir("example") {
+                  dir("api") {
+                    file("Api.class", apiClass)
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    return IdeManager.createManager().createIde(ideDirectory)
+  }
+
+  /**
+   * Builds a plugin depending on the Java plugin with the `Usage` class invoking `Api.run`
+   * and the `Other` class with a field named [otherFieldName].
+   */
+  private fun buildPlugin(otherFieldName: String): IdePlugin {
+    val usageClass = ClassWriter(ClassWriter.COMPUTE_MAXS).apply {
+      visit(Opcodes.V11, Opcodes.ACC_PUBLIC, "com/example/plugin/Usage", null, "java/lang/Object", null)
+      visitMethod(Opcodes.ACC_PUBLIC or Opcodes.ACC_STATIC, "use", "()V", null, null).apply {
+        visitCode()
+        visitMethodInsn(Opcodes.INVOKESTATIC, "com/example/api/Api", "run", "()V", false)
+        visitInsn(Opcodes.RETURN)
+        visitMaxs(0, 0)
+        visitEnd()
+      }
+      visitEnd()
+    }.toByteArray()
+    val otherClass = ClassWriter(0).apply {
+      visit(Opcodes.V11, Opcodes.ACC_PUBLIC, "com/example/plugin/Other", null, "java/lang/Object", null)
+      visitField(Opcodes.ACC_PUBLIC, otherFieldName, "I", null, null).visitEnd()
+      visitEnd()
+    }.toByteArray()
+    val pluginFile = buildZipFile(temporaryFolder.newFile("plugin-$otherFieldName.jar").toPath()) {
+      dir("META-INF") {
+        file("plugin.xml") {
+          """
+            <idea-plugin>
+              <id>com.example.plugin</id>
+              <name>someName</name>
+              <version>1.0</version>
+              <vendor email="vendor.com" url="url">vendor</vendor>
+              <description>this description is looooooooooong enough</description>
+              <change-notes>these change-notes are looooooooooong enough</change-notes>
+              <idea-version since-build="131.1"/>
+              <depends>com.intellij.modules.java</depends>
+            </idea-plugin>
+          """.trimIndent()
+        }
+      }
+      dir("com") {
+        dir("example") {
+          dir("plugin") {
+            file("Usage.class", usageClass)
+            file("Other.class", otherClass)
+          }
+        }
+      }
+    }
+    return (IdePluginManager.createManager().createPlugin(pluginFile) as PluginCreationSuccess).plugin
+  }
+
+  private fun createDependencyResolver(apiFieldName: String) = FixedClassesResolver.create(
+    listOf(
+      createClassNode("com/example/dependency/Api", "java/lang/Object").apply {
+        fields.add(FieldNode(Opcodes.ACC_PUBLIC, apiFieldName, "I", null, null))
+      }
+    ),
+    TestFileOrigin
+  )
+
+  private fun createResolver(baseFieldName: String) = FixedClassesResolver.create(
+    listOf(
+      createClassNode("com/example/Base", "java/lang/Object").apply {
+        fields.add(FieldNode(Opcodes.ACC_PUBLIC, baseFieldName, "I", null, null))
+      },
+      createClassNode("com/example/Child", "com/example/Base"),
+      createClassNode("com/example/Unrelated", "java/lang/Object").apply {
+        fields.add(FieldNode(Opcodes.ACC_PUBLIC, "child", "Lcom/example/Child;", null, null))
+      }
+    ),
+    TestFileOrigin
+  )
+
+  private fun createClassNode(className: String, superName: String) = ClassNode().apply {
+    version = Opcodes.V11
+    access = Opcodes.ACC_PUBLIC
+    name = className
+    this.superName = superName
+  }
+
+  private object TestFileOrigin : FileOrigin {
+    override val parent: FileOrigin? = null
+  }
+}
@@ -0,0 +1,48 @@
+package com.jetbrains.pluginverifier.tests
+
+import com.jetbrains.plugin.structure.base.plugin.PluginCreationSuccess
+import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.ide.IdeManager
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.IdePluginManager
+import com.jetbrains.pluginverifier.PluginVerificationResult
+import com.jetbrains.pluginverifier.output.stream.WriterResultPrinter
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.PrintWriter
+import java.io.StringWriter
+
+class ParallelClassVerificationTest {
+
+  @Test
+  fun `parallel class verification produces the same report as the sequential one`() {
+    System.setProperty("plugin.verifier.test.private.interface.method.name", "privateInterfaceMethodTestName")
+    val ide = IdeManager.createManager().createIde(findMockIdePath())
+    val plugin = (IdePluginManager.createManager().createPlugin(findMockPluginJarPath()) as PluginCreationSuccess).plugin
+
+    val sequentialResult = verify(ide, plugin, classVerificationParallelism = 1)
+    assertTrue(sequentialResult.compatibilityProblems.isNotEmpty())
+    val sequentialReport = sequentialResult.printReport()
+
+    repeat(5) {
+      val parallelReport = verify(ide, plugin, classVerificationParallelism = 4).printReport()
+      assertEquals(sequentialReport, parallelReport)
+    }
+  }
+
+  private fun verify(ide: Ide, plugin: IdePlugin, classVerificationParallelism: Int): PluginVerificationResult.Verified {
+    return VerificationRunner().withPluginVerifier(ide, plugin, classVerificationParallelism = classVerificationParallelism) {
+      it.loadPluginAndVerify()
+    } as PluginVerificationResult.Verified
+  }
+
+  /**
+   * Prints the report as is, without sorting, so that two reports are compared byte by byte.
+   */
+  private fun PluginVerificationResult.printReport(): String {
+    val report = StringWriter()
+    PrintWriter(report).use { WriterResultPrinter(it).printResults(listOf(this)) }
+    return report.toString()
+  }
+}
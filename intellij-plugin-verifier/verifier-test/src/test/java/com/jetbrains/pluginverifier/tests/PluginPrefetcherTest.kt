@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.tests
+
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.pluginverifier.PluginPrefetcher
+import com.jetbrains.pluginverifier.plugin.PluginDetailsCache
+import com.jetbrains.pluginverifier.plugin.PluginDetailsProvider
+import com.jetbrains.pluginverifier.plugin.PluginFileProvider
+import com.jetbrains.pluginverifier.plugin.SizeLimitedPluginDetailsCache
+import com.jetbrains.pluginverifier.repository.PluginInfo
+import com.jetbrains.pluginverifier.repository.files.FileLock
+import com.jetbrains.pluginverifier.repository.files.IdleFileLock
+import com.jetbrains.pluginverifier.tests.mocks.MockPluginRepositoryAdapter
+import com.jetbrains.pluginverifier.tests.mocks.createMockPluginInfo
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.file.Paths
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+private val AWAIT_TIMEOUT: Duration = Duration.ofSeconds(10)
+
+/**
+ * Time to wait for a download that must not start.
+ */
+private val UNEXPECTED_DOWNLOAD_TIMEOUT: Duration = Duration.ofMillis(300)
+
+class PluginPrefetcherTest {
+
+  private val latency: Duration = Duration.ofMillis(200)
+
+  private val pluginRepository = SlowPluginRepository((1..6).map { createMockPluginInfo("plugin$it", "1.0") }, latency)
+
+  private val pluginDetailsCache = SizeLimitedPluginDetailsCache(10, pluginRepository, InvalidPluginDetailsProvider())
+
+  @Test
+  fun `plugins are downloaded during verification of previous plugins`() {
+    pluginDetailsCache.use {
+      val prefetcher = PluginPrefetcher(pluginRepository.plugins, pluginDetailsCache, 2)
+      prefetcher.use { verifyPlugins(it, verificationTime = latency) }
+
+      val statistics = prefetcher.getStatistics()
+      assertEquals(pluginRepository.plugins.associateWith { 1 }, pluginRepository.downloadsCount)
+      assertTrue(statistics.prefetchedPlugins >= pluginRepository.plugins.size - 1)
+      assertTrue(statistics.overlappedTime >= latency.multipliedBy(3))
+      assertTrue(statistics.overlappedTime <= statistics.wallClockTime)
+    }
+  }
+
+  @Test
+  fun `number of plugins held ahead of verification is bounded`() {
+    val repository = SlowPluginRepository(pluginRepository.plugins, Duration.ZERO)
+    SizeLimitedPluginDetailsCache(10, repository, InvalidPluginDetailsProvider()).use { cache ->
+      PluginPrefetcher(repository.plugins, cache, 2).use { prefetcher ->
+        repository.awaitCompletedDownloads(2)
+        assertFalse(repository.startedDownloads.tryAcquire(3, UNEXPECTED_DOWNLOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+
+        prefetcher.startVerification(0).use { }
+        repository.awaitCompletedDownloads(1)
+        assertFalse(repository.startedDownloads.tryAcquire(4, UNEXPECTED_DOWNLOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+        assertEquals(3, repository.totalDownloads.get())
+      }
+    }
+  }
+
+  @Test
+  fun `plugins whose verification has not started do not overlap with verification`() {
+    val repository = SlowPluginRepository(pluginRepository.plugins, Duration.ZERO)
+    SizeLimitedPluginDetailsCache(10, repository, InvalidPluginDetailsProvider()).use { cache ->
+      PluginPrefetcher(repository.plugins, cache, 2).use { prefetcher ->
+        repository.awaitCompletedDownloads(2)
+        val statistics = awaitPrefetchedPlugins(prefetcher, 2)
+        assertEquals(Duration.ZERO, statistics.overlappedTime)
+      }
+    }
+  }
+
+  @Test
+  fun `verification starts after the prefetcher is closed`() {
+    // Keep the prefetcher from fetching plugins, so that closing it claims all of them.
+    pluginRepository.isLowOnDiskSpace = true
+    pluginDetailsCache.use {
+      val prefetcher = PluginPrefetcher(pluginRepository.plugins, pluginDetailsCache, 1)
+      prefetcher.close()
+      verifyPlugins(prefetcher, verificationTime = Duration.ZERO)
+      assertEquals(pluginRepository.plugins.associateWith { 1 }, pluginRepository.downloadsCount)
+    }
+  }
+
+  @Test
+  fun `plugins are not downloaded ahead when disk space is low`() {
+    pluginRepository.isLowOnDiskSpace = true
+    pluginDetailsCache.use {
+      val prefetcher = PluginPrefetcher(pluginRepository.plugins, pluginDetailsCache, 3)
+      prefetcher.use { verifyPlugins(it, verificationTime = Duration.ZERO) }
+
+      assertEquals(0, prefetcher.getStatistics().prefetchedPlugins)
+      assertEquals(pluginRepository.plugins.associateWith { 1 }, pluginRepository.downloadsCount)
+    }
+  }
+
+  /**
+   * Verifies the plugins one by one as a single verification worker does.
+   */
+  private fun verifyPlugins(prefetcher: PluginPrefetcher, verificationTime: Duration) {
+    for ((index, plugin) in pluginRepository.plugins.withIndex()) {
+      prefetcher.startVerification(index).use {
+        pluginDetailsCache.getPluginDetailsCacheEntry(plugin).use { cacheEntry ->
+          assertTrue(cacheEntry is PluginDetailsCache.Result.InvalidPlugin)
+          Thread.sleep(verificationTime.toMillis())
+        }
+      }
+    }
+  }
+
+  private fun awaitPrefetchedPlugins(prefetcher: PluginPrefetcher, count: Int): PluginPrefetcher.Statistics {
+    val deadline = System.nanoTime() + AWAIT_TIMEOUT.toNanos()
+    while (true) {
+      val statistics = prefetcher.getStatistics()
+      if (statistics.prefetchedPlugins >= count) {
+        return statistics
+      }
+      check(System.nanoTime() < deadline) { "Expected $count plugins fetched ahead, but was ${statistics.prefetchedPlugins}" }
+      Thread.sleep(10)
+    }
+  }
+
+  /**
+   * Local repository of the [plugins] whose files are downloaded with the artificial [latency].
+   */
+  private class SlowPluginRepository(val plugins: List<PluginInfo>, private val latency: Duration) : MockPluginRepositoryAdapter(), PluginFileProvider {
+    val downloadsCount: MutableMap<PluginInfo, Int> = ConcurrentHashMap()
+
+    val totalDownloads = AtomicInteger()
+
+    /**
+     * Gets a permit when a download starts.
+     */
+    val startedDownloads = Semaphore(0)
+
+    /**
+     * Gets a permit when a download completes.
+     */
+    private val completedDownloads = Semaphore(0)
+
+    @Volatile
+    var isLowOnDiskSpace = false
+
+    override fun getPluginFile(pluginInfo: PluginInfo): PluginFileProvider.Result {
+      startedDownloads.release()
+      Thread.sleep(latency.toMillis())
+      downloadsCount.merge(pluginInfo, 1, Int::plus)
+      totalDownloads.incrementAndGet()
+      completedDownloads.release()
+      return PluginFileProvider.Result.Found(IdleFileLock(Paths.get(pluginInfo.pluginId + ".zip")))
+    }
+
+    /**
+     * Waits for [count] more downloads to complete.
+     */
+    fun awaitCompletedDownloads(count: Int) {
+      check(completedDownloads.tryAcquire(count, AWAIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+        "Expected $count more downloads, but was ${totalDownloads.get()} in total"
+      }
+    }
+
+    override fun isLowOnDiskSpace() = isLowOnDiskSpace
+  }
+
+  private class InvalidPluginDetailsProvider : PluginDetailsProvider {
+    override fun providePluginDetails(pluginInfo: PluginInfo, idePlugin: IdePlugin) =
+      PluginDetailsProvider.Result.InvalidPlugin(pluginInfo, emptyList())
+
+    override fun providePluginDetails(pluginInfo: PluginInfo, pluginFileLock: FileLock) =
+      PluginDetailsProvider.Result.InvalidPlugin(pluginInfo, emptyList())
+  }
+}
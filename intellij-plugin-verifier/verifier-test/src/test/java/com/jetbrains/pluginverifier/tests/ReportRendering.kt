@@ -0,0 +1,24 @@
+package com.jetbrains.pluginverifier.tests
+
+import com.jetbrains.pluginverifier.PluginVerificationResult
+
+/**
+ * Renders all the reported items in a stable order,
+ * so that two reports can be compared byte by byte.
+ */
+fun PluginVerificationResult.Verified.renderReport(): String = buildString {
+  fun section(name: String, lines: Collection<String>) {
+    appendLine("[$name]")
+    lines.sorted().forEach { appendLine(it) }
+  }
+  section("problems", compatibilityProblems.map { "${it.problemType}: ${it.shortDescription}: ${it.fullDescription}" })
+  section("ignored problems", ignoredProblems.map { (problem, reason) -> "${problem.fullDescription}: $reason" })
+  section("warnings", compatibilityWarnings.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("deprecated", deprecatedUsages.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("experimental", experimentalApiUsages.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("internal", internalApiUsages.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("ignored internal", ignoredInternalApiUsages.map { (usage, reason) -> "${usage.fullDescription}: $reason" })
+  section("non-extendable", nonExtendableApiUsages.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("override-only", overrideOnlyMethodUsages.map { "${it.shortDescription}: ${it.fullDescription}" })
+  section("structure warnings", pluginStructureWarnings.map { it.message })
+}
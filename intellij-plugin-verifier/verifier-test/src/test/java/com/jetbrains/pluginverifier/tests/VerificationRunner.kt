@@ -19,6 +19,7 @@ import com.jetbrains.pluginverifier.filtering.ApiUsageFilter
 import com.jetbrains.pluginverifier.filtering.KtInternalModifierUsageFilter
 import com.jetbrains.pluginverifier.filtering.ProblemsFilter
 import com.jetbrains.pluginverifier.ide.IdeDescriptor
+import com.jetbrains.pluginverifier.incremental.VerificationResultStore
 import com.jetbrains.pluginverifier.options.CmdOpts
 import com.jetbrains.pluginverifier.options.OptionsParser
 import com.jetbrains.pluginverifier.plugin.DefaultPluginDetailsProvider
@@ -39,6 +40,8 @@ class VerificationRunner {
 
   fun withPluginVerifier(ide: Ide, idePlugin: IdePlugin, problemsFilters: List<ProblemsFilter> = emptyList(), apiUsageFilters: List<ApiUsageFilter> = emptyList(),
                          includeKotlinStdLib: Boolean = false,
+                         classVerificationParallelism: Int = 1,
+                         resultStore: VerificationResultStore? = null,
                          pluginVerifierHandler: (PluginVerifier) -> PluginVerificationResult): PluginVerificationResult {
     val tempDownloadDir = createTempDirectory().toFile().apply { deleteOnExit() }.toPath()
     val pluginFilesBank = PluginFilesBank.create(MarketplaceRepository(URL("https://unused.com")), tempDownloadDir, DiskSpaceSetting(SpaceAmount.ZERO_SPACE))
@@ -73,7 +76,9 @@ class VerificationRunner {
           pluginDetailsCache,
           listOf(DynamicallyLoadedFilter()),
           false,
-          allApiUsagesFilters
+          allApiUsagesFilters,
+          classVerificationParallelism,
+          resultStore
         )
         pluginVerifierHandler(pluginVerifier)
       }
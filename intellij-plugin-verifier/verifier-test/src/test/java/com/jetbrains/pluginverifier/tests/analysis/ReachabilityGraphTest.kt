@@ -0,0 +1,104 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.tests.analysis
+
+import com.jetbrains.pluginverifier.analysis.ReachabilityGraph
+import com.jetbrains.pluginverifier.analysis.ReachabilityGraph.ReachabilityMark.MAIN_PLUGIN
+import com.jetbrains.pluginverifier.analysis.ReachabilityGraph.ReachabilityMark.OPTIONAL_PLUGIN
+import com.jetbrains.pluginverifier.analysis.TypeGraph
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.*
+import kotlin.random.Random
+
+class ReachabilityGraphTest {
+
+  @Test
+  fun `classes referenced transitively by marked classes are reachable`() {
+    val typeGraph = TypeGraph()
+    typeGraph.addEdge("main/Action", "util/Helper")
+    typeGraph.addEdge("util/Helper", "util/Cache")
+    typeGraph.addEdge("optional/Extension", "optional/Impl")
+    typeGraph.addEdge("optional/Impl", "util/Cache")
+
+    val reachabilityGraph = ReachabilityGraph(typeGraph)
+    reachabilityGraph.markClass("main/Action", MAIN_PLUGIN)
+    reachabilityGraph.markClass("optional/Extension", OPTIONAL_PLUGIN)
+
+    assertTrue(reachabilityGraph.isClassReachableFromMark("util/Cache", MAIN_PLUGIN))
+    assertTrue(reachabilityGraph.isClassReachableFromMark("util/Cache", OPTIONAL_PLUGIN))
+    assertTrue(reachabilityGraph.isClassReachableFromMark("optional/Impl", OPTIONAL_PLUGIN))
+    assertFalse(reachabilityGraph.isClassReachableFromMark("optional/Impl", MAIN_PLUGIN))
+    assertFalse(reachabilityGraph.isClassReachableFromMark("main/Action", MAIN_PLUGIN))
+    assertFalse(reachabilityGraph.isClassReachableFromMark("unknown/Class", MAIN_PLUGIN))
+  }
+
+  @Test
+  fun `marking a class after a query updates reachability`() {
+    val typeGraph = TypeGraph()
+    typeGraph.addEdge("a/A", "a/B")
+    val reachabilityGraph = ReachabilityGraph(typeGraph)
+
+    assertFalse(reachabilityGraph.isClassReachableFromMark("a/B", MAIN_PLUGIN))
+    reachabilityGraph.markClass("a/A", MAIN_PLUGIN)
+    assertTrue(reachabilityGraph.isClassReachableFromMark("a/B", MAIN_PLUGIN))
+  }
+
+  @Test
+  fun `reachability matches depth-first search on random type graphs`() {
+    val random = Random(42)
+    repeat(300) {
+      val classes = (0 until random.nextInt(1, 60)).map { "pkg/Class$it" }
+      val edges = (0 until random.nextInt(0, classes.size * 3)).map { classes.random(random) to classes.random(random) }
+      val marks = classes.associateWith { ReachabilityGraph.ReachabilityMark.values().filter { random.nextInt(8) == 0 } }
+
+      val typeGraph = TypeGraph()
+      edges.forEach { (from, to) -> typeGraph.addEdge(from, to) }
+      val reachabilityGraph = ReachabilityGraph(typeGraph)
+      marks.forEach { (className, classMarks) -> classMarks.forEach { reachabilityGraph.markClass(className, it) } }
+
+      for (className in classes + "pkg/Unknown") {
+        for (mark in ReachabilityGraph.ReachabilityMark.values()) {
+          val expected = DepthFirstReachability(edges, marks).isClassReachableFromMark(className, mark)
+          assertEquals("$className from $mark", expected, reachabilityGraph.isClassReachableFromMark(className, mark))
+        }
+      }
+    }
+  }
+
+  /**
+   * Reference implementation, which searches classes referencing the queried class
+   * depth-first until it meets a marked class.
+   */
+  private class DepthFirstReachability(
+    edges: List<Pair<String, String>>,
+    private val marks: Map<String, List<ReachabilityGraph.ReachabilityMark>>
+  ) {
+    private val backEdges = edges.groupBy({ it.second }, { it.first })
+
+    fun isClassReachableFromMark(className: String, mark: ReachabilityGraph.ReachabilityMark): Boolean {
+      val visitedClasses = hashSetOf<String>()
+      val stack = ArrayDeque<String>()
+      stack += className
+      while (stack.isNotEmpty()) {
+        val currentClass = stack.pop()
+        if (!visitedClasses.add(currentClass)) {
+          continue
+        }
+        for (typeName in backEdges[currentClass].orEmpty()) {
+          if (mark in marks[typeName].orEmpty()) {
+            return true
+          }
+          if (typeName !in visitedClasses) {
+            stack.push(typeName)
+          }
+        }
+      }
+      return false
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.jetbrains.pluginverifier.tests.bytecode
+
+import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.FixedClassesResolver
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.ide.IdeManager
+import com.jetbrains.plugin.structure.ide.classes.IdeResolverCreator
+import com.jetbrains.pluginverifier.results.reference.ClassReference
+import com.jetbrains.pluginverifier.tests.findMockIdePath
+import com.jetbrains.pluginverifier.tests.findMockPluginJarPath
+import com.jetbrains.pluginverifier.tests.mocks.SimpleCompatibilityProblemRegistrar
+import com.jetbrains.pluginverifier.usages.ApiUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.BytecodeVerifier
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.hierarchy.ClassHierarchyIndex
+import com.jetbrains.pluginverifier.verifiers.isSubclassOf
+import com.jetbrains.pluginverifier.verifiers.packages.DefaultPackageFilter
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFileMember
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassUsageType
+import com.jetbrains.pluginverifier.verifiers.resolution.resolveClassOrNull
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+
+class ClassHierarchyIndexTest {
+
+  @Test
+  fun `indexed class hierarchies report the same problems and usages in the same order`() {
+    createTestResolver().use { resolver ->
+      val pluginClasses = LazyJarResolver(findMockPluginJarPath(), Resolver.ReadMode.FULL, TestFileOrigin).use { it.allClassNames }
+
+      val context = RecordingVerificationContext(resolver, indexed = false)
+      BytecodeVerifier().verifyClasses(pluginClasses, context) {}
+
+      val indexedContext = RecordingVerificationContext(resolver, indexed = true)
+      BytecodeVerifier().verifyClasses(pluginClasses, indexedContext) {}
+
+      assertTrue(context.registrar.problems.isNotEmpty())
+      assertEquals(context.registrar.problems.map { it.fullDescription }, indexedContext.registrar.problems.map { it.fullDescription })
+      assertEquals(context.registrar.warnings.map { it.fullDescription }, indexedContext.registrar.warnings.map { it.fullDescription })
+      assertEquals(context.classReferences, indexedContext.classReferences)
+    }
+  }
+
+  @Test
+  fun `unresolved parent is reported on every resolution`() {
+    val resolver = FixedClassesResolver.create(
+      listOf(createClassNode("com/example/Child", "com/example/Missing")),
+      TestFileOrigin
+    )
+    val context = RecordingVerificationContext(resolver, indexed = true)
+    val child = resolver.resolveClassOrNull("com/example/Child")!!
+    val index = context.classHierarchyIndex!!
+
+    assertNull(index.resolveParentChecked(child, "com/example/Missing", context))
+    assertNull(index.resolveParentChecked(child, "com/example/Missing", context))
+
+    assertEquals(2, context.registrar.problems.size)
+  }
+
+  @Test
+  fun `supertypes agree with the resolver`() {
+    val resolver = FixedClassesResolver.create(
+      listOf(
+        createClassNode("com/example/Base", "java/lang/Object", "com/example/BaseApi"),
+        createClassNode("com/example/Middle", "com/example/Base", "com/example/MiddleApi"),
+        createClassNode("com/example/Child", "com/example/Middle"),
+        createClassNode("com/example/BaseApi", "java/lang/Object", isInterface = true),
+        createClassNode("com/example/MiddleApi", "java/lang/Object", "com/example/BaseApi", isInterface = true)
+      ),
+      TestFileOrigin
+    )
+    val context = RecordingVerificationContext(resolver, indexed = true)
+    val index = context.classHierarchyIndex!!
+    val child = resolver.resolveClassOrNull("com/example/Child")!!
+
+    val supertypes = index.getSupertypes(child)
+    assertEquals(listOf("com/example/Middle", "com/example/Base"), supertypes.superClasses)
+    assertEquals(setOf("com/example/MiddleApi", "com/example/BaseApi"), supertypes.allInterfaces)
+    assertEquals(2, supertypes.depth)
+
+    val typeNames = listOf(
+      "com/example/Child",
+      "com/example/Middle",
+      "com/example/Base",
+      "com/example/MiddleApi",
+      "com/example/BaseApi",
+      "com/example/Unrelated",
+      "java/lang/Object"
+    )
+    for (typeName in typeNames) {
+      assertEquals(typeName, resolver.isSubclassOf(child, typeName), index.isSubclassOf(child, typeName, context))
+    }
+    assertFalse(index.isSubclassOf(child, "com/example/Unrelated", context))
+  }
+
+  private fun createTestResolver(): Resolver {
+    val ide = IdeManager.createManager().createIde(findMockIdePath())
+    return CompositeResolver.create(
+      LazyJarResolver(findMockPluginJarPath(), Resolver.ReadMode.FULL, TestFileOrigin),
+      IdeResolverCreator.createIdeResolver(ide)
+    )
+  }
+
+  private fun createClassNode(
+    className: String,
+    superName: String,
+    vararg interfaces: String,
+    isInterface: Boolean = false
+  ) = ClassNode().apply {
+    version = Opcodes.V11
+    access = Opcodes.ACC_PUBLIC or (if (isInterface) Opcodes.ACC_INTERFACE or Opcodes.ACC_ABSTRACT else 0)
+    name = className
+    this.superName = superName
+    this.interfaces = interfaces.toMutableList()
+  }
+
+  private object TestFileOrigin : FileOrigin {
+    override val parent: FileOrigin? = null
+  }
+
+  private class RecordingVerificationContext(
+    override val classResolver: Resolver,
+    indexed: Boolean
+  ) : VerificationContext {
+    val registrar = SimpleCompatibilityProblemRegistrar()
+
+    val classReferences = arrayListOf<String>()
+
+    override val externalClassesPackageFilter = DefaultPackageFilter(emptyList())
+
+    override val problemRegistrar = registrar
+
+    override val warningRegistrar = registrar
+
+    override val apiUsageProcessors = listOf<ApiUsageProcessor>(object : ApiUsageProcessor {
+      override fun processClassReference(
+        classReference: ClassReference,
+        resolvedClass: ClassFile,
+        context: VerificationContext,
+        referrer: ClassFileMember,
+        classUsageType: ClassUsageType
+      ) {
+        classReferences += "$classReference from ${referrer.location}"
+      }
+    })
+
+    override val classHierarchyIndex =
+      if (indexed) ClassHierarchyIndex(classResolver, externalClassesPackageFilter) else null
+  }
+}
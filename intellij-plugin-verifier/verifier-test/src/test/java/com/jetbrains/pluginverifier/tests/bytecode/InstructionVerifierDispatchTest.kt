@@ -0,0 +1,53 @@
+package com.jetbrains.pluginverifier.tests.bytecode
+
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.pluginverifier.tests.findMockPluginJarPath
+import com.jetbrains.pluginverifier.tests.mocks.MockVerificationContext
+import com.jetbrains.pluginverifier.verifiers.BytecodeVerifier
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.instruction.InstructionVerifier
+import com.jetbrains.pluginverifier.verifiers.resolution.Method
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.AbstractInsnNode
+
+class InstructionVerifierDispatchTest {
+
+  @Test
+  fun `instruction verifier is invoked only for its interested opcodes`() {
+    val allInstructionsVerifier = RecordingInstructionVerifier(null)
+    val invocationsVerifier = RecordingInstructionVerifier(setOf(Opcodes.INVOKEVIRTUAL, Opcodes.INVOKESTATIC))
+
+    createTestResolver().use { resolver ->
+      val context = MockVerificationContext(resolver)
+      BytecodeVerifier(additionalInstructionVerifiers = listOf(allInstructionsVerifier, invocationsVerifier))
+        .verifyClasses(resolver.allClassNames, context) {}
+    }
+
+    val expectedOpcodes = allInstructionsVerifier.opcodes.filter { it in invocationsVerifier.interestedOpcodes!! }
+    assertTrue(expectedOpcodes.isNotEmpty())
+    assertEquals(expectedOpcodes, invocationsVerifier.opcodes)
+    assertTrue(allInstructionsVerifier.opcodes.any { it < 0 })
+  }
+
+  private class RecordingInstructionVerifier(override val interestedOpcodes: Set<Int>?) : InstructionVerifier {
+    val opcodes = arrayListOf<Int>()
+
+    override fun verify(method: Method, instructionNode: AbstractInsnNode, context: VerificationContext) {
+      opcodes += instructionNode.opcode
+    }
+  }
+
+  private fun createTestResolver(): Resolver =
+    LazyJarResolver(
+      findMockPluginJarPath(),
+      Resolver.ReadMode.FULL,
+      object : FileOrigin {
+        override val parent: FileOrigin? = null
+      }
+    )
+}
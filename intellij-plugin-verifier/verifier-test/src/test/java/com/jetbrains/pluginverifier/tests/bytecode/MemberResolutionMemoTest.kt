@@ -0,0 +1,103 @@
+package com.jetbrains.pluginverifier.tests.bytecode
+
+import com.jetbrains.plugin.structure.classes.resolvers.CompositeResolver
+import com.jetbrains.plugin.structure.classes.resolvers.FileOrigin
+import com.jetbrains.plugin.structure.classes.resolvers.LazyJarResolver
+import com.jetbrains.plugin.structure.classes.resolvers.Resolver
+import com.jetbrains.plugin.structure.ide.IdeManager
+import com.jetbrains.plugin.structure.ide.classes.IdeResolverCreator
+import com.jetbrains.pluginverifier.results.reference.ClassReference
+import com.jetbrains.pluginverifier.tests.findMockIdePath
+import com.jetbrains.pluginverifier.tests.findMockPluginJarPath
+import com.jetbrains.pluginverifier.tests.mocks.SimpleCompatibilityProblemRegistrar
+import com.jetbrains.pluginverifier.usages.ApiUsageProcessor
+import com.jetbrains.pluginverifier.verifiers.BytecodeVerifier
+import com.jetbrains.pluginverifier.verifiers.VerificationContext
+import com.jetbrains.pluginverifier.verifiers.packages.DefaultPackageFilter
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFile
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassFileMember
+import com.jetbrains.pluginverifier.verifiers.resolution.ClassUsageType
+import com.jetbrains.pluginverifier.verifiers.resolution.MemberResolutionMemo
+import com.jetbrains.pluginverifier.verifiers.resolution.caching
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MemberResolutionMemoTest {
+
+  @Test
+  fun `memoized member resolution reports the same problems and usages in the same order`() {
+    createTestResolver().use { resolver ->
+      val pluginClasses = LazyJarResolver(findMockPluginJarPath(), Resolver.ReadMode.FULL, TestFileOrigin).use { it.allClassNames }
+
+      val context = RecordingVerificationContext(resolver, memoized = false)
+      BytecodeVerifier().verifyClasses(pluginClasses, context) {}
+
+      val memoizedContext = RecordingVerificationContext(resolver, memoized = true)
+      BytecodeVerifier().verifyClasses(pluginClasses, memoizedContext) {}
+
+      assertTrue(context.registrar.problems.isNotEmpty())
+      assertTrue(memoizedContext.memberResolutionMemo!!.size > 0)
+      assertEquals(context.registrar.problems.map { it.fullDescription }, memoizedContext.registrar.problems.map { it.fullDescription })
+      assertEquals(context.registrar.warnings.map { it.fullDescription }, memoizedContext.registrar.warnings.map { it.fullDescription })
+      assertEquals(context.classReferences, memoizedContext.classReferences)
+    }
+  }
+
+  @Test
+  fun `memo is bypassed for another resolver`() {
+    createTestResolver().use { resolver ->
+      val pluginClasses = LazyJarResolver(findMockPluginJarPath(), Resolver.ReadMode.FULL, TestFileOrigin).use { it.allClassNames }
+      val memo = MemberResolutionMemo(resolver, DefaultPackageFilter(emptyList()))
+
+      val context = RecordingVerificationContext(resolver.caching(), memoized = false, memo = memo)
+      BytecodeVerifier().verifyClasses(pluginClasses, context) {}
+
+      assertTrue(context.registrar.problems.isNotEmpty())
+      assertEquals(0, memo.size)
+    }
+  }
+
+  private fun createTestResolver(): Resolver {
+    val ide = IdeManager.createManager().createIde(findMockIdePath())
+    return CompositeResolver.create(
+      LazyJarResolver(findMockPluginJarPath(), Resolver.ReadMode.FULL, TestFileOrigin),
+      IdeResolverCreator.createIdeResolver(ide)
+    )
+  }
+
+  private object TestFileOrigin : FileOrigin {
+    override val parent: FileOrigin? = null
+  }
+
+  private class RecordingVerificationContext(
+    override val classResolver: Resolver,
+    memoized: Boolean,
+    memo: MemberResolutionMemo? = null
+  ) : VerificationContext {
+    val registrar = SimpleCompatibilityProblemRegistrar()
+
+    val classReferences = arrayListOf<String>()
+
+    override val externalClassesPackageFilter = DefaultPackageFilter(emptyList())
+
+    override val problemRegistrar = registrar
+
+    override val warningRegistrar = registrar
+
+    override val apiUsageProcessors = listOf<ApiUsageProcessor>(object : ApiUsageProcessor {
+      override fun processClassReference(
+        classReference: ClassReference,
+        resolvedClass: ClassFile,
+        context: VerificationContext,
+        referrer: ClassFileMember,
+        classUsageType: ClassUsageType
+      ) {
+        classReferences += "$classReference from ${referrer.location}"
+      }
+    })
+
+    override val memberResolutionMemo = memo
+      ?: if (memoized) MemberResolutionMemo(classResolver, externalClassesPackageFilter) else null
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.tests.dependencies
+
+import com.jetbrains.plugin.structure.ide.Ide
+import com.jetbrains.plugin.structure.intellij.plugin.IdePlugin
+import com.jetbrains.plugin.structure.intellij.plugin.PluginDependency
+import com.jetbrains.plugin.structure.intellij.plugin.PluginDependencyImpl
+import com.jetbrains.plugin.structure.intellij.version.IdeVersion
+import com.jetbrains.pluginverifier.dependencies.DependenciesGraph
+import com.jetbrains.pluginverifier.dependencies.DependenciesGraphBuilder
+import com.jetbrains.pluginverifier.dependencies.DependencyNode
+import com.jetbrains.pluginverifier.dependencies.resolution.DependencyFinder
+import com.jetbrains.pluginverifier.plugin.PluginDetailsCache
+import com.jetbrains.pluginverifier.plugin.PluginDetailsProvider
+import com.jetbrains.pluginverifier.repository.cache.ResourceCacheEntry
+import com.jetbrains.pluginverifier.repository.cleanup.SizeWeight
+import com.jetbrains.pluginverifier.repository.resources.ResourceInfo
+import com.jetbrains.pluginverifier.repository.resources.ResourceLock
+import com.jetbrains.pluginverifier.tests.mocks.MockIde
+import com.jetbrains.pluginverifier.tests.mocks.MockIdePlugin
+import com.jetbrains.pluginverifier.tests.mocks.getDetails
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Checks that the [DependenciesGraphBuilder] shared by several verifications
+ * builds the same graphs as a builder used for a single verification.
+ */
+class DependenciesGraphBuilderReuseTest {
+
+  private lateinit var ide: Ide
+
+  private lateinit var dependencyFinder: DependencyFinder
+
+  private lateinit var verifiedPlugins: List<IdePlugin>
+
+  @Before
+  fun setUp() {
+    /*
+    Bundled plugins of the IDE:
+
+    `com.intellij` defines module `com.intellij.modules.platform`
+    `lib` -> `com.intellij.modules.platform`, `absentModule`
+    `cycleOne` -> `cycleTwo` -> `cycleOne`, `lib`
+    `incompatible` is incompatible with module `com.intellij.modules.platform`
+     */
+    val core = MockIdePlugin(pluginId = "com.intellij", pluginVersion = "1.0", pluginAliases = setOf("com.intellij.modules.platform"))
+    val lib = MockIdePlugin(
+      pluginId = "lib",
+      pluginVersion = "1.0",
+      dependencies = listOf(module("com.intellij.modules.platform"), module("absentModule"))
+    )
+    val cycleOne = MockIdePlugin(pluginId = "cycleOne", pluginVersion = "1.0", dependencies = listOf(plugin("cycleTwo")))
+    val cycleTwo = MockIdePlugin(pluginId = "cycleTwo", pluginVersion = "1.0", dependencies = listOf(plugin("cycleOne"), plugin("lib")))
+    val incompatible = MockIdePlugin(
+      pluginId = "incompatible",
+      pluginVersion = "1.0",
+      incompatibleWith = listOf("com.intellij.modules.platform")
+    )
+    ide = MockIde(IdeVersion.createIdeVersion("IU-241.1"), bundledPlugins = listOf(core, lib, cycleOne, cycleTwo, incompatible))
+    dependencyFinder = BundledPluginsDependencyFinder(ide)
+
+    verifiedPlugins = listOf(
+      verifiedPlugin("first", plugin("lib")),
+      // 'absentModule' is missing before 'lib' is added, so the closure of 'lib' is traversed again.
+      verifiedPlugin("second", module("absentModule"), plugin("lib")),
+      // 'com.intellij' is in the graph before 'lib' is added, so the closure of 'lib' is traversed again.
+      verifiedPlugin("third", plugin("com.intellij"), plugin("lib")),
+      verifiedPlugin("fourth", plugin("cycleOne"), plugin("incompatible")),
+      verifiedPlugin("fifth", plugin("cycleTwo"), plugin("lib"), plugin("unknown")),
+      verifiedPlugin("sixth", plugin("incompatible"), plugin("cycleOne"), plugin("lib")),
+    )
+  }
+
+  @Test
+  fun `shared builder builds the same graphs as separate builders`() {
+    val expected = verifiedPlugins.map { buildGraph(DependenciesGraphBuilder(dependencyFinder), it) }
+
+    val sharedBuilder = DependenciesGraphBuilder(dependencyFinder)
+    repeat(2) {
+      val actual = verifiedPlugins.map { buildGraph(sharedBuilder, it) }
+      assertEquals(expected, actual)
+    }
+  }
+
+  @Test
+  fun `reused closures keep the missing dependencies and cycles`() {
+    val sharedBuilder = DependenciesGraphBuilder(dependencyFinder)
+    verifiedPlugins.forEach { sharedBuilder.buildDependenciesGraph(it, ide) }
+
+    val (graph, _) = sharedBuilder.buildDependenciesGraph(verifiedPlugins.first(), ide)
+    val missingDependencies = graph.missingDependencies.mapKeys { (node, _) -> node.id }.mapValues { (_, missing) -> missing.map { it.dependency.id }.toSet() }
+    assertEquals(mapOf("lib" to setOf("absentModule")), missingDependencies)
+
+    val (cyclicGraph, _) = sharedBuilder.buildDependenciesGraph(verifiedPlugins[3], ide)
+    val cycles = arrayListOf<List<DependencyNode>>()
+    cyclicGraph.checkForCycle { cycles += it }
+    assertTrue(cycles.isEmpty())
+    assertTrue(cyclicGraph.edges.any { it.from.id == "cycleTwo" && it.to.id == "cycleOne" })
+    val cyclicMissingDependencies = cyclicGraph.missingDependencies.mapKeys { (node, _) -> node.id }.mapValues { (_, missing) -> missing.map { it.dependency.id }.toSet() }
+    assertEquals(mapOf("lib" to setOf("absentModule"), "incompatible" to setOf("com.intellij.modules.platform")), cyclicMissingDependencies)
+  }
+
+  @Test
+  fun `shared builder builds the same graphs concurrently`() {
+    val expected = verifiedPlugins.map { buildGraph(DependenciesGraphBuilder(dependencyFinder), it) }
+
+    val sharedBuilder = DependenciesGraphBuilder(dependencyFinder)
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val tasks = (1..20).flatMap { verifiedPlugins.shuffled() }.map { plugin ->
+        plugin to executor.submit(Callable { buildGraph(sharedBuilder, plugin) })
+      }
+      for ((plugin, task) in tasks) {
+        assertEquals(expected[verifiedPlugins.indexOf(plugin)], task.get(1, TimeUnit.MINUTES))
+      }
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun `dependencies provided by the plugin details cache are closed exactly once`() {
+    /*
+    `libWithProvided` -> `provided`, `lib`
+    `libWithProvided` is incompatible with `provided`
+    `provided` is provided by the plugin details cache
+     */
+    val lib = MockIdePlugin(pluginId = "lib", pluginVersion = "1.0")
+    val provided = MockIdePlugin(pluginId = "provided", pluginVersion = "1.0")
+    val libWithProvided = MockIdePlugin(
+      pluginId = "libWithProvided",
+      pluginVersion = "1.0",
+      dependencies = listOf(plugin("provided"), plugin("lib")),
+      incompatibleWith = listOf("provided")
+    )
+    val ide = MockIde(IdeVersion.createIdeVersion("IU-241.1"), bundledPlugins = listOf(lib, libWithProvided))
+    val dependencyFinder = DetailsProvidingDependencyFinder(BundledPluginsDependencyFinder(ide), listOf(provided))
+
+    val sharedBuilder = DependenciesGraphBuilder(dependencyFinder)
+    repeat(3) {
+      val (graph, results) = sharedBuilder.buildDependenciesGraph(verifiedPlugin("verified", plugin("libWithProvided")), ide)
+      assertEquals(setOf("verified", "libWithProvided", "provided", "lib"), graph.vertices.map { it.id }.toSet())
+      results.forEach { it.close() }
+    }
+
+    assertTrue(dependencyFinder.locks.isNotEmpty())
+    for (lock in dependencyFinder.locks) {
+      assertEquals(1, lock.releasesCount.get())
+    }
+  }
+
+  private fun buildGraph(builder: DependenciesGraphBuilder, plugin: IdePlugin): BuiltGraph {
+    val (graph, results) = builder.buildDependenciesGraph(plugin, ide)
+    return BuiltGraph(graph, graph.vertices.toList(), results)
+  }
+
+  /**
+   * The graph along with the order of vertices, which defines the order of the classpath of dependencies.
+   */
+  private data class BuiltGraph(
+    val graph: DependenciesGraph,
+    val vertices: List<DependencyNode>,
+    val dependencyResults: List<DependencyFinder.Result>
+  )
+
+  private fun verifiedPlugin(id: String, vararg dependencies: PluginDependency) =
+    MockIdePlugin(pluginId = id, pluginVersion = "1.0", dependencies = dependencies.toList())
+
+  private fun plugin(id: String) = PluginDependencyImpl(id, false, false)
+
+  private fun module(id: String) = PluginDependencyImpl(id, false, true)
+
+  private class BundledPluginsDependencyFinder(private val ide: Ide) : DependencyFinder {
+    override val presentableName: String = "bundled plugins"
+
+    override fun findPluginDependency(dependencyId: String, isModule: Boolean): DependencyFinder.Result {
+      val plugin = if (isModule) ide.findPluginByModule(dependencyId) else ide.findPluginById(dependencyId)
+      return plugin?.let { DependencyFinder.Result.FoundPlugin(it) } ?: DependencyFinder.Result.NotFound("'$dependencyId' is not bundled")
+    }
+
+    override fun findPluginDependency(dependency: PluginDependency) =
+      findPluginDependency(dependency.id, dependency.isModule)
+  }
+
+  /**
+   * Provides the [providedPlugins] through the plugin details cache and the rest by the [delegate].
+   * Records the [locks] of all the provided results.
+   */
+  private class DetailsProvidingDependencyFinder(
+    private val delegate: DependencyFinder,
+    private val providedPlugins: List<IdePlugin>
+  ) : DependencyFinder {
+    override val presentableName: String = "plugin details cache"
+
+    val locks = CopyOnWriteArrayList<CountingLock>()
+
+    override fun findPluginDependency(dependencyId: String, isModule: Boolean): DependencyFinder.Result {
+      val plugin = providedPlugins.find { it.pluginId == dependencyId }
+        ?: return delegate.findPluginDependency(dependencyId, isModule)
+      val lock = CountingLock(plugin)
+      locks += lock
+      return DependencyFinder.Result.DetailsProvided(PluginDetailsCache.Result.Provided(ResourceCacheEntry(lock)))
+    }
+
+    override fun findPluginDependency(dependency: PluginDependency) =
+      findPluginDependency(dependency.id, dependency.isModule)
+  }
+
+  private class CountingLock(plugin: IdePlugin) : ResourceLock<PluginDetailsProvider.Result.Provided, SizeWeight>(
+    Instant.now(),
+    ResourceInfo(PluginDetailsProvider.Result.Provided(plugin.getDetails()), SizeWeight(1))
+  ) {
+    val releasesCount = AtomicInteger()
+
+    override fun release() {
+      releasesCount.incrementAndGet()
+    }
+  }
+}
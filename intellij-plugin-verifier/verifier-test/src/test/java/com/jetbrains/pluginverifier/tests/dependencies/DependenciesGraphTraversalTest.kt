@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2026 JetBrains s.r.o. and other contributors. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+ */
+
+package com.jetbrains.pluginverifier.tests.dependencies
+
+import com.jetbrains.plugin.structure.intellij.plugin.PluginV1Dependency
+import com.jetbrains.pluginverifier.dependencies.DependenciesGraph
+import com.jetbrains.pluginverifier.dependencies.DependencyEdge
+import com.jetbrains.pluginverifier.dependencies.DependencyNode.Companion.dependencyNode
+import com.jetbrains.pluginverifier.dependencies.MissingDependency
+import com.jetbrains.pluginverifier.dependencies.processing.CompactDigraph
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class DependenciesGraphTraversalTest {
+  private val a = dependencyNode("a", "1.0")
+  private val b = dependencyNode("b", "1.0")
+  private val c = dependencyNode("c", "1.0")
+  private val d = dependencyNode("d", "1.0")
+  private val e = dependencyNode("e", "1.0")
+  private val unrelated = dependencyNode("unrelated", "1.0")
+
+  private val aToB = DependencyEdge(a, b, PluginV1Dependency.Mandatory("b"))
+  private val bToC = DependencyEdge(b, c, PluginV1Dependency.Mandatory("c"))
+  private val cToD = DependencyEdge(c, d, PluginV1Dependency.Optional("d"))
+  private val aToD = DependencyEdge(a, d, PluginV1Dependency.Optional("d"))
+  private val dToE = DependencyEdge(d, e, PluginV1Dependency.Mandatory("e"))
+  private val eToB = DependencyEdge(e, b, PluginV1Dependency.Mandatory("b"))
+  private val unrelatedToA = DependencyEdge(unrelated, a, PluginV1Dependency.Mandatory("a"))
+
+  /**
+   * a -> b -> c -> d -> e -> b, a -> d, unrelated -> a
+   */
+  private val dependenciesGraph = DependenciesGraph(
+    a,
+    setOf(a, b, c, d, e, unrelated),
+    setOf(aToB, bToC, cToD, aToD, dToE, eToB, unrelatedToA),
+    emptyMap()
+  )
+
+  @Test
+  fun `transitive dependencies are reachable from the verified plugin`() {
+    assertEquals(setOf(b, d, c, e), dependenciesGraph.getTransitiveDependencies())
+  }
+
+  @Test
+  fun `shortest dependency path to a node is found`() {
+    assertEquals(listOf(aToD, dToE), dependenciesGraph.getDependencyPath(e))
+    assertEquals(listOf(aToB, bToC), dependenciesGraph.getDependencyPath(c))
+    assertEquals(emptyList<DependencyEdge>(), dependenciesGraph.getDependencyPath(a))
+  }
+
+  @Test
+  fun `dependency path to a node that is not a dependency is not found`() {
+    assertNull(dependenciesGraph.getDependencyPath(unrelated))
+    assertNull(dependenciesGraph.getDependencyPath(dependencyNode("absent", "1.0")))
+  }
+
+  @Test
+  fun `missing dependencies of dependencies are explained by dependency paths`() {
+    val missingDependency = MissingDependency(PluginV1Dependency.Mandatory("missing"), "plugin missing is not found")
+    val graph = dependenciesGraph.copy(
+      missingDependencies = mapOf(a to setOf(missingDependency), e to setOf(missingDependency), unrelated to setOf(missingDependency))
+    )
+    assertEquals(mapOf(e to listOf(aToD, dToE)), graph.getTransitiveMissingDependencyPaths())
+  }
+
+  @Test
+  fun `cycle not involving the verified plugin is not reported`() {
+    var cycle: Any? = null
+    dependenciesGraph.checkForCycle { cycle = it }
+    assertNull(cycle)
+  }
+
+  @Test
+  fun `parallel edges are not added`() {
+    val builder = CompactDigraph.Builder<String, Int>()
+    assertTrue(builder.addVertex("a"))
+    assertFalse(builder.addVertex("a"))
+    builder.addVertex("b")
+    assertTrue(builder.addEdge("a", "b", 1))
+    assertFalse(builder.addEdge("a", "b", 2))
+    assertTrue(builder.addEdge("b", "a", 3))
+
+    val graph = builder.build()
+    val edges = arrayListOf<Int>()
+    graph.forEachEdge { _, _, label -> edges += label }
+    assertEquals(listOf(1, 3), edges)
+    assertEquals(listOf("a", "b"), graph.findCycleThrough("a"))
+    assertEquals(listOf(1), graph.findShortestPath("a", "b"))
+  }
+
+  @Test
+  fun `self loop alone is not a cycle`() {
+    val builder = CompactDigraph.Builder<String, Int>()
+    builder.addVertex("a")
+    builder.addVertex("b")
+    builder.addEdge("a", "a", 1)
+    builder.addEdge("a", "b", 2)
+
+    val graph = builder.build()
+    assertNull(graph.findCycleThrough("a"))
+    assertEquals(setOf("a", "b"), graph.getReachableVertices("a"))
+  }
+}